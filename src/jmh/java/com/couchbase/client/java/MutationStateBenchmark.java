@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java;
+
+import java.util.concurrent.TimeUnit;
+
+import com.couchbase.client.core.message.kv.MutationToken;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.document.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures collecting mutation tokens into a {@link MutationState} for AT_PLUS queries, both one document at a
+ * time and by merging states, with tokens spread over the given number of distinct vbuckets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MutationStateBenchmark {
+
+    /**
+     * Number of distinct vbuckets the mutated documents belong to.
+     */
+    @Param({"16", "256", "1024"})
+    public int vbuckets;
+
+    private JsonDocument[] documents;
+    private MutationState other;
+
+    @Setup
+    public void setup() {
+        documents = new JsonDocument[vbuckets * 2];
+        for (int i = 0; i < documents.length; i++) {
+            MutationToken token = new MutationToken(i % vbuckets, 1234L, i, "travel-sample");
+            documents[i] = JsonDocument.create("doc::" + i, 0, JsonObject.empty(), 0, token);
+        }
+        other = MutationState.from(documents[documents.length - 1]);
+        for (int i = documents.length - 2; i >= 0; i--) {
+            other.add(documents[i]);
+        }
+    }
+
+    @Benchmark
+    public MutationState addDocuments() {
+        MutationState state = MutationState.from(documents[0]);
+        for (int i = 1; i < documents.length; i++) {
+            state.add(documents[i]);
+        }
+        return state;
+    }
+
+    @Benchmark
+    public MutationState mergeStates() {
+        return MutationState.from(documents[0]).add(other);
+    }
+
+    @Benchmark
+    public JsonObject export() {
+        return other.export();
+    }
+}
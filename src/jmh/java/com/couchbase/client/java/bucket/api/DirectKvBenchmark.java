@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bucket.api;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.CoreContext;
+import com.couchbase.client.core.endpoint.kv.KeyValueStatus;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.kv.GetRequest;
+import com.couchbase.client.core.message.kv.GetResponse;
+import com.couchbase.client.core.message.kv.UpsertResponse;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.deps.io.netty.util.CharsetUtil;
+import com.couchbase.client.java.CouchbaseAsyncBucket;
+import com.couchbase.client.java.document.Document;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.env.CouchbaseEnvironment;
+import com.couchbase.client.java.env.DefaultCouchbaseEnvironment;
+import com.couchbase.client.java.future.CouchbaseFuture;
+import com.couchbase.client.java.transcoder.Transcoder;
+import com.couchbase.client.java.transcoder.TranscoderUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import rx.Observable;
+import rx.subjects.Subject;
+
+/**
+ * Compares the client-side cost of a get and an upsert through the {@link Observable} chain of the
+ * {@link com.couchbase.client.java.AsyncBucket}, bridged to a future or blocked on like the
+ * {@link com.couchbase.client.java.Bucket} does, with completing a {@link CouchbaseFuture} directly through
+ * {@link DirectKv}. The core answers every request immediately through the request observable, like the real
+ * core does, so only the request path and the response conversion are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DirectKvBenchmark {
+
+    private static final long TIMEOUT = 2500;
+    private static final byte[] CONTENT = "{\"name\":\"couchbase\",\"type\":\"benchmark\"}".getBytes(CharsetUtil.UTF_8);
+
+    private CouchbaseEnvironment environment;
+    private ClusterFacade core;
+    private Map<Class<? extends Document>, Transcoder<? extends Document, ?>> transcoders;
+    private Transcoder<Document<Object>, Object> transcoder;
+    private JsonDocument document;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        environment = DefaultCouchbaseEnvironment.create();
+        core = new AnsweringCore();
+        transcoders = new HashMap<Class<? extends Document>, Transcoder<? extends Document, ?>>();
+        transcoders.put(JsonDocument.class, CouchbaseAsyncBucket.JSON_OBJECT_TRANSCODER);
+        transcoder = (Transcoder<Document<Object>, Object>) (Transcoder<?, ?>) CouchbaseAsyncBucket.JSON_OBJECT_TRANSCODER;
+        document = JsonDocument.create("id", JsonObject.create().put("name", "couchbase").put("type", "benchmark"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        environment.shutdown();
+    }
+
+    @Benchmark
+    public JsonDocument getObservableBlocking() {
+        return Get.get("id", JsonDocument.class, environment, "bucket", core, transcoders, TIMEOUT,
+            TimeUnit.MILLISECONDS).toBlocking().singleOrDefault(null);
+    }
+
+    @Benchmark
+    public JsonDocument getObservableFuture() throws Exception {
+        return CouchbaseFuture.from(Get.get("id", JsonDocument.class, environment, "bucket", core, transcoders,
+            TIMEOUT, TimeUnit.MILLISECONDS)).get();
+    }
+
+    @Benchmark
+    public JsonDocument getDirect() throws Exception {
+        return DirectKv.get("id", JsonDocument.class, environment, "bucket", core, transcoders, TIMEOUT,
+            TimeUnit.MILLISECONDS).get();
+    }
+
+    @Benchmark
+    public JsonDocument upsertObservableFuture() throws Exception {
+        return CouchbaseFuture.from(Mutate.upsert(document, environment, transcoder, core, "bucket", TIMEOUT,
+            TimeUnit.MILLISECONDS, null)).get();
+    }
+
+    @Benchmark
+    public JsonDocument upsertDirect() throws Exception {
+        return DirectKv.upsert(document, environment, transcoder, core, "bucket", TIMEOUT, TimeUnit.MILLISECONDS)
+            .get();
+    }
+
+    /**
+     * Answers gets with a small document and everything else with a successful upsert.
+     */
+    private static class AnsweringCore implements ClusterFacade {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <R extends CouchbaseResponse> Observable<R> send(CouchbaseRequest request) {
+            CouchbaseResponse response;
+            if (request instanceof GetRequest) {
+                response = new GetResponse(ResponseStatus.SUCCESS, KeyValueStatus.SUCCESS.code(), 1234,
+                    TranscoderUtils.JSON_COMMON_FLAGS, "bucket", Unpooled.wrappedBuffer(CONTENT), request);
+            } else {
+                response = new UpsertResponse(ResponseStatus.SUCCESS, KeyValueStatus.SUCCESS.code(), 1234, "bucket",
+                    Unpooled.EMPTY_BUFFER, null, request);
+            }
+            Subject<CouchbaseResponse, CouchbaseResponse> observable = request.observable();
+            observable.onNext(response);
+            observable.onCompleted();
+            return (Observable<R>) observable;
+        }
+
+        @Override
+        public long id() {
+            return 0;
+        }
+
+        @Override
+        public CoreContext ctx() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.document.json;
+
+/**
+ * Builds the JSON documents shared by the benchmarks, so that results for different code paths can be compared
+ * for the same document size and shape.
+ *
+ * The size is the number of scalar values in the document:
+ *
+ * - `small`: 10 values, roughly 250 bytes encoded.
+ * - `medium`: 100 values, roughly 2.5KB encoded.
+ * - `large`: 1000 values, roughly 25KB encoded.
+ *
+ * The shape determines how the values are laid out:
+ *
+ * - `flat`: all values are fields of the top level object.
+ * - `nested`: the values are spread over objects nested up to four levels deep.
+ * - `array`: the values are fields of small objects in a top level array, like a list of order lines.
+ */
+public final class JsonFixtures {
+
+    private JsonFixtures() {
+    }
+
+    /**
+     * Returns the number of scalar values for the given size name.
+     */
+    public static int values(String size) {
+        if ("small".equals(size)) {
+            return 10;
+        } else if ("medium".equals(size)) {
+            return 100;
+        } else if ("large".equals(size)) {
+            return 1000;
+        }
+        throw new IllegalArgumentException("Unknown document size: " + size);
+    }
+
+    /**
+     * Creates a document of the given size and shape.
+     */
+    public static JsonObject document(String size, String shape) {
+        int values = values(size);
+        if ("flat".equals(shape)) {
+            return flat(values);
+        } else if ("nested".equals(shape)) {
+            return nested(values);
+        } else if ("array".equals(shape)) {
+            return array(values);
+        }
+        throw new IllegalArgumentException("Unknown document shape: " + shape);
+    }
+
+    private static JsonObject flat(int values) {
+        JsonObject object = JsonObject.create();
+        for (int i = 0; i < values; i++) {
+            putValue(object, i);
+        }
+        return object;
+    }
+
+    private static JsonObject nested(int values) {
+        JsonObject root = JsonObject.create();
+        JsonObject current = root;
+        int depth = 0;
+        for (int i = 0; i < values; i++) {
+            if (i > 0 && i % 5 == 0) {
+                JsonObject child = JsonObject.create();
+                current.put("child" + i, child);
+                depth++;
+                current = depth % 4 == 0 ? root : child;
+            }
+            putValue(current, i);
+        }
+        return root;
+    }
+
+    private static JsonObject array(int values) {
+        JsonArray lines = JsonArray.create();
+        JsonObject line = null;
+        for (int i = 0; i < values; i++) {
+            if (i % 5 == 0) {
+                line = JsonObject.create();
+                lines.add(line);
+            }
+            putValue(line, i);
+        }
+        return JsonObject.create().put("lines", lines);
+    }
+
+    private static void putValue(JsonObject target, int i) {
+        switch (i % 5) {
+            case 0:
+                target.put("id" + i, "item::" + i);
+                break;
+            case 1:
+                target.put("quantity" + i, i);
+                break;
+            case 2:
+                target.put("price" + i, i * 1.25d);
+                break;
+            case 3:
+                target.put("available" + i, i % 2 == 0);
+                break;
+            default:
+                target.put("description" + i, "A reasonably long description of value " + i);
+                break;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.document.json;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures building and reading a {@link JsonObject} through its typed accessors, the way application code
+ * populates documents before an upsert and consumes them after a get.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonObjectBenchmark {
+
+    /**
+     * Number of fields in the object.
+     */
+    @Param({"8", "64"})
+    public int fields;
+
+    private String[] names;
+    private String[] strings;
+    private JsonObject populated;
+
+    @Setup
+    public void setup() {
+        names = new String[fields];
+        strings = new String[fields];
+        populated = JsonObject.create();
+        for (int i = 0; i < fields; i++) {
+            names[i] = "field" + i;
+            strings[i] = "value" + i;
+            populated.put(names[i], strings[i]);
+        }
+    }
+
+    @Benchmark
+    public JsonObject putString() {
+        JsonObject object = JsonObject.create();
+        for (int i = 0; i < fields; i++) {
+            object.put(names[i], strings[i]);
+        }
+        return object;
+    }
+
+    @Benchmark
+    public JsonObject putMixed() {
+        JsonObject object = JsonObject.create();
+        for (int i = 0; i < fields; i++) {
+            switch (i & 3) {
+                case 0:
+                    object.put(names[i], strings[i]);
+                    break;
+                case 1:
+                    object.put(names[i], i);
+                    break;
+                case 2:
+                    object.put(names[i], i * 0.5d);
+                    break;
+                default:
+                    object.put(names[i], true);
+                    break;
+            }
+        }
+        return object;
+    }
+
+    @Benchmark
+    public void getString(Blackhole blackhole) {
+        for (int i = 0; i < fields; i++) {
+            blackhole.consume(populated.getString(names[i]));
+        }
+    }
+
+    @Benchmark
+    public void getObject(Blackhole blackhole) {
+        for (int i = 0; i < fields; i++) {
+            blackhole.consume(populated.get(names[i]));
+        }
+    }
+
+    @Benchmark
+    public void iterateNames(Blackhole blackhole) {
+        for (String name : populated.getNames()) {
+            blackhole.consume(populated.get(name));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.query;
+
+import java.util.concurrent.TimeUnit;
+
+import com.couchbase.client.java.CouchbaseAsyncBucket;
+import com.couchbase.client.java.document.json.JsonArray;
+import com.couchbase.client.java.query.consistency.ScanConsistency;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares building the request body of a parameterized query the regular way (assembling and encoding the
+ * full {@link com.couchbase.client.java.document.json.JsonObject} and substituting the bucket placeholder) with
+ * rendering a bound {@link CompiledN1qlQuery}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompiledN1qlQueryBenchmark {
+
+    private static final String STATEMENT = "SELECT name, country, icao FROM #CURRENT_BUCKET# "
+        + "WHERE type = $1 AND country = $2 AND name LIKE $3 ORDER BY name LIMIT 10";
+
+    private N1qlParams params;
+    private CompiledN1qlQuery compiled;
+    private JsonArray args;
+
+    @Setup
+    public void setup() {
+        params = N1qlParams.build()
+            .consistency(ScanConsistency.NOT_BOUNDED)
+            .serverSideTimeout(75, TimeUnit.SECONDS)
+            .withContextId("0e6c2b64-67d3-4bbd-9c1f-0ed7e4b4a2a1");
+        compiled = N1qlQuery.compile(STATEMENT, params);
+        args = JsonArray.from("airline", "United States", "A%");
+    }
+
+    @Benchmark
+    public String parameterized() {
+        return N1qlQuery.parameterized(STATEMENT, args, params).n1ql().toString()
+            .replaceAll(CouchbaseAsyncBucket.CURRENT_BUCKET_IDENTIFIER, "`travel-sample`");
+    }
+
+    @Benchmark
+    public String compiled() {
+        return compiled.bind(args).render("travel-sample");
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.query;
+
+import java.util.concurrent.TimeUnit;
+
+import com.couchbase.client.java.document.json.JsonFixtures;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.transcoder.JacksonTransformers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures decoding a N1QL result row into a {@link JsonObject} through {@link DefaultAsyncN1qlQueryRow#value()},
+ * which every consumer of {@link AsyncN1qlQueryResult#rows()} pays once per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class N1qlQueryRowBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    @Param({"flat", "nested"})
+    public String shape;
+
+    private byte[] row;
+
+    @Setup
+    public void setup() throws Exception {
+        row = JacksonTransformers.MAPPER.writeValueAsBytes(JsonFixtures.document(size, shape));
+    }
+
+    @Benchmark
+    public JsonObject decodeRow() {
+        return new DefaultAsyncN1qlQueryRow(row).value();
+    }
+}
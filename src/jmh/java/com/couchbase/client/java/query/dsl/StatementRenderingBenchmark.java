@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.query.dsl;
+
+import static com.couchbase.client.java.query.Select.select;
+import static com.couchbase.client.java.query.dsl.Expression.i;
+import static com.couchbase.client.java.query.dsl.Expression.s;
+import static com.couchbase.client.java.query.dsl.Expression.x;
+
+import java.util.concurrent.TimeUnit;
+
+import com.couchbase.client.java.query.Statement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building N1QL statements with the DSL and rendering them through {@link Expression} and the
+ * {@link com.couchbase.client.java.query.dsl.path.AbstractPath} chain, separately and combined, since a statement
+ * is rendered again every time it is turned into a query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatementRenderingBenchmark {
+
+    /**
+     * Number of predicates in the WHERE clause.
+     */
+    @Param({"2", "16"})
+    public int predicates;
+
+    private Statement built;
+
+    @Setup
+    public void setup() {
+        built = build();
+    }
+
+    @Benchmark
+    public Statement buildOnly() {
+        return build();
+    }
+
+    @Benchmark
+    public String renderOnly() {
+        return built.toString();
+    }
+
+    @Benchmark
+    public String buildAndRender() {
+        return build().toString();
+    }
+
+    private Statement build() {
+        Expression where = x("type").eq(s("airline"));
+        for (int i = 1; i < predicates; i++) {
+            where = where.and(x("field" + i).gt(i));
+        }
+        return select(x("name"), x("country"), i("icao").as("code"))
+            .from(i("travel-sample")).as("a")
+            .where(where)
+            .orderBy(Sort.asc("name"))
+            .limit(10);
+    }
+}
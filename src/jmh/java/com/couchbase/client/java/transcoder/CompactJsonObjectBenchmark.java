@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.transcoder;
+
+import java.util.concurrent.TimeUnit;
+
+import com.couchbase.client.deps.com.fasterxml.jackson.core.Version;
+import com.couchbase.client.deps.com.fasterxml.jackson.databind.ObjectMapper;
+import com.couchbase.client.deps.com.fasterxml.jackson.databind.module.SimpleModule;
+import com.couchbase.client.java.document.json.JsonArray;
+import com.couchbase.client.java.document.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares decoding a result set of rows with identical fields into regular and compact {@link JsonObject}s.
+ *
+ * The normalized allocation of the decode is dominated by the decoded rows, so it approximates the heap the result
+ * set retains.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompactJsonObjectBenchmark {
+
+    private static final int ROWS = 1000;
+
+    @Param({"regular", "compact"})
+    public String encoding;
+
+    @Param({"5", "20"})
+    public int fields;
+
+    private ObjectMapper mapper;
+    private byte[] rows;
+
+    @Setup
+    public void setup() throws Exception {
+        boolean compact = "compact".equals(encoding);
+        SimpleModule module = new SimpleModule("JsonValueModule", new Version(1, 0, 0, null, null, null));
+        module.addDeserializer(JsonObject.class, new JacksonTransformers.JsonObjectDeserializer(compact));
+        module.addDeserializer(JsonArray.class, new JacksonTransformers.JsonArrayDeserializer(compact));
+        mapper = new ObjectMapper().registerModule(module);
+
+        JsonArray result = JsonArray.empty();
+        for (int r = 0; r < ROWS; r++) {
+            JsonObject row = JsonObject.create();
+            for (int f = 0; f < fields; f++) {
+                switch (f % 4) {
+                    case 0:
+                        row.put("field" + f, "value " + r);
+                        break;
+                    case 1:
+                        row.put("field" + f, r * f);
+                        break;
+                    case 2:
+                        row.put("field" + f, r % 2 == 0);
+                        break;
+                    default:
+                        row.put("field" + f, r * 0.5d);
+                        break;
+                }
+            }
+            result.add(row);
+        }
+        rows = JacksonTransformers.MAPPER.writeValueAsBytes(result);
+    }
+
+    @Benchmark
+    public JsonArray decode() throws Exception {
+        return mapper.readValue(rows, JsonArray.class);
+    }
+}
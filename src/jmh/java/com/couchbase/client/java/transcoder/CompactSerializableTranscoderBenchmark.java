@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.transcoder;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.couchbase.client.core.lang.Tuple2;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.java.document.SerializableDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the {@link SerializableTranscoder} with the {@link CompactSerializableTranscoder} on a route with
+ * a list of schedules.
+ *
+ * With 10 schedules the route takes 866 bytes with Java serialization and 249 bytes in the compact encoding.
+ *
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.include=CompactSerializableTranscoderBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompactSerializableTranscoderBenchmark {
+
+    @Param({"serializable", "compact"})
+    public String encoding;
+
+    private AbstractTranscoder<SerializableDocument, Serializable> transcoder;
+    private SerializableDocument document;
+    private int flags;
+    private ByteBuf encoded;
+
+    @Setup
+    public void setup() {
+        if ("compact".equals(encoding)) {
+            transcoder = new CompactSerializableTranscoder(CompactClassRegistry.create()
+                .register(1, Route.class)
+                .register(2, Schedule.class));
+        } else {
+            transcoder = new SerializableTranscoder();
+        }
+        document = SerializableDocument.create("route::1", Route.create(10));
+        Tuple2<ByteBuf, Integer> first = transcoder.encode(document);
+        encoded = Unpooled.copiedBuffer(first.value1());
+        flags = first.value2();
+        first.value1().release();
+    }
+
+    @TearDown
+    public void tearDown() {
+        encoded.release();
+    }
+
+    @Benchmark
+    public int encode() {
+        ByteBuf buffer = transcoder.encode(document).value1();
+        int length = buffer.readableBytes();
+        buffer.release();
+        return length;
+    }
+
+    @Benchmark
+    public SerializableDocument decode() {
+        return transcoder.decode(document.id(), encoded.duplicate().retain(), 0, 0, flags, ResponseStatus.SUCCESS);
+    }
+
+    public static class Route implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        String airline;
+        String sourceAirport;
+        String destinationAirport;
+        int stops;
+        double distance;
+        List<String> equipment;
+        List<Schedule> schedule;
+
+        static Route create(int schedules) {
+            Route route = new Route();
+            route.airline = "AF";
+            route.sourceAirport = "TLV";
+            route.destinationAirport = "MRS";
+            route.stops = 0;
+            route.distance = 2881.617376098415;
+            route.equipment = Arrays.asList("320", "321");
+            route.schedule = new ArrayList<Schedule>();
+            for (int i = 0; i < schedules; i++) {
+                Schedule schedule = new Schedule();
+                schedule.day = i % 7;
+                schedule.flight = "AF" + (198 + i);
+                schedule.utc = (10 + i % 12) + ":13:00";
+                route.schedule.add(schedule);
+            }
+            return route;
+        }
+    }
+
+    public static class Schedule implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        int day;
+        String flight;
+        String utc;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.transcoder;
+
+import com.couchbase.client.java.document.json.JsonArray;
+import com.couchbase.client.java.document.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encoding a nested {@link JsonObject} through the streaming serializer in {@link JacksonTransformers}
+ * with the previous approach of copying it through {@link JsonObject#toMap()} first.
+ *
+ * In the baseline the streaming path allocates about 40% of what the copy allocates (27KB instead of 66KB with 60
+ * entries, 70KB instead of 163KB with 150 entries) and takes 25 to 30% less time (79 instead of 116us, 185 instead
+ * of 248us).
+ *
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.include=JsonObjectSerializerBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonObjectSerializerBenchmark {
+
+    /**
+     * Number of entries in the top level array, 60 results in roughly 20KB and 150 in roughly 50KB.
+     */
+    @Param({"60", "150"})
+    public int entries;
+
+    private JsonObject document;
+
+    @Setup
+    public void setup() {
+        JsonArray items = JsonArray.create();
+        for (int i = 0; i < entries; i++) {
+            items.add(JsonObject.create()
+                .put("id", "item::" + i)
+                .put("position", i)
+                .put("price", i * 1.25d)
+                .put("available", i % 2 == 0)
+                .put("tags", JsonArray.from("red", "green", "blue"))
+                .put("dimensions", JsonObject.create()
+                    .put("width", 10 + i)
+                    .put("height", 20L + i)
+                    .put("unit", "cm"))
+                .put("description", "A reasonably long description for item number " + i));
+        }
+        document = JsonObject.create()
+            .put("type", "order")
+            .put("customer", JsonObject.create().put("name", "Jane Doe").put("vip", true))
+            .put("items", items);
+    }
+
+    @Benchmark
+    public byte[] streaming() throws Exception {
+        return JacksonTransformers.MAPPER.writeValueAsBytes(document);
+    }
+
+    @Benchmark
+    public byte[] copyThroughMap() throws Exception {
+        return JacksonTransformers.MAPPER.writeValueAsBytes(document.toMap());
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.transcoder;
+
+import java.util.concurrent.TimeUnit;
+
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.deps.com.fasterxml.jackson.databind.ObjectReader;
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.document.json.JsonFixtures;
+import com.couchbase.client.java.document.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the JSON document transcoding paths of a get and an upsert: {@link JsonTranscoder} encode and decode,
+ * {@link TranscoderUtils#byteBufToClass} on heap and direct buffers and the plain {@link JacksonTransformers}
+ * reads they are built on.
+ *
+ * The decode benchmarks hand the transcoder a retained duplicate of the encoded buffer, like a response does, so
+ * that the release performed by the transcoder is part of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonTranscoderBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    @Param({"flat", "nested", "array"})
+    public String shape;
+
+    private JsonTranscoder transcoder;
+    private JsonDocument document;
+    private byte[] bytes;
+    private String json;
+    private ByteBuf heap;
+    private ByteBuf direct;
+    private ObjectReader reader;
+
+    @Setup
+    public void setup() throws Exception {
+        transcoder = new JsonTranscoder();
+        JsonObject content = JsonFixtures.document(size, shape);
+        document = JsonDocument.create("benchmark::" + size + "::" + shape, content);
+        bytes = JacksonTransformers.MAPPER.writeValueAsBytes(content);
+        json = new String(bytes, "UTF-8");
+        heap = Unpooled.wrappedBuffer(bytes);
+        direct = Unpooled.directBuffer(bytes.length).writeBytes(bytes);
+        reader = JacksonTransformers.readerFor(JsonObject.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        heap.release();
+        direct.release();
+    }
+
+    @Benchmark
+    public int encode() {
+        ByteBuf encoded = transcoder.encode(document).value1();
+        int length = encoded.readableBytes();
+        encoded.release();
+        return length;
+    }
+
+    @Benchmark
+    public JsonDocument decodeHeap() {
+        return transcoder.decode(document.id(), heap.duplicate().retain(), 0, 0, TranscoderUtils.JSON_COMPAT_FLAGS,
+            ResponseStatus.SUCCESS);
+    }
+
+    @Benchmark
+    public JsonDocument decodeDirect() {
+        return transcoder.decode(document.id(), direct.duplicate().retain(), 0, 0, TranscoderUtils.JSON_COMPAT_FLAGS,
+            ResponseStatus.SUCCESS);
+    }
+
+    @Benchmark
+    public JsonObject byteBufToClassMapper() throws Exception {
+        return TranscoderUtils.byteBufToClass(heap.duplicate(), JsonObject.class, JacksonTransformers.MAPPER);
+    }
+
+    @Benchmark
+    public JsonObject byteBufToClassReader() throws Exception {
+        return TranscoderUtils.byteBufToClass(heap.duplicate(), reader);
+    }
+
+    @Benchmark
+    public JsonObject mapperReadBytes() throws Exception {
+        return JacksonTransformers.MAPPER.readValue(bytes, JsonObject.class);
+    }
+
+    @Benchmark
+    public JsonObject mapperReadString() throws Exception {
+        return transcoder.stringToJsonObject(json);
+    }
+
+    @Benchmark
+    public String mapperWriteString() throws Exception {
+        return transcoder.jsonObjectToString(document.content());
+    }
+}
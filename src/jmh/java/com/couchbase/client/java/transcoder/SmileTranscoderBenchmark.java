@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.transcoder;
+
+import java.util.concurrent.TimeUnit;
+
+import com.couchbase.client.core.lang.Tuple2;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.java.document.Document;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.document.SmileDocument;
+import com.couchbase.client.java.document.json.JsonFixtures;
+import com.couchbase.client.java.document.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares encoding and decoding the same {@link JsonObject} as a {@link JsonDocument} with the
+ * {@link JsonTranscoder} and as a {@link SmileDocument} with the {@link SmileTranscoder}.
+ *
+ * The array shape repeats the same property names in every element, which Smile writes as back references.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SmileTranscoderBenchmark {
+
+    @Param({"json", "smile"})
+    public String encoding;
+
+    @Param({"medium", "large"})
+    public String size;
+
+    @Param({"flat", "array"})
+    public String shape;
+
+    private Transcoder<Document<JsonObject>, JsonObject> transcoder;
+    private Document<JsonObject> document;
+    private ByteBuf encoded;
+    private int flags;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        JsonObject content = JsonFixtures.document(size, shape);
+        String id = "benchmark::" + size + "::" + shape;
+        if ("json".equals(encoding)) {
+            transcoder = (Transcoder) new JsonTranscoder();
+            document = (Document) JsonDocument.create(id, content);
+        } else {
+            transcoder = (Transcoder) new SmileTranscoder();
+            document = (Document) SmileDocument.create(id, content);
+        }
+        Tuple2<ByteBuf, Integer> result = transcoder.encode(document);
+        encoded = result.value1();
+        flags = result.value2();
+    }
+
+    @TearDown
+    public void tearDown() {
+        encoded.release();
+    }
+
+    @Benchmark
+    public int encode() {
+        ByteBuf buffer = transcoder.encode(document).value1();
+        int length = buffer.readableBytes();
+        buffer.release();
+        return length;
+    }
+
+    @Benchmark
+    public Document<JsonObject> decode() {
+        return transcoder.decode(document.id(), encoded.duplicate().retain(), 0, 0, flags, ResponseStatus.SUCCESS);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.util;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.config.BucketConfig;
+import com.couchbase.client.core.config.ClusterConfig;
+import com.couchbase.client.core.config.ConfigurationProvider;
+import com.couchbase.client.core.config.DefaultClusterConfig;
+import com.couchbase.client.core.config.parser.BucketConfigParser;
+import com.couchbase.client.core.env.ConfigParserEnvironment;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.internal.GetConfigProviderResponse;
+import com.couchbase.client.java.Bucket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import rx.Observable;
+
+/**
+ * Measures mapping document IDs to nodes with {@link NodeLocatorHelper}: hashing the ID to a partition and
+ * resolving the node of the active or replica copy from a parsed couchbase bucket config with 1024 partitions.
+ *
+ * The bucket is mocked only to hand out the config at construction, the measured calls do not touch any mock.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodeLocatorHelperBenchmark {
+
+    private static final int PARTITIONS = 1024;
+    private static final int KEYS = 1024;
+
+    /**
+     * Number of nodes in the cluster.
+     */
+    @Param({"3", "16"})
+    public int nodes;
+
+    private NodeLocatorHelper locator;
+    private String[] ids;
+    private int next;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        BucketConfig bucketConfig = BucketConfigParser.parse(config(nodes), mock(ConfigParserEnvironment.class),
+            "127.0.0.1");
+        DefaultClusterConfig clusterConfig = new DefaultClusterConfig();
+        clusterConfig.setBucketConfig("default", bucketConfig);
+
+        ConfigurationProvider provider = mock(ConfigurationProvider.class);
+        when(provider.config()).thenReturn(clusterConfig);
+        when(provider.configs()).thenReturn(Observable.<ClusterConfig>never());
+        ClusterFacade core = mock(ClusterFacade.class);
+        when(core.send(any(CouchbaseRequest.class))).thenReturn(
+            Observable.<CouchbaseResponse>just(new GetConfigProviderResponse(provider)));
+        Bucket bucket = mock(Bucket.class);
+        when(bucket.name()).thenReturn("default");
+        when(bucket.core()).thenReturn(core);
+
+        locator = NodeLocatorHelper.create(bucket);
+        ids = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            ids[i] = "user::" + i;
+        }
+    }
+
+    @Benchmark
+    public InetAddress activeNodeForId() {
+        return locator.activeNodeForId(nextId());
+    }
+
+    @Benchmark
+    public InetAddress replicaNodeForId() {
+        return locator.replicaNodeForId(nextId(), 1);
+    }
+
+    private String nextId() {
+        return ids[next++ & (KEYS - 1)];
+    }
+
+    /**
+     * Renders a couchbase bucket config with one replica, spreading the partitions evenly over the nodes.
+     */
+    private static String config(int nodes) {
+        StringBuilder servers = new StringBuilder();
+        StringBuilder nodeList = new StringBuilder();
+        for (int i = 0; i < nodes; i++) {
+            if (i > 0) {
+                servers.append(',');
+                nodeList.append(',');
+            }
+            servers.append("\"10.0.0.").append(i + 1).append(":11210\"");
+            nodeList.append("{\"hostname\":\"10.0.0.").append(i + 1)
+                .append(":8091\",\"ports\":{\"direct\":11210}}");
+        }
+        StringBuilder partitions = new StringBuilder();
+        for (int i = 0; i < PARTITIONS; i++) {
+            if (i > 0) {
+                partitions.append(',');
+            }
+            partitions.append('[').append(i % nodes).append(',').append((i + 1) % nodes).append(']');
+        }
+        return "{\"rev\":1,\"name\":\"default\",\"uri\":\"/pools/default/buckets/default\","
+            + "\"streamingUri\":\"/pools/default/bucketsStreaming/default\",\"nodeLocator\":\"vbucket\","
+            + "\"uuid\":\"aa4b515529fa706f1e5f09f21abb5c06\",\"bucketCapabilities\":[\"cccp\",\"couchapi\"],"
+            + "\"nodes\":[" + nodeList + "],"
+            + "\"vBucketServerMap\":{\"hashAlgorithm\":\"CRC\",\"numReplicas\":1,"
+            + "\"serverList\":[" + servers + "],\"vBucketMap\":[" + partitions + "]}}";
+    }
+}
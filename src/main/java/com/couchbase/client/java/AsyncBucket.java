@@ -30,6 +30,16 @@ import com.couchbase.client.core.service.ServiceType;
 import com.couchbase.client.java.analytics.AnalyticsQuery;
 import com.couchbase.client.java.analytics.AsyncAnalyticsQueryResult;
 import com.couchbase.client.java.bucket.AsyncBucketManager;
+import com.couchbase.client.java.bulk.BulkGetResult;
+import com.couchbase.client.java.bulk.BulkMutationOptions;
+import com.couchbase.client.java.bulk.BulkMutationResult;
+import com.couchbase.client.java.bulk.BulkTouchResult;
+import com.couchbase.client.java.bulk.WriteBehindBuffer;
+import com.couchbase.client.java.bulk.WriteBehindCounter;
+import com.couchbase.client.java.bulk.WriteBehindOptions;
+import com.couchbase.client.java.cache.GetCoalescingStats;
+import com.couchbase.client.java.cache.NearCacheOptions;
+import com.couchbase.client.java.cache.NearCacheStats;
 import com.couchbase.client.java.datastructures.MutationOptionBuilder;
 import com.couchbase.client.java.document.BinaryDocument;
 import com.couchbase.client.java.document.Document;
@@ -52,6 +62,7 @@ import com.couchbase.client.java.search.SearchQuery;
 import com.couchbase.client.java.search.result.AsyncSearchQueryResult;
 import com.couchbase.client.java.query.AsyncN1qlQueryResult;
 import com.couchbase.client.java.query.N1qlQuery;
+import com.couchbase.client.java.query.PreparedStatementCacheStats;
 import com.couchbase.client.java.query.Statement;
 import com.couchbase.client.java.repository.AsyncRepository;
 import com.couchbase.client.java.repository.Repository;
@@ -59,6 +70,7 @@ import com.couchbase.client.java.subdoc.AsyncLookupInBuilder;
 import com.couchbase.client.java.subdoc.AsyncMutateInBuilder;
 import com.couchbase.client.java.transcoder.Transcoder;
 import com.couchbase.client.java.transcoder.subdoc.FragmentTranscoder;
+import com.couchbase.client.java.util.DurabilityCoalescingStats;
 import com.couchbase.client.java.view.AsyncSpatialViewResult;
 import com.couchbase.client.java.view.AsyncViewResult;
 import com.couchbase.client.java.view.SpatialViewQuery;
@@ -257,6 +269,422 @@ public interface AsyncBucket {
      */
     <D extends Document<?>> Observable<D> get(String id, Class<D> target, long timeout, TimeUnit timeUnit);
 
+    /**
+     * Retrieves many {@link JsonDocument}s by their unique IDs in one bulk operation.
+     *
+     * The IDs are grouped by the node hosting their active partition and pipelined with a bounded number of
+     * requests in flight per node (see {@link CouchbaseAsyncBucket#BULK_MAX_IN_FLIGHT_PER_NODE}). The returned
+     * {@link Observable} always emits exactly one {@link BulkGetResult}: individual failures are not propagated
+     * as errors but collected per ID, and IDs for which no document exists are reported as missing.
+     *
+     * @param ids the unique IDs of the documents.
+     * @return an {@link Observable} eventually containing the {@link BulkGetResult}.
+     */
+    @InterfaceStability.Experimental
+    Observable<BulkGetResult<JsonDocument>> getAll(Collection<String> ids);
+
+    /**
+     * Retrieves many {@link JsonDocument}s by their unique IDs in one bulk operation with a custom timeout.
+     *
+     * The IDs are grouped by the node hosting their active partition and pipelined with a bounded number of
+     * requests in flight per node (see {@link CouchbaseAsyncBucket#BULK_MAX_IN_FLIGHT_PER_NODE}). The returned
+     * {@link Observable} always emits exactly one {@link BulkGetResult}: individual failures are not propagated
+     * as errors but collected per ID, and IDs for which no document exists are reported as missing.
+     *
+     * The timeout applies to the whole batch and not to every individual ID. All IDs which have not been
+     * answered once it fires are reported as failed with a {@link java.util.concurrent.TimeoutException}.
+     *
+     * @param ids the unique IDs of the documents.
+     * @param timeout the custom timeout for the whole batch.
+     * @param timeUnit the unit for the timeout.
+     * @return an {@link Observable} eventually containing the {@link BulkGetResult}.
+     */
+    @InterfaceStability.Experimental
+    Observable<BulkGetResult<JsonDocument>> getAll(Collection<String> ids, long timeout, TimeUnit timeUnit);
+
+    /**
+     * Retrieves many documents of any type by their unique IDs in one bulk operation.
+     *
+     * The IDs are grouped by the node hosting their active partition and pipelined with a bounded number of
+     * requests in flight per node (see {@link CouchbaseAsyncBucket#BULK_MAX_IN_FLIGHT_PER_NODE}). The returned
+     * {@link Observable} always emits exactly one {@link BulkGetResult}: individual failures are not propagated
+     * as errors but collected per ID, and IDs for which no document exists are reported as missing.
+     *
+     * @param ids the unique IDs of the documents.
+     * @param target the target document type to use.
+     * @return an {@link Observable} eventually containing the {@link BulkGetResult}.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> Observable<BulkGetResult<D>> getAll(Collection<String> ids, Class<D> target);
+
+    /**
+     * Retrieves many documents of any type by their unique IDs in one bulk operation with a custom timeout.
+     *
+     * The IDs are grouped by the node hosting their active partition and pipelined with a bounded number of
+     * requests in flight per node (see {@link CouchbaseAsyncBucket#BULK_MAX_IN_FLIGHT_PER_NODE}). The returned
+     * {@link Observable} always emits exactly one {@link BulkGetResult}: individual failures are not propagated
+     * as errors but collected per ID, and IDs for which no document exists are reported as missing.
+     *
+     * The timeout applies to the whole batch and not to every individual ID. All IDs which have not been
+     * answered once it fires are reported as failed with a {@link java.util.concurrent.TimeoutException}.
+     *
+     * @param ids the unique IDs of the documents.
+     * @param target the target document type to use.
+     * @param timeout the custom timeout for the whole batch.
+     * @param timeUnit the unit for the timeout.
+     * @return an {@link Observable} eventually containing the {@link BulkGetResult}.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> Observable<BulkGetResult<D>> getAll(Collection<String> ids, Class<D> target,
+        long timeout, TimeUnit timeUnit);
+
+    /**
+     * Retrieves many {@link JsonDocument}s by their IDs and resets their expiration time in one bulk operation.
+     *
+     * The IDs are grouped by the node hosting their active partition and pipelined with a bounded number of
+     * requests in flight per node (see {@link CouchbaseAsyncBucket#BULK_MAX_IN_FLIGHT_PER_NODE}). The returned
+     * {@link Observable} always emits exactly one {@link BulkGetResult}: individual failures are not propagated
+     * as errors but collected per ID, and IDs for which no document exists are reported as missing.
+     *
+     * @param ids the IDs of the documents.
+     * @param expiry the new expiration time for the documents.
+     * @return an {@link Observable} eventually containing the {@link BulkGetResult}.
+     */
+    @InterfaceStability.Experimental
+    Observable<BulkGetResult<JsonDocument>> getAndTouchAll(Collection<String> ids, int expiry);
+
+    /**
+     * Retrieves many {@link JsonDocument}s by their IDs and resets their expiration time in one bulk operation with a
+     * custom timeout.
+     *
+     * The IDs are grouped by the node hosting their active partition and pipelined with a bounded number of
+     * requests in flight per node (see {@link CouchbaseAsyncBucket#BULK_MAX_IN_FLIGHT_PER_NODE}). The returned
+     * {@link Observable} always emits exactly one {@link BulkGetResult}: individual failures are not propagated
+     * as errors but collected per ID, and IDs for which no document exists are reported as missing.
+     *
+     * The timeout applies to the whole batch and not to every individual ID. All IDs which have not been
+     * answered once it fires are reported as failed with a {@link java.util.concurrent.TimeoutException}.
+     *
+     * @param ids the IDs of the documents.
+     * @param expiry the new expiration time for the documents.
+     * @param timeout the custom timeout for the whole batch.
+     * @param timeUnit the unit for the timeout.
+     * @return an {@link Observable} eventually containing the {@link BulkGetResult}.
+     */
+    @InterfaceStability.Experimental
+    Observable<BulkGetResult<JsonDocument>> getAndTouchAll(Collection<String> ids, int expiry, long timeout,
+        TimeUnit timeUnit);
+
+    /**
+     * Retrieves many documents of any type by their IDs and resets their expiration time in one bulk operation.
+     *
+     * The IDs are grouped by the node hosting their active partition and pipelined with a bounded number of
+     * requests in flight per node (see {@link CouchbaseAsyncBucket#BULK_MAX_IN_FLIGHT_PER_NODE}). The returned
+     * {@link Observable} always emits exactly one {@link BulkGetResult}: individual failures are not propagated
+     * as errors but collected per ID, and IDs for which no document exists are reported as missing.
+     *
+     * @param ids the IDs of the documents.
+     * @param expiry the new expiration time for the documents.
+     * @param target the target document type to use.
+     * @return an {@link Observable} eventually containing the {@link BulkGetResult}.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> Observable<BulkGetResult<D>> getAndTouchAll(Collection<String> ids, int expiry,
+        Class<D> target);
+
+    /**
+     * Retrieves many documents of any type by their IDs and resets their expiration time in one bulk operation with a
+     * custom timeout.
+     *
+     * The IDs are grouped by the node hosting their active partition and pipelined with a bounded number of
+     * requests in flight per node (see {@link CouchbaseAsyncBucket#BULK_MAX_IN_FLIGHT_PER_NODE}). The returned
+     * {@link Observable} always emits exactly one {@link BulkGetResult}: individual failures are not propagated
+     * as errors but collected per ID, and IDs for which no document exists are reported as missing.
+     *
+     * The timeout applies to the whole batch and not to every individual ID. All IDs which have not been
+     * answered once it fires are reported as failed with a {@link java.util.concurrent.TimeoutException}.
+     *
+     * @param ids the IDs of the documents.
+     * @param expiry the new expiration time for the documents.
+     * @param target the target document type to use.
+     * @param timeout the custom timeout for the whole batch.
+     * @param timeUnit the unit for the timeout.
+     * @return an {@link Observable} eventually containing the {@link BulkGetResult}.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> Observable<BulkGetResult<D>> getAndTouchAll(Collection<String> ids, int expiry,
+        Class<D> target, long timeout, TimeUnit timeUnit);
+
+    /**
+     * Resets the expiration time of many documents in one bulk operation.
+     *
+     * The IDs are grouped by the node hosting their active partition and pipelined with a bounded number of
+     * requests in flight per node (see {@link CouchbaseAsyncBucket#BULK_MAX_IN_FLIGHT_PER_NODE}), so that
+     * refreshing a large key set neither floods a node nor competes with other operations through one chain per
+     * ID. The returned {@link Observable} always emits exactly one {@link BulkTouchResult} with the number of
+     * refreshed documents, the IDs for which no document exists and the failures per ID.
+     *
+     * @param ids the IDs of the documents.
+     * @param expiry the new expiration time for the documents.
+     * @return an {@link Observable} eventually containing the {@link BulkTouchResult}.
+     */
+    @InterfaceStability.Experimental
+    Observable<BulkTouchResult> touchAll(Collection<String> ids, int expiry);
+
+    /**
+     * Resets the expiration time of many documents in one bulk operation with a custom timeout.
+     *
+     * The IDs are grouped by the node hosting their active partition and pipelined with a bounded number of
+     * requests in flight per node (see {@link CouchbaseAsyncBucket#BULK_MAX_IN_FLIGHT_PER_NODE}), so that
+     * refreshing a large key set neither floods a node nor competes with other operations through one chain per
+     * ID. The returned {@link Observable} always emits exactly one {@link BulkTouchResult} with the number of
+     * refreshed documents, the IDs for which no document exists and the failures per ID.
+     *
+     * The timeout applies to the whole batch and not to every individual ID. All IDs which have not been
+     * answered once it fires are reported as failed with a {@link java.util.concurrent.TimeoutException}.
+     *
+     * @param ids the IDs of the documents.
+     * @param expiry the new expiration time for the documents.
+     * @param timeout the custom timeout for the whole batch.
+     * @param timeUnit the unit for the timeout.
+     * @return an {@link Observable} eventually containing the {@link BulkTouchResult}.
+     */
+    @InterfaceStability.Experimental
+    Observable<BulkTouchResult> touchAll(Collection<String> ids, int expiry, long timeout, TimeUnit timeUnit);
+
+    /**
+     * Inserts or overwrites many documents in one bulk operation with the default {@link BulkMutationOptions}.
+     *
+     * See {@link #upsertAll(Observable, BulkMutationOptions)} for details.
+     *
+     * @param documents the documents to upsert.
+     * @return an {@link Observable} eventually containing the {@link BulkMutationResult}.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> Observable<BulkMutationResult> upsertAll(Iterable<D> documents);
+
+    /**
+     * Inserts or overwrites many documents in one bulk operation with custom {@link BulkMutationOptions}.
+     *
+     * See {@link #upsertAll(Observable, BulkMutationOptions)} for details.
+     *
+     * @param documents the documents to upsert.
+     * @param options the options to customize the bulk operation.
+     * @return an {@link Observable} eventually containing the {@link BulkMutationResult}.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> Observable<BulkMutationResult> upsertAll(Iterable<D> documents,
+        BulkMutationOptions options);
+
+    /**
+     * Inserts or overwrites all documents emitted by the given {@link Observable} in one bulk operation.
+     *
+     * At most {@link BulkMutationOptions#maxInFlight()} mutations are in flight at the same time and the source
+     * is only requested from as fast as they complete, so arbitrarily large sources can be streamed. Each
+     * mutation uses {@link BulkMutationOptions#kvTimeout()} (or the environment kv timeout) and retriable
+     * errors are retried according to {@link BulkMutationOptions#retryBuilder()}.
+     *
+     * The returned {@link Observable} always emits exactly one {@link BulkMutationResult}: individual failures
+     * are not propagated as errors but collected per ID. It only fails if the source itself fails.
+     *
+     * @param documents the documents to upsert.
+     * @param options the options to customize the bulk operation.
+     * @return an {@link Observable} eventually containing the {@link BulkMutationResult}.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> Observable<BulkMutationResult> upsertAll(Observable<D> documents,
+        BulkMutationOptions options);
+
+    /**
+     * Inserts many documents in one bulk operation with the default {@link BulkMutationOptions}.
+     *
+     * See {@link #insertAll(Observable, BulkMutationOptions)} for details.
+     *
+     * @param documents the documents to insert.
+     * @return an {@link Observable} eventually containing the {@link BulkMutationResult}.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> Observable<BulkMutationResult> insertAll(Iterable<D> documents);
+
+    /**
+     * Inserts many documents in one bulk operation with custom {@link BulkMutationOptions}.
+     *
+     * See {@link #insertAll(Observable, BulkMutationOptions)} for details.
+     *
+     * @param documents the documents to insert.
+     * @param options the options to customize the bulk operation.
+     * @return an {@link Observable} eventually containing the {@link BulkMutationResult}.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> Observable<BulkMutationResult> insertAll(Iterable<D> documents,
+        BulkMutationOptions options);
+
+    /**
+     * Inserts all documents emitted by the given {@link Observable} in one bulk operation.
+     *
+     * At most {@link BulkMutationOptions#maxInFlight()} mutations are in flight at the same time and the source
+     * is only requested from as fast as they complete, so arbitrarily large sources can be streamed. Each
+     * mutation uses {@link BulkMutationOptions#kvTimeout()} (or the environment kv timeout) and retriable
+     * errors are retried according to {@link BulkMutationOptions#retryBuilder()}.
+     *
+     * The returned {@link Observable} always emits exactly one {@link BulkMutationResult}: individual failures
+     * are not propagated as errors but collected per ID. It only fails if the source itself fails.
+     *
+     * @param documents the documents to insert.
+     * @param options the options to customize the bulk operation.
+     * @return an {@link Observable} eventually containing the {@link BulkMutationResult}.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> Observable<BulkMutationResult> insertAll(Observable<D> documents,
+        BulkMutationOptions options);
+
+    /**
+     * Replaces many documents in one bulk operation with the default {@link BulkMutationOptions}.
+     *
+     * See {@link #replaceAll(Observable, BulkMutationOptions)} for details.
+     *
+     * @param documents the documents to replace.
+     * @return an {@link Observable} eventually containing the {@link BulkMutationResult}.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> Observable<BulkMutationResult> replaceAll(Iterable<D> documents);
+
+    /**
+     * Replaces many documents in one bulk operation with custom {@link BulkMutationOptions}.
+     *
+     * See {@link #replaceAll(Observable, BulkMutationOptions)} for details.
+     *
+     * @param documents the documents to replace.
+     * @param options the options to customize the bulk operation.
+     * @return an {@link Observable} eventually containing the {@link BulkMutationResult}.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> Observable<BulkMutationResult> replaceAll(Iterable<D> documents,
+        BulkMutationOptions options);
+
+    /**
+     * Replaces all documents emitted by the given {@link Observable} in one bulk operation.
+     *
+     * At most {@link BulkMutationOptions#maxInFlight()} mutations are in flight at the same time and the source
+     * is only requested from as fast as they complete, so arbitrarily large sources can be streamed. Each
+     * mutation uses {@link BulkMutationOptions#kvTimeout()} (or the environment kv timeout) and retriable
+     * errors are retried according to {@link BulkMutationOptions#retryBuilder()}.
+     *
+     * The returned {@link Observable} always emits exactly one {@link BulkMutationResult}: individual failures
+     * are not propagated as errors but collected per ID. It only fails if the source itself fails.
+     *
+     * @param documents the documents to replace.
+     * @param options the options to customize the bulk operation.
+     * @return an {@link Observable} eventually containing the {@link BulkMutationResult}.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> Observable<BulkMutationResult> replaceAll(Observable<D> documents,
+        BulkMutationOptions options);
+
+    /**
+     * Removes many documents in one bulk operation with the default {@link BulkMutationOptions}.
+     *
+     * See {@link #removeAll(Observable, BulkMutationOptions)} for details.
+     *
+     * @param documents the documents to remove.
+     * @return an {@link Observable} eventually containing the {@link BulkMutationResult}.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> Observable<BulkMutationResult> removeAll(Iterable<D> documents);
+
+    /**
+     * Removes many documents in one bulk operation with custom {@link BulkMutationOptions}.
+     *
+     * See {@link #removeAll(Observable, BulkMutationOptions)} for details.
+     *
+     * @param documents the documents to remove.
+     * @param options the options to customize the bulk operation.
+     * @return an {@link Observable} eventually containing the {@link BulkMutationResult}.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> Observable<BulkMutationResult> removeAll(Iterable<D> documents,
+        BulkMutationOptions options);
+
+    /**
+     * Removes all documents emitted by the given {@link Observable} in one bulk operation.
+     *
+     * At most {@link BulkMutationOptions#maxInFlight()} mutations are in flight at the same time and the source
+     * is only requested from as fast as they complete, so arbitrarily large sources can be streamed. Each
+     * mutation uses {@link BulkMutationOptions#kvTimeout()} (or the environment kv timeout) and retriable
+     * errors are retried according to {@link BulkMutationOptions#retryBuilder()}.
+     *
+     * The returned {@link Observable} always emits exactly one {@link BulkMutationResult}: individual failures
+     * are not propagated as errors but collected per ID. It only fails if the source itself fails.
+     *
+     * @param documents the documents to remove.
+     * @param options the options to customize the bulk operation.
+     * @return an {@link Observable} eventually containing the {@link BulkMutationResult}.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> Observable<BulkMutationResult> removeAll(Observable<D> documents,
+        BulkMutationOptions options);
+
+    /**
+     * Creates a {@link WriteBehindCounter} with the default {@link WriteBehindOptions}.
+     *
+     * See {@link #writeBehindCounter(WriteBehindOptions)} for details.
+     *
+     * @return the write-behind counter.
+     */
+    @InterfaceStability.Experimental
+    WriteBehindCounter writeBehindCounter();
+
+    /**
+     * Creates a {@link WriteBehindCounter} which accumulates counter deltas locally and applies their sum per
+     * document with a single {@link #counter(String, long, long, long, TimeUnit) counter} operation when it
+     * flushes, which saves most of the operations for documents counted very frequently.
+     *
+     * The counter flushes in the background according to its {@link WriteBehindOptions} and is flushed and closed
+     * when this bucket is closed.
+     *
+     * @param options the options to customize when and how the counter flushes.
+     * @return the write-behind counter.
+     */
+    @InterfaceStability.Experimental
+    WriteBehindCounter writeBehindCounter(WriteBehindOptions options);
+
+    /**
+     * Creates a {@link WriteBehindBuffer} with the default {@link WriteBehindOptions}.
+     *
+     * See {@link #writeBehindBuffer(WriteBehindOptions)} for details.
+     *
+     * @return the write-behind buffer.
+     */
+    @InterfaceStability.Experimental
+    WriteBehindBuffer writeBehindBuffer();
+
+    /**
+     * Creates a {@link WriteBehindBuffer} which keeps the latest document upserted for every key locally and
+     * only writes that one when it flushes, which saves the writes of documents updated many times in a row
+     * when only their latest state matters.
+     *
+     * The buffer flushes in the background according to its {@link WriteBehindOptions} and is flushed and closed
+     * when this bucket is closed.
+     *
+     * @param options the options to customize when and how the buffer flushes.
+     * @return the write-behind buffer.
+     */
+    @InterfaceStability.Experimental
+    WriteBehindBuffer writeBehindBuffer(WriteBehindOptions options);
+
+    /**
+     * Returns a {@link FutureBucket} view of this bucket, whose KV, subdocument and query operations return a
+     * {@link com.couchbase.client.java.future.CouchbaseFuture} instead of an {@link Observable}.
+     *
+     * Its KV operations complete their future directly from the response, without the observable chain and the
+     * subscription, which saves several allocations per operation. See {@link FutureBucket} for details.
+     *
+     * @return the future based view of this bucket.
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    FutureBucket future();
+
     /**
      * Check whether a document with the given ID does exist in the bucket.
      *
@@ -4845,6 +5273,123 @@ public interface AsyncBucket {
      */
     Observable<Integer> invalidateQueryCache();
 
+    /**
+     * Returns a snapshot of the counters of the internal query cache.
+     *
+     * The counters (hits, misses, evictions, re-prepares after the server rejected a cached plan and PREPAREs
+     * shared between concurrent executions of the same statement) are kept locally and this method does not
+     * perform any network operation. Its maximum size can be configured through the
+     * {@code com.couchbase.query.preparedCacheSize} system property.
+     *
+     * @return the current {@link PreparedStatementCacheStats}.
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    PreparedStatementCacheStats queryCacheStats();
+
+    /**
+     * Enables a client-side near cache for the gets of this bucket, replacing (and clearing) a previously
+     * enabled one.
+     *
+     * Gets of documents whose type has a ttl are served from local memory for that ttl, concurrent gets of the
+     * same document share a single fetch and the cache is bounded by the size of the cached content. Documents
+     * mutated through this bucket (insert, upsert, replace, remove, append, prepend, counter and mutateIn) are
+     * invalidated, but mutations performed by other clients are only visible once the cached copy expires, so
+     * the ttl bounds how stale a read can be. Optionally, expired documents are revalidated with a metadata-only
+     * CAS check instead of being fetched again.
+     *
+     * The options must not be modified after the near cache has been enabled.
+     *
+     * @param options the {@link NearCacheOptions} to use.
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    void enableNearCache(NearCacheOptions options);
+
+    /**
+     * Disables and clears the near cache of this bucket, if enabled.
+     *
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    void disableNearCache();
+
+    /**
+     * Returns a snapshot of the counters of the near cache, like its hit ratio.
+     *
+     * The counters are kept locally and this method does not perform any network operation.
+     *
+     * @return the current {@link NearCacheStats}, or null if the near cache is not enabled.
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    NearCacheStats nearCacheStats();
+
+    /**
+     * Enables get coalescing on this bucket: concurrent gets of the same document share a single request in flight
+     * instead of each sending their own, which helps with documents read by many callers at the same time.
+     *
+     * Every caller still receives its own document instance. Gets arriving after a mutation of the document made
+     * through this bucket never join a request sent before it. If the near cache is enabled as well, it takes
+     * precedence and coalesces its own misses.
+     *
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    void enableGetCoalescing();
+
+    /**
+     * Disables get coalescing on this bucket, if enabled.
+     *
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    void disableGetCoalescing();
+
+    /**
+     * Returns a snapshot of the counters of the get coalescing, like its coalesce ratio.
+     *
+     * The counters are kept locally and this method does not perform any network operation.
+     *
+     * @return the current {@link GetCoalescingStats}, or null if get coalescing is not enabled.
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    GetCoalescingStats getCoalescingStats();
+
+    /**
+     * Enables durability coalescing on this bucket: mutations with {@link PersistTo} or {@link ReplicateTo}
+     * requirements waiting on the same partition share their observe polls instead of each polling on its own,
+     * and each completes as soon as its requirements are met.
+     *
+     * Only mutations carrying a mutation token can be coalesced, so mutation tokens should be enabled on the
+     * environment. Other mutations are observed as before.
+     *
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    void enableDurabilityCoalescing();
+
+    /**
+     * Disables durability coalescing on this bucket, if enabled. Mutations already waiting keep their polls.
+     *
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    void disableDurabilityCoalescing();
+
+    /**
+     * Returns a snapshot of the counters of the durability coalescing, together with the latency of the mutations
+     * with durability requirements and, separately, the latency of meeting these requirements.
+     *
+     * The counters are kept locally and this method does not perform any network operation.
+     *
+     * @return the current {@link DurabilityCoalescingStats}, or null if durability coalescing is not enabled.
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    DurabilityCoalescingStats durabilityCoalescingStats();
+
     /**
      * Provides access to the {@link AsyncBucketManager} for administrative access.
      *
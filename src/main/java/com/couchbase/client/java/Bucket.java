@@ -33,6 +33,13 @@ import com.couchbase.client.java.analytics.AnalyticsDeferredResultHandle;
 import com.couchbase.client.java.analytics.AnalyticsQuery;
 import com.couchbase.client.java.analytics.AnalyticsQueryResult;
 import com.couchbase.client.java.bucket.BucketManager;
+import com.couchbase.client.java.bulk.BulkGetResult;
+import com.couchbase.client.java.bulk.BulkMutationOptions;
+import com.couchbase.client.java.bulk.BulkMutationResult;
+import com.couchbase.client.java.bulk.BulkTouchResult;
+import com.couchbase.client.java.cache.GetCoalescingStats;
+import com.couchbase.client.java.cache.NearCacheOptions;
+import com.couchbase.client.java.cache.NearCacheStats;
 import com.couchbase.client.java.datastructures.MutationOptionBuilder;
 import com.couchbase.client.java.document.BinaryDocument;
 import com.couchbase.client.java.document.Document;
@@ -55,11 +62,15 @@ import com.couchbase.client.java.search.SearchQuery;
 import com.couchbase.client.java.search.result.SearchQueryResult;
 import com.couchbase.client.java.query.N1qlQuery;
 import com.couchbase.client.java.query.N1qlQueryResult;
+import com.couchbase.client.java.query.PreparedStatementCacheStats;
 import com.couchbase.client.java.query.Statement;
 import com.couchbase.client.java.repository.Repository;
 import com.couchbase.client.java.subdoc.LookupInBuilder;
 import com.couchbase.client.java.subdoc.MutateInBuilder;
 import com.couchbase.client.java.transcoder.Transcoder;
+import com.couchbase.client.java.util.AdaptiveTimeoutOptions;
+import com.couchbase.client.java.util.AdaptiveTimeoutStats;
+import com.couchbase.client.java.util.DurabilityCoalescingStats;
 import com.couchbase.client.java.view.SpatialViewQuery;
 import com.couchbase.client.java.view.SpatialViewResult;
 import com.couchbase.client.java.view.View;
@@ -258,6 +269,298 @@ public interface Bucket {
      */
     <D extends Document<?>> D get(String id, Class<D> target, long timeout, TimeUnit timeUnit);
 
+    /**
+     * Retrieves many {@link JsonDocument}s by their IDs in one bulk operation with the default key/value timeout.
+     *
+     * The IDs are grouped by the node hosting their active partition and pipelined with a bounded number of
+     * requests in flight per node. Individual failures do not throw but are collected per ID in the returned
+     * {@link BulkGetResult}, and IDs for which no document exists are reported as missing.
+     *
+     * The timeout applies to the whole batch. All IDs which have not been answered once it fires are reported
+     * as failed with a {@link TimeoutException}.
+     *
+     * @param ids the IDs of the documents.
+     * @return the {@link BulkGetResult} for all IDs.
+     */
+    @InterfaceStability.Experimental
+    BulkGetResult<JsonDocument> getAll(Collection<String> ids);
+
+    /**
+     * Retrieves many {@link JsonDocument}s by their IDs in one bulk operation with a custom timeout.
+     *
+     * The IDs are grouped by the node hosting their active partition and pipelined with a bounded number of
+     * requests in flight per node. Individual failures do not throw but are collected per ID in the returned
+     * {@link BulkGetResult}, and IDs for which no document exists are reported as missing.
+     *
+     * The timeout applies to the whole batch. All IDs which have not been answered once it fires are reported
+     * as failed with a {@link TimeoutException}.
+     *
+     * @param ids the IDs of the documents.
+     * @param timeout the custom timeout for the whole batch.
+     * @param timeUnit the unit for the timeout.
+     * @return the {@link BulkGetResult} for all IDs.
+     */
+    @InterfaceStability.Experimental
+    BulkGetResult<JsonDocument> getAll(Collection<String> ids, long timeout, TimeUnit timeUnit);
+
+    /**
+     * Retrieves many documents of any type by their IDs in one bulk operation with the default key/value timeout.
+     *
+     * The IDs are grouped by the node hosting their active partition and pipelined with a bounded number of
+     * requests in flight per node. Individual failures do not throw but are collected per ID in the returned
+     * {@link BulkGetResult}, and IDs for which no document exists are reported as missing.
+     *
+     * The timeout applies to the whole batch. All IDs which have not been answered once it fires are reported
+     * as failed with a {@link TimeoutException}.
+     *
+     * @param ids the IDs of the documents.
+     * @param target the target document type to use.
+     * @return the {@link BulkGetResult} for all IDs.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> BulkGetResult<D> getAll(Collection<String> ids, Class<D> target);
+
+    /**
+     * Retrieves many documents of any type by their IDs in one bulk operation with a custom timeout.
+     *
+     * The IDs are grouped by the node hosting their active partition and pipelined with a bounded number of
+     * requests in flight per node. Individual failures do not throw but are collected per ID in the returned
+     * {@link BulkGetResult}, and IDs for which no document exists are reported as missing.
+     *
+     * The timeout applies to the whole batch. All IDs which have not been answered once it fires are reported
+     * as failed with a {@link TimeoutException}.
+     *
+     * @param ids the IDs of the documents.
+     * @param target the target document type to use.
+     * @param timeout the custom timeout for the whole batch.
+     * @param timeUnit the unit for the timeout.
+     * @return the {@link BulkGetResult} for all IDs.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> BulkGetResult<D> getAll(Collection<String> ids, Class<D> target, long timeout,
+        TimeUnit timeUnit);
+
+    /**
+     * Retrieves many {@link JsonDocument}s by their IDs and resets their expiration time in one bulk operation with
+     * the default key/value timeout.
+     *
+     * The IDs are grouped by the node hosting their active partition and pipelined with a bounded number of
+     * requests in flight per node. Individual failures do not throw but are collected per ID in the returned
+     * {@link BulkGetResult}, and IDs for which no document exists are reported as missing.
+     *
+     * The timeout applies to the whole batch. All IDs which have not been answered once it fires are reported
+     * as failed with a {@link TimeoutException}.
+     *
+     * @param ids the IDs of the documents.
+     * @param expiry the new expiration time for the documents.
+     * @return the {@link BulkGetResult} for all IDs.
+     */
+    @InterfaceStability.Experimental
+    BulkGetResult<JsonDocument> getAndTouchAll(Collection<String> ids, int expiry);
+
+    /**
+     * Retrieves many {@link JsonDocument}s by their IDs and resets their expiration time in one bulk operation with
+     * a custom timeout.
+     *
+     * The IDs are grouped by the node hosting their active partition and pipelined with a bounded number of
+     * requests in flight per node. Individual failures do not throw but are collected per ID in the returned
+     * {@link BulkGetResult}, and IDs for which no document exists are reported as missing.
+     *
+     * The timeout applies to the whole batch. All IDs which have not been answered once it fires are reported
+     * as failed with a {@link TimeoutException}.
+     *
+     * @param ids the IDs of the documents.
+     * @param expiry the new expiration time for the documents.
+     * @param timeout the custom timeout for the whole batch.
+     * @param timeUnit the unit for the timeout.
+     * @return the {@link BulkGetResult} for all IDs.
+     */
+    @InterfaceStability.Experimental
+    BulkGetResult<JsonDocument> getAndTouchAll(Collection<String> ids, int expiry, long timeout,
+        TimeUnit timeUnit);
+
+    /**
+     * Retrieves many documents of any type by their IDs and resets their expiration time in one bulk operation with
+     * the default key/value timeout.
+     *
+     * The IDs are grouped by the node hosting their active partition and pipelined with a bounded number of
+     * requests in flight per node. Individual failures do not throw but are collected per ID in the returned
+     * {@link BulkGetResult}, and IDs for which no document exists are reported as missing.
+     *
+     * The timeout applies to the whole batch. All IDs which have not been answered once it fires are reported
+     * as failed with a {@link TimeoutException}.
+     *
+     * @param ids the IDs of the documents.
+     * @param expiry the new expiration time for the documents.
+     * @param target the target document type to use.
+     * @return the {@link BulkGetResult} for all IDs.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> BulkGetResult<D> getAndTouchAll(Collection<String> ids, int expiry,
+        Class<D> target);
+
+    /**
+     * Retrieves many documents of any type by their IDs and resets their expiration time in one bulk operation with
+     * a custom timeout.
+     *
+     * The IDs are grouped by the node hosting their active partition and pipelined with a bounded number of
+     * requests in flight per node. Individual failures do not throw but are collected per ID in the returned
+     * {@link BulkGetResult}, and IDs for which no document exists are reported as missing.
+     *
+     * The timeout applies to the whole batch. All IDs which have not been answered once it fires are reported
+     * as failed with a {@link TimeoutException}.
+     *
+     * @param ids the IDs of the documents.
+     * @param expiry the new expiration time for the documents.
+     * @param target the target document type to use.
+     * @param timeout the custom timeout for the whole batch.
+     * @param timeUnit the unit for the timeout.
+     * @return the {@link BulkGetResult} for all IDs.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> BulkGetResult<D> getAndTouchAll(Collection<String> ids, int expiry,
+        Class<D> target, long timeout, TimeUnit timeUnit);
+
+    /**
+     * Resets the expiration time of many documents in one bulk operation with the default key/value timeout.
+     *
+     * The IDs are grouped by the node hosting their active partition and pipelined with a bounded number of
+     * requests in flight per node. Individual failures do not throw, the returned {@link BulkTouchResult}
+     * contains the number of refreshed documents, the IDs for which no document exists and the failures per ID.
+     *
+     * The timeout applies to the whole batch. All IDs which have not been answered once it fires are reported
+     * as failed with a {@link TimeoutException}.
+     *
+     * @param ids the IDs of the documents.
+     * @param expiry the new expiration time for the documents.
+     * @return the {@link BulkTouchResult} for all IDs.
+     */
+    @InterfaceStability.Experimental
+    BulkTouchResult touchAll(Collection<String> ids, int expiry);
+
+    /**
+     * Resets the expiration time of many documents in one bulk operation with a custom timeout.
+     *
+     * The IDs are grouped by the node hosting their active partition and pipelined with a bounded number of
+     * requests in flight per node. Individual failures do not throw, the returned {@link BulkTouchResult}
+     * contains the number of refreshed documents, the IDs for which no document exists and the failures per ID.
+     *
+     * The timeout applies to the whole batch. All IDs which have not been answered once it fires are reported
+     * as failed with a {@link TimeoutException}.
+     *
+     * @param ids the IDs of the documents.
+     * @param expiry the new expiration time for the documents.
+     * @param timeout the custom timeout for the whole batch.
+     * @param timeUnit the unit for the timeout.
+     * @return the {@link BulkTouchResult} for all IDs.
+     */
+    @InterfaceStability.Experimental
+    BulkTouchResult touchAll(Collection<String> ids, int expiry, long timeout, TimeUnit timeUnit);
+
+    /**
+     * Inserts or overwrites many documents in one bulk operation with the default {@link BulkMutationOptions}.
+     *
+     * See {@link #upsertAll(Iterable, BulkMutationOptions)} for details.
+     *
+     * @param documents the documents to upsert.
+     * @return the {@link BulkMutationResult} with the per-document outcome.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> BulkMutationResult upsertAll(Iterable<D> documents);
+
+    /**
+     * Inserts or overwrites many documents in one bulk operation with custom {@link BulkMutationOptions}.
+     *
+     * At most {@link BulkMutationOptions#maxInFlight()} mutations are in flight at the same time. Each
+     * mutation uses {@link BulkMutationOptions#kvTimeout()} (or the environment kv timeout) and retriable
+     * errors are retried according to {@link BulkMutationOptions#retryBuilder()}. Individual failures do not
+     * throw but are collected per ID in the returned {@link BulkMutationResult}.
+     *
+     * @param documents the documents to upsert.
+     * @param options the options to customize the bulk operation.
+     * @return the {@link BulkMutationResult} with the per-document outcome.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> BulkMutationResult upsertAll(Iterable<D> documents, BulkMutationOptions options);
+
+    /**
+     * Inserts many documents in one bulk operation with the default {@link BulkMutationOptions}.
+     *
+     * See {@link #insertAll(Iterable, BulkMutationOptions)} for details.
+     *
+     * @param documents the documents to insert.
+     * @return the {@link BulkMutationResult} with the per-document outcome.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> BulkMutationResult insertAll(Iterable<D> documents);
+
+    /**
+     * Inserts many documents in one bulk operation with custom {@link BulkMutationOptions}.
+     *
+     * At most {@link BulkMutationOptions#maxInFlight()} mutations are in flight at the same time. Each
+     * mutation uses {@link BulkMutationOptions#kvTimeout()} (or the environment kv timeout) and retriable
+     * errors are retried according to {@link BulkMutationOptions#retryBuilder()}. Individual failures do not
+     * throw but are collected per ID in the returned {@link BulkMutationResult}.
+     *
+     * @param documents the documents to insert.
+     * @param options the options to customize the bulk operation.
+     * @return the {@link BulkMutationResult} with the per-document outcome.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> BulkMutationResult insertAll(Iterable<D> documents, BulkMutationOptions options);
+
+    /**
+     * Replaces many documents in one bulk operation with the default {@link BulkMutationOptions}.
+     *
+     * See {@link #replaceAll(Iterable, BulkMutationOptions)} for details.
+     *
+     * @param documents the documents to replace.
+     * @return the {@link BulkMutationResult} with the per-document outcome.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> BulkMutationResult replaceAll(Iterable<D> documents);
+
+    /**
+     * Replaces many documents in one bulk operation with custom {@link BulkMutationOptions}.
+     *
+     * At most {@link BulkMutationOptions#maxInFlight()} mutations are in flight at the same time. Each
+     * mutation uses {@link BulkMutationOptions#kvTimeout()} (or the environment kv timeout) and retriable
+     * errors are retried according to {@link BulkMutationOptions#retryBuilder()}. Individual failures do not
+     * throw but are collected per ID in the returned {@link BulkMutationResult}.
+     *
+     * @param documents the documents to replace.
+     * @param options the options to customize the bulk operation.
+     * @return the {@link BulkMutationResult} with the per-document outcome.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> BulkMutationResult replaceAll(Iterable<D> documents, BulkMutationOptions options);
+
+    /**
+     * Removes many documents in one bulk operation with the default {@link BulkMutationOptions}.
+     *
+     * See {@link #removeAll(Iterable, BulkMutationOptions)} for details.
+     *
+     * @param documents the documents to remove.
+     * @return the {@link BulkMutationResult} with the per-document outcome.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> BulkMutationResult removeAll(Iterable<D> documents);
+
+    /**
+     * Removes many documents in one bulk operation with custom {@link BulkMutationOptions}.
+     *
+     * At most {@link BulkMutationOptions#maxInFlight()} mutations are in flight at the same time. Each
+     * mutation uses {@link BulkMutationOptions#kvTimeout()} (or the environment kv timeout) and retriable
+     * errors are retried according to {@link BulkMutationOptions#retryBuilder()}. Individual failures do not
+     * throw but are collected per ID in the returned {@link BulkMutationResult}.
+     *
+     * @param documents the documents to remove.
+     * @param options the options to customize the bulk operation.
+     * @return the {@link BulkMutationResult} with the per-document outcome.
+     */
+    @InterfaceStability.Experimental
+    <D extends Document<?>> BulkMutationResult removeAll(Iterable<D> documents, BulkMutationOptions options);
+
     /**
      * Check whether a document with the given ID does exist in the bucket.
      *
@@ -5857,6 +6160,174 @@ public interface Bucket {
      */
     int invalidateQueryCache();
 
+    /**
+     * Returns a snapshot of the counters of the internal query cache.
+     *
+     * The counters (hits, misses, evictions, re-prepares after the server rejected a cached plan and PREPAREs
+     * shared between concurrent executions of the same statement) are kept locally and this method does not
+     * perform any network operation. Its maximum size can be configured through the
+     * {@code com.couchbase.query.preparedCacheSize} system property.
+     *
+     * @return the current {@link PreparedStatementCacheStats}.
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    PreparedStatementCacheStats queryCacheStats();
+
+    /**
+     * Enables a client-side near cache for the gets of this bucket, replacing (and clearing) a previously
+     * enabled one.
+     *
+     * Gets of documents whose type has a ttl are served from local memory for that ttl, concurrent gets of the
+     * same document share a single fetch and the cache is bounded by the size of the cached content. Documents
+     * mutated through this bucket (insert, upsert, replace, remove, append, prepend, counter and mutateIn) are
+     * invalidated, but mutations performed by other clients are only visible once the cached copy expires, so
+     * the ttl bounds how stale a read can be. Optionally, expired documents are revalidated with a metadata-only
+     * CAS check instead of being fetched again.
+     *
+     * The options must not be modified after the near cache has been enabled.
+     *
+     * @param options the {@link NearCacheOptions} to use.
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    void enableNearCache(NearCacheOptions options);
+
+    /**
+     * Disables and clears the near cache of this bucket, if enabled.
+     *
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    void disableNearCache();
+
+    /**
+     * Returns a snapshot of the counters of the near cache, like its hit ratio.
+     *
+     * The counters are kept locally and this method does not perform any network operation.
+     *
+     * @return the current {@link NearCacheStats}, or null if the near cache is not enabled.
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    NearCacheStats nearCacheStats();
+
+    /**
+     * Enables get coalescing on this bucket: concurrent gets of the same document share a single request in flight
+     * instead of each sending their own, which helps with documents read by many callers at the same time.
+     *
+     * Every caller still receives its own document instance. Gets arriving after a mutation of the document made
+     * through this bucket never join a request sent before it. If the near cache is enabled as well, it takes
+     * precedence and coalesces its own misses.
+     *
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    void enableGetCoalescing();
+
+    /**
+     * Disables get coalescing on this bucket, if enabled.
+     *
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    void disableGetCoalescing();
+
+    /**
+     * Returns a snapshot of the counters of the get coalescing, like its coalesce ratio.
+     *
+     * The counters are kept locally and this method does not perform any network operation.
+     *
+     * @return the current {@link GetCoalescingStats}, or null if get coalescing is not enabled.
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    GetCoalescingStats getCoalescingStats();
+
+    /**
+     * Enables durability coalescing on this bucket: mutations with {@link PersistTo} or {@link ReplicateTo}
+     * requirements waiting on the same partition share their observe polls instead of each polling on its own,
+     * and each completes as soon as its requirements are met.
+     *
+     * Only mutations carrying a mutation token can be coalesced, so mutation tokens should be enabled on the
+     * environment. Other mutations are observed as before.
+     *
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    void enableDurabilityCoalescing();
+
+    /**
+     * Disables durability coalescing on this bucket, if enabled. Mutations already waiting keep their polls.
+     *
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    void disableDurabilityCoalescing();
+
+    /**
+     * Returns a snapshot of the counters of the durability coalescing, together with the latency of the mutations
+     * with durability requirements and, separately, the latency of meeting these requirements.
+     *
+     * The counters are kept locally and this method does not perform any network operation.
+     *
+     * @return the current {@link DurabilityCoalescingStats}, or null if durability coalescing is not enabled.
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    DurabilityCoalescingStats durabilityCoalescingStats();
+
+    /**
+     * Returns a {@link FutureBucket} view of this bucket, whose KV, subdocument and query operations return a
+     * {@link com.couchbase.client.java.future.CouchbaseFuture} instead of an {@link rx.Observable}.
+     *
+     * Its KV operations complete their future directly from the response, without the observable chain and the
+     * subscription, which saves several allocations per operation. See {@link FutureBucket} for details.
+     *
+     * @return the future based view of this bucket.
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    FutureBucket future();
+
+    /**
+     * Enables adaptive timeouts on this bucket: KV operations without an explicit timeout (get, getAndLock,
+     * getAndTouch, exists, insert, upsert, replace, remove, touch, unlock, counter, append and prepend, without
+     * durability requirements) time out after a multiple of a high percentile of the latencies recently observed
+     * for the same operation type on the node hosting the document, instead of after the full KV timeout.
+     *
+     * The timeouts are clamped between a floor and the configured KV timeout, which is used until enough latencies
+     * have been observed. Operations with an explicit timeout keep it, but their latencies are recorded as well.
+     * This way a stalled node fails fast instead of holding the calling threads for the full KV timeout.
+     *
+     * The options must not be modified after the adaptive timeouts have been enabled, enabling them again starts
+     * over with the new options.
+     *
+     * @param options the {@link AdaptiveTimeoutOptions} to use.
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    void enableAdaptiveTimeouts(AdaptiveTimeoutOptions options);
+
+    /**
+     * Disables adaptive timeouts on this bucket, if enabled, so that the KV timeout is used again.
+     *
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    void disableAdaptiveTimeouts();
+
+    /**
+     * Returns a snapshot of the adaptive timeouts currently in use, per operation type and node.
+     *
+     * The timeouts are computed locally and this method does not perform any network operation.
+     *
+     * @return the current {@link AdaptiveTimeoutStats}, or null if adaptive timeouts are not enabled.
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    AdaptiveTimeoutStats adaptiveTimeoutStats();
+
     /**
      * Provides access to the {@link BucketManager} for administrative access.
      *
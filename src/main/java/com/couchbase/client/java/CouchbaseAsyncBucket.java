@@ -59,15 +59,33 @@ import com.couchbase.client.core.tracing.ThresholdLogReporter;
 import com.couchbase.client.core.tracing.ThresholdLogSpan;
 import com.couchbase.client.core.utils.HealthPinger;
 import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.PooledByteBufAllocator;
 import com.couchbase.client.java.analytics.AnalyticsQuery;
 import com.couchbase.client.java.analytics.AnalyticsQueryExecutor;
 import com.couchbase.client.java.analytics.AsyncAnalyticsQueryResult;
 import com.couchbase.client.java.bucket.AsyncBucketManager;
 import com.couchbase.client.java.bucket.DefaultAsyncBucketManager;
 import com.couchbase.client.java.bucket.ReplicaReader;
+import com.couchbase.client.java.bulk.BulkGetResult;
+import com.couchbase.client.java.bulk.BulkMutationOptions;
+import com.couchbase.client.java.bulk.BulkMutationResult;
+import com.couchbase.client.java.bulk.BulkTouchResult;
+import com.couchbase.client.java.bulk.WriteBehind;
+import com.couchbase.client.java.bulk.WriteBehindBuffer;
+import com.couchbase.client.java.bulk.WriteBehindCounter;
+import com.couchbase.client.java.bulk.WriteBehindOptions;
+import com.couchbase.client.java.cache.GetCoalescingStats;
+import com.couchbase.client.java.cache.NearCacheOptions;
+import com.couchbase.client.java.cache.NearCacheStats;
+import com.couchbase.client.java.bucket.api.BulkGet;
+import com.couchbase.client.java.bucket.api.BulkTouch;
+import com.couchbase.client.java.bucket.api.BulkMutate;
 import com.couchbase.client.java.bucket.api.Exists;
 import com.couchbase.client.java.bucket.api.Get;
+import com.couchbase.client.java.bucket.api.DurabilityCoordinator;
+import com.couchbase.client.java.bucket.api.GetCoalescer;
 import com.couchbase.client.java.bucket.api.Mutate;
+import com.couchbase.client.java.bucket.api.NearCache;
 import com.couchbase.client.java.bucket.api.Utils;
 import com.couchbase.client.java.datastructures.MutationOptionBuilder;
 import com.couchbase.client.java.datastructures.ResultMappingUtils;
@@ -75,6 +93,9 @@ import com.couchbase.client.java.document.Document;
 import com.couchbase.client.java.document.JsonArrayDocument;
 import com.couchbase.client.java.document.JsonDocument;
 import com.couchbase.client.java.document.JsonLongDocument;
+import com.couchbase.client.java.document.RawJsonDocument;
+import com.couchbase.client.java.document.SmileDocument;
+import com.couchbase.client.java.document.StringDocument;
 import com.couchbase.client.java.document.json.JsonArray;
 import com.couchbase.client.java.document.json.JsonObject;
 import com.couchbase.client.java.env.CouchbaseEnvironment;
@@ -90,6 +111,7 @@ import com.couchbase.client.java.error.subdoc.MultiMutationException;
 import com.couchbase.client.java.error.subdoc.PathNotFoundException;
 import com.couchbase.client.java.query.AsyncN1qlQueryResult;
 import com.couchbase.client.java.query.N1qlQuery;
+import com.couchbase.client.java.query.PreparedStatementCacheStats;
 import com.couchbase.client.java.query.Statement;
 import com.couchbase.client.java.query.core.N1qlQueryExecutor;
 import com.couchbase.client.java.repository.AsyncRepository;
@@ -101,6 +123,7 @@ import com.couchbase.client.java.search.result.impl.DefaultAsyncSearchQueryResul
 import com.couchbase.client.java.subdoc.AsyncLookupInBuilder;
 import com.couchbase.client.java.subdoc.AsyncMutateInBuilder;
 import com.couchbase.client.java.subdoc.DocumentFragment;
+import com.couchbase.client.java.subdoc.MutationSpec;
 import com.couchbase.client.java.transcoder.BinaryTranscoder;
 import com.couchbase.client.java.transcoder.ByteArrayTranscoder;
 import com.couchbase.client.java.transcoder.JacksonTransformers;
@@ -111,13 +134,18 @@ import com.couchbase.client.java.transcoder.JsonDoubleTranscoder;
 import com.couchbase.client.java.transcoder.JsonLongTranscoder;
 import com.couchbase.client.java.transcoder.JsonStringTranscoder;
 import com.couchbase.client.java.transcoder.JsonTranscoder;
+import com.couchbase.client.java.transcoder.LazyJsonTranscoder;
 import com.couchbase.client.java.transcoder.LegacyTranscoder;
 import com.couchbase.client.java.transcoder.RawJsonTranscoder;
 import com.couchbase.client.java.transcoder.SerializableTranscoder;
+import com.couchbase.client.java.transcoder.SmileTranscoder;
 import com.couchbase.client.java.transcoder.StringTranscoder;
 import com.couchbase.client.java.transcoder.Transcoder;
+import com.couchbase.client.java.transcoder.TypedJsonTranscoder;
 import com.couchbase.client.java.transcoder.subdoc.FragmentTranscoder;
 import com.couchbase.client.java.transcoder.subdoc.JacksonFragmentTranscoder;
+import com.couchbase.client.java.util.DurabilityCoalescingStats;
+import com.couchbase.client.java.util.SystemProperties;
 import com.couchbase.client.java.view.AsyncSpatialViewResult;
 import com.couchbase.client.java.view.AsyncViewResult;
 import com.couchbase.client.java.view.SpatialViewQuery;
@@ -133,12 +161,14 @@ import rx.functions.Action0;
 import rx.functions.Func0;
 import rx.functions.Func1;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 import static com.couchbase.client.java.bucket.api.Utils.addRequestSpan;
@@ -155,6 +185,18 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
 
     public static final String CURRENT_BUCKET_IDENTIFIER = "#CURRENT_BUCKET#";
 
+    /**
+     * The maximum number of requests a bulk operation keeps in flight against a single node.
+     */
+    public static final int BULK_MAX_IN_FLIGHT_PER_NODE = SystemProperties.intProperty(
+        "com.couchbase.bulkMaxInFlightPerNode", 128, 1);
+
+    /**
+     * If set (and buffer pooling is enabled on the environment), JSON and string documents are encoded straight
+     * into pooled buffers instead of intermediate byte arrays and unpooled heap buffers.
+     */
+    public static final boolean POOLED_ENCODING = Boolean.parseBoolean(System.getProperty("com.couchbase.pooledEncoding", "false"));
+
     public static final JsonTranscoder JSON_OBJECT_TRANSCODER = new JsonTranscoder();
     public static final JsonArrayTranscoder JSON_ARRAY_TRANSCODER = new JsonArrayTranscoder();
     public static final JsonBooleanTranscoder JSON_BOOLEAN_TRANSCODER = new JsonBooleanTranscoder();
@@ -168,6 +210,9 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
     public static final BinaryTranscoder BINARY_TRANSCODER = new BinaryTranscoder();
     public static final StringTranscoder STRING_TRANSCODER = new StringTranscoder();
     public static final SerializableTranscoder SERIALIZABLE_TRANSCODER = new SerializableTranscoder();
+    public static final LazyJsonTranscoder LAZY_JSON_TRANSCODER = new LazyJsonTranscoder();
+    public static final TypedJsonTranscoder<Object> TYPED_JSON_TRANSCODER = new TypedJsonTranscoder<Object>();
+    public static final SmileTranscoder SMILE_TRANSCODER = new SmileTranscoder();
 
     private final String bucket;
     private final String username;
@@ -184,6 +229,11 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
     private final SearchQueryExecutor searchQueryExecutor;
 
     private volatile boolean closed;
+    private volatile NearCache nearCache;
+    private volatile GetCoalescer getCoalescer;
+    private volatile DurabilityCoordinator durabilityCoordinator;
+    private final FutureBucket futureBucket;
+    private final List<WriteBehind> writeBehinds = new CopyOnWriteArrayList<WriteBehind>();
 
 
 
@@ -203,24 +253,37 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
 
         transcoders = new ConcurrentHashMap<Class<? extends Document>, Transcoder<? extends Document, ?>>();
 
+        boolean pooledEncoding = POOLED_ENCODING && environment != null && environment.bufferPoolingEnabled();
         if (environment != null && environment.cryptoManager() != null) {
             JsonCryptoTranscoder transcoder = new JsonCryptoTranscoder(environment.cryptoManager());
             transcoders.put(transcoder.documentType(), transcoder);
+        } else if (pooledEncoding) {
+            transcoders.put(JsonDocument.class, new JsonTranscoder(PooledByteBufAllocator.DEFAULT));
         } else {
             transcoders.put(JSON_OBJECT_TRANSCODER.documentType(), JSON_OBJECT_TRANSCODER);
         }
 
-        transcoders.put(JSON_ARRAY_TRANSCODER.documentType(), JSON_ARRAY_TRANSCODER);
+        if (pooledEncoding) {
+            transcoders.put(JsonArrayDocument.class, new JsonArrayTranscoder(PooledByteBufAllocator.DEFAULT));
+            transcoders.put(RawJsonDocument.class, new RawJsonTranscoder(PooledByteBufAllocator.DEFAULT));
+            transcoders.put(StringDocument.class, new StringTranscoder(PooledByteBufAllocator.DEFAULT));
+            transcoders.put(SmileDocument.class, new SmileTranscoder(PooledByteBufAllocator.DEFAULT));
+        } else {
+            transcoders.put(JSON_ARRAY_TRANSCODER.documentType(), JSON_ARRAY_TRANSCODER);
+            transcoders.put(RAW_JSON_TRANSCODER.documentType(), RAW_JSON_TRANSCODER);
+            transcoders.put(STRING_TRANSCODER.documentType(), STRING_TRANSCODER);
+            transcoders.put(SMILE_TRANSCODER.documentType(), SMILE_TRANSCODER);
+        }
         transcoders.put(JSON_BOOLEAN_TRANSCODER.documentType(), JSON_BOOLEAN_TRANSCODER);
         transcoders.put(JSON_DOUBLE_TRANSCODER.documentType(), JSON_DOUBLE_TRANSCODER);
         transcoders.put(JSON_LONG_TRANSCODER.documentType(), JSON_LONG_TRANSCODER);
         transcoders.put(JSON_STRING_TRANSCODER.documentType(), JSON_STRING_TRANSCODER);
-        transcoders.put(RAW_JSON_TRANSCODER.documentType(), RAW_JSON_TRANSCODER);
         transcoders.put(LEGACY_TRANSCODER.documentType(), LEGACY_TRANSCODER);
         transcoders.put(BINARY_TRANSCODER.documentType(), BINARY_TRANSCODER);
-        transcoders.put(STRING_TRANSCODER.documentType(), STRING_TRANSCODER);
         transcoders.put(SERIALIZABLE_TRANSCODER.documentType(), SERIALIZABLE_TRANSCODER);
         transcoders.put(BYTE_ARRAY_TRANSCODER.documentType(), BYTE_ARRAY_TRANSCODER);
+        transcoders.put(LAZY_JSON_TRANSCODER.documentType(), LAZY_JSON_TRANSCODER);
+        transcoders.put(TYPED_JSON_TRANSCODER.documentType(), TYPED_JSON_TRANSCODER);
 
         for (Transcoder<? extends Document, ?> custom : customTranscoders) {
             transcoders.put(custom.documentType(), custom);
@@ -232,6 +295,7 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
         n1qlQueryExecutor = new N1qlQueryExecutor(core, bucket, username, password, n1qlPreparedEncodedPlanEnabled);
         analyticsQueryExecutor = new AnalyticsQueryExecutor(core, bucket, username, password);
         searchQueryExecutor = new SearchQueryExecutor(environment, core, bucket, username, password);
+        futureBucket = new CouchbaseFutureBucket(this, environment, core, bucket, transcoders);
     }
 
     @Override
@@ -283,13 +347,21 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
     @Override
     @SuppressWarnings("unchecked")
     public <D extends Document<?>> Observable<D> get(final String id, final Class<D> target) {
-        return Get.get(id, target, environment, bucket, core, transcoders, 0, null);
+        return get(id, target, 0, null);
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <D extends Document<?>> Observable<D> get(final String id, final Class<D> target, long timeout, TimeUnit timeUnit) {
-      return Get.get(id, target, environment, bucket, core, transcoders, timeout, timeUnit);
+        NearCache cache = nearCache;
+        if (cache != null) {
+            return cache.get(id, target, timeout, timeUnit);
+        }
+        GetCoalescer coalescer = getCoalescer;
+        if (coalescer != null) {
+            return coalescer.get(id, target, timeout, timeUnit);
+        }
+        return Get.get(id, target, environment, bucket, core, transcoders, timeout, timeUnit);
     }
 
     @Override
@@ -303,6 +375,198 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
         return (Observable<D>) Get.get(document.id(), document.getClass(), environment, bucket, core, transcoders, timeout, timeUnit);
     }
 
+    @Override
+    public Observable<BulkGetResult<JsonDocument>> getAll(Collection<String> ids) {
+        return getAll(ids, JsonDocument.class);
+    }
+
+    @Override
+    public Observable<BulkGetResult<JsonDocument>> getAll(Collection<String> ids, long timeout, TimeUnit timeUnit) {
+        return getAll(ids, JsonDocument.class, timeout, timeUnit);
+    }
+
+    @Override
+    public <D extends Document<?>> Observable<BulkGetResult<D>> getAll(Collection<String> ids, Class<D> target) {
+        return getAll(ids, target, 0, null);
+    }
+
+    @Override
+    public <D extends Document<?>> Observable<BulkGetResult<D>> getAll(Collection<String> ids, Class<D> target,
+        long timeout, TimeUnit timeUnit) {
+        return BulkGet.getAll(ids, target, environment, bucket, core, transcoders, BULK_MAX_IN_FLIGHT_PER_NODE,
+            timeout, timeUnit);
+    }
+
+    @Override
+    public Observable<BulkGetResult<JsonDocument>> getAndTouchAll(Collection<String> ids, int expiry) {
+        return getAndTouchAll(ids, expiry, JsonDocument.class);
+    }
+
+    @Override
+    public Observable<BulkGetResult<JsonDocument>> getAndTouchAll(Collection<String> ids, int expiry, long timeout,
+        TimeUnit timeUnit) {
+        return getAndTouchAll(ids, expiry, JsonDocument.class, timeout, timeUnit);
+    }
+
+    @Override
+    public <D extends Document<?>> Observable<BulkGetResult<D>> getAndTouchAll(Collection<String> ids, int expiry,
+        Class<D> target) {
+        return getAndTouchAll(ids, expiry, target, 0, null);
+    }
+
+    @Override
+    public <D extends Document<?>> Observable<BulkGetResult<D>> getAndTouchAll(Collection<String> ids, int expiry,
+        Class<D> target, long timeout, TimeUnit timeUnit) {
+        return invalidateReads(ids, BulkGet.getAndTouchAll(ids, target, expiry, environment, bucket, core,
+            transcoders, BULK_MAX_IN_FLIGHT_PER_NODE, timeout, timeUnit));
+    }
+
+    @Override
+    public Observable<BulkTouchResult> touchAll(Collection<String> ids, int expiry) {
+        return touchAll(ids, expiry, 0, null);
+    }
+
+    @Override
+    public Observable<BulkTouchResult> touchAll(Collection<String> ids, int expiry, long timeout,
+        TimeUnit timeUnit) {
+        return invalidateReads(ids, BulkTouch.touchAll(ids, expiry, environment, bucket, core,
+            BULK_MAX_IN_FLIGHT_PER_NODE, timeout, timeUnit));
+    }
+
+    @Override
+    public <D extends Document<?>> Observable<BulkMutationResult> upsertAll(Iterable<D> documents) {
+        return upsertAll(documents, BulkMutationOptions.bulkMutationOptions());
+    }
+
+    @Override
+    public <D extends Document<?>> Observable<BulkMutationResult> upsertAll(Iterable<D> documents,
+        BulkMutationOptions options) {
+        return upsertAll(Observable.from(documents), options);
+    }
+
+    @Override
+    public <D extends Document<?>> Observable<BulkMutationResult> upsertAll(Observable<D> documents,
+        BulkMutationOptions options) {
+        final long timeout = options.kvTimeout() > 0 ? options.kvTimeout() : environment.kvTimeout();
+        return BulkMutate.execute(documents, new Func1<D, Observable<D>>() {
+            @Override
+            public Observable<D> call(D document) {
+                return upsert(document, timeout, TimeUnit.MILLISECONDS);
+            }
+        }, options);
+    }
+
+    @Override
+    public <D extends Document<?>> Observable<BulkMutationResult> insertAll(Iterable<D> documents) {
+        return insertAll(documents, BulkMutationOptions.bulkMutationOptions());
+    }
+
+    @Override
+    public <D extends Document<?>> Observable<BulkMutationResult> insertAll(Iterable<D> documents,
+        BulkMutationOptions options) {
+        return insertAll(Observable.from(documents), options);
+    }
+
+    @Override
+    public <D extends Document<?>> Observable<BulkMutationResult> insertAll(Observable<D> documents,
+        BulkMutationOptions options) {
+        final long timeout = options.kvTimeout() > 0 ? options.kvTimeout() : environment.kvTimeout();
+        return BulkMutate.execute(documents, new Func1<D, Observable<D>>() {
+            @Override
+            public Observable<D> call(D document) {
+                return insert(document, timeout, TimeUnit.MILLISECONDS);
+            }
+        }, options);
+    }
+
+    @Override
+    public <D extends Document<?>> Observable<BulkMutationResult> replaceAll(Iterable<D> documents) {
+        return replaceAll(documents, BulkMutationOptions.bulkMutationOptions());
+    }
+
+    @Override
+    public <D extends Document<?>> Observable<BulkMutationResult> replaceAll(Iterable<D> documents,
+        BulkMutationOptions options) {
+        return replaceAll(Observable.from(documents), options);
+    }
+
+    @Override
+    public <D extends Document<?>> Observable<BulkMutationResult> replaceAll(Observable<D> documents,
+        BulkMutationOptions options) {
+        final long timeout = options.kvTimeout() > 0 ? options.kvTimeout() : environment.kvTimeout();
+        return BulkMutate.execute(documents, new Func1<D, Observable<D>>() {
+            @Override
+            public Observable<D> call(D document) {
+                return replace(document, timeout, TimeUnit.MILLISECONDS);
+            }
+        }, options);
+    }
+
+    @Override
+    public <D extends Document<?>> Observable<BulkMutationResult> removeAll(Iterable<D> documents) {
+        return removeAll(documents, BulkMutationOptions.bulkMutationOptions());
+    }
+
+    @Override
+    public <D extends Document<?>> Observable<BulkMutationResult> removeAll(Iterable<D> documents,
+        BulkMutationOptions options) {
+        return removeAll(Observable.from(documents), options);
+    }
+
+    @Override
+    public <D extends Document<?>> Observable<BulkMutationResult> removeAll(Observable<D> documents,
+        BulkMutationOptions options) {
+        final long timeout = options.kvTimeout() > 0 ? options.kvTimeout() : environment.kvTimeout();
+        return BulkMutate.execute(documents, new Func1<D, Observable<D>>() {
+            @Override
+            public Observable<D> call(D document) {
+                return remove(document, timeout, TimeUnit.MILLISECONDS);
+            }
+        }, options);
+    }
+
+    @Override
+    public WriteBehindCounter writeBehindCounter() {
+        return writeBehindCounter(WriteBehindOptions.writeBehindOptions());
+    }
+
+    @Override
+    public WriteBehindCounter writeBehindCounter(WriteBehindOptions options) {
+        WriteBehindCounter counter = new WriteBehindCounter(this, options);
+        register(counter);
+        return counter;
+    }
+
+    @Override
+    public WriteBehindBuffer writeBehindBuffer() {
+        return writeBehindBuffer(WriteBehindOptions.writeBehindOptions());
+    }
+
+    @Override
+    public WriteBehindBuffer writeBehindBuffer(WriteBehindOptions options) {
+        WriteBehindBuffer buffer = new WriteBehindBuffer(this, options);
+        register(buffer);
+        return buffer;
+    }
+
+    /**
+     * Keeps track of the write-behind until it is closed, so that it is flushed and closed with the bucket.
+     */
+    private void register(final WriteBehind writeBehind) {
+        writeBehinds.add(writeBehind);
+        writeBehind.whenClosed(new Action0() {
+            @Override
+            public void call() {
+                writeBehinds.remove(writeBehind);
+            }
+        });
+    }
+
+    @Override
+    public FutureBucket future() {
+        return futureBucket;
+    }
+
     @Override
     public Observable<Boolean> exists(String id, long timeout, TimeUnit timeUnit) {
         return Exists.exists(id, environment, core, bucket, timeout, timeUnit);
@@ -337,7 +601,7 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
     @Override
     @SuppressWarnings("unchecked")
     public <D extends Document<?>> Observable<D> getAndLock(final String id, final int lockTime, final Class<D> target) {
-        return Get.getAndLock(id, target, environment, bucket, core, transcoders, lockTime, 0, null);
+        return getAndLock(id, lockTime, target, 0, null);
     }
 
     @Override
@@ -354,7 +618,7 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
     @Override
     @SuppressWarnings("unchecked")
     public <D extends Document<?>> Observable<D> getAndTouch(final String id, final int expiry, final Class<D> target) {
-        return Get.getAndTouch(id, target, environment, bucket, core, transcoders, expiry, 0, null);
+        return getAndTouch(id, expiry, target, 0, null);
     }
 
     @Override
@@ -402,7 +666,8 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
 
     @Override
     public <D extends Document<?>> Observable<D> getAndLock(String id, int lockTime, Class<D> target, long timeout, TimeUnit timeUnit) {
-        return Get.getAndLock(id, target, environment, bucket, core, transcoders, lockTime, timeout, timeUnit);
+        return invalidateReads(id,
+            Get.getAndLock(id, target, environment, bucket, core, transcoders, lockTime, timeout, timeUnit));
     }
 
     @Override
@@ -417,7 +682,8 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
 
     @Override
     public <D extends Document<?>> Observable<D> getAndTouch(String id, int expiry, Class<D> target, long timeout, TimeUnit timeUnit) {
-        return Get.getAndTouch(id, target, environment, bucket, core, transcoders, expiry, timeout, timeUnit);
+        return invalidateReads(id,
+            Get.getAndTouch(id, target, environment, bucket, core, transcoders, expiry, timeout, timeUnit));
     }
 
     @Override
@@ -435,13 +701,10 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
 
 
         final Span parent = startTracing("insert_with_durability");
-        return insert(document, parent, timeout, timeUnit).flatMap(new Func1<D, Observable<D>>() {
+        return timedMutation(insert(document, parent, timeout, timeUnit)).flatMap(new Func1<D, Observable<D>>() {
             @Override
             public Observable<D> call(final D doc) {
-                Observable<D> or = Observe
-                        .call(core, bucket, doc.id(), doc.cas(), false, doc.mutationToken(),
-                                persistTo.value(), replicateTo.value(),
-                                environment.observeIntervalDelay(), environment.retryStrategy(), parent)
+                Observable<D> or = observe(doc, false, persistTo, replicateTo, parent)
                         .map(new Func1<Boolean, D>() {
                             @Override
                             public D call(Boolean aBoolean) {
@@ -476,14 +739,11 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
 
 
         final Span parent = startTracing("upsert_with_durability");
-        return upsert(document, parent, timeout, timeUnit)
+        return timedMutation(upsert(document, parent, timeout, timeUnit))
             .flatMap(new Func1<D, Observable<D>>() {
                 @Override
                 public Observable<D> call(final D doc) {
-                    Observable<D> or = Observe
-                        .call(core, bucket, doc.id(), doc.cas(), false, doc.mutationToken(),
-                            persistTo.value(), replicateTo.value(),
-                            environment.observeIntervalDelay(), environment.retryStrategy(), parent)
+                    Observable<D> or = observe(doc, false, persistTo, replicateTo, parent)
                         .map(new Func1<Boolean, D>() {
                             @Override
                             public D call(Boolean aBoolean) {
@@ -520,7 +780,8 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
     private <D extends Document<?>> Observable<D> insert(D document, Span parent, long timeout, TimeUnit timeUnit) {
         final  Transcoder<Document<Object>, Object> transcoder =
             (Transcoder<Document<Object>, Object>) transcoders.get(document.getClass());
-        return Mutate.insert(document, environment, transcoder, core, bucket, timeout, timeUnit, parent);
+        return invalidateReads(document.id(),
+            Mutate.insert(document, environment, transcoder, core, bucket, timeout, timeUnit, parent));
     }
 
     @Override
@@ -547,7 +808,8 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
     private <D extends Document<?>> Observable<D> upsert(D document, Span parent, long timeout, TimeUnit timeUnit) {
         final  Transcoder<Document<Object>, Object> transcoder =
             (Transcoder<Document<Object>, Object>) transcoders.get(document.getClass());
-        return Mutate.upsert(document, environment, transcoder, core, bucket, timeout, timeUnit, parent);
+        return invalidateReads(document.id(),
+            Mutate.upsert(document, environment, transcoder, core, bucket, timeout, timeUnit, parent));
     }
 
     @Override
@@ -574,7 +836,8 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
     private <D extends Document<?>> Observable<D> replace(D document, Span parent, long timeout, TimeUnit timeUnit) {
         final  Transcoder<Document<Object>, Object> transcoder =
             (Transcoder<Document<Object>, Object>) transcoders.get(document.getClass());
-        return Mutate.replace(document, environment, transcoder, core, bucket, timeout, timeUnit, parent);
+        return invalidateReads(document.id(),
+            Mutate.replace(document, environment, transcoder, core, bucket, timeout, timeUnit, parent));
     }
 
     @Override
@@ -600,12 +863,10 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
         }
 
         final Span parent = startTracing("replace_with_durability");
-        return replace(document, parent, timeout, timeUnit).flatMap(new Func1<D, Observable<D>>() {
+        return timedMutation(replace(document, parent, timeout, timeUnit)).flatMap(new Func1<D, Observable<D>>() {
             @Override
             public Observable<D> call(final D doc) {
-                Observable<D> or = Observe
-                    .call(core, bucket, doc.id(), doc.cas(), false, doc.mutationToken(), persistTo.value(),
-                        replicateTo.value(), environment.observeIntervalDelay(), environment.retryStrategy(), parent)
+                Observable<D> or = observe(doc, false, persistTo, replicateTo, parent)
                     .map(new Func1<Boolean, D>() {
                         @Override
                         public D call(Boolean aBoolean) {
@@ -635,7 +896,8 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
     private <D extends Document<?>> Observable<D> remove(final D document, Span parent, long timeout, TimeUnit timeUnit) {
         final Transcoder<Document<Object>, Object> transcoder =
             (Transcoder<Document<Object>, Object>) transcoders.get(document.getClass());
-        return Mutate.remove(document, environment, transcoder, core, bucket, timeout, timeUnit, parent);
+        return invalidateReads(document.id(),
+            Mutate.remove(document, environment, transcoder, core, bucket, timeout, timeUnit, parent));
     }
 
     @Override
@@ -746,13 +1008,10 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
         }
 
         final Span parent = startTracing("remove_with_durability");
-        return remove(document, parent, timeout, timeUnit).flatMap(new Func1<D, Observable<D>>() {
+        return timedMutation(remove(document, parent, timeout, timeUnit)).flatMap(new Func1<D, Observable<D>>() {
             @Override
             public Observable<D> call(final D doc) {
-                Observable<D> or = Observe
-                    .call(core, bucket, doc.id(), doc.cas(), true, doc.mutationToken(),
-                        persistTo.value(), replicateTo.value(),
-                        environment.observeIntervalDelay(), environment.retryStrategy(), parent)
+                Observable<D> or = observe(doc, true, persistTo, replicateTo, parent)
                     .map(new Func1<Boolean, D>() {
                         @Override
                         public D call(Boolean aBoolean) {
@@ -897,12 +1156,13 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
     }
 
     private Observable<JsonLongDocument> counter(final String id, final long delta, final long initial, final int expiry, Span parent, long timeout, TimeUnit timeUnit) {
-        return Mutate.counter(id, delta, initial, expiry, environment, core, bucket, timeout, timeUnit, parent);
+        return invalidateReads(id,
+            Mutate.counter(id, delta, initial, expiry, environment, core, bucket, timeout, timeUnit, parent));
     }
 
     @Override
     public Observable<Boolean> unlock(final String id, final long cas, long timeout, TimeUnit timeUnit) {
-        return Mutate.unlock(id, cas, environment, core, bucket, timeout, timeUnit);
+        return invalidateReads(id, Mutate.unlock(id, cas, environment, core, bucket, timeout, timeUnit));
     }
 
     @Override
@@ -922,7 +1182,7 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
 
     @Override
     public Observable<Boolean> touch(final String id, final int expiry, long timeout, TimeUnit timeUnit) {
-        return Mutate.touch(id, expiry, environment, core, bucket, timeout, timeUnit);
+        return invalidateReads(id, Mutate.touch(id, expiry, environment, core, bucket, timeout, timeUnit));
     }
 
     @Override
@@ -949,7 +1209,8 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
     @SuppressWarnings("unchecked")
     private <D extends Document<?>> Observable<D> append(final D document, Span parent, long timeout, TimeUnit timeUnit) {
         final  Transcoder<Document<Object>, Object> transcoder = (Transcoder<Document<Object>, Object>) transcoders.get(document.getClass());
-        return Mutate.append(document, environment, transcoder, core, bucket, timeout, timeUnit, parent);
+        return invalidateReads(document.id(),
+            Mutate.append(document, environment, transcoder, core, bucket, timeout, timeUnit, parent));
     }
 
     @Override
@@ -961,7 +1222,8 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
     @SuppressWarnings("unchecked")
     private <D extends Document<?>> Observable<D> prepend(final D document, Span parent, long timeout, TimeUnit timeUnit) {
         final  Transcoder<Document<Object>, Object> transcoder = (Transcoder<Document<Object>, Object>) transcoders.get(document.getClass());
-        return Mutate.prepend(document, environment, transcoder, core, bucket, timeout, timeUnit, parent);
+        return invalidateReads(document.id(),
+            Mutate.prepend(document, environment, transcoder, core, bucket, timeout, timeUnit, parent));
     }
 
     @Override
@@ -1077,14 +1339,11 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
         }
 
         final Span parent = startTracing("counter_with_durability");
-        return counter(id, delta, initial, expiry, parent, timeout, timeUnit)
+        return timedMutation(counter(id, delta, initial, expiry, parent, timeout, timeUnit))
             .flatMap(new Func1<JsonLongDocument, Observable<JsonLongDocument>>() {
                 @Override
                 public Observable<JsonLongDocument> call(final JsonLongDocument doc) {
-                    Observable<JsonLongDocument> or = Observe
-                            .call(core, bucket, doc.id(), doc.cas(), false, doc.mutationToken(),
-                                    persistTo.value(), replicateTo.value(),
-                                    environment.observeIntervalDelay(), environment.retryStrategy(), parent)
+                    Observable<JsonLongDocument> or = observe(doc, false, persistTo, replicateTo, parent)
                             .map(new Func1<Boolean, JsonLongDocument>() {
                                 @Override
                                 public JsonLongDocument call(Boolean aBoolean) {
@@ -1183,12 +1442,10 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
         }
 
         final Span parent = startTracing("append_with_durability");
-        return append(document, parent, timeout, timeUnit).flatMap(new Func1<D, Observable<D>>() {
+        return timedMutation(append(document, parent, timeout, timeUnit)).flatMap(new Func1<D, Observable<D>>() {
             @Override
             public Observable<D> call(final D doc) {
-                Observable<D> or = Observe
-                        .call(core, bucket, doc.id(), doc.cas(), false, doc.mutationToken(), persistTo.value(), replicateTo.value(),
-                                environment.observeIntervalDelay(), environment.retryStrategy(), parent)
+                Observable<D> or = observe(doc, false, persistTo, replicateTo, parent)
                         .map(new Func1<Boolean, D>() {
                             @Override
                             public D call(Boolean aBoolean) {
@@ -1225,12 +1482,10 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
         }
 
         final Span parent = startTracing("prepend_with_durability");
-        return prepend(document, parent, timeout, timeUnit).flatMap(new Func1<D, Observable<D>>() {
+        return timedMutation(prepend(document, parent, timeout, timeUnit)).flatMap(new Func1<D, Observable<D>>() {
             @Override
             public Observable<D> call(final D doc) {
-                Observable<D> or = Observe
-                        .call(core, bucket, doc.id(), doc.cas(), false, doc.mutationToken(), persistTo.value(), replicateTo.value(),
-                                environment.observeIntervalDelay(), environment.retryStrategy(), parent)
+                Observable<D> or = observe(doc, false, persistTo, replicateTo, parent)
                         .map(new Func1<Boolean, D>() {
                             @Override
                             public D call(Boolean aBoolean) {
@@ -1301,7 +1556,21 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
 
     @Override
     public AsyncMutateInBuilder mutateIn(String docId) {
-        return new AsyncMutateInBuilder(core, bucket, environment, subdocumentTranscoder, docId);
+        if (nearCache == null && getCoalescer == null) {
+            return new AsyncMutateInBuilder(core, bucket, environment, subdocumentTranscoder, docId);
+        }
+        return new AsyncMutateInBuilder(core, bucket, environment, subdocumentTranscoder, docId) {
+            @Override
+            protected Observable<DocumentFragment<Mutation>> doMultiMutate(long timeout, TimeUnit timeUnit) {
+                return invalidateReads(docId, super.doMultiMutate(timeout, timeUnit));
+            }
+
+            @Override
+            protected Observable<DocumentFragment<Mutation>> doSingleMutate(MutationSpec spec, long timeout,
+                TimeUnit timeUnit) {
+                return invalidateReads(docId, super.doSingleMutate(spec, timeout, timeUnit));
+            }
+        };
     }
 
     /*-------------------------*
@@ -2014,7 +2283,7 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
 
     @Override
     public Observable<Boolean> close() {
-        return Observable.defer(new Func0<Observable<CloseBucketResponse>>() {
+        return closeWriteBehinds().concatWith(Observable.defer(new Func0<Observable<CloseBucketResponse>>() {
             @Override
             public Observable<CloseBucketResponse> call() {
                 return core.send(new CloseBucketRequest(bucket));
@@ -2025,6 +2294,29 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
                 closed = true;
                 return response.status().isSuccess();
             }
+        }));
+    }
+
+    /**
+     * Flushes and closes all write-behinds created from this bucket, their failures are reported through their
+     * listeners and do not prevent the bucket from closing.
+     */
+    private Observable<Boolean> closeWriteBehinds() {
+        return Observable.defer(new Func0<Observable<Boolean>>() {
+            @Override
+            public Observable<Boolean> call() {
+                List<WriteBehind> open = new ArrayList<WriteBehind>(writeBehinds);
+                writeBehinds.clear();
+                return Observable.from(open)
+                    .flatMap(new Func1<WriteBehind, Observable<BulkMutationResult>>() {
+                        @Override
+                        public Observable<BulkMutationResult> call(WriteBehind writeBehind) {
+                            return writeBehind.close().onErrorResumeNext(Observable.<BulkMutationResult>empty());
+                        }
+                    })
+                    .ignoreElements()
+                    .cast(Boolean.class);
+            }
         });
     }
 
@@ -2043,6 +2335,146 @@ public class CouchbaseAsyncBucket implements AsyncBucket {
         return Observable.just(n1qlQueryExecutor.invalidateQueryCache());
     }
 
+    @Override
+    public PreparedStatementCacheStats queryCacheStats() {
+        return n1qlQueryExecutor.queryCacheStats();
+    }
+
+    @Override
+    public void enableNearCache(NearCacheOptions options) {
+        NearCache previous = nearCache;
+        nearCache = new NearCache(environment, bucket, core, transcoders, options);
+        if (previous != null) {
+            previous.clear();
+        }
+    }
+
+    @Override
+    public void disableNearCache() {
+        NearCache previous = nearCache;
+        nearCache = null;
+        if (previous != null) {
+            previous.clear();
+        }
+    }
+
+    @Override
+    public NearCacheStats nearCacheStats() {
+        NearCache cache = nearCache;
+        return cache == null ? null : cache.stats();
+    }
+
+    @Override
+    public void enableGetCoalescing() {
+        if (getCoalescer == null) {
+            getCoalescer = new GetCoalescer(environment, bucket, core, transcoders);
+        }
+    }
+
+    @Override
+    public void disableGetCoalescing() {
+        getCoalescer = null;
+    }
+
+    @Override
+    public GetCoalescingStats getCoalescingStats() {
+        GetCoalescer coalescer = getCoalescer;
+        return coalescer == null ? null : coalescer.stats();
+    }
+
+    @Override
+    public void enableDurabilityCoalescing() {
+        if (durabilityCoordinator == null) {
+            durabilityCoordinator = new DurabilityCoordinator(environment, bucket, core);
+        }
+    }
+
+    @Override
+    public void disableDurabilityCoalescing() {
+        durabilityCoordinator = null;
+    }
+
+    @Override
+    public DurabilityCoalescingStats durabilityCoalescingStats() {
+        DurabilityCoordinator coordinator = durabilityCoordinator;
+        return coordinator == null ? null : coordinator.stats();
+    }
+
+    /**
+     * Records the time until a mutation with durability requirements is acknowledged, if durability coalescing
+     * is enabled.
+     */
+    private <T> Observable<T> timedMutation(final Observable<T> mutation) {
+        DurabilityCoordinator coordinator = durabilityCoordinator;
+        return coordinator == null ? mutation : coordinator.timed(mutation);
+    }
+
+    /**
+     * Observes the durability requirements of the mutated document, through the durability coalescing if it is
+     * enabled.
+     */
+    private Observable<Boolean> observe(final Document<?> doc, final boolean remove, final PersistTo persistTo,
+        final ReplicateTo replicateTo, final Span parent) {
+        DurabilityCoordinator coordinator = durabilityCoordinator;
+        if (coordinator != null) {
+            return coordinator.observe(doc.id(), doc.cas(), remove, doc.mutationToken(), persistTo.value(),
+                replicateTo.value(), parent);
+        }
+        return Observe.call(core, bucket, doc.id(), doc.cas(), remove, doc.mutationToken(), persistTo.value(),
+            replicateTo.value(), environment.observeIntervalDelay(), environment.retryStrategy(), parent);
+    }
+
+    /**
+     * Returns true if gets or mutations have to go through the near cache or get coalescing, so that they cannot
+     * take the direct path of the {@link FutureBucket}.
+     */
+    boolean interceptsReads() {
+        return nearCache != null || getCoalescer != null;
+    }
+
+    /**
+     * Invalidates the near cached copy of the mutated document and detaches a coalesced get in flight for it, if
+     * these are enabled, so that reads following the mutation do not see the previous content.
+     */
+    private <T> Observable<T> invalidateReads(final String id, final Observable<T> mutation) {
+        Observable<T> result = mutation;
+        GetCoalescer coalescer = getCoalescer;
+        if (coalescer != null) {
+            result = coalescer.detaching(id, result);
+        }
+        NearCache cache = nearCache;
+        if (cache != null) {
+            result = cache.invalidating(id, result);
+        }
+        return result;
+    }
+
+    /**
+     * Like {@link #invalidateReads(String, Observable)} for an operation on many documents, invalidating all of
+     * them when it is sent and again once it terminates.
+     */
+    private <T> Observable<T> invalidateReads(final Collection<String> ids, final Observable<T> operation) {
+        if (!interceptsReads()) {
+            return operation;
+        }
+        Action0 invalidate = new Action0() {
+            @Override
+            public void call() {
+                GetCoalescer coalescer = getCoalescer;
+                NearCache cache = nearCache;
+                for (String id : ids) {
+                    if (coalescer != null) {
+                        coalescer.detach(id);
+                    }
+                    if (cache != null) {
+                        cache.invalidate(id);
+                    }
+                }
+            }
+        };
+        return operation.doOnSubscribe(invalidate).doOnTerminate(invalidate);
+    }
+
     @Override
     public Single<PingReport> ping(String reportId, long timeout, TimeUnit timeUnit) {
         return HealthPinger.ping(environment, bucket, password, username, core, reportId, timeout, timeUnit);
@@ -19,6 +19,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import com.couchbase.client.core.ClusterFacade;
@@ -38,14 +39,23 @@ import com.couchbase.client.java.analytics.DefaultAsyncAnalyticsQueryResult;
 import com.couchbase.client.java.bucket.AsyncBucketManager;
 import com.couchbase.client.java.bucket.BucketManager;
 import com.couchbase.client.java.bucket.DefaultBucketManager;
+import com.couchbase.client.java.bulk.BulkGetResult;
+import com.couchbase.client.java.bulk.BulkMutationOptions;
+import com.couchbase.client.java.bulk.BulkMutationResult;
+import com.couchbase.client.java.bulk.BulkTouchResult;
+import com.couchbase.client.java.cache.GetCoalescingStats;
+import com.couchbase.client.java.cache.NearCacheOptions;
+import com.couchbase.client.java.cache.NearCacheStats;
 import com.couchbase.client.java.datastructures.MutationOptionBuilder;
 import com.couchbase.client.java.document.Document;
 import com.couchbase.client.java.document.JsonDocument;
 import com.couchbase.client.java.document.JsonLongDocument;
 import com.couchbase.client.java.document.json.JsonObject;
 import com.couchbase.client.java.env.CouchbaseEnvironment;
+import com.couchbase.client.java.future.CouchbaseFuture;
 import com.couchbase.client.java.query.N1qlQuery;
 import com.couchbase.client.java.query.N1qlQueryResult;
+import com.couchbase.client.java.query.PreparedStatementCacheStats;
 import com.couchbase.client.java.query.Statement;
 import com.couchbase.client.java.query.core.N1qlQueryExecutor;
 import com.couchbase.client.java.repository.CouchbaseRepository;
@@ -59,7 +69,12 @@ import com.couchbase.client.java.subdoc.LookupInBuilder;
 import com.couchbase.client.java.subdoc.MutateInBuilder;
 import com.couchbase.client.java.transcoder.JacksonTransformers;
 import com.couchbase.client.java.transcoder.Transcoder;
+import com.couchbase.client.java.util.AdaptiveTimeoutOptions;
+import com.couchbase.client.java.util.AdaptiveTimeoutStats;
+import com.couchbase.client.java.util.AdaptiveTimeouts;
+import com.couchbase.client.java.util.AdaptiveTimeouts.Operation;
 import com.couchbase.client.java.util.Blocking;
+import com.couchbase.client.java.util.DurabilityCoalescingStats;
 import com.couchbase.client.java.view.AsyncSpatialViewResult;
 import com.couchbase.client.java.view.AsyncViewResult;
 import com.couchbase.client.java.view.DefaultSpatialViewResult;
@@ -68,6 +83,7 @@ import com.couchbase.client.java.view.SpatialViewQuery;
 import com.couchbase.client.java.view.SpatialViewResult;
 import com.couchbase.client.java.view.ViewQuery;
 import com.couchbase.client.java.view.ViewResult;
+import rx.Observable;
 import rx.functions.Func1;
 
 public class CouchbaseBucket implements Bucket {
@@ -80,6 +96,8 @@ public class CouchbaseBucket implements Bucket {
     private final String username;
     private final String password;
     private final ClusterFacade core;
+    private final CouchbaseFutureBucket futureBucket;
+    private volatile AdaptiveTimeouts adaptiveTimeouts;
 
     /**
      * Create a {@link CouchbaseBucket} that doesn't reuse an existing {@link AsyncBucket} but rather creates one internally. Prefer using the alternative constructor
@@ -102,6 +120,8 @@ public class CouchbaseBucket implements Bucket {
         this.username = username;
         this.password = password;
         this.core = core;
+        FutureBucket future = asyncBucket.future();
+        this.futureBucket = future instanceof CouchbaseFutureBucket ? (CouchbaseFutureBucket) future : null;
     }
 
     @Override
@@ -131,42 +151,157 @@ public class CouchbaseBucket implements Bucket {
 
     @Override
     public JsonDocument get(String id) {
-        return get(id, kvTimeout, TIMEOUT_UNIT);
+        return get(id, kvTimeout(Operation.GET, id), TIMEOUT_UNIT);
     }
 
     @Override
     public JsonDocument get(String id, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.get(id, timeout, timeUnit).toBlocking().singleOrDefault(null);
+        CouchbaseFutureBucket direct = direct();
+        if (direct == null) {
+            return watch(Operation.GET, id, asyncBucket.get(id, timeout, timeUnit))
+                .toBlocking().singleOrDefault(null);
+        }
+        return block(Operation.GET, id, System.nanoTime(), direct.get(id, JsonDocument.class, timeout, timeUnit));
     }
 
     @Override
     public <D extends Document<?>> D get(D document) {
-        return get(document, kvTimeout, TIMEOUT_UNIT);
+        return get(document, kvTimeout(Operation.GET, document.id()), TIMEOUT_UNIT);
     }
 
     @Override
     public <D extends Document<?>> D get(D document, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.get(document, timeout, timeUnit).toBlocking().singleOrDefault(null);
+        CouchbaseFutureBucket direct = futureBucket;
+        if (direct == null) {
+            return watch(Operation.GET, document.id(), asyncBucket.get(document, timeout, timeUnit))
+                .toBlocking().singleOrDefault(null);
+        }
+        return block(Operation.GET, document.id(), System.nanoTime(),
+            direct.getFromServer(document, timeout, timeUnit));
     }
 
     @Override
     public <D extends Document<?>> D get(String id, Class<D> target) {
-        return get(id, target, kvTimeout, TIMEOUT_UNIT);
+        return get(id, target, kvTimeout(Operation.GET, id), TIMEOUT_UNIT);
     }
 
     @Override
     public <D extends Document<?>> D get(String id, Class<D> target, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.get(id, target, timeout, timeUnit).toBlocking().singleOrDefault(null);
+        CouchbaseFutureBucket direct = direct();
+        if (direct == null) {
+            return watch(Operation.GET, id, asyncBucket.get(id, target, timeout, timeUnit))
+                .toBlocking().singleOrDefault(null);
+        }
+        return block(Operation.GET, id, System.nanoTime(), direct.get(id, target, timeout, timeUnit));
+    }
+
+    @Override
+    public BulkGetResult<JsonDocument> getAll(Collection<String> ids) {
+        return getAll(ids, kvTimeout, TIMEOUT_UNIT);
+    }
+
+    @Override
+    public BulkGetResult<JsonDocument> getAll(Collection<String> ids, long timeout, TimeUnit timeUnit) {
+        return asyncBucket.getAll(ids, timeout, timeUnit).toBlocking().single();
+    }
+
+    @Override
+    public <D extends Document<?>> BulkGetResult<D> getAll(Collection<String> ids, Class<D> target) {
+        return getAll(ids, target, kvTimeout, TIMEOUT_UNIT);
+    }
+
+    @Override
+    public <D extends Document<?>> BulkGetResult<D> getAll(Collection<String> ids, Class<D> target, long timeout,
+        TimeUnit timeUnit) {
+        return asyncBucket.getAll(ids, target, timeout, timeUnit).toBlocking().single();
+    }
+
+    @Override
+    public BulkGetResult<JsonDocument> getAndTouchAll(Collection<String> ids, int expiry) {
+        return getAndTouchAll(ids, expiry, kvTimeout, TIMEOUT_UNIT);
+    }
+
+    @Override
+    public BulkGetResult<JsonDocument> getAndTouchAll(Collection<String> ids, int expiry, long timeout,
+        TimeUnit timeUnit) {
+        return asyncBucket.getAndTouchAll(ids, expiry, timeout, timeUnit).toBlocking().single();
+    }
+
+    @Override
+    public <D extends Document<?>> BulkGetResult<D> getAndTouchAll(Collection<String> ids, int expiry,
+        Class<D> target) {
+        return getAndTouchAll(ids, expiry, target, kvTimeout, TIMEOUT_UNIT);
+    }
+
+    @Override
+    public <D extends Document<?>> BulkGetResult<D> getAndTouchAll(Collection<String> ids, int expiry,
+        Class<D> target, long timeout, TimeUnit timeUnit) {
+        return asyncBucket.getAndTouchAll(ids, expiry, target, timeout, timeUnit).toBlocking().single();
+    }
+
+    @Override
+    public BulkTouchResult touchAll(Collection<String> ids, int expiry) {
+        return touchAll(ids, expiry, kvTimeout, TIMEOUT_UNIT);
+    }
+
+    @Override
+    public BulkTouchResult touchAll(Collection<String> ids, int expiry, long timeout, TimeUnit timeUnit) {
+        return asyncBucket.touchAll(ids, expiry, timeout, timeUnit).toBlocking().single();
+    }
+
+    @Override
+    public <D extends Document<?>> BulkMutationResult upsertAll(Iterable<D> documents) {
+        return asyncBucket.upsertAll(documents).toBlocking().single();
+    }
+
+    @Override
+    public <D extends Document<?>> BulkMutationResult upsertAll(Iterable<D> documents, BulkMutationOptions options) {
+        return asyncBucket.upsertAll(documents, options).toBlocking().single();
+    }
+
+    @Override
+    public <D extends Document<?>> BulkMutationResult insertAll(Iterable<D> documents) {
+        return asyncBucket.insertAll(documents).toBlocking().single();
+    }
+
+    @Override
+    public <D extends Document<?>> BulkMutationResult insertAll(Iterable<D> documents, BulkMutationOptions options) {
+        return asyncBucket.insertAll(documents, options).toBlocking().single();
+    }
+
+    @Override
+    public <D extends Document<?>> BulkMutationResult replaceAll(Iterable<D> documents) {
+        return asyncBucket.replaceAll(documents).toBlocking().single();
+    }
+
+    @Override
+    public <D extends Document<?>> BulkMutationResult replaceAll(Iterable<D> documents, BulkMutationOptions options) {
+        return asyncBucket.replaceAll(documents, options).toBlocking().single();
+    }
+
+    @Override
+    public <D extends Document<?>> BulkMutationResult removeAll(Iterable<D> documents) {
+        return asyncBucket.removeAll(documents).toBlocking().single();
+    }
+
+    @Override
+    public <D extends Document<?>> BulkMutationResult removeAll(Iterable<D> documents, BulkMutationOptions options) {
+        return asyncBucket.removeAll(documents, options).toBlocking().single();
     }
 
     @Override
     public boolean exists(String id) {
-        return exists(id, kvTimeout, TIMEOUT_UNIT);
+        return exists(id, kvTimeout(Operation.EXISTS, id), TIMEOUT_UNIT);
     }
 
     @Override
     public boolean exists(String id, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.exists(id, timeout, timeUnit).toBlocking().single();
+        CouchbaseFutureBucket direct = direct();
+        if (direct == null) {
+            return watch(Operation.EXISTS, id, asyncBucket.exists(id, timeout, timeUnit))
+                .toBlocking().single();
+        }
+        return block(Operation.EXISTS, id, System.nanoTime(), direct.exists(id, timeout, timeUnit));
     }
 
     @Override
@@ -250,72 +385,83 @@ public class CouchbaseBucket implements Bucket {
 
     @Override
     public JsonDocument getAndLock(String id, int lockTime) {
-        return getAndLock(id, lockTime, kvTimeout, TIMEOUT_UNIT);
+        return getAndLock(id, lockTime, kvTimeout(Operation.GET_AND_LOCK, id), TIMEOUT_UNIT);
     }
 
     @Override
     public JsonDocument getAndLock(String id, int lockTime, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.getAndLock(id, lockTime, timeout, timeUnit).toBlocking().singleOrDefault(null);
+        return watch(Operation.GET_AND_LOCK, id, asyncBucket.getAndLock(id, lockTime, timeout, timeUnit))
+            .toBlocking().singleOrDefault(null);
     }
 
     @Override
     public <D extends Document<?>> D getAndLock(D document, int lockTime) {
-        return getAndLock(document, lockTime, kvTimeout, TIMEOUT_UNIT);
+        return getAndLock(document, lockTime, kvTimeout(Operation.GET_AND_LOCK, document.id()), TIMEOUT_UNIT);
     }
 
     @Override
     public <D extends Document<?>> D getAndLock(D document, int lockTime, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.getAndLock(document, lockTime, timeout, timeUnit).toBlocking().singleOrDefault(null);
+        return watch(Operation.GET_AND_LOCK, document.id(), asyncBucket.getAndLock(document, lockTime, timeout, timeUnit))
+            .toBlocking().singleOrDefault(null);
     }
 
     @Override
     public <D extends Document<?>> D getAndLock(String id, int lockTime, Class<D> target) {
-        return getAndLock(id, lockTime, target, kvTimeout, TIMEOUT_UNIT);
+        return getAndLock(id, lockTime, target, kvTimeout(Operation.GET_AND_LOCK, id), TIMEOUT_UNIT);
     }
 
     @Override
     public <D extends Document<?>> D getAndLock(String id, int lockTime, Class<D> target, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.getAndLock(id, lockTime, target, timeout, timeUnit).toBlocking().singleOrDefault(null);
+        return watch(Operation.GET_AND_LOCK, id, asyncBucket.getAndLock(id, lockTime, target, timeout, timeUnit))
+            .toBlocking().singleOrDefault(null);
     }
 
     @Override
     public JsonDocument getAndTouch(String id, int expiry) {
-        return getAndTouch(id, expiry, kvTimeout, TIMEOUT_UNIT);
+        return getAndTouch(id, expiry, kvTimeout(Operation.GET_AND_TOUCH, id), TIMEOUT_UNIT);
     }
 
     @Override
     public JsonDocument getAndTouch(String id, int expiry, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.getAndTouch(id, expiry, timeout, timeUnit).toBlocking().singleOrDefault(null);
+        return watch(Operation.GET_AND_TOUCH, id, asyncBucket.getAndTouch(id, expiry, timeout, timeUnit))
+            .toBlocking().singleOrDefault(null);
     }
 
     @Override
     public <D extends Document<?>> D getAndTouch(D document) {
-        return getAndTouch(document, kvTimeout, TIMEOUT_UNIT);
+        return getAndTouch(document, kvTimeout(Operation.GET_AND_TOUCH, document.id()), TIMEOUT_UNIT);
     }
 
     @Override
     public <D extends Document<?>> D getAndTouch(D document, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.getAndTouch(document, timeout, timeUnit).toBlocking().singleOrDefault(null);
+        return watch(Operation.GET_AND_TOUCH, document.id(), asyncBucket.getAndTouch(document, timeout, timeUnit))
+            .toBlocking().singleOrDefault(null);
     }
 
     @Override
     public <D extends Document<?>> D getAndTouch(String id, int expiry, Class<D> target) {
-        return getAndTouch(id, expiry, target, kvTimeout, TIMEOUT_UNIT);
+        return getAndTouch(id, expiry, target, kvTimeout(Operation.GET_AND_TOUCH, id), TIMEOUT_UNIT);
     }
 
     @Override
     public <D extends Document<?>> D getAndTouch(String id, int expiry, Class<D> target, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.getAndTouch(id, expiry, target, timeout, timeUnit).toBlocking().singleOrDefault(null);
+        return watch(Operation.GET_AND_TOUCH, id, asyncBucket.getAndTouch(id, expiry, target, timeout, timeUnit))
+            .toBlocking().singleOrDefault(null);
     }
 
     @Override
     public <D extends Document<?>> D insert(D document) {
-        return insert(document, kvTimeout, TIMEOUT_UNIT);
+        return insert(document, kvTimeout(Operation.INSERT, document.id()), TIMEOUT_UNIT);
     }
 
     @Override
     public <D extends Document<?>> D insert(D document, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.insert(document, timeout, timeUnit).toBlocking().single();
+        CouchbaseFutureBucket direct = direct();
+        if (direct == null) {
+            return watch(Operation.INSERT, document.id(), asyncBucket.insert(document, timeout, timeUnit))
+                .toBlocking().single();
+        }
+        return block(Operation.INSERT, document.id(), System.nanoTime(), direct.insert(document, timeout, timeUnit));
     }
 
     @Override
@@ -350,12 +496,17 @@ public class CouchbaseBucket implements Bucket {
 
     @Override
     public <D extends Document<?>> D upsert(D document) {
-        return upsert(document, kvTimeout, TIMEOUT_UNIT);
+        return upsert(document, kvTimeout(Operation.UPSERT, document.id()), TIMEOUT_UNIT);
     }
 
     @Override
     public <D extends Document<?>> D upsert(D document, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.upsert(document, timeout, timeUnit).toBlocking().single();
+        CouchbaseFutureBucket direct = direct();
+        if (direct == null) {
+            return watch(Operation.UPSERT, document.id(), asyncBucket.upsert(document, timeout, timeUnit))
+                .toBlocking().single();
+        }
+        return block(Operation.UPSERT, document.id(), System.nanoTime(), direct.upsert(document, timeout, timeUnit));
     }
 
     @Override
@@ -390,12 +541,17 @@ public class CouchbaseBucket implements Bucket {
 
     @Override
     public <D extends Document<?>> D replace(D document) {
-        return replace(document, kvTimeout, TIMEOUT_UNIT);
+        return replace(document, kvTimeout(Operation.REPLACE, document.id()), TIMEOUT_UNIT);
     }
 
     @Override
     public <D extends Document<?>> D replace(D document, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.replace(document, timeout, timeUnit).toBlocking().single();
+        CouchbaseFutureBucket direct = direct();
+        if (direct == null) {
+            return watch(Operation.REPLACE, document.id(), asyncBucket.replace(document, timeout, timeUnit))
+                .toBlocking().single();
+        }
+        return block(Operation.REPLACE, document.id(), System.nanoTime(), direct.replace(document, timeout, timeUnit));
     }
 
     @Override
@@ -431,7 +587,7 @@ public class CouchbaseBucket implements Bucket {
 
     @Override
     public <D extends Document<?>> D remove(D document) {
-        return remove(document, kvTimeout, TIMEOUT_UNIT);
+        return remove(document, kvTimeout(Operation.REMOVE, document.id()), TIMEOUT_UNIT);
     }
 
     @Override
@@ -451,7 +607,12 @@ public class CouchbaseBucket implements Bucket {
 
     @Override
     public <D extends Document<?>> D remove(D document, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.remove(document, timeout, timeUnit).toBlocking().single();
+        CouchbaseFutureBucket direct = direct();
+        if (direct == null) {
+            return watch(Operation.REMOVE, document.id(), asyncBucket.remove(document, timeout, timeUnit))
+                .toBlocking().single();
+        }
+        return block(Operation.REMOVE, document.id(), System.nanoTime(), direct.remove(document, timeout, timeUnit));
     }
 
     @Override
@@ -471,7 +632,7 @@ public class CouchbaseBucket implements Bucket {
 
     @Override
     public JsonDocument remove(String id) {
-        return remove(id, kvTimeout, TIMEOUT_UNIT);
+        return remove(id, kvTimeout(Operation.REMOVE, id), TIMEOUT_UNIT);
     }
 
     @Override
@@ -491,7 +652,12 @@ public class CouchbaseBucket implements Bucket {
 
     @Override
     public JsonDocument remove(String id, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.remove(id, timeout, timeUnit).toBlocking().single();
+        CouchbaseFutureBucket direct = direct();
+        if (direct == null) {
+            return watch(Operation.REMOVE, id, asyncBucket.remove(id, timeout, timeUnit))
+                .toBlocking().single();
+        }
+        return block(Operation.REMOVE, id, System.nanoTime(), direct.remove(id, JsonDocument.class, timeout, timeUnit));
     }
 
     @Override
@@ -511,7 +677,7 @@ public class CouchbaseBucket implements Bucket {
 
     @Override
     public <D extends Document<?>> D remove(String id, Class<D> target) {
-        return remove(id, target, kvTimeout, TIMEOUT_UNIT);
+        return remove(id, target, kvTimeout(Operation.REMOVE, id), TIMEOUT_UNIT);
     }
 
     @Override
@@ -531,7 +697,12 @@ public class CouchbaseBucket implements Bucket {
 
     @Override
     public <D extends Document<?>> D remove(String id, Class<D> target, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.remove(id, target, timeout, timeUnit).toBlocking().single();
+        CouchbaseFutureBucket direct = direct();
+        if (direct == null) {
+            return watch(Operation.REMOVE, id, asyncBucket.remove(id, target, timeout, timeUnit))
+                .toBlocking().single();
+        }
+        return block(Operation.REMOVE, id, System.nanoTime(), direct.remove(id, target, timeout, timeUnit));
     }
 
     @Override
@@ -644,80 +815,119 @@ public class CouchbaseBucket implements Bucket {
 
     @Override
     public N1qlQueryResult query(N1qlQuery query, final long timeout, final TimeUnit timeUnit) {
-        return asyncBucket.query(query, timeout, timeUnit)
-            .flatMap(N1qlQueryExecutor.ASYNC_RESULT_TO_SYNC)
-            .toBlocking()
-            .single();
+        if (query.params().isStreamRows()) {
+            return asyncBucket.query(query, timeout, timeUnit)
+                .map(N1qlQueryExecutor.asyncResultToStreaming(timeout, timeUnit))
+                .toBlocking()
+                .single()
+                .awaitFirstRow();
+        } else {
+            return asyncBucket.query(query, timeout, timeUnit)
+                .flatMap(N1qlQueryExecutor.ASYNC_RESULT_TO_SYNC)
+                .toBlocking()
+                .single();
+        }
     }
 
     @Override
     public Boolean unlock(String id, long cas) {
-        return unlock(id, cas, kvTimeout, TIMEOUT_UNIT);
+        return unlock(id, cas, kvTimeout(Operation.UNLOCK, id), TIMEOUT_UNIT);
     }
 
     @Override
     public <D extends Document<?>> Boolean unlock(D document) {
-        return unlock(document, kvTimeout, TIMEOUT_UNIT);
+        return unlock(document, kvTimeout(Operation.UNLOCK, document.id()), TIMEOUT_UNIT);
     }
 
     @Override
     public Boolean unlock(String id, long cas, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.unlock(id, cas, timeout, timeUnit).toBlocking().single();
+        return watch(Operation.UNLOCK, id, asyncBucket.unlock(id, cas, timeout, timeUnit))
+            .toBlocking().single();
     }
 
     @Override
     public <D extends Document<?>> Boolean unlock(D document, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.unlock(document, timeout, timeUnit).toBlocking().single();
+        return watch(Operation.UNLOCK, document.id(), asyncBucket.unlock(document, timeout, timeUnit))
+            .toBlocking().single();
     }
 
     @Override
     public Boolean touch(String id, int expiry) {
-        return touch(id, expiry, kvTimeout, TIMEOUT_UNIT);
+        return touch(id, expiry, kvTimeout(Operation.TOUCH, id), TIMEOUT_UNIT);
     }
 
     @Override
     public <D extends Document<?>> Boolean touch(D document) {
-        return touch(document, kvTimeout, TIMEOUT_UNIT);
+        return touch(document, kvTimeout(Operation.TOUCH, document.id()), TIMEOUT_UNIT);
     }
 
     @Override
     public Boolean touch(String id, int expiry, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.touch(id, expiry, timeout, timeUnit).toBlocking().single();
+        CouchbaseFutureBucket direct = direct();
+        if (direct == null) {
+            return watch(Operation.TOUCH, id, asyncBucket.touch(id, expiry, timeout, timeUnit))
+                .toBlocking().single();
+        }
+        return block(Operation.TOUCH, id, System.nanoTime(), direct.touch(id, expiry, timeout, timeUnit));
     }
 
     @Override
     public <D extends Document<?>> Boolean touch(D document, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.touch(document, timeout, timeUnit).toBlocking().single();
+        CouchbaseFutureBucket direct = direct();
+        if (direct == null) {
+            return watch(Operation.TOUCH, document.id(), asyncBucket.touch(document, timeout, timeUnit))
+                .toBlocking().single();
+        }
+        return block(Operation.TOUCH, document.id(), System.nanoTime(),
+            direct.touch(document.id(), document.expiry(), timeout, timeUnit));
     }
 
     @Override
     public JsonLongDocument counter(String id, long delta) {
-        return counter(id, delta, kvTimeout, TIMEOUT_UNIT);
+        return counter(id, delta, kvTimeout(Operation.COUNTER, id), TIMEOUT_UNIT);
     }
 
     @Override
     public JsonLongDocument counter(String id, long delta, long initial) {
-        return counter(id, delta, initial, kvTimeout, TIMEOUT_UNIT);
+        return counter(id, delta, initial, kvTimeout(Operation.COUNTER, id), TIMEOUT_UNIT);
     }
 
     @Override
     public JsonLongDocument counter(String id, long delta, long initial, int expiry) {
-        return counter(id, delta, initial, expiry, kvTimeout, TIMEOUT_UNIT);
+        return counter(id, delta, initial, expiry, kvTimeout(Operation.COUNTER, id), TIMEOUT_UNIT);
     }
 
     @Override
     public JsonLongDocument counter(String id, long delta, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.counter(id, delta, timeout, timeUnit).toBlocking().single();
+        CouchbaseFutureBucket direct = direct();
+        if (direct == null) {
+            return watch(Operation.COUNTER, id, asyncBucket.counter(id, delta, timeout, timeUnit))
+                .toBlocking().single();
+        }
+        return block(Operation.COUNTER, id, System.nanoTime(), direct.counter(id, delta, 0,
+            CouchbaseAsyncBucket.COUNTER_NOT_EXISTS_EXPIRY, timeout, timeUnit));
     }
 
     @Override
     public JsonLongDocument counter(String id, long delta, long initial, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.counter(id, delta, initial, timeout, timeUnit).toBlocking().single();
+        CouchbaseFutureBucket direct = direct();
+        if (direct == null) {
+            return watch(Operation.COUNTER, id, asyncBucket.counter(id, delta, initial, timeout, timeUnit))
+                .toBlocking().single();
+        }
+        return block(Operation.COUNTER, id, System.nanoTime(),
+            direct.counter(id, delta, initial, 0, timeout, timeUnit));
     }
 
     @Override
     public JsonLongDocument counter(String id, long delta, long initial, int expiry, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.counter(id, delta, initial, expiry, timeout, timeUnit).toBlocking().single();
+        CouchbaseFutureBucket direct = direct();
+        if (direct == null) {
+            return watch(Operation.COUNTER, id, asyncBucket.counter(id, delta, initial, expiry, timeout, timeUnit))
+                .toBlocking().single();
+        }
+        return block(Operation.COUNTER, id, System.nanoTime(),
+            direct.counter(id, delta, initial, expiry, timeout, timeUnit));
     }
 
     @Override
@@ -736,22 +946,24 @@ public class CouchbaseBucket implements Bucket {
 
     @Override
     public <D extends Document<?>> D append(D document) {
-        return append(document, kvTimeout, TIMEOUT_UNIT);
+        return append(document, kvTimeout(Operation.APPEND, document.id()), TIMEOUT_UNIT);
     }
 
     @Override
     public <D extends Document<?>> D prepend(D document) {
-        return prepend(document, kvTimeout, TIMEOUT_UNIT);
+        return prepend(document, kvTimeout(Operation.PREPEND, document.id()), TIMEOUT_UNIT);
     }
 
     @Override
     public <D extends Document<?>> D append(D document, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.append(document, timeout, timeUnit).toBlocking().single();
+        return watch(Operation.APPEND, document.id(), asyncBucket.append(document, timeout, timeUnit))
+            .toBlocking().single();
     }
 
     @Override
     public <D extends Document<?>> D prepend(D document, long timeout, TimeUnit timeUnit) {
-        return asyncBucket.prepend(document, timeout, timeUnit).toBlocking().single();
+        return watch(Operation.PREPEND, document.id(), asyncBucket.prepend(document, timeout, timeUnit))
+            .toBlocking().single();
     }
 
     @Override
@@ -1202,6 +1414,7 @@ public class CouchbaseBucket implements Bucket {
 
     @Override
     public Boolean close(long timeout, TimeUnit timeUnit) {
+        disableAdaptiveTimeouts();
         return Blocking.blockForSingle(asyncBucket.close().single(), timeout, timeUnit);
     }
 
@@ -1222,6 +1435,139 @@ public class CouchbaseBucket implements Bucket {
         );
     }
 
+    @Override
+    public PreparedStatementCacheStats queryCacheStats() {
+        return asyncBucket.queryCacheStats();
+    }
+
+    @Override
+    public void enableNearCache(NearCacheOptions options) {
+        asyncBucket.enableNearCache(options);
+    }
+
+    @Override
+    public void disableNearCache() {
+        asyncBucket.disableNearCache();
+    }
+
+    @Override
+    public NearCacheStats nearCacheStats() {
+        return asyncBucket.nearCacheStats();
+    }
+
+    @Override
+    public void enableGetCoalescing() {
+        asyncBucket.enableGetCoalescing();
+    }
+
+    @Override
+    public void disableGetCoalescing() {
+        asyncBucket.disableGetCoalescing();
+    }
+
+    @Override
+    public GetCoalescingStats getCoalescingStats() {
+        return asyncBucket.getCoalescingStats();
+    }
+
+    @Override
+    public void enableDurabilityCoalescing() {
+        asyncBucket.enableDurabilityCoalescing();
+    }
+
+    @Override
+    public void disableDurabilityCoalescing() {
+        asyncBucket.disableDurabilityCoalescing();
+    }
+
+    @Override
+    public DurabilityCoalescingStats durabilityCoalescingStats() {
+        return asyncBucket.durabilityCoalescingStats();
+    }
+
+    @Override
+    public FutureBucket future() {
+        return asyncBucket.future();
+    }
+
+    @Override
+    public void enableAdaptiveTimeouts(AdaptiveTimeoutOptions options) {
+        AdaptiveTimeouts timeouts = new AdaptiveTimeouts(options, kvTimeout);
+        timeouts.attach(core, name);
+        AdaptiveTimeouts previous = adaptiveTimeouts;
+        adaptiveTimeouts = timeouts;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    @Override
+    public void disableAdaptiveTimeouts() {
+        AdaptiveTimeouts previous = adaptiveTimeouts;
+        adaptiveTimeouts = null;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    @Override
+    public AdaptiveTimeoutStats adaptiveTimeoutStats() {
+        AdaptiveTimeouts timeouts = adaptiveTimeouts;
+        return timeouts == null ? null : timeouts.stats();
+    }
+
+    /**
+     * Returns the timeout for an operation without an explicit one, which is the KV timeout unless adaptive
+     * timeouts are enabled.
+     */
+    private long kvTimeout(Operation operation, String id) {
+        AdaptiveTimeouts timeouts = adaptiveTimeouts;
+        return timeouts == null ? kvTimeout : timeouts.timeoutMillis(operation, id);
+    }
+
+    /**
+     * Records the latency of the operation if adaptive timeouts are enabled.
+     */
+    private <T> Observable<T> watch(Operation operation, String id, Observable<T> response) {
+        AdaptiveTimeouts timeouts = adaptiveTimeouts;
+        return timeouts == null ? response : timeouts.watch(operation, id, response);
+    }
+
+    /**
+     * Returns the {@link CouchbaseFutureBucket} if KV operations can skip the observable chain, which is not the
+     * case with a custom {@link AsyncBucket} or while the near cache or get coalescing is enabled.
+     */
+    private CouchbaseFutureBucket direct() {
+        CouchbaseFutureBucket direct = futureBucket;
+        return direct != null && direct.isDirect() ? direct : null;
+    }
+
+    /**
+     * Waits for the operation, with the same outcome as blocking on its observable: errors which are not runtime
+     * exceptions, like a {@link java.util.concurrent.TimeoutException}, are wrapped in a {@link RuntimeException}.
+     */
+    private <T> T block(Operation operation, String id, long start, CouchbaseFuture<T> response) {
+        AdaptiveTimeouts timeouts = adaptiveTimeouts;
+        if (timeouts != null) {
+            timeouts.watch(operation, id, start, response);
+        }
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            response.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for subscription to complete.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
     @Override
     public PingReport ping(String reportId, long timeout, TimeUnit timeUnit) {
         return asyncBucket.ping(reportId, timeout, timeUnit).toBlocking().value();
@@ -467,11 +467,20 @@ public class CouchbaseCluster implements Cluster {
 
     @Override
     public N1qlQueryResult query(N1qlQuery query, long timeout, TimeUnit timeUnit) {
-        return Blocking.blockForSingle(
-                couchbaseAsyncCluster
-                        .query(query)
-                        .flatMap(N1qlQueryExecutor.ASYNC_RESULT_TO_SYNC)
-                        .single(), timeout, timeUnit);
+        if (query.params().isStreamRows()) {
+            return Blocking.blockForSingle(
+                    couchbaseAsyncCluster
+                            .query(query)
+                            .map(N1qlQueryExecutor.asyncResultToStreaming(timeout, timeUnit))
+                            .single(), timeout, timeUnit)
+                    .awaitFirstRow();
+        } else {
+            return Blocking.blockForSingle(
+                    couchbaseAsyncCluster
+                            .query(query)
+                            .flatMap(N1qlQueryExecutor.ASYNC_RESULT_TO_SYNC)
+                            .single(), timeout, timeUnit);
+        }
     }
 
     @Override
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.message.kv.subdoc.multi.Lookup;
+import com.couchbase.client.core.message.kv.subdoc.multi.Mutation;
+import com.couchbase.client.java.bucket.api.DirectKv;
+import com.couchbase.client.java.document.Document;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.document.JsonLongDocument;
+import com.couchbase.client.java.env.CouchbaseEnvironment;
+import com.couchbase.client.java.future.CouchbaseFuture;
+import com.couchbase.client.java.query.N1qlQuery;
+import com.couchbase.client.java.query.N1qlQueryResult;
+import com.couchbase.client.java.query.core.N1qlQueryExecutor;
+import com.couchbase.client.java.subdoc.AsyncLookupInBuilder;
+import com.couchbase.client.java.subdoc.AsyncMutateInBuilder;
+import com.couchbase.client.java.subdoc.DocumentFragment;
+import com.couchbase.client.java.transcoder.Transcoder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.couchbase.client.java.CouchbaseAsyncBucket.COUNTER_NOT_EXISTS_EXPIRY;
+
+/**
+ * The {@link FutureBucket} of a {@link CouchbaseAsyncBucket}.
+ *
+ * The overloads with an explicit timeout back the blocking KV operations of the {@link CouchbaseBucket}.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Private
+public class CouchbaseFutureBucket implements FutureBucket {
+
+    private static final TimeUnit TIMEOUT_UNIT = TimeUnit.MILLISECONDS;
+
+    private final CouchbaseAsyncBucket asyncBucket;
+    private final CouchbaseEnvironment environment;
+    private final ClusterFacade core;
+    private final String bucket;
+    private final Map<Class<? extends Document>, Transcoder<? extends Document, ?>> transcoders;
+    private final long kvTimeout;
+
+    CouchbaseFutureBucket(final CouchbaseAsyncBucket asyncBucket, final CouchbaseEnvironment environment,
+        final ClusterFacade core, final String bucket,
+        final Map<Class<? extends Document>, Transcoder<? extends Document, ?>> transcoders) {
+        this.asyncBucket = asyncBucket;
+        this.environment = environment;
+        this.core = core;
+        this.bucket = bucket;
+        this.transcoders = transcoders;
+        this.kvTimeout = environment.kvTimeout();
+    }
+
+    @Override
+    public String name() {
+        return bucket;
+    }
+
+    @Override
+    public CouchbaseFuture<JsonDocument> get(String id) {
+        return get(id, JsonDocument.class);
+    }
+
+    @Override
+    public <D extends Document<?>> CouchbaseFuture<D> get(String id, Class<D> target) {
+        return get(id, target, kvTimeout, TIMEOUT_UNIT);
+    }
+
+    <D extends Document<?>> CouchbaseFuture<D> get(String id, Class<D> target, long timeout, TimeUnit timeUnit) {
+        if (asyncBucket.interceptsReads()) {
+            return CouchbaseFuture.from(asyncBucket.get(id, target, timeout, timeUnit));
+        }
+        return DirectKv.get(id, target, environment, bucket, core, transcoders, timeout, timeUnit);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <D extends Document<?>> CouchbaseFuture<D> get(D document) {
+        return (CouchbaseFuture<D>) get(document.id(), document.getClass());
+    }
+
+    /**
+     * Reads the document from the server even if the near cache or get coalescing is enabled, like
+     * {@link CouchbaseAsyncBucket#get(Document, long, TimeUnit)} does.
+     */
+    @SuppressWarnings("unchecked")
+    <D extends Document<?>> CouchbaseFuture<D> getFromServer(D document, long timeout, TimeUnit timeUnit) {
+        return (CouchbaseFuture<D>) DirectKv.get(document.id(), document.getClass(), environment, bucket, core,
+            transcoders, timeout, timeUnit);
+    }
+
+    @Override
+    public CouchbaseFuture<JsonDocument> getAndLock(String id, int lockTime) {
+        if (asyncBucket.interceptsReads()) {
+            return CouchbaseFuture.from(asyncBucket.getAndLock(id, lockTime, kvTimeout, TIMEOUT_UNIT));
+        }
+        return DirectKv.getAndLock(id, JsonDocument.class, environment, bucket, core, transcoders, lockTime,
+            kvTimeout, TIMEOUT_UNIT);
+    }
+
+    @Override
+    public CouchbaseFuture<JsonDocument> getAndTouch(String id, int expiry) {
+        if (asyncBucket.interceptsReads()) {
+            return CouchbaseFuture.from(asyncBucket.getAndTouch(id, expiry, kvTimeout, TIMEOUT_UNIT));
+        }
+        return DirectKv.getAndTouch(id, JsonDocument.class, environment, bucket, core, transcoders, expiry,
+            kvTimeout, TIMEOUT_UNIT);
+    }
+
+    @Override
+    public CouchbaseFuture<Boolean> exists(String id) {
+        return exists(id, kvTimeout, TIMEOUT_UNIT);
+    }
+
+    CouchbaseFuture<Boolean> exists(String id, long timeout, TimeUnit timeUnit) {
+        return DirectKv.exists(id, environment, core, bucket, timeout, timeUnit);
+    }
+
+    @Override
+    public <D extends Document<?>> CouchbaseFuture<D> insert(D document) {
+        return insert(document, kvTimeout, TIMEOUT_UNIT);
+    }
+
+    <D extends Document<?>> CouchbaseFuture<D> insert(D document, long timeout, TimeUnit timeUnit) {
+        if (asyncBucket.interceptsReads()) {
+            return CouchbaseFuture.from(asyncBucket.insert(document, timeout, timeUnit));
+        }
+        return DirectKv.insert(document, environment, transcoder(document), core, bucket, timeout, timeUnit);
+    }
+
+    @Override
+    public <D extends Document<?>> CouchbaseFuture<D> upsert(D document) {
+        return upsert(document, kvTimeout, TIMEOUT_UNIT);
+    }
+
+    <D extends Document<?>> CouchbaseFuture<D> upsert(D document, long timeout, TimeUnit timeUnit) {
+        if (asyncBucket.interceptsReads()) {
+            return CouchbaseFuture.from(asyncBucket.upsert(document, timeout, timeUnit));
+        }
+        return DirectKv.upsert(document, environment, transcoder(document), core, bucket, timeout, timeUnit);
+    }
+
+    @Override
+    public <D extends Document<?>> CouchbaseFuture<D> replace(D document) {
+        return replace(document, kvTimeout, TIMEOUT_UNIT);
+    }
+
+    <D extends Document<?>> CouchbaseFuture<D> replace(D document, long timeout, TimeUnit timeUnit) {
+        if (asyncBucket.interceptsReads()) {
+            return CouchbaseFuture.from(asyncBucket.replace(document, timeout, timeUnit));
+        }
+        return DirectKv.replace(document, environment, transcoder(document), core, bucket, timeout, timeUnit);
+    }
+
+    @Override
+    public <D extends Document<?>> CouchbaseFuture<D> remove(D document) {
+        return remove(document, kvTimeout, TIMEOUT_UNIT);
+    }
+
+    <D extends Document<?>> CouchbaseFuture<D> remove(D document, long timeout, TimeUnit timeUnit) {
+        if (asyncBucket.interceptsReads()) {
+            return CouchbaseFuture.from(asyncBucket.remove(document, timeout, timeUnit));
+        }
+        return DirectKv.remove(document, environment, transcoder(document), core, bucket, timeout, timeUnit);
+    }
+
+    @Override
+    public CouchbaseFuture<JsonDocument> remove(String id) {
+        return remove(id, JsonDocument.class, kvTimeout, TIMEOUT_UNIT);
+    }
+
+    @SuppressWarnings("unchecked")
+    <D extends Document<?>> CouchbaseFuture<D> remove(String id, Class<D> target, long timeout, TimeUnit timeUnit) {
+        Transcoder<Document<Object>, Object> transcoder =
+            (Transcoder<Document<Object>, Object>) transcoders.get(target);
+        return remove((D) transcoder.newDocument(id, 0, null, 0, null), timeout, timeUnit);
+    }
+
+    @Override
+    public CouchbaseFuture<Boolean> touch(String id, int expiry) {
+        return touch(id, expiry, kvTimeout, TIMEOUT_UNIT);
+    }
+
+    CouchbaseFuture<Boolean> touch(String id, int expiry, long timeout, TimeUnit timeUnit) {
+        if (asyncBucket.interceptsReads()) {
+            return CouchbaseFuture.from(asyncBucket.touch(id, expiry, timeout, timeUnit));
+        }
+        return DirectKv.touch(id, expiry, environment, core, bucket, timeout, timeUnit);
+    }
+
+    @Override
+    public CouchbaseFuture<Boolean> unlock(String id, long cas) {
+        if (asyncBucket.interceptsReads()) {
+            return CouchbaseFuture.from(asyncBucket.unlock(id, cas, kvTimeout, TIMEOUT_UNIT));
+        }
+        return DirectKv.unlock(id, cas, environment, core, bucket, kvTimeout, TIMEOUT_UNIT);
+    }
+
+    @Override
+    public CouchbaseFuture<JsonLongDocument> counter(String id, long delta) {
+        return counter(id, delta, 0, COUNTER_NOT_EXISTS_EXPIRY);
+    }
+
+    @Override
+    public CouchbaseFuture<JsonLongDocument> counter(String id, long delta, long initial) {
+        return counter(id, delta, initial, 0);
+    }
+
+    @Override
+    public CouchbaseFuture<JsonLongDocument> counter(String id, long delta, long initial, int expiry) {
+        return counter(id, delta, initial, expiry, kvTimeout, TIMEOUT_UNIT);
+    }
+
+    CouchbaseFuture<JsonLongDocument> counter(String id, long delta, long initial, int expiry, long timeout,
+        TimeUnit timeUnit) {
+        if (asyncBucket.interceptsReads()) {
+            return CouchbaseFuture.from(asyncBucket.counter(id, delta, initial, expiry, timeout, timeUnit));
+        }
+        return DirectKv.counter(id, delta, initial, expiry, environment, core, bucket, timeout, timeUnit);
+    }
+
+    @Override
+    public <D extends Document<?>> CouchbaseFuture<D> append(D document) {
+        if (asyncBucket.interceptsReads()) {
+            return CouchbaseFuture.from(asyncBucket.append(document, kvTimeout, TIMEOUT_UNIT));
+        }
+        return DirectKv.append(document, environment, transcoder(document), core, bucket, kvTimeout, TIMEOUT_UNIT);
+    }
+
+    @Override
+    public <D extends Document<?>> CouchbaseFuture<D> prepend(D document) {
+        if (asyncBucket.interceptsReads()) {
+            return CouchbaseFuture.from(asyncBucket.prepend(document, kvTimeout, TIMEOUT_UNIT));
+        }
+        return DirectKv.prepend(document, environment, transcoder(document), core, bucket, kvTimeout, TIMEOUT_UNIT);
+    }
+
+    @Override
+    public CouchbaseFuture<DocumentFragment<Lookup>> lookupIn(AsyncLookupInBuilder builder) {
+        return CouchbaseFuture.from(builder.execute(kvTimeout, TIMEOUT_UNIT));
+    }
+
+    @Override
+    public CouchbaseFuture<DocumentFragment<Mutation>> mutateIn(AsyncMutateInBuilder builder) {
+        return CouchbaseFuture.from(builder.execute(kvTimeout, TIMEOUT_UNIT));
+    }
+
+    @Override
+    public CouchbaseFuture<N1qlQueryResult> query(N1qlQuery query) {
+        return CouchbaseFuture.from(asyncBucket.query(query, environment.queryTimeout(), TIMEOUT_UNIT)
+            .flatMap(N1qlQueryExecutor.ASYNC_RESULT_TO_SYNC));
+    }
+
+    /**
+     * Returns true if gets and mutations currently take the direct path, false if they go through the
+     * {@link AsyncBucket} because the near cache or get coalescing is enabled.
+     */
+    boolean isDirect() {
+        return !asyncBucket.interceptsReads();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Transcoder<Document<Object>, Object> transcoder(Document<?> document) {
+        return (Transcoder<Document<Object>, Object>) transcoders.get(document.getClass());
+    }
+
+    @Override
+    public String toString() {
+        return "CouchbaseFutureBucket{" + bucket + '}';
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.message.kv.subdoc.multi.Lookup;
+import com.couchbase.client.core.message.kv.subdoc.multi.Mutation;
+import com.couchbase.client.java.document.Document;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.document.JsonLongDocument;
+import com.couchbase.client.java.future.CouchbaseFuture;
+import com.couchbase.client.java.query.N1qlQuery;
+import com.couchbase.client.java.query.N1qlQueryResult;
+import com.couchbase.client.java.subdoc.AsyncLookupInBuilder;
+import com.couchbase.client.java.subdoc.AsyncMutateInBuilder;
+import com.couchbase.client.java.subdoc.DocumentFragment;
+
+/**
+ * Defines operations of a bucket which return a {@link CouchbaseFuture} instead of an {@link rx.Observable}.
+ *
+ * The KV operations complete their future directly from the response, without the observable chain of the
+ * {@link AsyncBucket} and without a subscriber adapter, which saves several allocations per operation. Their
+ * results and errors are the same as the ones of the {@link AsyncBucket}: a get of a document which does not exist
+ * completes with null, failures complete the future exceptionally with the same exceptions. All operations time
+ * out after the default timeout of their service, like the {@link Bucket} methods without an explicit timeout.
+ *
+ * If the near cache or get coalescing is enabled, gets and mutations go through the {@link AsyncBucket} so that
+ * they keep their semantics. Subdocument operations and queries always do, they only save the subscriber adapter.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public interface FutureBucket {
+
+    /**
+     * The name of the bucket.
+     */
+    String name();
+
+    /**
+     * Retrieves a {@link JsonDocument} by its unique ID, completing with null if it does not exist.
+     */
+    CouchbaseFuture<JsonDocument> get(String id);
+
+    /**
+     * Retrieves any type of {@link Document} by its unique ID, completing with null if it does not exist.
+     */
+    <D extends Document<?>> CouchbaseFuture<D> get(String id, Class<D> target);
+
+    /**
+     * Retrieves any type of {@link Document} by the ID of the given document, completing with null if it does
+     * not exist.
+     */
+    <D extends Document<?>> CouchbaseFuture<D> get(D document);
+
+    /**
+     * Retrieves and write locks a {@link JsonDocument} for the given lock time in seconds, completing with null
+     * if it does not exist.
+     */
+    CouchbaseFuture<JsonDocument> getAndLock(String id, int lockTime);
+
+    /**
+     * Retrieves a {@link JsonDocument} and updates its expiration time, completing with null if it does not exist.
+     */
+    CouchbaseFuture<JsonDocument> getAndTouch(String id, int expiry);
+
+    /**
+     * Checks whether a document with the given ID exists.
+     */
+    CouchbaseFuture<Boolean> exists(String id);
+
+    /**
+     * Inserts a {@link Document} if it does not exist already.
+     */
+    <D extends Document<?>> CouchbaseFuture<D> insert(D document);
+
+    /**
+     * Inserts or overwrites a {@link Document}.
+     */
+    <D extends Document<?>> CouchbaseFuture<D> upsert(D document);
+
+    /**
+     * Replaces a {@link Document} if it does already exist, using its CAS value if set.
+     */
+    <D extends Document<?>> CouchbaseFuture<D> replace(D document);
+
+    /**
+     * Removes a {@link Document}, using its CAS value if set.
+     */
+    <D extends Document<?>> CouchbaseFuture<D> remove(D document);
+
+    /**
+     * Removes the {@link Document} with the given ID.
+     */
+    CouchbaseFuture<JsonDocument> remove(String id);
+
+    /**
+     * Updates the expiration time of a document.
+     */
+    CouchbaseFuture<Boolean> touch(String id, int expiry);
+
+    /**
+     * Unlocks a write locked document.
+     */
+    CouchbaseFuture<Boolean> unlock(String id, long cas);
+
+    /**
+     * Increments or decrements a counter by the given delta, failing if it does not exist.
+     */
+    CouchbaseFuture<JsonLongDocument> counter(String id, long delta);
+
+    /**
+     * Increments or decrements a counter by the given delta, creating it with the initial value if it does not
+     * exist.
+     */
+    CouchbaseFuture<JsonLongDocument> counter(String id, long delta, long initial);
+
+    /**
+     * Increments or decrements a counter by the given delta, creating it with the initial value and expiration
+     * time if it does not exist.
+     */
+    CouchbaseFuture<JsonLongDocument> counter(String id, long delta, long initial, int expiry);
+
+    /**
+     * Appends the content of the {@link Document} to an existing one.
+     */
+    <D extends Document<?>> CouchbaseFuture<D> append(D document);
+
+    /**
+     * Prepends the content of the {@link Document} to an existing one.
+     */
+    <D extends Document<?>> CouchbaseFuture<D> prepend(D document);
+
+    /**
+     * Executes the lookups of the builder, obtained from {@link AsyncBucket#lookupIn(String)}.
+     */
+    CouchbaseFuture<DocumentFragment<Lookup>> lookupIn(AsyncLookupInBuilder builder);
+
+    /**
+     * Executes the mutations of the builder, obtained from {@link AsyncBucket#mutateIn(String)}.
+     */
+    CouchbaseFuture<DocumentFragment<Mutation>> mutateIn(AsyncMutateInBuilder builder);
+
+    /**
+     * Executes the N1QL query and completes with its result once all rows have been received.
+     */
+    CouchbaseFuture<N1qlQueryResult> query(N1qlQuery query);
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bucket.api;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.message.kv.GetRequest;
+import com.couchbase.client.core.message.kv.GetResponse;
+import com.couchbase.client.java.bulk.BulkGetResult;
+import com.couchbase.client.java.document.Document;
+import com.couchbase.client.java.env.CouchbaseEnvironment;
+import com.couchbase.client.java.transcoder.Transcoder;
+import rx.Observable;
+import rx.Subscriber;
+import rx.functions.Action2;
+import rx.functions.Func0;
+import rx.functions.Func1;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.couchbase.client.java.bucket.api.Utils.addRequestSpan;
+import static com.couchbase.client.java.util.OnSubscribeDeferAndWatch.deferAndWatch;
+
+/**
+ * Contains the logic to execute and handle bulk get requests.
+ *
+ * The IDs are grouped by their target node and each group is pipelined with a bounded number of
+ * requests in flight, so that a large batch neither floods a single node nor the request ring buffer.
+ * Individual gets do not carry their own timeout; a single timer bounds the whole operation and all
+ * IDs still outstanding when it fires are reported as failed with a {@link TimeoutException}.
+ *
+ * @since 2.7.24
+ */
+@InterfaceAudience.Private
+@InterfaceStability.Uncommitted
+public class BulkGet {
+
+    private BulkGet() {}
+
+    public static <D extends Document<?>> Observable<BulkGetResult<D>> getAll(final Collection<String> ids,
+        final Class<D> target, final CouchbaseEnvironment environment, final String bucket,
+        final ClusterFacade core, final Map<Class<? extends Document>, Transcoder<? extends Document, ?>> transcoders,
+        final int maxInFlightPerNode, final long timeout, final TimeUnit timeUnit) {
+        return execute(ids, environment, bucket, core, maxInFlightPerNode, timeout, timeUnit,
+            new Func1<String, Observable<Outcome<D>>>() {
+                @Override
+                public Observable<Outcome<D>> call(String id) {
+                    GetRequest request = new GetRequest(id, bucket);
+                    addRequestSpan(environment, request, "get");
+                    return fetch(id, request, new Get.GetFilter(environment),
+                        new Get.GetMap<D>(environment, transcoders, target, id), core);
+                }
+            });
+    }
+
+    /**
+     * Retrieves the documents and resets their expiration time like {@link Get#getAndTouch}, in bulk.
+     */
+    public static <D extends Document<?>> Observable<BulkGetResult<D>> getAndTouchAll(final Collection<String> ids,
+        final Class<D> target, final int expiry, final CouchbaseEnvironment environment, final String bucket,
+        final ClusterFacade core, final Map<Class<? extends Document>, Transcoder<? extends Document, ?>> transcoders,
+        final int maxInFlightPerNode, final long timeout, final TimeUnit timeUnit) {
+        return execute(ids, environment, bucket, core, maxInFlightPerNode, timeout, timeUnit,
+            new Func1<String, Observable<Outcome<D>>>() {
+                @Override
+                public Observable<Outcome<D>> call(String id) {
+                    GetRequest request = new GetRequest(id, bucket, false, true, expiry);
+                    addRequestSpan(environment, request, "get_and_touch");
+                    return fetch(id, request, new Get.GetAndTouchFilter(environment),
+                        new Get.GetMap<D>(environment, transcoders, target, id), core);
+                }
+            });
+    }
+
+    private static <D extends Document<?>> Observable<BulkGetResult<D>> execute(final Collection<String> ids,
+        final CouchbaseEnvironment environment, final String bucket, final ClusterFacade core,
+        final int maxInFlightPerNode, final long timeout, final TimeUnit timeUnit,
+        final Func1<String, Observable<Outcome<D>>> fetch) {
+        return Observable.defer(new Func0<Observable<BulkGetResult<D>>>() {
+            @Override
+            public Observable<BulkGetResult<D>> call() {
+                final Set<String> requested = new LinkedHashSet<String>(ids);
+                if (requested.isEmpty()) {
+                    return Observable.just(new Accumulator<D>().build(requested));
+                }
+
+                Observable<Outcome<D>> outcomes = PartitionGrouping.pipelined(core, bucket, requested,
+                    maxInFlightPerNode, fetch);
+
+                if (timeout > 0) {
+                    outcomes = outcomes.takeUntil(Observable.timer(timeout, timeUnit, environment.scheduler()));
+                }
+
+                return outcomes
+                    .collect(new Func0<Accumulator<D>>() {
+                        @Override
+                        public Accumulator<D> call() {
+                            return new Accumulator<D>();
+                        }
+                    }, new Action2<Accumulator<D>, Outcome<D>>() {
+                        @Override
+                        public void call(Accumulator<D> accumulator, Outcome<D> outcome) {
+                            accumulator.add(outcome);
+                        }
+                    })
+                    .map(new Func1<Accumulator<D>, BulkGetResult<D>>() {
+                        @Override
+                        public BulkGetResult<D> call(Accumulator<D> accumulator) {
+                            return accumulator.build(requested);
+                        }
+                    });
+            }
+        });
+    }
+
+    /**
+     * Performs a single get as part of the batch, without any timeout attached and with all errors
+     * converted into a failed {@link Outcome}.
+     */
+    private static <D extends Document<?>> Observable<Outcome<D>> fetch(final String id, final GetRequest request,
+        final Func1<GetResponse, Boolean> filter, final Func1<GetResponse, D> mapper, final ClusterFacade core) {
+        return deferAndWatch(new Func1<Subscriber, Observable<GetResponse>>() {
+                @Override
+                public Observable<GetResponse> call(Subscriber s) {
+                    request.subscriber(s);
+                    return core.send(request);
+                }
+            })
+            .map(new Func1<GetResponse, Outcome<D>>() {
+                @Override
+                public Outcome<D> call(GetResponse response) {
+                    if (filter.call(response)) {
+                        return new Outcome<D>(id, mapper.call(response), null);
+                    }
+                    return new Outcome<D>(id, null, null);
+                }
+            })
+            .onErrorReturn(new Func1<Throwable, Outcome<D>>() {
+                @Override
+                public Outcome<D> call(Throwable throwable) {
+                    return new Outcome<D>(id, null, throwable);
+                }
+            });
+    }
+
+    /**
+     * The result of a single get inside the batch.
+     */
+    private static class Outcome<D> {
+        private final String id;
+        private final D document;
+        private final Throwable error;
+
+        Outcome(String id, D document, Throwable error) {
+            this.id = id;
+            this.document = document;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Collects the individual outcomes; only ever accessed serially from the collect operator.
+     */
+    private static class Accumulator<D extends Document<?>> {
+        private final Map<String, D> documents = new LinkedHashMap<String, D>();
+        private final Set<String> missing = new LinkedHashSet<String>();
+        private final Map<String, Throwable> failures = new HashMap<String, Throwable>();
+
+        void add(Outcome<D> outcome) {
+            if (outcome.error != null) {
+                failures.put(outcome.id, outcome.error);
+            } else if (outcome.document != null) {
+                documents.put(outcome.id, outcome.document);
+            } else {
+                missing.add(outcome.id);
+            }
+        }
+
+        BulkGetResult<D> build(Set<String> requested) {
+            if (documents.size() + missing.size() + failures.size() < requested.size()) {
+                for (String id : requested) {
+                    if (!documents.containsKey(id) && !missing.contains(id) && !failures.containsKey(id)) {
+                        failures.put(id, new TimeoutException("Bulk get timed out before a response arrived."));
+                    }
+                }
+            }
+            return new BulkGetResult<D>(documents, missing, failures);
+        }
+    }
+}
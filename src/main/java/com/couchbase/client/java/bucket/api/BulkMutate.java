@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bucket.api;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.message.kv.MutationToken;
+import com.couchbase.client.java.bulk.BulkMutationOptions;
+import com.couchbase.client.java.bulk.BulkMutationResult;
+import com.couchbase.client.java.document.Document;
+import com.couchbase.client.java.util.retry.RetryWhenFunction;
+import rx.Observable;
+import rx.functions.Action2;
+import rx.functions.Func0;
+import rx.functions.Func1;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Contains the logic to execute a stream of mutations with a bounded window and collect a report.
+ *
+ * The source of documents is consumed with backpressure: new documents are only requested once a slot
+ * in the window frees up, so an arbitrarily large source never gets buffered. Retriable errors are
+ * retried per document based on the configured retry builder, and remaining errors are recorded per ID
+ * instead of terminating the stream.
+ *
+ * @since 2.7.24
+ */
+@InterfaceAudience.Private
+@InterfaceStability.Uncommitted
+public class BulkMutate {
+
+    private BulkMutate() {}
+
+    /**
+     * Applies the given mutation to all documents of the source and collects the outcomes.
+     *
+     * @param documents the source of documents.
+     * @param mutation the (deferred) mutation to perform for each document.
+     * @param options the bulk options.
+     * @return an observable eventually containing the report.
+     */
+    public static <D extends Document<?>> Observable<BulkMutationResult> execute(final Observable<D> documents,
+        final Func1<D, Observable<D>> mutation, final BulkMutationOptions options) {
+        final RetryWhenFunction retry = options.retryBuilder() == null ? null : options.retryBuilder().build();
+        final boolean collectSuccesses = options.collectSuccesses();
+
+        return documents
+            .flatMap(new Func1<D, Observable<Outcome>>() {
+                @Override
+                public Observable<Outcome> call(final D document) {
+                    Observable<D> result = mutation.call(document);
+                    if (retry != null) {
+                        result = result.retryWhen(retry);
+                    }
+                    return result
+                        .map(new Func1<D, Outcome>() {
+                            @Override
+                            public Outcome call(D mutated) {
+                                return new Outcome(document.id(), mutated.cas(), mutated.mutationToken(), null);
+                            }
+                        })
+                        .onErrorReturn(new Func1<Throwable, Outcome>() {
+                            @Override
+                            public Outcome call(Throwable throwable) {
+                                return new Outcome(document.id(), 0, null, throwable);
+                            }
+                        });
+                }
+            }, options.maxInFlight())
+            .collect(new Func0<Accumulator>() {
+                @Override
+                public Accumulator call() {
+                    return new Accumulator(collectSuccesses);
+                }
+            }, new Action2<Accumulator, Outcome>() {
+                @Override
+                public void call(Accumulator accumulator, Outcome outcome) {
+                    accumulator.add(outcome);
+                }
+            })
+            .map(new Func1<Accumulator, BulkMutationResult>() {
+                @Override
+                public BulkMutationResult call(Accumulator accumulator) {
+                    return new BulkMutationResult(accumulator.successCount, accumulator.cas,
+                        accumulator.mutationTokens, accumulator.failures);
+                }
+            });
+    }
+
+    /**
+     * The result of a single mutation inside the bulk operation.
+     */
+    private static class Outcome {
+        private final String id;
+        private final long cas;
+        private final MutationToken mutationToken;
+        private final Throwable error;
+
+        Outcome(String id, long cas, MutationToken mutationToken, Throwable error) {
+            this.id = id;
+            this.cas = cas;
+            this.mutationToken = mutationToken;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Collects the individual outcomes; only ever accessed serially from the collect operator.
+     */
+    private static class Accumulator {
+        private final boolean collectSuccesses;
+        private final Map<String, Long> cas = new HashMap<String, Long>();
+        private final Map<String, MutationToken> mutationTokens = new HashMap<String, MutationToken>();
+        private final Map<String, Throwable> failures = new HashMap<String, Throwable>();
+        private long successCount;
+
+        Accumulator(boolean collectSuccesses) {
+            this.collectSuccesses = collectSuccesses;
+        }
+
+        void add(Outcome outcome) {
+            if (outcome.error != null) {
+                failures.put(outcome.id, outcome.error);
+                return;
+            }
+            successCount++;
+            // a later success for the same id supersedes an earlier failure
+            failures.remove(outcome.id);
+            if (collectSuccesses) {
+                cas.put(outcome.id, outcome.cas);
+                if (outcome.mutationToken != null) {
+                    mutationTokens.put(outcome.id, outcome.mutationToken);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bucket.api;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.message.kv.TouchRequest;
+import com.couchbase.client.core.message.kv.TouchResponse;
+import com.couchbase.client.java.bulk.BulkTouchResult;
+import com.couchbase.client.java.env.CouchbaseEnvironment;
+import com.couchbase.client.java.error.DocumentDoesNotExistException;
+import rx.Observable;
+import rx.Subscriber;
+import rx.functions.Action2;
+import rx.functions.Func0;
+import rx.functions.Func1;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.couchbase.client.java.util.OnSubscribeDeferAndWatch.deferAndWatch;
+
+/**
+ * Contains the logic to execute and handle bulk touch requests.
+ *
+ * Like {@link BulkGet}, the IDs are grouped by their target node and each group is pipelined with a bounded
+ * number of requests in flight. Only the number of refreshed documents is kept, so touching a large key set
+ * does not build up a result per ID. A single timer bounds the whole operation and all IDs still outstanding
+ * when it fires are reported as failed with a {@link TimeoutException}.
+ *
+ * @since 2.7.24
+ */
+@InterfaceAudience.Private
+@InterfaceStability.Uncommitted
+public class BulkTouch {
+
+    private BulkTouch() {}
+
+    public static Observable<BulkTouchResult> touchAll(final Collection<String> ids, final int expiry,
+        final CouchbaseEnvironment environment, final String bucket, final ClusterFacade core,
+        final int maxInFlightPerNode, final long timeout, final TimeUnit timeUnit) {
+        return Observable.defer(new Func0<Observable<BulkTouchResult>>() {
+            @Override
+            public Observable<BulkTouchResult> call() {
+                final Set<String> requested = new LinkedHashSet<String>(ids);
+                if (requested.isEmpty()) {
+                    return Observable.just(new Accumulator(requested).build());
+                }
+
+                Observable<Outcome> outcomes = PartitionGrouping.pipelined(core, bucket, requested,
+                    maxInFlightPerNode, new Func1<String, Observable<Outcome>>() {
+                        @Override
+                        public Observable<Outcome> call(String id) {
+                            return touch(id, expiry, environment, bucket, core);
+                        }
+                    });
+
+                if (timeout > 0) {
+                    outcomes = outcomes.takeUntil(Observable.timer(timeout, timeUnit, environment.scheduler()));
+                }
+
+                return outcomes
+                    .collect(new Func0<Accumulator>() {
+                        @Override
+                        public Accumulator call() {
+                            return new Accumulator(requested);
+                        }
+                    }, new Action2<Accumulator, Outcome>() {
+                        @Override
+                        public void call(Accumulator accumulator, Outcome outcome) {
+                            accumulator.add(outcome);
+                        }
+                    })
+                    .map(new Func1<Accumulator, BulkTouchResult>() {
+                        @Override
+                        public BulkTouchResult call(Accumulator accumulator) {
+                            return accumulator.build();
+                        }
+                    });
+            }
+        });
+    }
+
+    /**
+     * Performs a single touch as part of the batch, without any timeout attached and with all errors
+     * converted into a failed {@link Outcome}.
+     */
+    private static Observable<Outcome> touch(final String id, final int expiry,
+        final CouchbaseEnvironment environment, final String bucket, final ClusterFacade core) {
+        final TouchRequest request = Mutate.touchRequest(id, expiry, environment, bucket);
+        return deferAndWatch(new Func1<Subscriber, Observable<TouchResponse>>() {
+                @Override
+                public Observable<TouchResponse> call(Subscriber s) {
+                    request.subscriber(s);
+                    return core.send(request);
+                }
+            })
+            .map(new Mutate.TouchMap(environment))
+            .map(new Func1<Boolean, Outcome>() {
+                @Override
+                public Outcome call(Boolean touched) {
+                    return new Outcome(id, Outcome.REFRESHED, null);
+                }
+            })
+            .onErrorReturn(new Func1<Throwable, Outcome>() {
+                @Override
+                public Outcome call(Throwable throwable) {
+                    if (throwable instanceof DocumentDoesNotExistException) {
+                        return new Outcome(id, Outcome.MISSING, null);
+                    }
+                    return new Outcome(id, Outcome.FAILED, throwable);
+                }
+            });
+    }
+
+    /**
+     * The result of a single touch inside the batch.
+     */
+    private static class Outcome {
+        static final int REFRESHED = 0;
+        static final int MISSING = 1;
+        static final int FAILED = 2;
+
+        private final String id;
+        private final int kind;
+        private final Throwable error;
+
+        Outcome(String id, int kind, Throwable error) {
+            this.id = id;
+            this.kind = kind;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Collects the individual outcomes; only ever accessed serially from the collect operator.
+     */
+    private static class Accumulator {
+        private final Set<String> outstanding;
+        private final Set<String> missing = new LinkedHashSet<String>();
+        private final Map<String, Throwable> failures = new HashMap<String, Throwable>();
+        private long refreshed;
+
+        /**
+         * @param outstanding the requested IDs, consumed as their outcomes arrive.
+         */
+        Accumulator(Set<String> outstanding) {
+            this.outstanding = outstanding;
+        }
+
+        void add(Outcome outcome) {
+            outstanding.remove(outcome.id);
+            switch (outcome.kind) {
+                case Outcome.REFRESHED:
+                    refreshed++;
+                    break;
+                case Outcome.MISSING:
+                    missing.add(outcome.id);
+                    break;
+                default:
+                    failures.put(outcome.id, outcome.error);
+            }
+        }
+
+        BulkTouchResult build() {
+            for (String id : outstanding) {
+                failures.put(id, new TimeoutException("Bulk touch timed out before a response arrived."));
+            }
+            return new BulkTouchResult(refreshed, missing, failures);
+        }
+    }
+}
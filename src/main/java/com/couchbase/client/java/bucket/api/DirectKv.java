@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bucket.api;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.kv.GetRequest;
+import com.couchbase.client.java.document.Document;
+import com.couchbase.client.java.document.JsonLongDocument;
+import com.couchbase.client.java.env.CouchbaseEnvironment;
+import com.couchbase.client.java.future.CompletionListener;
+import com.couchbase.client.java.future.CouchbaseFuture;
+import com.couchbase.client.java.transcoder.Transcoder;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.functions.Action0;
+import rx.functions.Func1;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.couchbase.client.java.bucket.api.Utils.addRequestSpan;
+
+/**
+ * Executes KV requests and completes a {@link CouchbaseFuture} directly from the response.
+ *
+ * The requests are built and their responses converted exactly like in {@link Get}, {@link Exists} and
+ * {@link Mutate}, so the results and errors are the same. Instead of a chain of deferring, watching, mapping and
+ * timeout operators, a single subscriber converts the response and completes the future. Timeouts are scheduled
+ * on the {@link CouchbaseEnvironment#scheduler()}, like the timeouts of the observable API.
+ *
+ * @since 2.7.24
+ */
+@InterfaceAudience.Private
+@InterfaceStability.Uncommitted
+public class DirectKv {
+
+    private DirectKv() {}
+
+    public static <D extends Document<?>> CouchbaseFuture<D> get(final String id, final Class<D> target,
+        final CouchbaseEnvironment environment, final String bucket, final ClusterFacade core,
+        final Map<Class<? extends Document>, Transcoder<? extends Document, ?>> transcoders,
+        final long timeout, final TimeUnit timeUnit) {
+        GetRequest request = new GetRequest(id, bucket);
+        addRequestSpan(environment, request, "get");
+        return execute(environment, core, request, new Get.GetFilter(environment),
+            new Get.GetMap<D>(environment, transcoders, target, id), timeout, timeUnit);
+    }
+
+    public static <D extends Document<?>> CouchbaseFuture<D> getAndLock(final String id, final Class<D> target,
+        final CouchbaseEnvironment environment, final String bucket, final ClusterFacade core,
+        final Map<Class<? extends Document>, Transcoder<? extends Document, ?>> transcoders, final int lockTime,
+        final long timeout, final TimeUnit timeUnit) {
+        GetRequest request = new GetRequest(id, bucket, true, false, lockTime);
+        addRequestSpan(environment, request, "get_and_lock");
+        return execute(environment, core, request, new Get.GetAndLockFilter(environment),
+            new Get.GetMap<D>(environment, transcoders, target, id), timeout, timeUnit);
+    }
+
+    public static <D extends Document<?>> CouchbaseFuture<D> getAndTouch(final String id, final Class<D> target,
+        final CouchbaseEnvironment environment, final String bucket, final ClusterFacade core,
+        final Map<Class<? extends Document>, Transcoder<? extends Document, ?>> transcoders, final int expiry,
+        final long timeout, final TimeUnit timeUnit) {
+        GetRequest request = new GetRequest(id, bucket, false, true, expiry);
+        addRequestSpan(environment, request, "get_and_touch");
+        return execute(environment, core, request, new Get.GetAndTouchFilter(environment),
+            new Get.GetMap<D>(environment, transcoders, target, id), timeout, timeUnit);
+    }
+
+    public static CouchbaseFuture<Boolean> exists(final String id, final CouchbaseEnvironment environment,
+        final ClusterFacade core, final String bucket, final long timeout, final TimeUnit timeUnit) {
+        return execute(environment, core, Exists.existsRequest(id, environment, bucket), null,
+            new Exists.ExistsMap(environment), timeout, timeUnit);
+    }
+
+    public static <D extends Document<?>> CouchbaseFuture<D> insert(final D document, final CouchbaseEnvironment env,
+        final Transcoder<Document<Object>, Object> transcoder, final ClusterFacade core, final String bucket,
+        final long timeout, final TimeUnit timeUnit) {
+        return execute(env, core, Mutate.insertRequest(document, env, transcoder, bucket, null), null,
+            new Mutate.InsertMap<D>(document, env, transcoder), timeout, timeUnit);
+    }
+
+    public static <D extends Document<?>> CouchbaseFuture<D> upsert(final D document, final CouchbaseEnvironment env,
+        final Transcoder<Document<Object>, Object> transcoder, final ClusterFacade core, final String bucket,
+        final long timeout, final TimeUnit timeUnit) {
+        return execute(env, core, Mutate.upsertRequest(document, env, transcoder, bucket, null), null,
+            new Mutate.UpsertMap<D>(document, env, transcoder), timeout, timeUnit);
+    }
+
+    public static <D extends Document<?>> CouchbaseFuture<D> replace(final D document, final CouchbaseEnvironment env,
+        final Transcoder<Document<Object>, Object> transcoder, final ClusterFacade core, final String bucket,
+        final long timeout, final TimeUnit timeUnit) {
+        return execute(env, core, Mutate.replaceRequest(document, env, transcoder, bucket, null), null,
+            new Mutate.ReplaceMap<D>(document, env, transcoder), timeout, timeUnit);
+    }
+
+    public static <D extends Document<?>> CouchbaseFuture<D> remove(final D document, final CouchbaseEnvironment env,
+        final Transcoder<Document<Object>, Object> transcoder, final ClusterFacade core, final String bucket,
+        final long timeout, final TimeUnit timeUnit) {
+        return execute(env, core, Mutate.removeRequest(document, env, bucket, null), null,
+            new Mutate.RemoveMap<D>(document, env, transcoder), timeout, timeUnit);
+    }
+
+    public static CouchbaseFuture<Boolean> unlock(final String id, final long cas, final CouchbaseEnvironment env,
+        final ClusterFacade core, final String bucket, final long timeout, final TimeUnit timeUnit) {
+        return execute(env, core, Mutate.unlockRequest(id, cas, env, bucket), null, new Mutate.UnlockMap(env),
+            timeout, timeUnit);
+    }
+
+    public static CouchbaseFuture<Boolean> touch(final String id, final int expiry, final CouchbaseEnvironment env,
+        final ClusterFacade core, final String bucket, final long timeout, final TimeUnit timeUnit) {
+        return execute(env, core, Mutate.touchRequest(id, expiry, env, bucket), null, new Mutate.TouchMap(env),
+            timeout, timeUnit);
+    }
+
+    public static CouchbaseFuture<JsonLongDocument> counter(final String id, final long delta, final long initial,
+        final int expiry, final CouchbaseEnvironment env, final ClusterFacade core, final String bucket,
+        final long timeout, final TimeUnit timeUnit) {
+        return execute(env, core, Mutate.counterRequest(id, delta, initial, expiry, env, bucket, null), null,
+            new Mutate.CounterMap(id, expiry, env), timeout, timeUnit);
+    }
+
+    public static <D extends Document<?>> CouchbaseFuture<D> append(final D document, final CouchbaseEnvironment env,
+        final Transcoder<Document<Object>, Object> transcoder, final ClusterFacade core, final String bucket,
+        final long timeout, final TimeUnit timeUnit) {
+        return execute(env, core, Mutate.appendRequest(document, env, transcoder, bucket, null), null,
+            new Mutate.AppendMap<D>(document, transcoder), timeout, timeUnit);
+    }
+
+    public static <D extends Document<?>> CouchbaseFuture<D> prepend(final D document, final CouchbaseEnvironment env,
+        final Transcoder<Document<Object>, Object> transcoder, final ClusterFacade core, final String bucket,
+        final long timeout, final TimeUnit timeUnit) {
+        return execute(env, core, Mutate.prependRequest(document, env, transcoder, bucket, null), null,
+            new Mutate.PrependMap<D>(document, transcoder), timeout, timeUnit);
+    }
+
+    /**
+     * Sends the request and completes the returned future with the converted response.
+     *
+     * @param environment the environment whose scheduler runs the timeout.
+     * @param core the core to send the request to.
+     * @param request the request.
+     * @param filter decides whether the response has a value or completes the future with null, may be null.
+     * @param map converts the response, or throws the error the future fails with.
+     * @param timeout the timeout after which the future fails with a {@link TimeoutException}, 0 for none.
+     * @param timeUnit the unit of the timeout.
+     */
+    static <R extends CouchbaseResponse, T> CouchbaseFuture<T> execute(final CouchbaseEnvironment environment,
+        final ClusterFacade core, final CouchbaseRequest request, final Func1<R, Boolean> filter,
+        final Func1<R, T> map, final long timeout, final TimeUnit timeUnit) {
+        ResponseSubscriber<R, T> subscriber = new ResponseSubscriber<R, T>(request, filter, map, timeout, timeUnit);
+        request.subscriber(subscriber);
+        if (timeout > 0) {
+            Scheduler.Worker timer = environment.scheduler().createWorker();
+            subscriber.timer = timer;
+            timer.schedule(subscriber, timeout, timeUnit);
+        }
+        Observable<R> response = core.send(request);
+        response.subscribe(subscriber);
+        return subscriber.future;
+    }
+
+    /**
+     * Converts the response and completes the future, or fails it once the timeout fires.
+     */
+    private static class ResponseSubscriber<R extends CouchbaseResponse, T> extends Subscriber<R>
+        implements Action0, CompletionListener<T> {
+
+        final CouchbaseFuture<T> future;
+        private final CouchbaseRequest request;
+        private final Func1<R, Boolean> filter;
+        private final Func1<R, T> map;
+        private final long timeoutMicros;
+        volatile Scheduler.Worker timer;
+
+        ResponseSubscriber(CouchbaseRequest request, Func1<R, Boolean> filter, Func1<R, T> map, long timeout,
+            TimeUnit timeUnit) {
+            this.request = request;
+            this.filter = filter;
+            this.map = map;
+            this.timeoutMicros = timeout > 0 ? timeUnit.toMicros(timeout) : 0;
+            this.future = new CouchbaseFuture<T>();
+            future.addListener(this);
+        }
+
+        @Override
+        public void onNext(R response) {
+            T value;
+            try {
+                value = filter == null || filter.call(response) ? map.call(response) : null;
+            } catch (Throwable t) {
+                future.fail(t);
+                return;
+            }
+            future.complete(value);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            future.fail(e);
+        }
+
+        @Override
+        public void onCompleted() {
+            future.complete(null);
+        }
+
+        @Override
+        public void call() {
+            future.fail(new TimeoutException(Utils.formatTimeout(request, timeoutMicros)));
+        }
+
+        @Override
+        public void onComplete(T value, Throwable error) {
+            Scheduler.Worker scheduled = timer;
+            if (scheduled != null) {
+                scheduled.unsubscribe();
+            }
+            unsubscribe();
+        }
+    }
+}
@@ -0,0 +1,541 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bucket.api;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.DocumentMutationLostException;
+import com.couchbase.client.core.ReplicaNotConfiguredException;
+import com.couchbase.client.core.ServiceNotAvailableException;
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.config.CouchbaseBucketConfig;
+import com.couchbase.client.core.endpoint.kv.AuthenticationException;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.ResponseStatusDetails;
+import com.couchbase.client.core.message.cluster.GetClusterConfigRequest;
+import com.couchbase.client.core.message.cluster.GetClusterConfigResponse;
+import com.couchbase.client.core.message.kv.FailoverObserveSeqnoResponse;
+import com.couchbase.client.core.message.kv.MutationToken;
+import com.couchbase.client.core.message.kv.NoFailoverObserveSeqnoResponse;
+import com.couchbase.client.core.message.kv.ObserveSeqnoRequest;
+import com.couchbase.client.core.message.observe.Observe;
+import com.couchbase.client.core.time.Delay;
+import com.couchbase.client.java.env.CouchbaseEnvironment;
+import com.couchbase.client.java.util.DurabilityCoalescingStats;
+import com.couchbase.client.java.util.LatencyHistogram;
+import io.opentracing.Span;
+import rx.Observable;
+import rx.Subscriber;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func0;
+import rx.functions.Func1;
+import rx.subscriptions.Subscriptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Observes the durability requirements of many mutations with shared polls.
+ *
+ * The sequence numbers returned by an observe of a partition (vbucket) cover every mutation made on it, so all
+ * mutations waiting on the same partition are observed together: one round sends a single observe request to the
+ * master and, if any of them needs it, one to each replica. Each mutation completes as soon as the responses of a
+ * round meet its requirements, mutations arriving while a round is in flight join the next one. Rounds are spaced
+ * by the {@link CouchbaseEnvironment#observeIntervalDelay() observe interval delay} for the number of rounds the
+ * most recent mutation waited so far, so a partition with new mutations is polled at the initial pace while one
+ * which only has slow mutations left backs off. The errors and their conditions are the same as when observing a
+ * single mutation.
+ *
+ * Only mutations carrying a {@link MutationToken} can be coalesced, the others are observed on their own through
+ * their CAS.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Uncommitted
+@InterfaceAudience.Private
+public class DurabilityCoordinator {
+
+    /**
+     * The number of samples after which the latency histograms are halved.
+     */
+    private static final long LATENCY_DECAY_INTERVAL = 10000;
+
+    private final CouchbaseEnvironment environment;
+    private final String bucket;
+    private final ClusterFacade core;
+
+    private final ConcurrentMap<Partition, Group> groups;
+    private final AtomicLong mutations;
+    private final AtomicLong uncoalesced;
+    private final AtomicLong polls;
+    private final AtomicLong failures;
+    private final LatencyHistogram mutationLatency;
+    private final LatencyHistogram durabilityLatency;
+
+    public DurabilityCoordinator(final CouchbaseEnvironment environment, final String bucket,
+        final ClusterFacade core) {
+        this.environment = environment;
+        this.bucket = bucket;
+        this.core = core;
+        this.groups = new ConcurrentHashMap<Partition, Group>();
+        this.mutations = new AtomicLong();
+        this.uncoalesced = new AtomicLong();
+        this.polls = new AtomicLong();
+        this.failures = new AtomicLong();
+        this.mutationLatency = new LatencyHistogram(LATENCY_DECAY_INTERVAL);
+        this.durabilityLatency = new LatencyHistogram(LATENCY_DECAY_INTERVAL);
+    }
+
+    /**
+     * Wraps a mutation with durability requirements so that the time until it is acknowledged is recorded.
+     */
+    public <T> Observable<T> timed(final Observable<T> mutation) {
+        return Observable.defer(new Func0<Observable<T>>() {
+            @Override
+            public Observable<T> call() {
+                final long start = System.nanoTime();
+                return mutation.doOnNext(new Action1<T>() {
+                    @Override
+                    public void call(T result) {
+                        mutationLatency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Emits true once the durability requirements of the mutation are met, like
+     * {@link Observe#call(ClusterFacade, String, String, long, boolean, MutationToken, Observe.PersistTo,
+     * Observe.ReplicateTo, Delay, com.couchbase.client.core.retry.RetryStrategy, Span)}.
+     */
+    public Observable<Boolean> observe(final String id, final long cas, final boolean remove,
+        final MutationToken token, final Observe.PersistTo persistTo, final Observe.ReplicateTo replicateTo,
+        final Span parent) {
+        Observable<Boolean> observe;
+        if (token == null) {
+            observe = Observable.defer(new Func0<Observable<Boolean>>() {
+                @Override
+                public Observable<Boolean> call() {
+                    uncoalesced.incrementAndGet();
+                    return Observe.call(core, bucket, id, cas, remove, null, persistTo, replicateTo,
+                        environment.observeIntervalDelay(), environment.retryStrategy(), parent);
+                }
+            });
+        } else {
+            observe = Observable.create(new Observable.OnSubscribe<Boolean>() {
+                @Override
+                public void call(final Subscriber<? super Boolean> subscriber) {
+                    final Waiter waiter = new Waiter(id, cas, token.sequenceNumber(), persistTo, replicateTo,
+                        subscriber);
+                    subscriber.add(Subscriptions.create(new Action0() {
+                        @Override
+                        public void call() {
+                            waiter.detach();
+                        }
+                    }));
+                    register(new Partition(token.vbucketID(), token.vbucketUUID()), waiter);
+                }
+            });
+        }
+        return measured(observe);
+    }
+
+    /**
+     * Returns a snapshot of the coalescing counters and latencies.
+     */
+    public DurabilityCoalescingStats stats() {
+        return new DurabilityCoalescingStats(mutations.get(), uncoalesced.get(), polls.get(), failures.get(),
+            mutationLatency.percentile(0.5), mutationLatency.percentile(0.99), durabilityLatency.percentile(0.5),
+            durabilityLatency.percentile(0.99));
+    }
+
+    private Observable<Boolean> measured(final Observable<Boolean> observe) {
+        return Observable.defer(new Func0<Observable<Boolean>>() {
+            @Override
+            public Observable<Boolean> call() {
+                mutations.incrementAndGet();
+                final long start = System.nanoTime();
+                return observe
+                    .doOnCompleted(new Action0() {
+                        @Override
+                        public void call() {
+                            durabilityLatency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                        }
+                    })
+                    .doOnError(new Action1<Throwable>() {
+                        @Override
+                        public void call(Throwable throwable) {
+                            failures.incrementAndGet();
+                        }
+                    });
+            }
+        });
+    }
+
+    private void register(final Partition partition, final Waiter waiter) {
+        while (true) {
+            Group group = groups.get(partition);
+            if (group == null) {
+                Group created = new Group(partition);
+                group = groups.putIfAbsent(partition, created);
+                if (group == null) {
+                    group = created;
+                }
+            }
+            boolean start;
+            synchronized (group) {
+                if (group.retired) {
+                    continue;
+                }
+                if (waiter.done) {
+                    return;
+                }
+                waiter.group = group;
+                group.waiters.add(waiter);
+                start = !group.polling;
+                group.polling = true;
+            }
+            if (start) {
+                poll(group);
+            }
+            return;
+        }
+    }
+
+    /**
+     * Sends one observe round for all mutations currently waiting on the partition of the group.
+     */
+    private void poll(final Group group) {
+        final List<Waiter> round;
+        synchronized (group) {
+            if (retireIfEmpty(group)) {
+                return;
+            }
+            round = new ArrayList<Waiter>(group.waiters);
+            for (Waiter waiter : round) {
+                waiter.startRound();
+            }
+        }
+        polls.incrementAndGet();
+
+        final Waiter first = round.get(0);
+        core.<GetClusterConfigResponse>send(new GetClusterConfigRequest())
+            .flatMap(new Func1<GetClusterConfigResponse, Observable<CouchbaseResponse>>() {
+                @Override
+                public Observable<CouchbaseResponse> call(GetClusterConfigResponse response) {
+                    CouchbaseBucketConfig config = (CouchbaseBucketConfig) response.config().bucketConfig(bucket);
+                    int replicas = config.numberOfReplicas();
+                    boolean observeReplicas = false;
+                    for (Waiter waiter : round) {
+                        Throwable invalid = validate(waiter, config.ephemeral(), replicas);
+                        if (invalid != null) {
+                            finish(group, waiter, invalid);
+                        } else if (waiter.persistTo.touchesReplica() || waiter.replicateTo.touchesReplica()) {
+                            observeReplicas = true;
+                        }
+                    }
+
+                    List<Observable<CouchbaseResponse>> requests = new ArrayList<Observable<CouchbaseResponse>>();
+                    requests.add(send(new ObserveSeqnoRequest(group.partition.vbucketUUID, true, (short) 0,
+                        first.id, bucket, first.cas)));
+                    if (observeReplicas) {
+                        for (short i = 1; i <= replicas; i++) {
+                            requests.add(send(new ObserveSeqnoRequest(group.partition.vbucketUUID, false, i,
+                                first.id, bucket, first.cas)));
+                        }
+                    }
+                    return Observable.merge(requests);
+                }
+            })
+            .subscribe(new Subscriber<CouchbaseResponse>() {
+                @Override
+                public void onNext(CouchbaseResponse response) {
+                    apply(group, round, response);
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    for (Waiter waiter : round) {
+                        finish(group, waiter, e);
+                    }
+                    next(group);
+                }
+
+                @Override
+                public void onCompleted() {
+                    next(group);
+                }
+            });
+    }
+
+    private Observable<CouchbaseResponse> send(final ObserveSeqnoRequest request) {
+        Observable<CouchbaseResponse> response = core.send(request);
+        if (environment.retryStrategy().shouldRetryObserve()) {
+            return response.onErrorResumeNext(Observable.<CouchbaseResponse>empty());
+        }
+        return response;
+    }
+
+    /**
+     * Checks the requirements of the mutation against the bucket configuration, like a single observe does.
+     */
+    private static Throwable validate(final Waiter waiter, final boolean ephemeral, final int replicas) {
+        if (ephemeral && waiter.persistTo.value() != 0) {
+            return new ServiceNotAvailableException("Ephemeral Buckets do not support PersistTo.");
+        }
+        if ((waiter.replicateTo.touchesReplica() && waiter.replicateTo.value() > replicas)
+            || (waiter.persistTo.touchesReplica() && waiter.persistTo.value() - 1 > replicas)) {
+            return new ReplicaNotConfiguredException("Not enough replicas configured on the bucket.", waiter.cas);
+        }
+        return null;
+    }
+
+    /**
+     * Counts the response towards the requirements of every mutation of the round and completes the ones which
+     * are met.
+     */
+    private void apply(final Group group, final List<Waiter> round, final CouchbaseResponse response) {
+        if (response.status() == ResponseStatus.ACCESS_ERROR) {
+            AuthenticationException error = new AuthenticationException("The application is not authorized to "
+                + "perform the \"observe\" operation, make sure you have read privileges on this bucket: "
+                + ResponseStatusDetails.stringify(response.status(), response.statusDetails()));
+            for (Waiter waiter : round) {
+                finish(group, waiter, error);
+            }
+            return;
+        }
+
+        boolean master;
+        long lastPersisted;
+        long current;
+        long lastReceived = Long.MAX_VALUE;
+        if (response instanceof FailoverObserveSeqnoResponse) {
+            FailoverObserveSeqnoResponse failover = (FailoverObserveSeqnoResponse) response;
+            master = failover.master();
+            lastPersisted = failover.lastPersistedSeqNo();
+            current = failover.currentSeqNo();
+            lastReceived = failover.lastSeqNoReceived();
+        } else if (response instanceof NoFailoverObserveSeqnoResponse) {
+            NoFailoverObserveSeqnoResponse noFailover = (NoFailoverObserveSeqnoResponse) response;
+            master = noFailover.master();
+            lastPersisted = noFailover.lastPersistedSeqNo();
+            current = noFailover.currentSeqNo();
+        } else {
+            IllegalStateException error = new IllegalStateException("Unknown observe response: " + response);
+            for (Waiter waiter : round) {
+                finish(group, waiter, error);
+            }
+            return;
+        }
+
+        for (Waiter waiter : round) {
+            if (lastReceived < waiter.seqno) {
+                finish(group, waiter,
+                    new DocumentMutationLostException("Document Mutation lost during a hard failover.", waiter.cas));
+            } else if (waiter.count(master, lastPersisted, current)) {
+                finish(group, waiter, null);
+            }
+        }
+    }
+
+    /**
+     * Completes the mutation with the given error, or as met if it is null, unless it is already done.
+     */
+    private static void finish(final Group group, final Waiter waiter, final Throwable error) {
+        synchronized (group) {
+            if (waiter.done) {
+                return;
+            }
+            waiter.done = true;
+            group.waiters.remove(waiter);
+        }
+        if (waiter.subscriber.isUnsubscribed()) {
+            return;
+        }
+        if (error != null) {
+            waiter.subscriber.onError(error);
+        } else {
+            waiter.subscriber.onNext(true);
+            waiter.subscriber.onCompleted();
+        }
+    }
+
+    /**
+     * Schedules the next round of the group after its current one finished, or retires the group if no mutations
+     * are left waiting.
+     */
+    private void next(final Group group) {
+        int rounds = Integer.MAX_VALUE;
+        synchronized (group) {
+            if (retireIfEmpty(group)) {
+                return;
+            }
+            for (Waiter waiter : group.waiters) {
+                rounds = Math.min(rounds, waiter.rounds);
+            }
+        }
+        Delay delay = environment.observeIntervalDelay();
+        Observable
+            .timer(delay.calculate(Math.max(1, rounds)), delay.unit(), environment.scheduler())
+            .subscribe(new Action1<Long>() {
+                @Override
+                public void call(Long ignored) {
+                    poll(group);
+                }
+            });
+    }
+
+    /**
+     * Removes the group if no mutations are waiting on it anymore, must be called while holding its lock.
+     */
+    private boolean retireIfEmpty(final Group group) {
+        if (!group.waiters.isEmpty()) {
+            return false;
+        }
+        group.retired = true;
+        group.polling = false;
+        groups.remove(group.partition, group);
+        return true;
+    }
+
+    /**
+     * Identifies a partition by its ID and UUID, which changes on failover.
+     */
+    private static class Partition {
+
+        final long vbucketID;
+        final long vbucketUUID;
+
+        Partition(long vbucketID, long vbucketUUID) {
+            this.vbucketID = vbucketID;
+            this.vbucketUUID = vbucketUUID;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Partition other = (Partition) o;
+            return vbucketID == other.vbucketID && vbucketUUID == other.vbucketUUID;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (int) (vbucketID ^ (vbucketID >>> 32)) + (int) (vbucketUUID ^ (vbucketUUID >>> 32));
+        }
+    }
+
+    /**
+     * The mutations waiting on a partition, all fields are guarded by its lock.
+     */
+    private static class Group {
+
+        final Partition partition;
+        final List<Waiter> waiters;
+        boolean polling;
+        boolean retired;
+
+        Group(Partition partition) {
+            this.partition = partition;
+            this.waiters = new ArrayList<Waiter>();
+        }
+    }
+
+    /**
+     * A mutation waiting for its durability requirements, the mutable fields are guarded by the lock of its group.
+     */
+    private static class Waiter {
+
+        final String id;
+        final long cas;
+        final long seqno;
+        final Observe.PersistTo persistTo;
+        final Observe.ReplicateTo replicateTo;
+        final Subscriber<? super Boolean> subscriber;
+
+        volatile Group group;
+        volatile boolean done;
+        int rounds;
+        int persisted;
+        int replicated;
+        boolean persistedMaster;
+
+        Waiter(String id, long cas, long seqno, Observe.PersistTo persistTo, Observe.ReplicateTo replicateTo,
+            Subscriber<? super Boolean> subscriber) {
+            this.id = id;
+            this.cas = cas;
+            this.seqno = seqno;
+            this.persistTo = persistTo;
+            this.replicateTo = replicateTo;
+            this.subscriber = subscriber;
+        }
+
+        void startRound() {
+            rounds++;
+            persisted = 0;
+            replicated = 0;
+            persistedMaster = false;
+        }
+
+        /**
+         * Counts the state of one node and returns true if the requirements are met.
+         */
+        boolean count(boolean master, long lastPersisted, long current) {
+            synchronized (group) {
+                if (done) {
+                    return false;
+                }
+                if (lastPersisted >= seqno) {
+                    persisted++;
+                    persistedMaster |= master;
+                }
+                if (!master && current >= seqno) {
+                    replicated++;
+                }
+                boolean persistMet = persistTo == Observe.PersistTo.MASTER
+                    ? persistedMaster
+                    : persisted >= persistTo.value();
+                return persistMet && replicated >= replicateTo.value();
+            }
+        }
+
+        /**
+         * Stops waiting once the subscriber unsubscribed, for example because of a timeout.
+         */
+        void detach() {
+            Group current = group;
+            if (current == null) {
+                done = true;
+                return;
+            }
+            synchronized (current) {
+                done = true;
+                current.waiters.remove(this);
+            }
+        }
+    }
+}
@@ -49,34 +49,49 @@ public class Exists {
         return Observable.defer(new Func0<Observable<Boolean>>() {
             @Override
             public Observable<Boolean> call() {
-                final ObserveRequest request = new ObserveRequest(id, 0, true, (short) 0, bucket);
-                addRequestSpan(environment, request, "exists");
+                final ObserveRequest request = existsRequest(id, environment, bucket);
                 return applyTimeout(deferAndWatch(new Func1<Subscriber, Observable<ObserveResponse>>() {
                     @Override
                     public Observable<ObserveResponse> call(Subscriber s) {
                         request.subscriber(s);
                         return core.send(request);
                     }
-                }) .map(new Func1<ObserveResponse, Boolean>() {
-                    @Override
-                    public Boolean call(ObserveResponse response) {
-                        ByteBuf content = response.content();
-                        if (content != null && content.refCnt() > 0) {
-                            content.release();
-                        }
+                }).map(new ExistsMap(environment)), request, environment, timeout, timeUnit);
+            }
+        });
+    }
 
-                        if (environment.operationTracingEnabled()) {
-                            environment.tracer().scopeManager()
-                                .activate(response.request().span(), true)
-                                .close();
-                        }
+    static ObserveRequest existsRequest(final String id, final CouchbaseEnvironment environment,
+        final String bucket) {
+        ObserveRequest request = new ObserveRequest(id, 0, true, (short) 0, bucket);
+        addRequestSpan(environment, request, "exists");
+        return request;
+    }
 
-                        ObserveResponse.ObserveStatus foundStatus = response.observeStatus();
-                        return foundStatus == ObserveResponse.ObserveStatus.FOUND_PERSISTED
-                            || foundStatus == ObserveResponse.ObserveStatus.FOUND_NOT_PERSISTED;
-                    }
-                }), request, environment, timeout, timeUnit);
+    static class ExistsMap implements Func1<ObserveResponse, Boolean> {
+
+        private final CouchbaseEnvironment environment;
+
+        ExistsMap(CouchbaseEnvironment environment) {
+            this.environment = environment;
+        }
+
+        @Override
+        public Boolean call(ObserveResponse response) {
+            ByteBuf content = response.content();
+            if (content != null && content.refCnt() > 0) {
+                content.release();
             }
-        });
+
+            if (environment.operationTracingEnabled()) {
+                environment.tracer().scopeManager()
+                    .activate(response.request().span(), true)
+                    .close();
+            }
+
+            ObserveResponse.ObserveStatus foundStatus = response.observeStatus();
+            return foundStatus == ObserveResponse.ObserveStatus.FOUND_PERSISTED
+                || foundStatus == ObserveResponse.ObserveStatus.FOUND_NOT_PERSISTED;
+        }
     }
 }
@@ -159,7 +159,7 @@ public class Get {
         }
     }
 
-    private static class GetAndLockFilter implements Func1<GetResponse, Boolean> {
+    static class GetAndLockFilter implements Func1<GetResponse, Boolean> {
 
         private final CouchbaseEnvironment environment;
 
@@ -199,7 +199,7 @@ public class Get {
         }
     }
 
-    private static class GetAndTouchFilter implements Func1<GetResponse, Boolean> {
+    static class GetAndTouchFilter implements Func1<GetResponse, Boolean> {
 
         private final CouchbaseEnvironment environment;
 
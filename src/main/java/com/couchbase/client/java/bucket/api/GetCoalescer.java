@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bucket.api;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.kv.GetRequest;
+import com.couchbase.client.core.message.kv.GetResponse;
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.java.cache.GetCoalescingStats;
+import com.couchbase.client.java.document.Document;
+import com.couchbase.client.java.env.CouchbaseEnvironment;
+import com.couchbase.client.java.transcoder.Transcoder;
+import rx.Notification;
+import rx.Observable;
+import rx.Subscriber;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func0;
+import rx.functions.Func1;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.couchbase.client.java.bucket.api.Utils.addRequestSpan;
+import static com.couchbase.client.java.bucket.api.Utils.applyTimeout;
+import static com.couchbase.client.java.util.OnSubscribeDeferAndWatch.deferAndWatch;
+
+/**
+ * Lets concurrent gets of the same document share a single {@link GetRequest} in flight.
+ *
+ * The first get of a document sends the request, gets of the same document arriving before its response join it
+ * instead of sending their own, regardless of their target type. The response is copied out of the network buffer
+ * once and every caller decodes its own document instance from the shared bytes with the transcoder of its target
+ * type, so callers never share (and mutate) the same document. Each caller applies its own timeout, the shared
+ * request keeps the timeout of the get which sent it.
+ *
+ * A document mutated through the bucket is {@link #detach(String) detached}: gets arriving afterwards send a new
+ * request instead of joining one which might have been answered before the mutation.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Uncommitted
+@InterfaceAudience.Private
+public class GetCoalescer {
+
+    private final CouchbaseEnvironment environment;
+    private final String bucket;
+    private final ClusterFacade core;
+    private final Map<Class<? extends Document>, Transcoder<? extends Document, ?>> transcoders;
+
+    private final ConcurrentMap<String, Flight> inFlight;
+    private final AtomicLong gets;
+    private final AtomicLong coalesced;
+    private final AtomicLong detached;
+
+    public GetCoalescer(final CouchbaseEnvironment environment, final String bucket, final ClusterFacade core,
+        final Map<Class<? extends Document>, Transcoder<? extends Document, ?>> transcoders) {
+        this.environment = environment;
+        this.bucket = bucket;
+        this.core = core;
+        this.transcoders = transcoders;
+        this.inFlight = new ConcurrentHashMap<String, Flight>();
+        this.gets = new AtomicLong();
+        this.coalesced = new AtomicLong();
+        this.detached = new AtomicLong();
+    }
+
+    /**
+     * Gets the document, joining a get of the same document already in flight if there is one.
+     */
+    public <D extends Document<?>> Observable<D> get(final String id, final Class<D> target, final long timeout,
+        final TimeUnit timeUnit) {
+        return Observable.defer(new Func0<Observable<D>>() {
+            @Override
+            public Observable<D> call() {
+                gets.incrementAndGet();
+                Flight flight = join(id, timeout, timeUnit);
+                return applyTimeout(flight.response.map(new Func1<Response, D>() {
+                    @Override
+                    public D call(Response response) {
+                        return decode(response, target);
+                    }
+                }), flight.request, environment, timeout, timeUnit);
+            }
+        });
+    }
+
+    /**
+     * Wraps a mutation of the given document so that the get in flight for it is detached when the mutation is
+     * sent and again before its outcome is emitted.
+     */
+    public <T> Observable<T> detaching(final String id, final Observable<T> mutation) {
+        return mutation
+            .doOnSubscribe(new Action0() {
+                @Override
+                public void call() {
+                    detach(id);
+                }
+            })
+            .doOnEach(new Action1<Notification<? super T>>() {
+                @Override
+                public void call(Notification<? super T> notification) {
+                    detach(id);
+                }
+            });
+    }
+
+    /**
+     * Detaches the get in flight for the document, so that later gets send their own request.
+     */
+    public void detach(final String id) {
+        if (inFlight.remove(id) != null) {
+            detached.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the coalescing counters.
+     */
+    public GetCoalescingStats stats() {
+        return new GetCoalescingStats(gets.get(), coalesced.get(), inFlight.size(), detached.get());
+    }
+
+    /**
+     * Returns the get in flight for the document, or starts and registers one.
+     */
+    private Flight join(final String id, final long timeout, final TimeUnit timeUnit) {
+        Flight shared = inFlight.get(id);
+        if (shared != null) {
+            coalesced.incrementAndGet();
+            return shared;
+        }
+
+        final GetRequest request = new GetRequest(id, bucket);
+        final Flight flight = new Flight(request);
+        addRequestSpan(environment, request, "get");
+        flight.response = applyTimeout(deferAndWatch(new Func1<Subscriber, Observable<GetResponse>>() {
+                @Override
+                public Observable<GetResponse> call(Subscriber s) {
+                    request.subscriber(s);
+                    return core.send(request);
+                }
+            }).filter(new Get.GetFilter(environment))
+                .map(new Func1<GetResponse, Response>() {
+                    @Override
+                    public Response call(GetResponse response) {
+                        ByteBuf content = response.content();
+                        byte[] encoded = new byte[content.readableBytes()];
+                        content.getBytes(content.readerIndex(), encoded);
+                        content.release();
+                        if (environment.operationTracingEnabled()) {
+                            environment.tracer().scopeManager()
+                                .activate(response.request().span(), true)
+                                .close();
+                        }
+                        return new Response(id, encoded, response.flags(), response.cas());
+                    }
+                }), request, environment, timeout, timeUnit)
+            .doOnTerminate(new Action0() {
+                @Override
+                public void call() {
+                    inFlight.remove(id, flight);
+                }
+            })
+            .cache();
+
+        shared = inFlight.putIfAbsent(id, flight);
+        if (shared != null) {
+            coalesced.incrementAndGet();
+            return shared;
+        }
+        return flight;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <D> D decode(final Response response, final Class<D> target) {
+        Transcoder<?, Object> transcoder = (Transcoder<?, Object>) transcoders.get(target);
+        return (D) transcoder.decode(response.id, Unpooled.wrappedBuffer(response.content), response.cas, 0,
+            response.flags, ResponseStatus.SUCCESS);
+    }
+
+    @Override
+    public String toString() {
+        return "GetCoalescer{" + stats() + '}';
+    }
+
+    private static class Flight {
+
+        final GetRequest request;
+        volatile Observable<Response> response;
+
+        Flight(final GetRequest request) {
+            this.request = request;
+        }
+    }
+
+    private static class Response {
+
+        final String id;
+        final byte[] content;
+        final int flags;
+        final long cas;
+
+        Response(final String id, final byte[] content, final int flags, final long cas) {
+            this.id = id;
+            this.content = content;
+            this.flags = flags;
+            this.cas = cas;
+        }
+    }
+}
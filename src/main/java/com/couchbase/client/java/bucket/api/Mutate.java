@@ -22,6 +22,7 @@ import com.couchbase.client.core.annotations.InterfaceStability;
 import com.couchbase.client.core.lang.Tuple2;
 import com.couchbase.client.core.message.kv.AppendRequest;
 import com.couchbase.client.core.message.kv.AppendResponse;
+import com.couchbase.client.core.message.kv.BinaryResponse;
 import com.couchbase.client.core.message.kv.CounterRequest;
 import com.couchbase.client.core.message.kv.CounterResponse;
 import com.couchbase.client.core.message.kv.InsertRequest;
@@ -72,6 +73,9 @@ import static com.couchbase.client.java.util.OnSubscribeDeferAndWatch.deferAndWa
 /**
  * Contains the logic to execute and handle mutation requests.
  *
+ * The requests are built and their responses converted by the package-private helpers and response mappers,
+ * so that {@link DirectKv} can execute them with the same semantics but without the observable chain.
+ *
  * @author Michael Nitschinger
  * @since 2.6.0
  */
@@ -79,273 +83,60 @@ import static com.couchbase.client.java.util.OnSubscribeDeferAndWatch.deferAndWa
 @InterfaceStability.Uncommitted
 public class Mutate {
 
-    @SuppressWarnings({ "unchecked" })
     public static <D extends Document<?>> Observable<D> insert(final D document, final CouchbaseEnvironment env,
         final Transcoder<Document<Object>, Object> transcoder, final ClusterFacade core, final String bucket,
         final long timeout, final TimeUnit timeUnit, final Span parent) {
         return Observable.defer(new Func0<Observable<D>>() {
             @Override
             public Observable<D> call() {
-                Span requestSpan = null;
-                if (env.operationTracingEnabled()) {
-                    Tracer.SpanBuilder spanBuilder = env.tracer()
-                        .buildSpan("insert");
-                    if (parent != null) {
-                        spanBuilder = spanBuilder.asChildOf(parent);
-                    }
-                    Scope scope = spanBuilder.startActive(false);
-                    requestSpan = scope.span();
-                    scope.close();
-                }
-
-                Scope encodeScope = null;
-                if (requestSpan != null) {
-                    encodeScope = env.tracer()
-                        .buildSpan("request_encoding")
-                        .asChildOf(requestSpan)
-                        .startActive(true);
-                }
-
-                Tuple2<ByteBuf, Integer> encoded = transcoder.encode((Document<Object>) document);
-
-                if (encodeScope != null) {
-                    encodeScope.close();
-                    if (encodeScope.span() instanceof ThresholdLogSpan) {
-                        encodeScope.span().setBaggageItem(ThresholdLogReporter.KEY_ENCODE_MICROS,
-                            Long.toString(((ThresholdLogSpan) encodeScope.span()).durationMicros())
-                        );
-                    }
-                }
-
-                final InsertRequest request = new InsertRequest(
-                    document.id(), encoded.value1(), document.expiry(), encoded.value2(), bucket
-                );
-                if (requestSpan != null) {
-                    request.span(requestSpan, env);
-                }
+                final InsertRequest request = insertRequest(document, env, transcoder, bucket, parent);
                 return applyTimeout(deferAndWatch(new Func1<Subscriber, Observable<InsertResponse>>() {
                     @Override
                     public Observable<InsertResponse> call(Subscriber s) {
                         request.subscriber(s);
                         return core.send(request);
                     }
-                }).map(new Func1<InsertResponse, D>() {
-                    @Override
-                    public D call(InsertResponse response) {
-                        if (response.content() != null && response.content().refCnt() > 0) {
-                            response.content().release();
-                        }
-
-                        if (env.operationTracingEnabled()) {
-                            env.tracer().scopeManager()
-                                .activate(response.request().span(), true)
-                                .close();
-                        }
-
-                        if (response.status().isSuccess()) {
-                            return (D) transcoder.newDocument(document.id(), document.expiry(),
-                                document.content(), response.cas(), response.mutationToken());
-                        }
-
-                        switch (response.status()) {
-                            case TOO_BIG:
-                                throw addDetails(new RequestTooBigException(), response);
-                            case EXISTS:
-                                throw addDetails(new DocumentAlreadyExistsException(), response);
-                            case TEMPORARY_FAILURE:
-                            case SERVER_BUSY:
-                                throw addDetails(new TemporaryFailureException(), response);
-                            case OUT_OF_MEMORY:
-                                throw addDetails(new CouchbaseOutOfMemoryException(), response);
-                            default:
-                                throw addDetails(new CouchbaseException(response.status().toString()), response);
-                        }
-                    }
-                }), request, env, timeout, timeUnit);
+                }).map(new InsertMap<D>(document, env, transcoder)), request, env, timeout, timeUnit);
             }
         });
     }
 
-    @SuppressWarnings({ "unchecked" })
     public static <D extends Document<?>> Observable<D> upsert(final D document, final CouchbaseEnvironment env,
         final Transcoder<Document<Object>, Object> transcoder, final ClusterFacade core, final String bucket,
         final long timeout, final TimeUnit timeUnit, final Span parent) {
         return Observable.defer(new Func0<Observable<D>>() {
             @Override
             public Observable<D> call() {
-                Span requestSpan = null;
-                if (env.operationTracingEnabled()) {
-                    Tracer.SpanBuilder spanBuilder = env.tracer()
-                        .buildSpan("upsert");
-                    if (parent != null) {
-                        spanBuilder = spanBuilder.asChildOf(parent);
-                    }
-                    Scope scope = spanBuilder.startActive(false);
-                    requestSpan = scope.span();
-                    scope.close();
-                }
-
-                Scope encodeScope = null;
-                if (requestSpan != null) {
-                    encodeScope = env.tracer()
-                        .buildSpan("request_encoding")
-                        .asChildOf(requestSpan)
-                        .startActive(true);
-                }
-
-                Tuple2<ByteBuf, Integer> encoded = transcoder.encode((Document<Object>) document);
-
-                if (encodeScope != null) {
-                    encodeScope.close();
-                    if (encodeScope.span() instanceof ThresholdLogSpan) {
-                        encodeScope.span().setBaggageItem(ThresholdLogReporter.KEY_ENCODE_MICROS,
-                            Long.toString(((ThresholdLogSpan) encodeScope.span()).durationMicros())
-                        );
-                    }
-                }
-
-                final UpsertRequest request = new UpsertRequest(
-                    document.id(), encoded.value1(), document.expiry(), encoded.value2(), bucket
-                );
-                if (requestSpan != null) {
-                    request.span(requestSpan, env);
-                }
-
+                final UpsertRequest request = upsertRequest(document, env, transcoder, bucket, parent);
                 return applyTimeout(deferAndWatch(new Func1<Subscriber, Observable<UpsertResponse>>() {
                     @Override
                     public Observable<UpsertResponse> call(Subscriber s) {
                         request.subscriber(s);
                         return core.send(request);
                     }
-                }).map(new Func1<UpsertResponse, D>() {
-                    @Override
-                    public D call(UpsertResponse response) {
-                        if (response.content() != null && response.content().refCnt() > 0) {
-                            response.content().release();
-                        }
-
-                        if (env.operationTracingEnabled()) {
-                            env.tracer().scopeManager()
-                                .activate(response.request().span(), true)
-                                .close();
-                        }
-
-                        if (response.status().isSuccess()) {
-                            return (D) transcoder.newDocument(document.id(), document.expiry(),
-                                document.content(), response.cas(), response.mutationToken());
-                        }
-
-                        switch (response.status()) {
-                            case TOO_BIG:
-                                throw addDetails(new RequestTooBigException(), response);
-                            case EXISTS:
-                            case LOCKED:
-                                throw addDetails(new CASMismatchException(), response);
-                            case TEMPORARY_FAILURE:
-                            case SERVER_BUSY:
-                                throw addDetails(new TemporaryFailureException(), response);
-                            case OUT_OF_MEMORY:
-                                throw addDetails(new CouchbaseOutOfMemoryException(), response);
-                            default:
-                                throw addDetails(new CouchbaseException(response.status().toString()), response);
-                        }
-                    }
-                }), request, env, timeout, timeUnit);
+                }).map(new UpsertMap<D>(document, env, transcoder)), request, env, timeout, timeUnit);
             }
         });
     }
 
-    @SuppressWarnings({ "unchecked" })
     public static <D extends Document<?>> Observable<D> replace(final D document, final CouchbaseEnvironment env,
         final Transcoder<Document<Object>, Object> transcoder, final ClusterFacade core, final String bucket,
         final long timeout, final TimeUnit timeUnit, final Span parent) {
         return Observable.defer(new Func0<Observable<D>>() {
             @Override
             public Observable<D> call() {
-                Span requestSpan = null;
-                if (env.operationTracingEnabled()) {
-                    Tracer.SpanBuilder spanBuilder = env.tracer()
-                        .buildSpan("replace");
-                    if (parent != null) {
-                        spanBuilder = spanBuilder.asChildOf(parent);
-                    }
-                    Scope scope = spanBuilder.startActive(false);
-                    requestSpan = scope.span();
-                    scope.close();
-                }
-
-                Scope encodeScope = null;
-                if (requestSpan != null) {
-                    encodeScope = env.tracer()
-                        .buildSpan("request_encoding")
-                        .asChildOf(requestSpan)
-                        .startActive(true);
-                }
-
-                Tuple2<ByteBuf, Integer> encoded = transcoder.encode((Document<Object>) document);
-
-                if (encodeScope != null) {
-                    encodeScope.close();
-                    if (encodeScope.span() instanceof ThresholdLogSpan) {
-                        encodeScope.span().setBaggageItem(ThresholdLogReporter.KEY_ENCODE_MICROS,
-                            Long.toString(((ThresholdLogSpan) encodeScope.span()).durationMicros())
-                        );
-                    }
-                }
-
-                final ReplaceRequest request = new ReplaceRequest(
-                    document.id(), encoded.value1(), document.cas(), document.expiry(), encoded.value2(), bucket
-                );
-                if (requestSpan != null) {
-                    request.span(requestSpan, env);
-                }
+                final ReplaceRequest request = replaceRequest(document, env, transcoder, bucket, parent);
                 return applyTimeout(deferAndWatch(new Func1<Subscriber, Observable<ReplaceResponse>>() {
                     @Override
                     public Observable<ReplaceResponse> call(Subscriber s) {
                         request.subscriber(s);
                         return core.send(request);
                     }
-                }).map(new Func1<ReplaceResponse, D>() {
-                    @Override
-                    public D call(ReplaceResponse response) {
-                        if (response.content() != null && response.content().refCnt() > 0) {
-                            response.content().release();
-                        }
-
-                        if (env.operationTracingEnabled()) {
-                            env.tracer().scopeManager()
-                                .activate(response.request().span(), true)
-                                .close();
-                        }
-
-                        if (response.status().isSuccess()) {
-                            return (D) transcoder.newDocument(document.id(), document.expiry(),
-                                document.content(), response.cas(), response.mutationToken());
-                        }
-
-                        switch (response.status()) {
-                            case TOO_BIG:
-                                throw addDetails(new RequestTooBigException(), response);
-                            case NOT_EXISTS:
-                                throw addDetails(new DocumentDoesNotExistException(), response);
-                            case EXISTS:
-                            case LOCKED:
-                                throw addDetails(new CASMismatchException(), response);
-                            case TEMPORARY_FAILURE:
-                            case SERVER_BUSY:
-                                throw addDetails(new TemporaryFailureException(), response);
-                            case OUT_OF_MEMORY:
-                                throw addDetails(new CouchbaseOutOfMemoryException(), response);
-                            default:
-                                throw addDetails(new CouchbaseException(response.status().toString()), response);
-                        }
-                    }
-                }), request, env, timeout, timeUnit);
+                }).map(new ReplaceMap<D>(document, env, transcoder)), request, env, timeout, timeUnit);
             }
         });
     }
 
-    @SuppressWarnings({ "unchecked" })
     public static <D extends Document<?>> Observable<D> remove(final D document, final CouchbaseEnvironment env,
         final Transcoder<Document<Object>, Object> transcoder, final ClusterFacade core, final String bucket,
         final long timeout, final TimeUnit timeUnit, final Span parent) {
@@ -353,152 +144,50 @@ public class Mutate {
         return Observable.defer(new Func0<Observable<D>>() {
             @Override
             public Observable<D> call() {
-                final RemoveRequest request = new RemoveRequest(document.id(), document.cas(), bucket);
-                if (parent == null) {
-                    addRequestSpan(env, request, "remove");
-                } else {
-                    addRequestSpanWithParent(env, parent, request, "remove");
-                }
+                final RemoveRequest request = removeRequest(document, env, bucket, parent);
                 return applyTimeout(deferAndWatch(new Func1<Subscriber, Observable<RemoveResponse>>() {
                     @Override
                     public Observable<RemoveResponse> call(Subscriber s) {
                         request.subscriber(s);
                         return core.send(request);
                     }
-                }).map(new Func1<RemoveResponse, D>() {
-                    @Override
-                    public D call(final RemoveResponse response) {
-                        if (response.content() != null && response.content().refCnt() > 0) {
-                            response.content().release();
-                        }
-
-                        if (env.operationTracingEnabled()) {
-                            env.tracer().scopeManager()
-                                .activate(response.request().span(), true)
-                                .close();
-                        }
-
-                        if (response.status().isSuccess()) {
-                            return (D) transcoder.newDocument(document.id(), 0, null, response.cas(), response.mutationToken());
-                        }
-
-                        switch (response.status()) {
-                            case NOT_EXISTS:
-                                throw addDetails(new DocumentDoesNotExistException(), response);
-                            case EXISTS:
-                            case LOCKED:
-                                throw addDetails(new CASMismatchException(), response);
-                            case TEMPORARY_FAILURE:
-                            case SERVER_BUSY:
-                                throw addDetails(new TemporaryFailureException(), response);
-                            case OUT_OF_MEMORY:
-                                throw addDetails(new CouchbaseOutOfMemoryException(), response);
-                            default:
-                                throw addDetails(new CouchbaseException(response.status().toString()), response);
-                        }
-                    }
-                }), request, env, timeout, timeUnit);
+                }).map(new RemoveMap<D>(document, env, transcoder)), request, env, timeout, timeUnit);
             }
         });
     }
 
-    @SuppressWarnings({ "unchecked" })
     public static Observable<Boolean> unlock(final String id, final long cas,
         final CouchbaseEnvironment env, final ClusterFacade core, final String bucket,
         final long timeout, final TimeUnit timeUnit) {
         return Observable.defer(new Func0<Observable<Boolean>>() {
             @Override
             public Observable<Boolean> call() {
-                final UnlockRequest request = new UnlockRequest(id, cas, bucket);
-                addRequestSpan(env, request, "unlock");
+                final UnlockRequest request = unlockRequest(id, cas, env, bucket);
                 return applyTimeout(deferAndWatch(new Func1<Subscriber, Observable<UnlockResponse>>() {
                     @Override
                     public Observable<UnlockResponse> call(Subscriber s) {
                         request.subscriber(s);
                         return core.send(request);
                     }
-                }).map(new Func1<UnlockResponse, Boolean>() {
-                    @Override
-                    public Boolean call(UnlockResponse response) {
-                        if (response.content() != null && response.content().refCnt() > 0) {
-                            response.content().release();
-                        }
-
-                        if (env.operationTracingEnabled()) {
-                            env.tracer().scopeManager()
-                                .activate(response.request().span(), true)
-                                .close();
-                        }
-
-                        if (response.status().isSuccess()) {
-                            return true;
-                        }
-
-                        switch (response.status()) {
-                            case NOT_EXISTS:
-                                throw addDetails(new DocumentDoesNotExistException(), response);
-                            case TEMPORARY_FAILURE:
-                            case LOCKED:
-                                throw addDetails(new TemporaryLockFailureException(), response);
-                            case SERVER_BUSY:
-                                throw addDetails(new TemporaryFailureException(), response);
-                            case OUT_OF_MEMORY:
-                                throw addDetails(new CouchbaseOutOfMemoryException(), response);
-                            default:
-                                throw addDetails(new CouchbaseException(response.status().toString()), response);
-                        }
-                    }
-                }), request, env, timeout, timeUnit);
+                }).map(new UnlockMap(env)), request, env, timeout, timeUnit);
             }
         });
     }
 
-    @SuppressWarnings({ "unchecked" })
     public static Observable<Boolean> touch(final String id, final int expiry,
         final CouchbaseEnvironment env, final ClusterFacade core, final String bucket,
         final long timeout, final TimeUnit timeUnit) {
         return Observable.defer(new Func0<Observable<Boolean>>() {
             @Override
             public Observable<Boolean> call() {
-                final TouchRequest request = new TouchRequest(id, expiry, bucket);
-                addRequestSpan(env, request, "touch");
+                final TouchRequest request = touchRequest(id, expiry, env, bucket);
                 return applyTimeout(deferAndWatch(new Func1<Subscriber, Observable<TouchResponse>>() {
                     @Override
                     public Observable<TouchResponse> call(Subscriber s) {
                         request.subscriber(s);
                         return core.send(request);
                     }
-                }).map(new Func1<TouchResponse, Boolean>() {
-                    @Override
-                    public Boolean call(TouchResponse response) {
-                        if (response.content() != null && response.content().refCnt() > 0) {
-                            response.content().release();
-                        }
-
-                        if (env.operationTracingEnabled()) {
-                            env.tracer().scopeManager()
-                                .activate(response.request().span(), true)
-                                .close();
-                        }
-
-                        if (response.status().isSuccess()) {
-                            return true;
-                        }
-
-                        switch (response.status()) {
-                            case NOT_EXISTS:
-                                throw addDetails(new DocumentDoesNotExistException(), response);
-                            case TEMPORARY_FAILURE:
-                            case SERVER_BUSY:
-                            case LOCKED:
-                                throw addDetails(new TemporaryFailureException(), response);
-                            case OUT_OF_MEMORY:
-                                throw addDetails(new CouchbaseOutOfMemoryException(), response);
-                            default:
-                                throw addDetails(new CouchbaseException(response.status().toString()), response);
-                        }
-                    }
-                }), request, env, timeout, timeUnit);
+                }).map(new TouchMap(env)), request, env, timeout, timeUnit);
             }
         });
     }
@@ -509,220 +198,541 @@ public class Mutate {
         return Observable.defer(new Func0<Observable<JsonLongDocument>>() {
             @Override
             public Observable<JsonLongDocument> call() {
-                final CounterRequest request = new CounterRequest(id, initial, delta, expiry, bucket);
-                if (parent == null) {
-                    addRequestSpan(env, request, "counter");
-                } else {
-                    addRequestSpanWithParent(env, parent, request, "counter");
-                }
+                final CounterRequest request = counterRequest(id, delta, initial, expiry, env, bucket, parent);
                 return applyTimeout(deferAndWatch(new Func1<Subscriber, Observable<CounterResponse>>() {
                     @Override
                     public Observable<CounterResponse> call(Subscriber s) {
                         request.subscriber(s);
                         return core.send(request);
                     }
-                }).map(new Func1<CounterResponse, JsonLongDocument>() {
-                    @Override
-                    public JsonLongDocument call(CounterResponse response) {
-                        if (response.content() != null && response.content().refCnt() > 0) {
-                            response.content().release();
-                        }
-
-                        if (env.operationTracingEnabled()) {
-                            env.tracer().scopeManager()
-                                .activate(response.request().span(), true)
-                                .close();
-                        }
-
-                        if (response.status().isSuccess()) {
-                            int returnedExpiry = expiry == COUNTER_NOT_EXISTS_EXPIRY ? 0 : expiry;
-                            return JsonLongDocument.create(id, returnedExpiry, response.value(),
-                                response.cas(), response.mutationToken());
-                        }
-
-                        switch (response.status()) {
-                            case NOT_EXISTS:
-                                throw addDetails(new DocumentDoesNotExistException(), response);
-                            case TEMPORARY_FAILURE:
-                            case SERVER_BUSY:
-                            case LOCKED:
-                                throw addDetails(new TemporaryFailureException(), response);
-                            case OUT_OF_MEMORY:
-                                throw addDetails(new CouchbaseOutOfMemoryException(), response);
-                            default:
-                                throw addDetails(new CouchbaseException(response.status().toString()), response);
-                        }
-                    }
-                }), request, env, timeout, timeUnit);
+                }).map(new CounterMap(id, expiry, env)), request, env, timeout, timeUnit);
             }
         });
     }
 
-    @SuppressWarnings({ "unchecked" })
     public static <D extends Document<?>> Observable<D> append(final D document, final CouchbaseEnvironment env,
         final Transcoder<Document<Object>, Object> transcoder, final ClusterFacade core, final String bucket,
         final long timeout, final TimeUnit timeUnit, final Span parent) {
         return Observable.defer(new Func0<Observable<D>>() {
             @Override
             public Observable<D> call() {
-                Span requestSpan = null;
-                if (env.operationTracingEnabled()) {
-                    Tracer.SpanBuilder spanBuilder = env.tracer()
-                        .buildSpan("append");
-                    if (parent != null) {
-                        spanBuilder = spanBuilder.asChildOf(parent);
-                    }
-                    Scope scope = spanBuilder.startActive(false);
-                    requestSpan = scope.span();
-                    scope.close();
-                }
-
-                Scope encodeScope = null;
-                if (requestSpan != null) {
-                    encodeScope = env.tracer()
-                        .buildSpan("request_encoding")
-                        .asChildOf(requestSpan)
-                        .startActive(true);
-                }
-
-                Tuple2<ByteBuf, Integer> encoded = transcoder.encode((Document<Object>) document);
-
-                if (encodeScope != null) {
-                    encodeScope.close();
-                    if (encodeScope.span() instanceof ThresholdLogSpan) {
-                        encodeScope.span().setBaggageItem(ThresholdLogReporter.KEY_ENCODE_MICROS,
-                            Long.toString(((ThresholdLogSpan) encodeScope.span()).durationMicros())
-                        );
-                    }
-                }
-
-                final AppendRequest request = new AppendRequest(
-                    document.id(), document.cas(), encoded.value1(), bucket
-                );
-
-                if (requestSpan != null) {
-                    request.span(requestSpan, env);
-                }
+                final AppendRequest request = appendRequest(document, env, transcoder, bucket, parent);
                 return applyTimeout(deferAndWatch(new Func1<Subscriber, Observable<AppendResponse>>() {
                     @Override
                     public Observable<AppendResponse> call(Subscriber s) {
                         request.subscriber(s);
                         return core.send(request);
                     }
-                }).map(new Func1<AppendResponse, D>() {
-                    @Override
-                    public D call(final AppendResponse response) {
-                        if (response.content() != null && response.content().refCnt() > 0) {
-                            response.content().release();
-                        }
-
-                        if (response.status().isSuccess()) {
-                            return (D) transcoder.newDocument(document.id(), 0, null, response.cas(), response.mutationToken());
-                        }
-
-                        switch (response.status()) {
-                            case TOO_BIG:
-                                throw addDetails(new RequestTooBigException(), response);
-                            case NOT_STORED:
-                                throw addDetails(new DocumentDoesNotExistException(), response);
-                            case TEMPORARY_FAILURE:
-                            case SERVER_BUSY:
-                            case LOCKED:
-                                throw addDetails(new TemporaryFailureException(), response);
-                            case OUT_OF_MEMORY:
-                                throw addDetails(new CouchbaseOutOfMemoryException(), response);
-                            case EXISTS:
-                                throw addDetails(new CASMismatchException(), response);
-                            default:
-                                throw addDetails(new CouchbaseException(response.status().toString()), response);
-                        }
-                    }
-                }), request, env, timeout, timeUnit);
+                }).map(new AppendMap<D>(document, transcoder)), request, env, timeout, timeUnit);
             }
         });
     }
 
-    @SuppressWarnings({ "unchecked" })
     public static <D extends Document<?>> Observable<D> prepend(final D document, final CouchbaseEnvironment env,
         final Transcoder<Document<Object>, Object> transcoder, final ClusterFacade core, final String bucket,
         final long timeout, final TimeUnit timeUnit, final Span parent) {
         return Observable.defer(new Func0<Observable<D>>() {
             @Override
             public Observable<D> call() {
-                Span requestSpan = null;
-                if (env.operationTracingEnabled()) {
-                    Tracer.SpanBuilder spanBuilder = env.tracer()
-                        .buildSpan("prepend");
-                    if (parent != null) {
-                        spanBuilder = spanBuilder.asChildOf(parent);
-                    }
-                    Scope scope = spanBuilder.startActive(false);
-                    requestSpan = scope.span();
-                    scope.close();
-                }
-
-                Scope encodeScope = null;
-                if (requestSpan != null) {
-                    encodeScope = env.tracer()
-                        .buildSpan("request_encoding")
-                        .asChildOf(requestSpan)
-                        .startActive(true);
-                }
-
-                Tuple2<ByteBuf, Integer> encoded = transcoder.encode((Document<Object>) document);
-
-                if (encodeScope != null) {
-                    encodeScope.close();
-                    if (encodeScope.span() instanceof ThresholdLogSpan) {
-                        encodeScope.span().setBaggageItem(ThresholdLogReporter.KEY_ENCODE_MICROS,
-                            Long.toString(((ThresholdLogSpan) encodeScope.span()).durationMicros())
-                        );
-                    }
-                }
-
-                final PrependRequest request = new PrependRequest(
-                    document.id(), document.cas(), encoded.value1(), bucket
-                );
-
-                if (requestSpan != null) {
-                    request.span(requestSpan, env);
-                }
+                final PrependRequest request = prependRequest(document, env, transcoder, bucket, parent);
                 return applyTimeout(deferAndWatch(new Func1<Subscriber, Observable<PrependResponse>>() {
                     @Override
                     public Observable<PrependResponse> call(Subscriber s) {
                         request.subscriber(s);
                         return core.send(request);
                     }
-                }).map(new Func1<PrependResponse, D>() {
-                    @Override
-                    public D call(final PrependResponse response) {
-                        if (response.content() != null && response.content().refCnt() > 0) {
-                            response.content().release();
-                        }
-
-                        if (response.status().isSuccess()) {
-                            return (D) transcoder.newDocument(document.id(), 0, null, response.cas(), response.mutationToken());
-                        }
-
-                        switch (response.status()) {
-                            case TOO_BIG:
-                                throw addDetails(new RequestTooBigException(), response);
-                            case NOT_STORED:
-                                throw addDetails(new DocumentDoesNotExistException(), response);
-                            case TEMPORARY_FAILURE:
-                            case SERVER_BUSY:
-                            case LOCKED:
-                                throw addDetails(new TemporaryFailureException(), response);
-                            case OUT_OF_MEMORY:
-                                throw addDetails(new CouchbaseOutOfMemoryException(), response);
-                            case EXISTS:
-                                throw addDetails(new CASMismatchException(), response);
-                            default:
-                                throw addDetails(new CouchbaseException(response.status().toString()), response);
-                        }
-                    }
-                }), request, env, timeout, timeUnit);
+                }).map(new PrependMap<D>(document, transcoder)), request, env, timeout, timeUnit);
             }
         });
     }
+
+    static InsertRequest insertRequest(final Document<?> document, final CouchbaseEnvironment env,
+        final Transcoder<Document<Object>, Object> transcoder, final String bucket, final Span parent) {
+        Span requestSpan = startSpan(env, "insert", parent);
+        Tuple2<ByteBuf, Integer> encoded = encode(document, env, transcoder, requestSpan);
+        InsertRequest request = new InsertRequest(
+            document.id(), encoded.value1(), document.expiry(), encoded.value2(), bucket
+        );
+        if (requestSpan != null) {
+            request.span(requestSpan, env);
+        }
+        return request;
+    }
+
+    static UpsertRequest upsertRequest(final Document<?> document, final CouchbaseEnvironment env,
+        final Transcoder<Document<Object>, Object> transcoder, final String bucket, final Span parent) {
+        Span requestSpan = startSpan(env, "upsert", parent);
+        Tuple2<ByteBuf, Integer> encoded = encode(document, env, transcoder, requestSpan);
+        UpsertRequest request = new UpsertRequest(
+            document.id(), encoded.value1(), document.expiry(), encoded.value2(), bucket
+        );
+        if (requestSpan != null) {
+            request.span(requestSpan, env);
+        }
+        return request;
+    }
+
+    static ReplaceRequest replaceRequest(final Document<?> document, final CouchbaseEnvironment env,
+        final Transcoder<Document<Object>, Object> transcoder, final String bucket, final Span parent) {
+        Span requestSpan = startSpan(env, "replace", parent);
+        Tuple2<ByteBuf, Integer> encoded = encode(document, env, transcoder, requestSpan);
+        ReplaceRequest request = new ReplaceRequest(
+            document.id(), encoded.value1(), document.cas(), document.expiry(), encoded.value2(), bucket
+        );
+        if (requestSpan != null) {
+            request.span(requestSpan, env);
+        }
+        return request;
+    }
+
+    static RemoveRequest removeRequest(final Document<?> document, final CouchbaseEnvironment env,
+        final String bucket, final Span parent) {
+        RemoveRequest request = new RemoveRequest(document.id(), document.cas(), bucket);
+        if (parent == null) {
+            addRequestSpan(env, request, "remove");
+        } else {
+            addRequestSpanWithParent(env, parent, request, "remove");
+        }
+        return request;
+    }
+
+    static UnlockRequest unlockRequest(final String id, final long cas, final CouchbaseEnvironment env,
+        final String bucket) {
+        UnlockRequest request = new UnlockRequest(id, cas, bucket);
+        addRequestSpan(env, request, "unlock");
+        return request;
+    }
+
+    static TouchRequest touchRequest(final String id, final int expiry, final CouchbaseEnvironment env,
+        final String bucket) {
+        TouchRequest request = new TouchRequest(id, expiry, bucket);
+        addRequestSpan(env, request, "touch");
+        return request;
+    }
+
+    static CounterRequest counterRequest(final String id, final long delta, final long initial, final int expiry,
+        final CouchbaseEnvironment env, final String bucket, final Span parent) {
+        CounterRequest request = new CounterRequest(id, initial, delta, expiry, bucket);
+        if (parent == null) {
+            addRequestSpan(env, request, "counter");
+        } else {
+            addRequestSpanWithParent(env, parent, request, "counter");
+        }
+        return request;
+    }
+
+    static AppendRequest appendRequest(final Document<?> document, final CouchbaseEnvironment env,
+        final Transcoder<Document<Object>, Object> transcoder, final String bucket, final Span parent) {
+        Span requestSpan = startSpan(env, "append", parent);
+        Tuple2<ByteBuf, Integer> encoded = encode(document, env, transcoder, requestSpan);
+        AppendRequest request = new AppendRequest(
+            document.id(), document.cas(), encoded.value1(), bucket
+        );
+        if (requestSpan != null) {
+            request.span(requestSpan, env);
+        }
+        return request;
+    }
+
+    static PrependRequest prependRequest(final Document<?> document, final CouchbaseEnvironment env,
+        final Transcoder<Document<Object>, Object> transcoder, final String bucket, final Span parent) {
+        Span requestSpan = startSpan(env, "prepend", parent);
+        Tuple2<ByteBuf, Integer> encoded = encode(document, env, transcoder, requestSpan);
+        PrependRequest request = new PrependRequest(
+            document.id(), document.cas(), encoded.value1(), bucket
+        );
+        if (requestSpan != null) {
+            request.span(requestSpan, env);
+        }
+        return request;
+    }
+
+    /**
+     * Starts the span of a mutation which encodes its document, or returns null if tracing is disabled.
+     */
+    private static Span startSpan(final CouchbaseEnvironment env, final String operation, final Span parent) {
+        if (!env.operationTracingEnabled()) {
+            return null;
+        }
+        Tracer.SpanBuilder spanBuilder = env.tracer()
+            .buildSpan(operation);
+        if (parent != null) {
+            spanBuilder = spanBuilder.asChildOf(parent);
+        }
+        Scope scope = spanBuilder.startActive(false);
+        Span requestSpan = scope.span();
+        scope.close();
+        return requestSpan;
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    private static Tuple2<ByteBuf, Integer> encode(final Document<?> document, final CouchbaseEnvironment env,
+        final Transcoder<Document<Object>, Object> transcoder, final Span requestSpan) {
+        Scope encodeScope = null;
+        if (requestSpan != null) {
+            encodeScope = env.tracer()
+                .buildSpan("request_encoding")
+                .asChildOf(requestSpan)
+                .startActive(true);
+        }
+
+        Tuple2<ByteBuf, Integer> encoded = transcoder.encode((Document<Object>) document);
+
+        if (encodeScope != null) {
+            encodeScope.close();
+            if (encodeScope.span() instanceof ThresholdLogSpan) {
+                encodeScope.span().setBaggageItem(ThresholdLogReporter.KEY_ENCODE_MICROS,
+                    Long.toString(((ThresholdLogSpan) encodeScope.span()).durationMicros())
+                );
+            }
+        }
+        return encoded;
+    }
+
+    /**
+     * Releases the content of a mutation response and finishes its request span.
+     */
+    private static void complete(final BinaryResponse response, final CouchbaseEnvironment env) {
+        if (response.content() != null && response.content().refCnt() > 0) {
+            response.content().release();
+        }
+
+        if (env != null && env.operationTracingEnabled()) {
+            env.tracer().scopeManager()
+                .activate(response.request().span(), true)
+                .close();
+        }
+    }
+
+    static class InsertMap<D extends Document<?>> implements Func1<InsertResponse, D> {
+
+        private final D document;
+        private final CouchbaseEnvironment env;
+        private final Transcoder<Document<Object>, Object> transcoder;
+
+        InsertMap(D document, CouchbaseEnvironment env, Transcoder<Document<Object>, Object> transcoder) {
+            this.document = document;
+            this.env = env;
+            this.transcoder = transcoder;
+        }
+
+        @Override
+        @SuppressWarnings({ "unchecked" })
+        public D call(InsertResponse response) {
+            complete(response, env);
+
+            if (response.status().isSuccess()) {
+                return (D) transcoder.newDocument(document.id(), document.expiry(),
+                    document.content(), response.cas(), response.mutationToken());
+            }
+
+            switch (response.status()) {
+                case TOO_BIG:
+                    throw addDetails(new RequestTooBigException(), response);
+                case EXISTS:
+                    throw addDetails(new DocumentAlreadyExistsException(), response);
+                case TEMPORARY_FAILURE:
+                case SERVER_BUSY:
+                    throw addDetails(new TemporaryFailureException(), response);
+                case OUT_OF_MEMORY:
+                    throw addDetails(new CouchbaseOutOfMemoryException(), response);
+                default:
+                    throw addDetails(new CouchbaseException(response.status().toString()), response);
+            }
+        }
+    }
+
+    static class UpsertMap<D extends Document<?>> implements Func1<UpsertResponse, D> {
+
+        private final D document;
+        private final CouchbaseEnvironment env;
+        private final Transcoder<Document<Object>, Object> transcoder;
+
+        UpsertMap(D document, CouchbaseEnvironment env, Transcoder<Document<Object>, Object> transcoder) {
+            this.document = document;
+            this.env = env;
+            this.transcoder = transcoder;
+        }
+
+        @Override
+        @SuppressWarnings({ "unchecked" })
+        public D call(UpsertResponse response) {
+            complete(response, env);
+
+            if (response.status().isSuccess()) {
+                return (D) transcoder.newDocument(document.id(), document.expiry(),
+                    document.content(), response.cas(), response.mutationToken());
+            }
+
+            switch (response.status()) {
+                case TOO_BIG:
+                    throw addDetails(new RequestTooBigException(), response);
+                case EXISTS:
+                case LOCKED:
+                    throw addDetails(new CASMismatchException(), response);
+                case TEMPORARY_FAILURE:
+                case SERVER_BUSY:
+                    throw addDetails(new TemporaryFailureException(), response);
+                case OUT_OF_MEMORY:
+                    throw addDetails(new CouchbaseOutOfMemoryException(), response);
+                default:
+                    throw addDetails(new CouchbaseException(response.status().toString()), response);
+            }
+        }
+    }
+
+    static class ReplaceMap<D extends Document<?>> implements Func1<ReplaceResponse, D> {
+
+        private final D document;
+        private final CouchbaseEnvironment env;
+        private final Transcoder<Document<Object>, Object> transcoder;
+
+        ReplaceMap(D document, CouchbaseEnvironment env, Transcoder<Document<Object>, Object> transcoder) {
+            this.document = document;
+            this.env = env;
+            this.transcoder = transcoder;
+        }
+
+        @Override
+        @SuppressWarnings({ "unchecked" })
+        public D call(ReplaceResponse response) {
+            complete(response, env);
+
+            if (response.status().isSuccess()) {
+                return (D) transcoder.newDocument(document.id(), document.expiry(),
+                    document.content(), response.cas(), response.mutationToken());
+            }
+
+            switch (response.status()) {
+                case TOO_BIG:
+                    throw addDetails(new RequestTooBigException(), response);
+                case NOT_EXISTS:
+                    throw addDetails(new DocumentDoesNotExistException(), response);
+                case EXISTS:
+                case LOCKED:
+                    throw addDetails(new CASMismatchException(), response);
+                case TEMPORARY_FAILURE:
+                case SERVER_BUSY:
+                    throw addDetails(new TemporaryFailureException(), response);
+                case OUT_OF_MEMORY:
+                    throw addDetails(new CouchbaseOutOfMemoryException(), response);
+                default:
+                    throw addDetails(new CouchbaseException(response.status().toString()), response);
+            }
+        }
+    }
+
+    static class RemoveMap<D extends Document<?>> implements Func1<RemoveResponse, D> {
+
+        private final D document;
+        private final CouchbaseEnvironment env;
+        private final Transcoder<Document<Object>, Object> transcoder;
+
+        RemoveMap(D document, CouchbaseEnvironment env, Transcoder<Document<Object>, Object> transcoder) {
+            this.document = document;
+            this.env = env;
+            this.transcoder = transcoder;
+        }
+
+        @Override
+        @SuppressWarnings({ "unchecked" })
+        public D call(RemoveResponse response) {
+            complete(response, env);
+
+            if (response.status().isSuccess()) {
+                return (D) transcoder.newDocument(document.id(), 0, null, response.cas(), response.mutationToken());
+            }
+
+            switch (response.status()) {
+                case NOT_EXISTS:
+                    throw addDetails(new DocumentDoesNotExistException(), response);
+                case EXISTS:
+                case LOCKED:
+                    throw addDetails(new CASMismatchException(), response);
+                case TEMPORARY_FAILURE:
+                case SERVER_BUSY:
+                    throw addDetails(new TemporaryFailureException(), response);
+                case OUT_OF_MEMORY:
+                    throw addDetails(new CouchbaseOutOfMemoryException(), response);
+                default:
+                    throw addDetails(new CouchbaseException(response.status().toString()), response);
+            }
+        }
+    }
+
+    static class UnlockMap implements Func1<UnlockResponse, Boolean> {
+
+        private final CouchbaseEnvironment env;
+
+        UnlockMap(CouchbaseEnvironment env) {
+            this.env = env;
+        }
+
+        @Override
+        public Boolean call(UnlockResponse response) {
+            complete(response, env);
+
+            if (response.status().isSuccess()) {
+                return true;
+            }
+
+            switch (response.status()) {
+                case NOT_EXISTS:
+                    throw addDetails(new DocumentDoesNotExistException(), response);
+                case TEMPORARY_FAILURE:
+                case LOCKED:
+                    throw addDetails(new TemporaryLockFailureException(), response);
+                case SERVER_BUSY:
+                    throw addDetails(new TemporaryFailureException(), response);
+                case OUT_OF_MEMORY:
+                    throw addDetails(new CouchbaseOutOfMemoryException(), response);
+                default:
+                    throw addDetails(new CouchbaseException(response.status().toString()), response);
+            }
+        }
+    }
+
+    static class TouchMap implements Func1<TouchResponse, Boolean> {
+
+        private final CouchbaseEnvironment env;
+
+        TouchMap(CouchbaseEnvironment env) {
+            this.env = env;
+        }
+
+        @Override
+        public Boolean call(TouchResponse response) {
+            complete(response, env);
+
+            if (response.status().isSuccess()) {
+                return true;
+            }
+
+            switch (response.status()) {
+                case NOT_EXISTS:
+                    throw addDetails(new DocumentDoesNotExistException(), response);
+                case TEMPORARY_FAILURE:
+                case SERVER_BUSY:
+                case LOCKED:
+                    throw addDetails(new TemporaryFailureException(), response);
+                case OUT_OF_MEMORY:
+                    throw addDetails(new CouchbaseOutOfMemoryException(), response);
+                default:
+                    throw addDetails(new CouchbaseException(response.status().toString()), response);
+            }
+        }
+    }
+
+    static class CounterMap implements Func1<CounterResponse, JsonLongDocument> {
+
+        private final String id;
+        private final int expiry;
+        private final CouchbaseEnvironment env;
+
+        CounterMap(String id, int expiry, CouchbaseEnvironment env) {
+            this.id = id;
+            this.expiry = expiry;
+            this.env = env;
+        }
+
+        @Override
+        public JsonLongDocument call(CounterResponse response) {
+            complete(response, env);
+
+            if (response.status().isSuccess()) {
+                int returnedExpiry = expiry == COUNTER_NOT_EXISTS_EXPIRY ? 0 : expiry;
+                return JsonLongDocument.create(id, returnedExpiry, response.value(),
+                    response.cas(), response.mutationToken());
+            }
+
+            switch (response.status()) {
+                case NOT_EXISTS:
+                    throw addDetails(new DocumentDoesNotExistException(), response);
+                case TEMPORARY_FAILURE:
+                case SERVER_BUSY:
+                case LOCKED:
+                    throw addDetails(new TemporaryFailureException(), response);
+                case OUT_OF_MEMORY:
+                    throw addDetails(new CouchbaseOutOfMemoryException(), response);
+                default:
+                    throw addDetails(new CouchbaseException(response.status().toString()), response);
+            }
+        }
+    }
+
+    static class AppendMap<D extends Document<?>> implements Func1<AppendResponse, D> {
+
+        private final D document;
+        private final Transcoder<Document<Object>, Object> transcoder;
+
+        AppendMap(D document, Transcoder<Document<Object>, Object> transcoder) {
+            this.document = document;
+            this.transcoder = transcoder;
+        }
+
+        @Override
+        @SuppressWarnings({ "unchecked" })
+        public D call(AppendResponse response) {
+            complete(response, null);
+
+            if (response.status().isSuccess()) {
+                return (D) transcoder.newDocument(document.id(), 0, null, response.cas(), response.mutationToken());
+            }
+
+            switch (response.status()) {
+                case TOO_BIG:
+                    throw addDetails(new RequestTooBigException(), response);
+                case NOT_STORED:
+                    throw addDetails(new DocumentDoesNotExistException(), response);
+                case TEMPORARY_FAILURE:
+                case SERVER_BUSY:
+                case LOCKED:
+                    throw addDetails(new TemporaryFailureException(), response);
+                case OUT_OF_MEMORY:
+                    throw addDetails(new CouchbaseOutOfMemoryException(), response);
+                case EXISTS:
+                    throw addDetails(new CASMismatchException(), response);
+                default:
+                    throw addDetails(new CouchbaseException(response.status().toString()), response);
+            }
+        }
+    }
+
+    static class PrependMap<D extends Document<?>> implements Func1<PrependResponse, D> {
+
+        private final D document;
+        private final Transcoder<Document<Object>, Object> transcoder;
+
+        PrependMap(D document, Transcoder<Document<Object>, Object> transcoder) {
+            this.document = document;
+            this.transcoder = transcoder;
+        }
+
+        @Override
+        @SuppressWarnings({ "unchecked" })
+        public D call(PrependResponse response) {
+            complete(response, null);
+
+            if (response.status().isSuccess()) {
+                return (D) transcoder.newDocument(document.id(), 0, null, response.cas(), response.mutationToken());
+            }
+
+            switch (response.status()) {
+                case TOO_BIG:
+                    throw addDetails(new RequestTooBigException(), response);
+                case NOT_STORED:
+                    throw addDetails(new DocumentDoesNotExistException(), response);
+                case TEMPORARY_FAILURE:
+                case SERVER_BUSY:
+                case LOCKED:
+                    throw addDetails(new TemporaryFailureException(), response);
+                case OUT_OF_MEMORY:
+                    throw addDetails(new CouchbaseOutOfMemoryException(), response);
+                case EXISTS:
+                    throw addDetails(new CASMismatchException(), response);
+                default:
+                    throw addDetails(new CouchbaseException(response.status().toString()), response);
+            }
+        }
+    }
 }
@@ -0,0 +1,566 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bucket.api;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.kv.GetRequest;
+import com.couchbase.client.core.message.kv.GetResponse;
+import com.couchbase.client.core.message.kv.ObserveRequest;
+import com.couchbase.client.core.message.kv.ObserveResponse;
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.java.cache.NearCacheOptions;
+import com.couchbase.client.java.cache.NearCacheStats;
+import com.couchbase.client.java.document.Document;
+import com.couchbase.client.java.env.CouchbaseEnvironment;
+import com.couchbase.client.java.transcoder.Transcoder;
+import rx.Notification;
+import rx.Observable;
+import rx.Subscriber;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func0;
+import rx.functions.Func1;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.couchbase.client.java.bucket.api.Utils.addRequestSpan;
+import static com.couchbase.client.java.bucket.api.Utils.applyTimeout;
+import static com.couchbase.client.java.util.OnSubscribeDeferAndWatch.deferAndWatch;
+
+/**
+ * A client-side cache in front of the gets of a bucket.
+ *
+ * Documents are cached in their encoded form and decoded again on every hit, so that callers never share (and
+ * mutate) the same document instance. The cache is bounded by the accounted size of the encoded content: once it
+ * grows beyond, the inserting thread runs a CLOCK sweep which evicts expired entries and entries which have not
+ * been read since the last sweep.
+ *
+ * Concurrent misses on the same document share a single fetch (or revalidation) in flight, as long as it was
+ * started with a timeout at least as long as their own. Each caller still waits for it with its own timeout.
+ * A document mutated
+ * through the bucket is invalidated both when the mutation is sent and when it completes, and a fetch which was in
+ * flight during the mutation is not cached, so that a read following the mutation never sees the previous content.
+ * Mutations performed by other clients are only picked up once the cached document expires.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Uncommitted
+@InterfaceAudience.Private
+public class NearCache {
+
+    /**
+     * The maximum frequency an entry can accumulate, which bounds the number of sweeps it survives unread.
+     */
+    private static final int MAX_FREQUENCY = 15;
+
+    /**
+     * The approximate size of an entry in addition to its content and id.
+     */
+    private static final int ENTRY_OVERHEAD = 96;
+
+    /**
+     * The number of clock slots of removed entries tolerated before they are purged.
+     */
+    private static final int STALE_SLACK = 1024;
+
+    private final CouchbaseEnvironment environment;
+    private final String bucket;
+    private final ClusterFacade core;
+    private final Map<Class<? extends Document>, Transcoder<? extends Document, ?>> transcoders;
+    private final NearCacheOptions options;
+    private final long maxBytes;
+
+    private final ConcurrentMap<String, Entry> entries;
+    private final ConcurrentLinkedQueue<Entry> clock;
+    private final ConcurrentMap<String, Load> inFlight;
+    private final ReentrantLock sweepLock;
+    private final AtomicInteger size;
+    private final AtomicLong bytes;
+    private final AtomicInteger stale;
+
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong coalescedLoads;
+    private final AtomicLong revalidations;
+    private final AtomicLong revalidationMisses;
+    private final AtomicLong evictions;
+    private final AtomicLong invalidations;
+
+    public NearCache(final CouchbaseEnvironment environment, final String bucket, final ClusterFacade core,
+        final Map<Class<? extends Document>, Transcoder<? extends Document, ?>> transcoders,
+        final NearCacheOptions options) {
+        this.environment = environment;
+        this.bucket = bucket;
+        this.core = core;
+        this.transcoders = transcoders;
+        this.options = options;
+        this.maxBytes = options.maxBytes();
+        this.entries = new ConcurrentHashMap<String, Entry>();
+        this.clock = new ConcurrentLinkedQueue<Entry>();
+        this.inFlight = new ConcurrentHashMap<String, Load>();
+        this.sweepLock = new ReentrantLock();
+        this.size = new AtomicInteger();
+        this.bytes = new AtomicLong();
+        this.stale = new AtomicInteger();
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.coalescedLoads = new AtomicLong();
+        this.revalidations = new AtomicLong();
+        this.revalidationMisses = new AtomicLong();
+        this.evictions = new AtomicLong();
+        this.invalidations = new AtomicLong();
+    }
+
+    /**
+     * Gets the document from the cache if it is fresh, otherwise fetches (or revalidates) and caches it. Types
+     * with a ttl of 0 bypass the cache.
+     */
+    public <D extends Document<?>> Observable<D> get(final String id, final Class<D> target, final long timeout,
+        final TimeUnit timeUnit) {
+        final long ttl = options.ttlNanos(target);
+        if (ttl <= 0) {
+            return Get.get(id, target, environment, bucket, core, transcoders, timeout, timeUnit);
+        }
+
+        return Observable.defer(new Func0<Observable<D>>() {
+            @Override
+            public Observable<D> call() {
+                Entry cached = entries.get(id);
+                if (cached != null && cached.target != target) {
+                    cached = null;
+                }
+                if (cached != null && cached.expiresAt - System.nanoTime() > 0) {
+                    hits.incrementAndGet();
+                    cached.touch();
+                    return Observable.just(decode(cached, target));
+                }
+
+                misses.incrementAndGet();
+                return load(id, target, cached, ttl, timeout, timeUnit).map(new Func1<Entry, D>() {
+                    @Override
+                    public D call(Entry entry) {
+                        return decode(entry, target);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Wraps a mutation of the given document so that its cached copy is invalidated when the mutation is sent and
+     * again before its outcome is emitted.
+     */
+    public <T> Observable<T> invalidating(final String id, final Observable<T> mutation) {
+        return mutation
+            .doOnSubscribe(new Action0() {
+                @Override
+                public void call() {
+                    invalidate(id);
+                }
+            })
+            .doOnEach(new Action1<Notification<? super T>>() {
+                @Override
+                public void call(Notification<? super T> notification) {
+                    invalidate(id);
+                }
+            });
+    }
+
+    /**
+     * Drops the cached copy of the document and detaches a fetch in flight for it, so that its result is not cached.
+     */
+    public void invalidate(final String id) {
+        inFlight.remove(id);
+        if (remove(id)) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    /**
+     * Removes all cached documents.
+     *
+     * @return the number of removed documents.
+     */
+    public int clear() {
+        inFlight.clear();
+        int removed = 0;
+        for (String id : entries.keySet()) {
+            if (remove(id)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Returns a snapshot of the cache counters.
+     */
+    public NearCacheStats stats() {
+        return new NearCacheStats(size.get(), bytes.get(), maxBytes, hits.get(), misses.get(), coalescedLoads.get(),
+            revalidations.get(), revalidationMisses.get(), evictions.get(), invalidations.get());
+    }
+
+    /**
+     * Returns the fetch (or revalidation) in flight for the document, or starts and registers one.
+     *
+     * A load in flight is only joined if its timeout does not expire before the one of the caller, who then waits
+     * for it with its own timeout. Otherwise a new load replaces it for later callers.
+     */
+    private Observable<Entry> load(final String id, final Class<?> target, final Entry expired, final long ttl,
+        final long timeout, final TimeUnit timeUnit) {
+        final Load load = new Load(target, timeout, timeUnit);
+        Load shared = inFlight.get(id);
+        if (shared != null && shared.target == target && shared.outlasts(load)) {
+            coalescedLoads.incrementAndGet();
+            return join(shared, timeout, timeUnit);
+        }
+
+        Observable<Entry> source = expired != null && options.revalidate()
+            ? revalidate(expired, ttl, timeout, timeUnit)
+            : fetch(id, target, ttl, timeout, timeUnit);
+        load.entry = source
+            .doOnNext(new Action1<Entry>() {
+                @Override
+                public void call(Entry entry) {
+                    load.found = true;
+                    store(load, entry);
+                }
+            })
+            .doOnTerminate(new Action0() {
+                @Override
+                public void call() {
+                    if (inFlight.remove(id, load) && !load.found) {
+                        remove(id);
+                    }
+                }
+            })
+            .cache();
+
+        while (true) {
+            shared = inFlight.putIfAbsent(id, load);
+            if (shared == null) {
+                return load.entry;
+            }
+            if (shared.target == target && shared.outlasts(load)) {
+                coalescedLoads.incrementAndGet();
+                return join(shared, timeout, timeUnit);
+            }
+            if (shared.target != target || inFlight.replace(id, shared, load)) {
+                // if another type is loaded for the same id, this load runs unregistered and is not cached
+                return load.entry;
+            }
+        }
+    }
+
+    /**
+     * Waits for a load started by another caller with the timeout of this caller.
+     */
+    private Observable<Entry> join(final Load shared, final long timeout, final TimeUnit timeUnit) {
+        if (timeout > 0) {
+            return shared.entry.timeout(timeout, timeUnit, environment.scheduler());
+        }
+        return shared.entry;
+    }
+
+    /**
+     * Caches the loaded entry, unless the document has been invalidated while it was loaded.
+     */
+    private void store(final Load load, final Entry entry) {
+        if (inFlight.get(entry.id) != load) {
+            return;
+        }
+        put(entry);
+        // an invalidation which raced with the put must not leave the stale entry behind
+        if (inFlight.get(entry.id) != load) {
+            Entry current = entries.get(entry.id);
+            if (current == entry) {
+                remove(entry.id);
+            }
+        }
+    }
+
+    private Observable<Entry> fetch(final String id, final Class<?> target, final long ttl, final long timeout,
+        final TimeUnit timeUnit) {
+        return Observable.defer(new Func0<Observable<Entry>>() {
+            @Override
+            public Observable<Entry> call() {
+                final GetRequest request = new GetRequest(id, bucket);
+                addRequestSpan(environment, request, "get");
+                return applyTimeout(deferAndWatch(new Func1<Subscriber, Observable<GetResponse>>() {
+                        @Override
+                        public Observable<GetResponse> call(Subscriber s) {
+                            request.subscriber(s);
+                            return core.send(request);
+                        }
+                    }).filter(new Get.GetFilter(environment))
+                        .map(new Func1<GetResponse, Entry>() {
+                            @Override
+                            public Entry call(GetResponse response) {
+                                ByteBuf content = response.content();
+                                byte[] encoded = new byte[content.readableBytes()];
+                                content.getBytes(content.readerIndex(), encoded);
+                                content.release();
+                                closeSpan(response);
+                                return new Entry(id, target, encoded, response.flags(), response.cas(),
+                                    System.nanoTime() + ttl);
+                            }
+                        }),
+                    request, environment, timeout, timeUnit);
+            }
+        });
+    }
+
+    /**
+     * Observes the CAS of the expired entry and only fetches the document again if it changed.
+     */
+    private Observable<Entry> revalidate(final Entry expired, final long ttl, final long timeout,
+        final TimeUnit timeUnit) {
+        return Observable.defer(new Func0<Observable<Boolean>>() {
+            @Override
+            public Observable<Boolean> call() {
+                final ObserveRequest request = new ObserveRequest(expired.id, 0, true, (short) 0, bucket);
+                addRequestSpan(environment, request, "near_cache_revalidate");
+                return applyTimeout(deferAndWatch(new Func1<Subscriber, Observable<ObserveResponse>>() {
+                    @Override
+                    public Observable<ObserveResponse> call(Subscriber s) {
+                        request.subscriber(s);
+                        return core.send(request);
+                    }
+                }).map(new Func1<ObserveResponse, Boolean>() {
+                    @Override
+                    public Boolean call(ObserveResponse response) {
+                        ByteBuf content = response.content();
+                        if (content != null && content.refCnt() > 0) {
+                            content.release();
+                        }
+                        closeSpan(response);
+
+                        ObserveResponse.ObserveStatus status = response.observeStatus();
+                        boolean found = status == ObserveResponse.ObserveStatus.FOUND_PERSISTED
+                            || status == ObserveResponse.ObserveStatus.FOUND_NOT_PERSISTED;
+                        return found && response.cas() == expired.cas;
+                    }
+                }), request, environment, timeout, timeUnit);
+            }
+        }).flatMap(new Func1<Boolean, Observable<Entry>>() {
+            @Override
+            public Observable<Entry> call(Boolean unchanged) {
+                if (unchanged) {
+                    revalidations.incrementAndGet();
+                    return Observable.just(expired.renew(System.nanoTime() + ttl));
+                }
+                revalidationMisses.incrementAndGet();
+                return fetch(expired.id, expired.target, ttl, timeout, timeUnit);
+            }
+        });
+    }
+
+    private void closeSpan(final CouchbaseResponse response) {
+        if (environment.operationTracingEnabled()) {
+            environment.tracer().scopeManager()
+                .activate(response.request().span(), true)
+                .close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <D> D decode(final Entry entry, final Class<D> target) {
+        Transcoder<?, Object> transcoder = (Transcoder<?, Object>) transcoders.get(target);
+        return (D) transcoder.decode(entry.id, Unpooled.wrappedBuffer(entry.content), entry.cas, 0, entry.flags,
+            ResponseStatus.SUCCESS);
+    }
+
+    /**
+     * Caches the entry, replacing a previous one for the same document.
+     */
+    private void put(final Entry entry) {
+        if (entry.weight > maxBytes) {
+            remove(entry.id);
+            return;
+        }
+        while (true) {
+            Entry existing = entries.putIfAbsent(entry.id, entry);
+            if (existing == null) {
+                break;
+            }
+            if (entries.replace(entry.id, existing, entry)) {
+                retire(existing);
+                break;
+            }
+        }
+        clock.offer(entry);
+        size.incrementAndGet();
+        if (bytes.addAndGet(entry.weight) > maxBytes) {
+            sweep();
+        }
+    }
+
+    private boolean remove(final String id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        retire(entry);
+        return true;
+    }
+
+    /**
+     * Accounts for an entry which is no longer mapped but still has its slot in the clock.
+     */
+    private void retire(final Entry entry) {
+        entry.removed = true;
+        size.decrementAndGet();
+        bytes.addAndGet(-entry.weight);
+        if (stale.incrementAndGet() > size.get() + STALE_SLACK) {
+            purgeStale();
+        }
+    }
+
+    /**
+     * Runs the CLOCK sweep until the cache is back within its size, unless another thread already sweeps.
+     */
+    private void sweep() {
+        if (!sweepLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            while (bytes.get() > maxBytes) {
+                Entry candidate = clock.poll();
+                if (candidate == null) {
+                    break;
+                }
+                if (candidate.removed) {
+                    stale.decrementAndGet();
+                    continue;
+                }
+                int frequency = candidate.frequency;
+                if (frequency > 0 && candidate.expiresAt - now > 0) {
+                    candidate.frequency = frequency >> 1;
+                    clock.offer(candidate);
+                } else if (entries.remove(candidate.id, candidate)) {
+                    candidate.removed = true;
+                    size.decrementAndGet();
+                    bytes.addAndGet(-candidate.weight);
+                    evictions.incrementAndGet();
+                }
+            }
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    /**
+     * Drops the clock slots of removed entries, so that repeated invalidations do not grow the clock.
+     */
+    private void purgeStale() {
+        if (!sweepLock.tryLock()) {
+            return;
+        }
+        try {
+            Iterator<Entry> iterator = clock.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().removed) {
+                    iterator.remove();
+                    stale.decrementAndGet();
+                }
+            }
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "NearCache{" + stats() + '}';
+    }
+
+    private static class Entry {
+
+        final String id;
+        final Class<?> target;
+        final byte[] content;
+        final int flags;
+        final long cas;
+        final long expiresAt;
+        final long weight;
+        volatile int frequency;
+        volatile boolean removed;
+
+        Entry(final String id, final Class<?> target, final byte[] content, final int flags, final long cas,
+            final long expiresAt) {
+            this.id = id;
+            this.target = target;
+            this.content = content;
+            this.flags = flags;
+            this.cas = cas;
+            this.expiresAt = expiresAt;
+            this.weight = content.length + 2L * id.length() + ENTRY_OVERHEAD;
+        }
+
+        /**
+         * Returns a copy of this entry which expires at the given time.
+         */
+        Entry renew(final long expiresAt) {
+            return new Entry(id, target, content, flags, cas, expiresAt);
+        }
+
+        /**
+         * Racy on purpose, a lost increment only makes the entry look slightly less popular.
+         */
+        void touch() {
+            int current = frequency;
+            if (current < MAX_FREQUENCY) {
+                frequency = current + 1;
+            }
+        }
+    }
+
+    private static class Load {
+
+        final Class<?> target;
+        final long deadline;
+        final boolean unbounded;
+        volatile Observable<Entry> entry;
+        volatile boolean found;
+
+        Load(final Class<?> target, final long timeout, final TimeUnit timeUnit) {
+            this.target = target;
+            this.unbounded = timeout <= 0;
+            this.deadline = unbounded ? 0 : System.nanoTime() + timeUnit.toNanos(timeout);
+        }
+
+        /**
+         * True if this load does not time out before the other one would.
+         */
+        boolean outlasts(final Load other) {
+            return unbounded || (!other.unbounded && deadline - other.deadline >= 0);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bucket.api;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.config.BucketConfig;
+import com.couchbase.client.core.config.CouchbaseBucketConfig;
+import com.couchbase.client.core.message.cluster.GetClusterConfigRequest;
+import com.couchbase.client.core.message.cluster.GetClusterConfigResponse;
+import com.couchbase.client.deps.io.netty.util.CharsetUtil;
+import rx.Observable;
+import rx.functions.Func0;
+import rx.functions.Func1;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Groups document IDs by the node currently hosting the active partition for them.
+ *
+ * The grouping is only a scheduling hint used by the bulk operations to bound concurrency per node: the
+ * requests themselves are still dispatched through the regular core locator, so a stale config at worst
+ * leads to slightly uneven batches, never to misrouted operations.
+ *
+ * @since 2.7.24
+ */
+@InterfaceAudience.Private
+@InterfaceStability.Uncommitted
+public class PartitionGrouping {
+
+    /**
+     * The group used when the node for an ID cannot be determined (memcached buckets, no config yet
+     * or a partition without an active node).
+     */
+    public static final int UNKNOWN_NODE = -1;
+
+    private PartitionGrouping() {}
+
+    /**
+     * Loads the current bucket config and groups the given IDs by their active node index.
+     *
+     * If the config cannot be loaded, all IDs end up in the {@link #UNKNOWN_NODE} group.
+     *
+     * @param core the core reference.
+     * @param bucket the name of the bucket.
+     * @param ids the document IDs to group.
+     * @return an observable with the IDs grouped by node index.
+     */
+    public static Observable<Map<Integer, List<String>>> byNode(final ClusterFacade core, final String bucket,
+        final Collection<String> ids) {
+        return Observable.defer(new Func0<Observable<GetClusterConfigResponse>>() {
+                @Override
+                public Observable<GetClusterConfigResponse> call() {
+                    return core.send(new GetClusterConfigRequest());
+                }
+            })
+            .map(new Func1<GetClusterConfigResponse, Map<Integer, List<String>>>() {
+                @Override
+                public Map<Integer, List<String>> call(GetClusterConfigResponse response) {
+                    BucketConfig config = response.config() == null ? null : response.config().bucketConfig(bucket);
+                    return byNode(config, ids);
+                }
+            })
+            .onErrorReturn(new Func1<Throwable, Map<Integer, List<String>>>() {
+                @Override
+                public Map<Integer, List<String>> call(Throwable throwable) {
+                    return byNode((BucketConfig) null, ids);
+                }
+            });
+    }
+
+    /**
+     * Groups the given IDs by node and performs the operation for each of them, keeping at most the given
+     * number of operations in flight against every node.
+     *
+     * @param core the core reference.
+     * @param bucket the name of the bucket.
+     * @param ids the document IDs.
+     * @param maxInFlightPerNode the maximum number of operations in flight per node.
+     * @param operation the operation to perform for a single ID.
+     * @return an observable with the results of all operations, in completion order.
+     */
+    public static <T> Observable<T> pipelined(final ClusterFacade core, final String bucket,
+        final Collection<String> ids, final int maxInFlightPerNode, final Func1<String, Observable<T>> operation) {
+        return byNode(core, bucket, ids)
+            .flatMap(new Func1<Map<Integer, List<String>>, Observable<List<String>>>() {
+                @Override
+                public Observable<List<String>> call(Map<Integer, List<String>> groups) {
+                    return Observable.from(groups.values());
+                }
+            })
+            .flatMap(new Func1<List<String>, Observable<T>>() {
+                @Override
+                public Observable<T> call(List<String> group) {
+                    return Observable.from(group).flatMap(operation, maxInFlightPerNode);
+                }
+            });
+    }
+
+    /**
+     * Groups the given IDs by their active node index, based on the given config.
+     *
+     * @param config the bucket config, may be null.
+     * @param ids the document IDs to group.
+     * @return the IDs grouped by node index.
+     */
+    public static Map<Integer, List<String>> byNode(final BucketConfig config, final Collection<String> ids) {
+        Map<Integer, List<String>> groups = new HashMap<Integer, List<String>>();
+        if (!(config instanceof CouchbaseBucketConfig)) {
+            groups.put(UNKNOWN_NODE, new ArrayList<String>(ids));
+            return groups;
+        }
+
+        CouchbaseBucketConfig cbc = (CouchbaseBucketConfig) config;
+        int numPartitions = cbc.numberOfPartitions();
+        for (String id : ids) {
+            int node = numPartitions > 0
+                ? cbc.nodeIndexForMaster(partitionForId(id, numPartitions), false)
+                : UNKNOWN_NODE;
+            if (node < 0) {
+                node = UNKNOWN_NODE;
+            }
+            List<String> group = groups.get(node);
+            if (group == null) {
+                group = new ArrayList<String>();
+                groups.put(node, group);
+            }
+            group.add(id);
+        }
+        return groups;
+    }
+
+    /**
+     * Calculates the partition (vBucket) for the given document ID, the same way the core locator does.
+     *
+     * @param id the document ID.
+     * @param numPartitions the number of partitions of the bucket.
+     * @return the partition ID.
+     */
+    public static int partitionForId(final String id, final int numPartitions) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(id.getBytes(CharsetUtil.UTF_8));
+        return (int) ((crc32.getValue() >> 16) & 0x7fff) & numPartitions - 1;
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bulk;
+
+import com.couchbase.client.core.BackpressureException;
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.time.Delay;
+import com.couchbase.client.java.error.TemporaryFailureException;
+import com.couchbase.client.java.util.retry.RetryBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Options to customize the behavior of the bulk mutation operations.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class BulkMutationOptions {
+
+    /**
+     * The default number of mutations kept in flight at the same time.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 128;
+
+    int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    long kvTimeout = 0;
+    boolean collectSuccesses = true;
+    RetryBuilder retryBuilder = RetryBuilder
+        .anyOf(BackpressureException.class, TemporaryFailureException.class)
+        .max(10)
+        .delay(Delay.exponential(TimeUnit.MILLISECONDS, 500, 2));
+
+    private BulkMutationOptions() {}
+
+    /**
+     * Create bulk mutation options to modify default behavior.
+     */
+    public static BulkMutationOptions bulkMutationOptions() {
+        return new BulkMutationOptions();
+    }
+
+    /**
+     * Customizes the number of mutations kept in flight at the same time.
+     *
+     * The source of documents is only requested from as fast as mutations complete, so this value also
+     * bounds how many documents are buffered in memory.
+     *
+     * @param maxInFlight the maximum number of concurrent mutations, needs to be greater than 0.
+     * @return these {@link BulkMutationOptions} for chaining purposes.
+     */
+    public BulkMutationOptions maxInFlight(final int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("The maximum number of mutations in flight needs to be > 0");
+        }
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    /**
+     * Customizes the timeout used for each individual mutation (the default is the environment kv timeout).
+     *
+     * @param timeout the timeout for each kv op.
+     * @param timeUnit the timeunit for the timeout.
+     * @return these {@link BulkMutationOptions} for chaining purposes.
+     */
+    public BulkMutationOptions kvTimeout(final long timeout, final TimeUnit timeUnit) {
+        this.kvTimeout = timeUnit.toMillis(timeout);
+        return this;
+    }
+
+    /**
+     * Allows to customize the retry strategy in use for each individual mutation. If set to null,
+     * failed mutations are not retried.
+     *
+     * By default {@link BackpressureException} and {@link TemporaryFailureException} are retried up to
+     * 10 times with an exponential delay.
+     *
+     * @param retryBuilder the retry builder to use.
+     * @return these {@link BulkMutationOptions} for chaining purposes.
+     */
+    public BulkMutationOptions retryBuilder(final RetryBuilder retryBuilder) {
+        this.retryBuilder = retryBuilder;
+        return this;
+    }
+
+    /**
+     * Allows to skip collecting CAS values and mutation tokens of successful mutations, which keeps the memory
+     * footprint of very large loads constant. Successes are still counted.
+     *
+     * @param collectSuccesses false if per-document success information should not be kept.
+     * @return these {@link BulkMutationOptions} for chaining purposes.
+     */
+    public BulkMutationOptions collectSuccesses(final boolean collectSuccesses) {
+        this.collectSuccesses = collectSuccesses;
+        return this;
+    }
+
+    public int maxInFlight() {
+        return maxInFlight;
+    }
+
+    public long kvTimeout() {
+        return kvTimeout;
+    }
+
+    public boolean collectSuccesses() {
+        return collectSuccesses;
+    }
+
+    public RetryBuilder retryBuilder() {
+        return retryBuilder;
+    }
+}
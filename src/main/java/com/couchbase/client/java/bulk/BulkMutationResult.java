@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bulk;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.message.kv.MutationToken;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The report of a bulk mutation: how many mutations succeeded, their CAS values and mutation tokens
+ * (unless disabled through {@link BulkMutationOptions#collectSuccesses(boolean)}) and the per-ID failures.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class BulkMutationResult {
+
+    private final long successCount;
+    private final Map<String, Long> cas;
+    private final Map<String, MutationToken> mutationTokens;
+    private final Map<String, Throwable> failures;
+
+    public BulkMutationResult(final long successCount, final Map<String, Long> cas,
+        final Map<String, MutationToken> mutationTokens, final Map<String, Throwable> failures) {
+        this.successCount = successCount;
+        this.cas = Collections.unmodifiableMap(cas);
+        this.mutationTokens = Collections.unmodifiableMap(mutationTokens);
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * The number of mutations which succeeded.
+     */
+    public long successCount() {
+        return successCount;
+    }
+
+    /**
+     * The CAS value of every successful mutation, indexed by document ID.
+     */
+    public Map<String, Long> cas() {
+        return cas;
+    }
+
+    /**
+     * The mutation token of every successful mutation, indexed by document ID. Only populated if
+     * mutation tokens are enabled on the environment.
+     */
+    public Map<String, MutationToken> mutationTokens() {
+        return mutationTokens;
+    }
+
+    /**
+     * The IDs whose mutation failed (after retries), together with the cause.
+     */
+    public Map<String, Throwable> failures() {
+        return failures;
+    }
+
+    /**
+     * Returns true if every mutation succeeded.
+     */
+    public boolean isSuccess() {
+        return failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "BulkMutationResult{" +
+            "successCount=" + successCount +
+            ", failures=" + failures +
+            '}';
+    }
+}
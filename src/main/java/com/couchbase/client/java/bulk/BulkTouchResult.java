@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bulk;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The outcome of a bulk touch: how many documents had their expiration time refreshed, the IDs which do not
+ * exist and the IDs which failed (together with the cause).
+ *
+ * Every requested ID is either refreshed, missing or failed.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class BulkTouchResult {
+
+    private final long refreshedCount;
+    private final Set<String> missing;
+    private final Map<String, Throwable> failures;
+
+    public BulkTouchResult(final long refreshedCount, final Set<String> missing,
+        final Map<String, Throwable> failures) {
+        this.refreshedCount = refreshedCount;
+        this.missing = Collections.unmodifiableSet(missing);
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * The number of documents whose expiration time has been refreshed.
+     */
+    public long refreshedCount() {
+        return refreshedCount;
+    }
+
+    /**
+     * The IDs for which no document exists.
+     */
+    public Set<String> missing() {
+        return missing;
+    }
+
+    /**
+     * The IDs which could not be touched, together with the cause.
+     */
+    public Map<String, Throwable> failures() {
+        return failures;
+    }
+
+    /**
+     * Returns true if no individual operation failed (missing documents are not considered failures).
+     */
+    public boolean isSuccess() {
+        return failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "BulkTouchResult{" +
+            "refreshed=" + refreshedCount +
+            ", missing=" + missing.size() +
+            ", failures=" + failures +
+            '}';
+    }
+}
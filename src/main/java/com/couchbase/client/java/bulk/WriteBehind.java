@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bulk;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.logging.CouchbaseLogger;
+import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import com.couchbase.client.java.AsyncBucket;
+import rx.Observable;
+import rx.Subscription;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func0;
+import rx.subjects.AsyncSubject;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Base class of the write-behind facilities of a bucket, which record writes locally and send them to the server
+ * in batches.
+ *
+ * Pending writes are flushed in the background at the {@link WriteBehindOptions#flushInterval(long, TimeUnit)
+ * flush interval}, as soon as {@link WriteBehindOptions#flushThreshold(int) enough writes} have been recorded,
+ * when {@link #flush()} is called and when the write-behind or its bucket is closed. Keys which could not be
+ * written are reported to the {@link WriteBehindListener}.
+ *
+ * Flushes never overlap: a flush only takes the pending writes once the previous one terminated, so that the
+ * writes of a key reach the server in the order they have been recorded in. At most one background flush waits
+ * for its turn, further triggers are covered by it.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public abstract class WriteBehind {
+
+    private static final CouchbaseLogger LOGGER = CouchbaseLoggerFactory.getInstance(WriteBehind.class);
+
+    protected final AsyncBucket bucket;
+    protected final WriteBehindOptions options;
+
+    private final AtomicLong sinceFlush;
+    private final AtomicLong recorded;
+    private final AtomicLong flushes;
+    private final AtomicLong written;
+    private final AtomicLong failed;
+    private final AtomicBoolean backgroundFlushWaiting;
+    private Observable<Void> lastFlush;
+    private volatile Subscription timer;
+    private volatile Action0 onClose;
+    private volatile boolean closed;
+
+    protected WriteBehind(final AsyncBucket bucket, final WriteBehindOptions options) {
+        this.bucket = bucket;
+        this.options = options;
+        this.sinceFlush = new AtomicLong();
+        this.recorded = new AtomicLong();
+        this.flushes = new AtomicLong();
+        this.written = new AtomicLong();
+        this.failed = new AtomicLong();
+        this.backgroundFlushWaiting = new AtomicBoolean();
+        this.lastFlush = Observable.empty();
+    }
+
+    /**
+     * Sends all pending writes to the server.
+     *
+     * @return an {@link Observable} emitting the report of the writes sent by this flush.
+     */
+    public Observable<BulkMutationResult> flush() {
+        return flush(false);
+    }
+
+    private Observable<BulkMutationResult> flush(final boolean background) {
+        return Observable.defer(new Func0<Observable<BulkMutationResult>>() {
+            @Override
+            public Observable<BulkMutationResult> call() {
+                final AsyncSubject<Void> done = AsyncSubject.create();
+                final Observable<Void> previous;
+                synchronized (WriteBehind.this) {
+                    previous = lastFlush;
+                    lastFlush = done;
+                }
+
+                final AtomicBoolean started = new AtomicBoolean();
+                final AtomicBoolean finished = new AtomicBoolean();
+                final Action0 finish = new Action0() {
+                    @Override
+                    public void call() {
+                        if (!finished.compareAndSet(false, true)) {
+                            return;
+                        }
+                        if (started.get()) {
+                            done.onCompleted();
+                        } else {
+                            // cancelled while waiting, the next flush still has to wait for the previous one
+                            previous.subscribe(done);
+                        }
+                    }
+                };
+                return previous
+                    .ignoreElements()
+                    .cast(BulkMutationResult.class)
+                    .concatWith(Observable.defer(new Func0<Observable<BulkMutationResult>>() {
+                        @Override
+                        public Observable<BulkMutationResult> call() {
+                            started.set(true);
+                            if (background) {
+                                backgroundFlushWaiting.set(false);
+                            }
+                            sinceFlush.set(0);
+                            flushes.incrementAndGet();
+                            return doFlush();
+                        }
+                    }))
+                    .doOnTerminate(finish)
+                    .doOnUnsubscribe(finish);
+            }
+        }).doOnNext(new Action1<BulkMutationResult>() {
+            @Override
+            public void call(BulkMutationResult result) {
+                written.addAndGet(result.successCount());
+                failed.addAndGet(result.failures().size());
+                for (Map.Entry<String, Throwable> failure : result.failures().entrySet()) {
+                    reportFailure(failure.getKey(), failure.getValue());
+                }
+            }
+        });
+    }
+
+    /**
+     * Stops the background flushes and sends all pending writes to the server. Writes can not be recorded
+     * anymore once closed.
+     *
+     * @return an {@link Observable} emitting the report of the writes sent by the final flush.
+     */
+    public Observable<BulkMutationResult> close() {
+        return Observable.defer(new Func0<Observable<BulkMutationResult>>() {
+            @Override
+            public Observable<BulkMutationResult> call() {
+                Action0 closeAction;
+                synchronized (WriteBehind.this) {
+                    closed = true;
+                    if (timer != null) {
+                        timer.unsubscribe();
+                    }
+                    closeAction = onClose;
+                    onClose = null;
+                }
+                if (closeAction != null) {
+                    closeAction.call();
+                }
+                return flush();
+            }
+        });
+    }
+
+    /**
+     * Registers the action called once this write-behind is closed, right away if it has already been.
+     *
+     * @param action the action, replacing a previously registered one.
+     */
+    @InterfaceAudience.Private
+    public void whenClosed(final Action0 action) {
+        synchronized (this) {
+            if (!closed) {
+                onClose = action;
+                return;
+            }
+        }
+        action.call();
+    }
+
+    /**
+     * True if this write-behind has been closed.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Returns a snapshot of the counters of this write-behind.
+     */
+    public WriteBehindStats stats() {
+        return new WriteBehindStats(recorded.get(), pending(), flushes.get(), written.get(), failed.get());
+    }
+
+    /**
+     * The number of keys currently waiting to be flushed.
+     */
+    protected abstract int pending();
+
+    /**
+     * Takes all pending writes and sends them to the server, only called once the previous flush terminated.
+     */
+    protected abstract Observable<BulkMutationResult> doFlush();
+
+    /**
+     * Throws if writes can not be recorded anymore, to be called before recording a write.
+     */
+    protected void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("This write-behind has been closed.");
+        }
+    }
+
+    /**
+     * Counts a recorded write and triggers a flush once the threshold is reached, to be called after recording
+     * a write.
+     */
+    protected void onRecorded() {
+        recorded.incrementAndGet();
+        if (closed) {
+            // closed while recording, the final flush might have missed this write
+            flushInBackground();
+            return;
+        }
+        if (timer == null) {
+            startTimer();
+        }
+        if (sinceFlush.incrementAndGet() == options.flushThreshold()) {
+            flushInBackground();
+        }
+    }
+
+    /**
+     * Starts the background flushes with the first recorded write, once the subclass has been constructed.
+     */
+    private synchronized void startTimer() {
+        if (timer != null || closed) {
+            return;
+        }
+        long interval = options.flushIntervalMillis();
+        timer = Observable
+            .interval(interval, interval, TimeUnit.MILLISECONDS, bucket.environment().scheduler())
+            .subscribe(new Action1<Long>() {
+                @Override
+                public void call(Long tick) {
+                    if (pending() > 0) {
+                        flushInBackground();
+                    }
+                }
+            });
+    }
+
+    /**
+     * Starts a flush without waiting for it, its outcome is reported like the one of a background flush.
+     *
+     * Does nothing if a background flush is still waiting for its turn, since it takes all writes pending by then.
+     */
+    protected void flushInBackground() {
+        if (!backgroundFlushWaiting.compareAndSet(false, true)) {
+            return;
+        }
+        flush(true).subscribe(new Action1<BulkMutationResult>() {
+            @Override
+            public void call(BulkMutationResult result) {
+                // failures are reported per key
+            }
+        }, new Action1<Throwable>() {
+            @Override
+            public void call(Throwable throwable) {
+                LOGGER.warn("Write-behind flush failed.", throwable);
+            }
+        }, new Action0() {
+            @Override
+            public void call() {
+                // nothing to do
+            }
+        });
+    }
+
+    private void reportFailure(final String id, final Throwable cause) {
+        WriteBehindListener listener = options.listener();
+        if (listener == null) {
+            LOGGER.warn("Could not write behind document {}.", id, cause);
+            return;
+        }
+        try {
+            listener.onFlushFailure(id, cause);
+        } catch (Exception ex) {
+            LOGGER.warn("Write-behind listener failed for document {}.", id, ex);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bulk;
+
+import com.couchbase.client.core.BackpressureException;
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.message.kv.MutationToken;
+import com.couchbase.client.java.AsyncBucket;
+import com.couchbase.client.java.bucket.api.BulkMutate;
+import com.couchbase.client.java.bucket.api.PartitionGrouping;
+import com.couchbase.client.java.document.Document;
+import rx.Observable;
+import rx.functions.Action0;
+import rx.functions.Action2;
+import rx.functions.Func0;
+import rx.functions.Func1;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Buffers upserts locally and only writes the latest document of every key when it flushes.
+ *
+ * An upsert of a key which is already pending replaces the pending document (last write wins), so a document
+ * updated many times between two flushes is only written once. A flush takes all pending documents, groups them
+ * by the node hosting their partition and writes every group as a bulk upsert, so that all nodes are written to
+ * in parallel with {@link BulkMutationOptions#maxInFlight()} upserts in flight each.
+ *
+ * The buffer holds at most {@link WriteBehindOptions#maxPending(int)} distinct keys, including the ones of flushes
+ * still in flight. Once full, an upsert of a new key triggers a flush and blocks until written documents freed up
+ * room, which slows producers down to the pace the server accepts writes at.
+ *
+ * If the documents of a flush can not be grouped by node (like without a bucket config), all of them are reported
+ * as failed to the {@link WriteBehindListener}.
+ *
+ * Reads through the bucket do not see pending documents, use {@link #pending(String)} to look them up.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class WriteBehindBuffer extends WriteBehind {
+
+    private final ConcurrentMap<String, Document<?>> documents;
+    private final Semaphore room;
+
+    public WriteBehindBuffer(final AsyncBucket bucket, final WriteBehindOptions options) {
+        super(bucket, options);
+        this.documents = new ConcurrentHashMap<String, Document<?>>();
+        this.room = new Semaphore(options.maxPending());
+    }
+
+    /**
+     * Buffers the document to be upserted with the next flush, replacing a pending document with the same ID.
+     *
+     * If the buffer is full, this blocks for at most the environment KV timeout until a flush freed up room.
+     *
+     * @param document the document to upsert.
+     * @throws BackpressureException if the buffer stayed full.
+     * @throws IllegalStateException if the buffer has been closed.
+     */
+    public void upsert(final Document<?> document) {
+        if (!upsert(document, bucket.environment().kvTimeout(), TimeUnit.MILLISECONDS)) {
+            throw new BackpressureException();
+        }
+    }
+
+    /**
+     * Buffers the document to be upserted with the next flush, replacing a pending document with the same ID.
+     *
+     * If the buffer is full, this blocks for at most the given timeout until a flush freed up room.
+     *
+     * @param document the document to upsert.
+     * @param timeout the maximum time to wait for room.
+     * @param timeUnit the time unit of the timeout.
+     * @return true if the document has been buffered, false if the buffer stayed full.
+     * @throws IllegalStateException if the buffer has been closed.
+     */
+    public boolean upsert(final Document<?> document, final long timeout, final TimeUnit timeUnit) {
+        checkOpen();
+        String id = document.id();
+        while (true) {
+            Document<?> previous = documents.get(id);
+            if (previous != null) {
+                if (documents.replace(id, previous, document)) {
+                    onRecorded();
+                    return true;
+                }
+                continue;
+            }
+
+            if (!room.tryAcquire()) {
+                flushInBackground();
+                try {
+                    if (!room.tryAcquire(timeout, timeUnit)) {
+                        return false;
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            if (documents.putIfAbsent(id, document) == null) {
+                onRecorded();
+                return true;
+            }
+            // another writer added the key in the meantime, replace its document instead
+            room.release();
+        }
+    }
+
+    /**
+     * The document pending to be upserted for the given ID.
+     *
+     * @param id the document ID.
+     * @return the pending document, or null if there is none.
+     */
+    public Document<?> pending(final String id) {
+        return documents.get(id);
+    }
+
+    @Override
+    protected int pending() {
+        return documents.size();
+    }
+
+    @Override
+    protected Observable<BulkMutationResult> doFlush() {
+        final Map<String, Document<?>> batch = new HashMap<String, Document<?>>();
+        for (Map.Entry<String, Document<?>> entry : documents.entrySet()) {
+            if (documents.remove(entry.getKey(), entry.getValue())) {
+                batch.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (batch.isEmpty()) {
+            return Observable.just(merge(new ArrayList<BulkMutationResult>()));
+        }
+
+        // the documents of the batch keep their room until written, so that producers wait for the server
+        final AtomicBoolean released = new AtomicBoolean();
+        final Action0 release = new Action0() {
+            @Override
+            public void call() {
+                if (released.compareAndSet(false, true)) {
+                    room.release(batch.size());
+                }
+            }
+        };
+
+        final BulkMutationOptions bulkOptions = options.bulkOptions();
+        final long timeout = bulkOptions.kvTimeout() > 0 ? bulkOptions.kvTimeout()
+            : bucket.environment().kvTimeout();
+        return bucket.core()
+            .flatMap(new Func1<ClusterFacade, Observable<Map<Integer, List<String>>>>() {
+                @Override
+                public Observable<Map<Integer, List<String>>> call(ClusterFacade core) {
+                    return PartitionGrouping.byNode(core, bucket.name(), batch.keySet());
+                }
+            })
+            .flatMap(new Func1<Map<Integer, List<String>>, Observable<List<String>>>() {
+                @Override
+                public Observable<List<String>> call(Map<Integer, List<String>> groups) {
+                    return Observable.from(groups.values());
+                }
+            })
+            .flatMap(new Func1<List<String>, Observable<BulkMutationResult>>() {
+                @Override
+                public Observable<BulkMutationResult> call(List<String> group) {
+                    List<Document<?>> writes = new ArrayList<Document<?>>(group.size());
+                    for (String id : group) {
+                        writes.add(batch.get(id));
+                    }
+                    return BulkMutate.execute(Observable.from(writes),
+                        new Func1<Document<?>, Observable<Document<?>>>() {
+                            @Override
+                            public Observable<Document<?>> call(Document<?> document) {
+                                return upsert(bucket, document, timeout);
+                            }
+                        }, bulkOptions);
+                }
+            })
+            .collect(new Func0<List<BulkMutationResult>>() {
+                @Override
+                public List<BulkMutationResult> call() {
+                    return new ArrayList<BulkMutationResult>();
+                }
+            }, new Action2<List<BulkMutationResult>, BulkMutationResult>() {
+                @Override
+                public void call(List<BulkMutationResult> results, BulkMutationResult result) {
+                    results.add(result);
+                }
+            })
+            .map(new Func1<List<BulkMutationResult>, BulkMutationResult>() {
+                @Override
+                public BulkMutationResult call(List<BulkMutationResult> results) {
+                    return merge(results);
+                }
+            })
+            .onErrorResumeNext(new Func1<Throwable, Observable<BulkMutationResult>>() {
+                @Override
+                public Observable<BulkMutationResult> call(Throwable throwable) {
+                    // the batch already left the buffer, so every document of it is reported as failed
+                    Map<String, Throwable> failures = new HashMap<String, Throwable>();
+                    for (String id : batch.keySet()) {
+                        failures.put(id, throwable);
+                    }
+                    return Observable.just(new BulkMutationResult(0, new HashMap<String, Long>(),
+                        new HashMap<String, MutationToken>(), failures));
+                }
+            })
+            .doOnTerminate(release)
+            .doOnUnsubscribe(release);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Observable<Document<?>> upsert(final AsyncBucket bucket, final Document<?> document,
+        final long timeout) {
+        Document<Object> typed = (Document<Object>) document;
+        return bucket.upsert(typed, timeout, TimeUnit.MILLISECONDS).map(new Func1<Document<Object>, Document<?>>() {
+            @Override
+            public Document<?> call(Document<Object> written) {
+                return written;
+            }
+        });
+    }
+
+    /**
+     * Combines the reports of the bulk upserts of all node groups into the report of the flush.
+     */
+    private static BulkMutationResult merge(final List<BulkMutationResult> results) {
+        long successCount = 0;
+        Map<String, Long> cas = new HashMap<String, Long>();
+        Map<String, MutationToken> mutationTokens = new HashMap<String, MutationToken>();
+        Map<String, Throwable> failures = new HashMap<String, Throwable>();
+        for (BulkMutationResult result : results) {
+            successCount += result.successCount();
+            cas.putAll(result.cas());
+            mutationTokens.putAll(result.mutationTokens());
+            failures.putAll(result.failures());
+        }
+        return new BulkMutationResult(successCount, cas, mutationTokens, failures);
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bulk;
+
+import com.couchbase.client.core.BackpressureException;
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.java.AsyncBucket;
+import com.couchbase.client.java.bucket.api.BulkMutate;
+import com.couchbase.client.java.document.JsonLongDocument;
+import com.couchbase.client.java.error.CannotRetryException;
+import com.couchbase.client.java.error.TemporaryFailureException;
+import rx.Observable;
+import rx.functions.Action1;
+import rx.functions.Func1;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Accumulates counter deltas locally and applies their sum per key with a single counter operation on each flush.
+ *
+ * Deltas are added to striped cells without locking, threads only contend if they update the same key on the
+ * same stripe. A flush atomically takes the sum of every key and sends one counter operation per key whose sum
+ * is not 0, creating missing counters with the sum (or 0 if it is negative). The totals on the server therefore
+ * eventually match what would have been reached with one counter operation per delta, as long as flushes do not
+ * fail: a delta which was rejected before reaching the server (like on a temporary failure, after the retries of
+ * the flush) is added back to be sent with the next flush, other failures are reported and the delta is lost,
+ * since it might have been applied.
+ *
+ * A cell is kept for every key ever updated, so this is meant for a bounded set of keys.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class WriteBehindCounter extends WriteBehind {
+
+    /**
+     * The number of longs between two stripes of a cell, so that they do not share a cache line.
+     */
+    private static final int PADDING = 8;
+
+    private static final int STRIPES = stripes();
+
+    private final ConcurrentMap<String, Cell> cells;
+
+    public WriteBehindCounter(final AsyncBucket bucket, final WriteBehindOptions options) {
+        super(bucket, options);
+        this.cells = new ConcurrentHashMap<String, Cell>();
+    }
+
+    /**
+     * Increments the counter with the given ID by one.
+     *
+     * @param id the ID of the counter document.
+     */
+    public void increment(final String id) {
+        add(id, 1);
+    }
+
+    /**
+     * Adds the delta to the counter with the given ID, the delta can be negative.
+     *
+     * @param id the ID of the counter document.
+     * @param delta the delta to add.
+     */
+    public void add(final String id, final long delta) {
+        checkOpen();
+        accumulate(id, delta);
+        onRecorded();
+    }
+
+    /**
+     * The sum of the deltas of the given counter which have not been flushed yet.
+     *
+     * @param id the ID of the counter document.
+     * @return the pending sum, 0 if there is none.
+     */
+    public long pending(final String id) {
+        Cell cell = cells.get(id);
+        return cell == null ? 0 : cell.sum();
+    }
+
+    private void accumulate(final String id, final long delta) {
+        Cell cell = cells.get(id);
+        if (cell == null) {
+            Cell fresh = new Cell();
+            cell = cells.putIfAbsent(id, fresh);
+            if (cell == null) {
+                cell = fresh;
+            }
+        }
+        cell.add(delta);
+    }
+
+    @Override
+    protected int pending() {
+        int pending = 0;
+        for (Cell cell : cells.values()) {
+            if (cell.sum() != 0) {
+                pending++;
+            }
+        }
+        return pending;
+    }
+
+    @Override
+    protected Observable<BulkMutationResult> doFlush() {
+        final Map<String, Long> sums = new HashMap<String, Long>();
+        List<JsonLongDocument> deltas = new ArrayList<JsonLongDocument>();
+        for (Map.Entry<String, Cell> entry : cells.entrySet()) {
+            long sum = entry.getValue().drain();
+            if (sum != 0) {
+                sums.put(entry.getKey(), sum);
+                deltas.add(JsonLongDocument.create(entry.getKey(), sum));
+            }
+        }
+
+        BulkMutationOptions bulkOptions = options.bulkOptions();
+        final long timeout = bulkOptions.kvTimeout() > 0 ? bulkOptions.kvTimeout()
+            : bucket.environment().kvTimeout();
+        return BulkMutate.execute(Observable.from(deltas), new Func1<JsonLongDocument, Observable<JsonLongDocument>>() {
+            @Override
+            public Observable<JsonLongDocument> call(JsonLongDocument delta) {
+                long sum = delta.content();
+                return bucket.counter(delta.id(), sum, Math.max(0, sum), timeout, TimeUnit.MILLISECONDS);
+            }
+        }, bulkOptions).doOnNext(new Action1<BulkMutationResult>() {
+            @Override
+            public void call(BulkMutationResult result) {
+                for (Map.Entry<String, Throwable> failure : result.failures().entrySet()) {
+                    if (notApplied(failure.getValue())) {
+                        accumulate(failure.getKey(), sums.get(failure.getKey()));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * True if the counter operation failed before it could have been applied on the server.
+     */
+    private static boolean notApplied(final Throwable cause) {
+        Throwable last = cause instanceof CannotRetryException && cause.getCause() != null ? cause.getCause() : cause;
+        return last instanceof BackpressureException || last instanceof TemporaryFailureException;
+    }
+
+    private static int stripes() {
+        int stripes = 1;
+        int cpus = Runtime.getRuntime().availableProcessors();
+        while (stripes < cpus && stripes < 16) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    /**
+     * The pending sum of a single key, spread over stripes picked by thread.
+     */
+    private static class Cell {
+
+        private final AtomicLongArray stripes = new AtomicLongArray(STRIPES * PADDING);
+
+        void add(final long delta) {
+            int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+            stripes.addAndGet(stripe * PADDING, delta);
+        }
+
+        long sum() {
+            long sum = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                sum += stripes.get(i * PADDING);
+            }
+            return sum;
+        }
+
+        long drain() {
+            long sum = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                sum += stripes.getAndSet(i * PADDING, 0);
+            }
+            return sum;
+        }
+    }
+}
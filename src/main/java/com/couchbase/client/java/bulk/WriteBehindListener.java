@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bulk;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+
+/**
+ * Notified of keys a {@link WriteBehind} could not write when flushing.
+ *
+ * The listener is called from the thread completing the failed write, so it should not block.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public interface WriteBehindListener {
+
+    /**
+     * Called once per key whose pending write failed, after the retries of the flush have been exhausted.
+     *
+     * @param id the ID of the document which could not be written.
+     * @param cause the error of the last attempt.
+     */
+    void onFlushFailure(String id, Throwable cause);
+}
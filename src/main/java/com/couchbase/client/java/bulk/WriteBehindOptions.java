@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bulk;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Options to customize when a {@link WriteBehind} flushes its pending writes and how.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class WriteBehindOptions {
+
+    /**
+     * The default interval at which pending writes are flushed.
+     */
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+
+    /**
+     * The default number of recorded writes after which a flush is triggered before the interval elapsed.
+     */
+    public static final int DEFAULT_FLUSH_THRESHOLD = 10000;
+
+    /**
+     * The default number of distinct keys a {@link WriteBehindBuffer} holds before writers are blocked.
+     */
+    public static final int DEFAULT_MAX_PENDING = 100000;
+
+    long flushIntervalMillis = DEFAULT_FLUSH_INTERVAL_MILLIS;
+    int flushThreshold = DEFAULT_FLUSH_THRESHOLD;
+    int maxPending = DEFAULT_MAX_PENDING;
+    WriteBehindListener listener;
+    BulkMutationOptions bulkOptions = BulkMutationOptions.bulkMutationOptions().collectSuccesses(false);
+
+    private WriteBehindOptions() {}
+
+    /**
+     * Create write-behind options to modify default behavior.
+     */
+    public static WriteBehindOptions writeBehindOptions() {
+        return new WriteBehindOptions();
+    }
+
+    /**
+     * Customizes the interval at which pending writes are flushed in the background.
+     *
+     * @param interval the flush interval, needs to be at least 1 millisecond.
+     * @param timeUnit the time unit of the interval.
+     * @return these {@link WriteBehindOptions} for chaining purposes.
+     */
+    public WriteBehindOptions flushInterval(final long interval, final TimeUnit timeUnit) {
+        long millis = timeUnit.toMillis(interval);
+        if (millis < 1) {
+            throw new IllegalArgumentException("The flush interval needs to be >= 1ms");
+        }
+        this.flushIntervalMillis = millis;
+        return this;
+    }
+
+    /**
+     * Customizes the number of writes recorded since the last flush after which a flush is triggered right away,
+     * without waiting for the interval.
+     *
+     * @param flushThreshold the number of writes, needs to be greater than 0.
+     * @return these {@link WriteBehindOptions} for chaining purposes.
+     */
+    public WriteBehindOptions flushThreshold(final int flushThreshold) {
+        if (flushThreshold <= 0) {
+            throw new IllegalArgumentException("The flush threshold needs to be > 0");
+        }
+        this.flushThreshold = flushThreshold;
+        return this;
+    }
+
+    /**
+     * Customizes the number of distinct keys a {@link WriteBehindBuffer} holds at the same time. Once reached, a
+     * flush is triggered and writers of new keys block until it freed up room.
+     *
+     * @param maxPending the maximum number of pending keys, needs to be greater than 0.
+     * @return these {@link WriteBehindOptions} for chaining purposes.
+     */
+    public WriteBehindOptions maxPending(final int maxPending) {
+        if (maxPending <= 0) {
+            throw new IllegalArgumentException("The maximum number of pending keys needs to be > 0");
+        }
+        this.maxPending = maxPending;
+        return this;
+    }
+
+    /**
+     * Sets the listener notified of every key which could not be written by a flush. By default, failures are
+     * logged.
+     *
+     * @param listener the listener, or null to log failures.
+     * @return these {@link WriteBehindOptions} for chaining purposes.
+     */
+    public WriteBehindOptions listener(final WriteBehindListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Customizes how the writes of a flush are performed: how many are kept in flight, their timeout and how
+     * they are retried. By default, CAS values and mutation tokens of flushed writes are not collected.
+     *
+     * @param bulkOptions the options of the bulk mutation performed by each flush.
+     * @return these {@link WriteBehindOptions} for chaining purposes.
+     */
+    public WriteBehindOptions bulkOptions(final BulkMutationOptions bulkOptions) {
+        if (bulkOptions == null) {
+            throw new IllegalArgumentException("The bulk options must not be null");
+        }
+        this.bulkOptions = bulkOptions;
+        return this;
+    }
+
+    public long flushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    public int flushThreshold() {
+        return flushThreshold;
+    }
+
+    public int maxPending() {
+        return maxPending;
+    }
+
+    public WriteBehindListener listener() {
+        return listener;
+    }
+
+    public BulkMutationOptions bulkOptions() {
+        return bulkOptions;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bulk;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+
+/**
+ * A point-in-time snapshot of the counters of a {@link WriteBehind}.
+ *
+ * All counters are cumulative since it has been created.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class WriteBehindStats {
+
+    private final long recorded;
+    private final int pending;
+    private final long flushes;
+    private final long written;
+    private final long failed;
+
+    public WriteBehindStats(long recorded, int pending, long flushes, long written, long failed) {
+        this.recorded = recorded;
+        this.pending = pending;
+        this.flushes = flushes;
+        this.written = written;
+        this.failed = failed;
+    }
+
+    /**
+     * The number of writes recorded by the application.
+     */
+    public long recorded() {
+        return recorded;
+    }
+
+    /**
+     * The number of keys currently waiting to be flushed.
+     */
+    public int pending() {
+        return pending;
+    }
+
+    /**
+     * The number of flushes performed.
+     */
+    public long flushes() {
+        return flushes;
+    }
+
+    /**
+     * The number of writes sent to the server by flushes which succeeded.
+     */
+    public long written() {
+        return written;
+    }
+
+    /**
+     * The number of writes sent to the server by flushes which failed.
+     */
+    public long failed() {
+        return failed;
+    }
+
+    /**
+     * The share of recorded writes which did not need their own operation on the server, because they have been
+     * coalesced with another write of the same key, or 0 if nothing has been flushed yet.
+     */
+    public double coalesceRatio() {
+        long sent = written + failed;
+        return recorded == 0 || sent == 0 ? 0 : Math.max(0, 1 - (double) sent / recorded);
+    }
+
+    @Override
+    public String toString() {
+        return "WriteBehindStats{" +
+            "recorded=" + recorded +
+            ", pending=" + pending +
+            ", flushes=" + flushes +
+            ", written=" + written +
+            ", failed=" + failed +
+            '}';
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.cache;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+
+/**
+ * A point-in-time snapshot of the counters of the get coalescing of a bucket.
+ *
+ * All counters are cumulative since get coalescing has been enabled.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class GetCoalescingStats {
+
+    private final long gets;
+    private final long coalesced;
+    private final int inFlight;
+    private final long detached;
+
+    public GetCoalescingStats(long gets, long coalesced, int inFlight, long detached) {
+        this.gets = gets;
+        this.coalesced = coalesced;
+        this.inFlight = inFlight;
+        this.detached = detached;
+    }
+
+    /**
+     * The number of gets performed.
+     */
+    public long gets() {
+        return gets;
+    }
+
+    /**
+     * The number of gets which joined a get already in flight for the same document instead of issuing their own.
+     */
+    public long coalesced() {
+        return coalesced;
+    }
+
+    /**
+     * The number of gets currently in flight, each possibly shared by several callers.
+     */
+    public int inFlight() {
+        return inFlight;
+    }
+
+    /**
+     * The number of gets in flight which could not be joined anymore because the document has been mutated
+     * through the bucket in the meantime.
+     */
+    public long detached() {
+        return detached;
+    }
+
+    /**
+     * The ratio of coalesced gets to all gets, or 0 if there have not been any.
+     */
+    public double coalesceRatio() {
+        return gets == 0 ? 0 : (double) coalesced / gets;
+    }
+
+    @Override
+    public String toString() {
+        return "GetCoalescingStats{" +
+            "gets=" + gets +
+            ", coalesced=" + coalesced +
+            ", inFlight=" + inFlight +
+            ", detached=" + detached +
+            '}';
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.cache;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.java.document.BinaryDocument;
+import com.couchbase.client.java.document.Document;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Options to configure the near cache of a bucket, see
+ * {@link com.couchbase.client.java.AsyncBucket#enableNearCache(NearCacheOptions)}.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class NearCacheOptions {
+
+    /**
+     * The default upper bound for the encoded size of all cached documents (64MB).
+     */
+    public static final long DEFAULT_MAX_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * The default time documents are served from the near cache (5 seconds).
+     */
+    public static final long DEFAULT_TTL_MILLIS = 5000;
+
+    long maxBytes = DEFAULT_MAX_BYTES;
+    long defaultTtlNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_TTL_MILLIS);
+    final Map<Class<? extends Document>, Long> ttlNanos = new HashMap<Class<? extends Document>, Long>();
+    boolean revalidate = false;
+
+    private NearCacheOptions() {}
+
+    /**
+     * Create near cache options to modify default behavior.
+     */
+    public static NearCacheOptions nearCacheOptions() {
+        return new NearCacheOptions();
+    }
+
+    /**
+     * Customizes the upper bound for the encoded size of all cached documents.
+     *
+     * Once the cache grows beyond, the documents which have not been read recently are evicted first. Documents
+     * larger than the bound are never cached.
+     *
+     * @param maxBytes the maximum number of bytes, needs to be greater than 0.
+     * @return these {@link NearCacheOptions} for chaining purposes.
+     */
+    public NearCacheOptions maxBytes(final long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("The maximum number of bytes needs to be > 0");
+        }
+        this.maxBytes = maxBytes;
+        return this;
+    }
+
+    /**
+     * Customizes how long documents of types without their own {@link #ttl(Class, long, TimeUnit) ttl} are
+     * served from the cache before they are fetched (or revalidated) again.
+     *
+     * @param ttl the time to live, 0 disables caching of types without their own ttl.
+     * @param timeUnit the time unit for the ttl.
+     * @return these {@link NearCacheOptions} for chaining purposes.
+     */
+    public NearCacheOptions defaultTtl(final long ttl, final TimeUnit timeUnit) {
+        if (ttl < 0) {
+            throw new IllegalArgumentException("The ttl needs to be >= 0");
+        }
+        this.defaultTtlNanos = timeUnit.toNanos(ttl);
+        return this;
+    }
+
+    /**
+     * Customizes how long documents of the given type are served from the cache before they are fetched (or
+     * revalidated) again.
+     *
+     * @param type the document type, like {@link com.couchbase.client.java.document.JsonDocument}.
+     * @param ttl the time to live, 0 disables caching of this type.
+     * @param timeUnit the time unit for the ttl.
+     * @return these {@link NearCacheOptions} for chaining purposes.
+     */
+    public NearCacheOptions ttl(final Class<? extends Document> type, final long ttl, final TimeUnit timeUnit) {
+        if (ttl < 0) {
+            throw new IllegalArgumentException("The ttl needs to be >= 0");
+        }
+        if (type == BinaryDocument.class && ttl > 0) {
+            throw new IllegalArgumentException("BinaryDocuments expose their reference counted buffer and can not "
+                + "be cached");
+        }
+        this.ttlNanos.put(type, timeUnit.toNanos(ttl));
+        return this;
+    }
+
+    /**
+     * If enabled, an expired document is revalidated with a metadata-only observe of its CAS before it is fetched
+     * again. If the CAS did not change, the cached document is served for another ttl without transferring it.
+     *
+     * This trades a full fetch for a cheaper round trip when documents are read far more often than they are
+     * changed, but adds a round trip when they did change.
+     *
+     * @param revalidate true to revalidate expired documents, false to always fetch them (the default).
+     * @return these {@link NearCacheOptions} for chaining purposes.
+     */
+    public NearCacheOptions revalidate(final boolean revalidate) {
+        this.revalidate = revalidate;
+        return this;
+    }
+
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the time to live in nanoseconds for documents of the given type, 0 if they are not cached.
+     */
+    public long ttlNanos(final Class<? extends Document> type) {
+        if (type == BinaryDocument.class) {
+            return 0;
+        }
+        Long ttl = ttlNanos.get(type);
+        return ttl == null ? defaultTtlNanos : ttl;
+    }
+
+    public boolean revalidate() {
+        return revalidate;
+    }
+
+    @Override
+    public String toString() {
+        return "NearCacheOptions{" +
+            "maxBytes=" + maxBytes +
+            ", defaultTtlNanos=" + defaultTtlNanos +
+            ", ttlNanos=" + ttlNanos +
+            ", revalidate=" + revalidate +
+            '}';
+    }
+}
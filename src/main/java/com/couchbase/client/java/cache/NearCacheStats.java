@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.cache;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+
+/**
+ * A point-in-time snapshot of the counters of the near cache of a bucket.
+ *
+ * All counters are cumulative since the near cache has been enabled.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class NearCacheStats {
+
+    private final int size;
+    private final long bytes;
+    private final long maxBytes;
+    private final long hits;
+    private final long misses;
+    private final long coalescedLoads;
+    private final long revalidations;
+    private final long revalidationMisses;
+    private final long evictions;
+    private final long invalidations;
+
+    public NearCacheStats(int size, long bytes, long maxBytes, long hits, long misses, long coalescedLoads,
+        long revalidations, long revalidationMisses, long evictions, long invalidations) {
+        this.size = size;
+        this.bytes = bytes;
+        this.maxBytes = maxBytes;
+        this.hits = hits;
+        this.misses = misses;
+        this.coalescedLoads = coalescedLoads;
+        this.revalidations = revalidations;
+        this.revalidationMisses = revalidationMisses;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+    }
+
+    /**
+     * The number of documents currently cached.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The accounted size of all documents currently cached.
+     */
+    public long bytes() {
+        return bytes;
+    }
+
+    /**
+     * The accounted size after which documents are evicted.
+     */
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * The number of gets served from the cache without any network operation.
+     */
+    public long hits() {
+        return hits;
+    }
+
+    /**
+     * The number of gets which did not find a fresh document in the cache, including revalidations.
+     */
+    public long misses() {
+        return misses;
+    }
+
+    /**
+     * The number of misses which joined a fetch (or revalidation) already in flight for the same document
+     * instead of issuing their own.
+     */
+    public long coalescedLoads() {
+        return coalescedLoads;
+    }
+
+    /**
+     * The number of expired documents whose CAS was unchanged on the server and which were served again without
+     * fetching them.
+     */
+    public long revalidations() {
+        return revalidations;
+    }
+
+    /**
+     * The number of expired documents whose CAS had changed (or which did not exist anymore) and which had to be
+     * fetched again.
+     */
+    public long revalidationMisses() {
+        return revalidationMisses;
+    }
+
+    /**
+     * The number of documents evicted because the cache was full.
+     */
+    public long evictions() {
+        return evictions;
+    }
+
+    /**
+     * The number of documents dropped because they have been mutated through the bucket.
+     */
+    public long invalidations() {
+        return invalidations;
+    }
+
+    /**
+     * The ratio of hits to all gets, or 0 if there have not been any.
+     */
+    public double hitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "NearCacheStats{" +
+            "size=" + size +
+            ", bytes=" + bytes +
+            ", maxBytes=" + maxBytes +
+            ", hits=" + hits +
+            ", misses=" + misses +
+            ", coalescedLoads=" + coalescedLoads +
+            ", revalidations=" + revalidations +
+            ", revalidationMisses=" + revalidationMisses +
+            ", evictions=" + evictions +
+            ", invalidations=" + invalidations +
+            '}';
+    }
+}
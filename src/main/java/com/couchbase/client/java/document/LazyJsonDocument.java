@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.document;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.message.kv.MutationToken;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.document.json.LazyJsonObject;
+
+/**
+ * Represents a JSON document whose content is only decoded on demand.
+ *
+ * Loading a {@link LazyJsonDocument} does not build a {@link JsonObject} tree; individual top-level fields
+ * are decoded when they are read through the {@link LazyJsonObject} content, and the full object only when
+ * {@link LazyJsonObject#toJsonObject()} is called. This is useful when only a few fields of large documents are
+ * needed. If the content was never materialized, storing the document again writes the original bytes back
+ * without re-encoding them.
+ *
+ * It is stored with the same flags as a {@link JsonDocument} and the two can be used interchangeably.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class LazyJsonDocument extends AbstractDocument<LazyJsonObject> {
+
+    /**
+     * Creates a {@link LazyJsonDocument} which the document id.
+     *
+     * @param id the per-bucket unique document id.
+     * @return a {@link LazyJsonDocument}.
+     */
+    public static LazyJsonDocument create(String id) {
+        return new LazyJsonDocument(id, 0, null, 0, null);
+    }
+
+    /**
+     * Creates a {@link LazyJsonDocument} which the document id and JSON content.
+     *
+     * @param id the per-bucket unique document id.
+     * @param content the content of the document.
+     * @return a {@link LazyJsonDocument}.
+     */
+    public static LazyJsonDocument create(String id, JsonObject content) {
+        return new LazyJsonDocument(id, 0, LazyJsonObject.from(content), 0, null);
+    }
+
+    /**
+     * Creates a {@link LazyJsonDocument} which the document id, JSON content and the expiration time.
+     *
+     * @param id the per-bucket unique document id.
+     * @param expiry the expiration time of the document.
+     * @param content the content of the document.
+     * @return a {@link LazyJsonDocument}.
+     */
+    public static LazyJsonDocument create(String id, int expiry, JsonObject content) {
+        return new LazyJsonDocument(id, expiry, LazyJsonObject.from(content), 0, null);
+    }
+
+    /**
+     * Creates a {@link LazyJsonDocument} which the document id, lazy content, CAS value, expiration time
+     * and mutation token.
+     *
+     * This factory method is normally only called within the client library when a response is analyzed and
+     * a document is returned.
+     *
+     * @param id the per-bucket unique document id.
+     * @param expiry the expiration time of the document.
+     * @param content the content of the document.
+     * @param cas the CAS (compare and swap) value for optimistic concurrency.
+     * @param mutationToken mutation token
+     * @return a {@link LazyJsonDocument}.
+     */
+    public static LazyJsonDocument create(String id, int expiry, LazyJsonObject content, long cas,
+        MutationToken mutationToken) {
+        return new LazyJsonDocument(id, expiry, content, cas, mutationToken);
+    }
+
+    /**
+     * Creates a copy from a different {@link LazyJsonDocument}, but changes the CAS value.
+     *
+     * @param doc the original {@link LazyJsonDocument} to copy.
+     * @param cas the CAS (compare and swap) value for optimistic concurrency.
+     * @return a copied {@link LazyJsonDocument} with the changed properties.
+     */
+    public static LazyJsonDocument from(LazyJsonDocument doc, long cas) {
+        return LazyJsonDocument.create(doc.id(), doc.expiry(), doc.content(), cas, doc.mutationToken());
+    }
+
+    private LazyJsonDocument(String id, int expiry, LazyJsonObject content, long cas, MutationToken mutationToken) {
+        super(id, expiry, content, cas, mutationToken);
+    }
+}
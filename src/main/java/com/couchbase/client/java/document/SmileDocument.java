@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.document;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.message.kv.MutationToken;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.transcoder.SmileCodec;
+
+/**
+ * Represents a {@link JsonObject} document stored in the binary Smile format instead of JSON text.
+ *
+ * Smile documents are usually smaller than their JSON counterpart, since repeated property names are written as
+ * back references and numbers in binary, and they are faster to encode and decode (see {@link SmileCodec}).
+ * They are flagged with a format only this client understands though, so the server and other SDKs see them as
+ * opaque binary: they can't be queried with N1QL, indexed, or read by other clients.
+ *
+ * Existing {@link JsonDocument}s can be read as {@link SmileDocument}s, so a bucket can be migrated by reading its
+ * documents as {@link SmileDocument}s and writing them back.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class SmileDocument extends AbstractDocument<JsonObject> implements Serializable {
+
+    private static final long serialVersionUID = -4392387231574820117L;
+
+    /**
+     * Creates a {@link SmileDocument} which the document id.
+     *
+     * @param id the per-bucket unique document id.
+     * @return a {@link SmileDocument}.
+     */
+    public static SmileDocument create(String id) {
+        return new SmileDocument(id, 0, null, 0, null);
+    }
+
+    /**
+     * Creates a {@link SmileDocument} which the document id and content.
+     *
+     * @param id the per-bucket unique document id.
+     * @param content the content of the document.
+     * @return a {@link SmileDocument}.
+     */
+    public static SmileDocument create(String id, JsonObject content) {
+        return new SmileDocument(id, 0, content, 0, null);
+    }
+
+    /**
+     * Creates a {@link SmileDocument} which the document id, content and the CAS value.
+     *
+     * @param id the per-bucket unique document id.
+     * @param content the content of the document.
+     * @param cas the CAS (compare and swap) value for optimistic concurrency.
+     * @return a {@link SmileDocument}.
+     */
+    public static SmileDocument create(String id, JsonObject content, long cas) {
+        return new SmileDocument(id, 0, content, cas, null);
+    }
+
+    /**
+     * Creates a {@link SmileDocument} which the document id, content and the expiration time.
+     *
+     * @param id the per-bucket unique document id.
+     * @param content the content of the document.
+     * @param expiry the expiration time of the document.
+     * @return a {@link SmileDocument}.
+     */
+    public static SmileDocument create(String id, int expiry, JsonObject content) {
+        return new SmileDocument(id, expiry, content, 0, null);
+    }
+
+    /**
+     * Creates a {@link SmileDocument} which the document id, content, CAS value, expiration time and status code.
+     *
+     * This factory method is normally only called within the client library when a response is analyzed and a document
+     * is returned which is enriched with the status code. It does not make sense to pre populate the status field from
+     * the user level code.
+     *
+     * @param id the per-bucket unique document id.
+     * @param content the content of the document.
+     * @param cas the CAS (compare and swap) value for optimistic concurrency.
+     * @param expiry the expiration time of the document.
+     * @return a {@link SmileDocument}.
+     */
+    public static SmileDocument create(String id, int expiry, JsonObject content, long cas) {
+        return new SmileDocument(id, expiry, content, cas, null);
+    }
+
+    /**
+     * Creates a {@link SmileDocument} which the document id, content, CAS value, expiration time and status code.
+     *
+     * This factory method is normally only called within the client library when a response is analyzed and a document
+     * is returned which is enriched with the status code. It does not make sense to pre populate the status field from
+     * the user level code.
+     *
+     * @param id the per-bucket unique document id.
+     * @param content the content of the document.
+     * @param cas the CAS (compare and swap) value for optimistic concurrency.
+     * @param expiry the expiration time of the document.
+     * @return a {@link SmileDocument}.
+     */
+    public static SmileDocument create(String id, int expiry, JsonObject content, long cas, MutationToken mutationToken) {
+        return new SmileDocument(id, expiry, content, cas, mutationToken);
+    }
+
+    /**
+     * Creates a copy from a different {@link SmileDocument}, but changes the document ID.
+     *
+     * @param doc the original {@link SmileDocument} to copy.
+     * @param id the per-bucket unique document id.
+     * @return a copied {@link SmileDocument} with the changed properties.
+     */
+    public static SmileDocument from(SmileDocument doc, String id) {
+        return SmileDocument.create(id, doc.expiry(), doc.content(), doc.cas(), doc.mutationToken());
+    }
+
+    /**
+     * Creates a copy from a different {@link SmileDocument}, but changes the content.
+     *
+     * @param doc the original {@link SmileDocument} to copy.
+     * @param content the content of the document.
+     * @return a copied {@link SmileDocument} with the changed properties.
+     */
+    public static SmileDocument from(SmileDocument doc, JsonObject content) {
+        return SmileDocument.create(doc.id(), doc.expiry(), content, doc.cas(), doc.mutationToken());
+    }
+
+    /**
+     * Creates a copy from a different {@link SmileDocument}, but changes the document ID and content.
+     *
+     * @param doc the original {@link SmileDocument} to copy.
+     * @param id the per-bucket unique document id.
+     * @param content the content of the document.
+     * @return a copied {@link SmileDocument} with the changed properties.
+     */
+    public static SmileDocument from(SmileDocument doc, String id, JsonObject content) {
+        return SmileDocument.create(id, doc.expiry(), content, doc.cas(), doc.mutationToken());
+    }
+
+    /**
+     * Creates a copy from a different {@link SmileDocument}, but changes the CAS value.
+     *
+     * @param doc the original {@link SmileDocument} to copy.
+     * @param cas the CAS (compare and swap) value for optimistic concurrency.
+     * @return a copied {@link SmileDocument} with the changed properties.
+     */
+    public static SmileDocument from(SmileDocument doc, long cas) {
+        return SmileDocument.create(doc.id(), doc.expiry(), doc.content(), cas, doc.mutationToken());
+    }
+
+    /**
+     * Private constructor which is called by the static factory methods eventually.
+     *
+     * @param id the per-bucket unique document id.
+     * @param content the content of the document.
+     * @param cas the CAS (compare and swap) value for optimistic concurrency.
+     * @param expiry the expiration time of the document.
+     */
+    private SmileDocument(String id, int expiry, JsonObject content, long cas, MutationToken mutationToken) {
+        super(id, expiry, content, cas, mutationToken);
+    }
+
+    private void writeObject(ObjectOutputStream stream) throws IOException {
+        writeToSerializedStream(stream);
+    }
+
+    private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+        readFromSerializedStream(stream);
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.document;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.message.kv.MutationToken;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.transcoder.TypedJsonTranscoder;
+
+/**
+ * Represents a JSON document whose content is a plain Java object bound with Jackson.
+ *
+ * The content is written to and read from the document bytes directly, without converting it through a
+ * {@link JsonObject} first, and it is stored with the same flags as a {@link JsonDocument}.
+ *
+ * Storing documents works out of the box. To read them, register a {@link TypedJsonTranscoder} for the content
+ * type as a custom transcoder of the bucket. Since transcoders are registered per document type, binding several
+ * content types in the same bucket requires a subclass of this document per content type, see
+ * {@link TypedJsonTranscoder}.
+ *
+ * @param <T> the type of the content.
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class TypedJsonDocument<T> extends AbstractDocument<T> {
+
+    /**
+     * Creates a {@link TypedJsonDocument} which the document id.
+     *
+     * @param id the per-bucket unique document id.
+     * @return a {@link TypedJsonDocument}.
+     */
+    public static <T> TypedJsonDocument<T> create(String id) {
+        return new TypedJsonDocument<T>(id, 0, null, 0, null);
+    }
+
+    /**
+     * Creates a {@link TypedJsonDocument} which the document id and content.
+     *
+     * @param id the per-bucket unique document id.
+     * @param content the content of the document.
+     * @return a {@link TypedJsonDocument}.
+     */
+    public static <T> TypedJsonDocument<T> create(String id, T content) {
+        return new TypedJsonDocument<T>(id, 0, content, 0, null);
+    }
+
+    /**
+     * Creates a {@link TypedJsonDocument} which the document id, content and the CAS value.
+     *
+     * @param id the per-bucket unique document id.
+     * @param content the content of the document.
+     * @param cas the CAS (compare and swap) value for optimistic concurrency.
+     * @return a {@link TypedJsonDocument}.
+     */
+    public static <T> TypedJsonDocument<T> create(String id, T content, long cas) {
+        return new TypedJsonDocument<T>(id, 0, content, cas, null);
+    }
+
+    /**
+     * Creates a {@link TypedJsonDocument} which the document id, content and the expiration time.
+     *
+     * @param id the per-bucket unique document id.
+     * @param expiry the expiration time of the document.
+     * @param content the content of the document.
+     * @return a {@link TypedJsonDocument}.
+     */
+    public static <T> TypedJsonDocument<T> create(String id, int expiry, T content) {
+        return new TypedJsonDocument<T>(id, expiry, content, 0, null);
+    }
+
+    /**
+     * Creates a {@link TypedJsonDocument} which the document id, content, CAS value and expiration time.
+     *
+     * @param id the per-bucket unique document id.
+     * @param expiry the expiration time of the document.
+     * @param content the content of the document.
+     * @param cas the CAS (compare and swap) value for optimistic concurrency.
+     * @return a {@link TypedJsonDocument}.
+     */
+    public static <T> TypedJsonDocument<T> create(String id, int expiry, T content, long cas) {
+        return new TypedJsonDocument<T>(id, expiry, content, cas, null);
+    }
+
+    /**
+     * Creates a {@link TypedJsonDocument} which the document id, content, CAS value, expiration time
+     * and mutation token.
+     *
+     * This factory method is normally only called within the client library when a response is analyzed and
+     * a document is returned.
+     *
+     * @param id the per-bucket unique document id.
+     * @param expiry the expiration time of the document.
+     * @param content the content of the document.
+     * @param cas the CAS (compare and swap) value for optimistic concurrency.
+     * @param mutationToken mutation token
+     * @return a {@link TypedJsonDocument}.
+     */
+    public static <T> TypedJsonDocument<T> create(String id, int expiry, T content, long cas,
+        MutationToken mutationToken) {
+        return new TypedJsonDocument<T>(id, expiry, content, cas, mutationToken);
+    }
+
+    /**
+     * Creates a copy from a different {@link TypedJsonDocument}, but changes the document ID and content.
+     *
+     * @param doc the original {@link TypedJsonDocument} to copy.
+     * @param id the per-bucket unique document id.
+     * @param content the content of the document.
+     * @return a copied {@link TypedJsonDocument} with the changed properties.
+     */
+    public static <T> TypedJsonDocument<T> from(TypedJsonDocument<T> doc, String id, T content) {
+        return TypedJsonDocument.create(id, doc.expiry(), content, doc.cas(), doc.mutationToken());
+    }
+
+    /**
+     * Creates a copy from a different {@link TypedJsonDocument}, but changes the CAS value.
+     *
+     * @param doc the original {@link TypedJsonDocument} to copy.
+     * @param cas the CAS (compare and swap) value for optimistic concurrency.
+     * @return a copied {@link TypedJsonDocument} with the changed properties.
+     */
+    public static <T> TypedJsonDocument<T> from(TypedJsonDocument<T> doc, long cas) {
+        return TypedJsonDocument.create(doc.id(), doc.expiry(), doc.content(), cas, doc.mutationToken());
+    }
+
+    protected TypedJsonDocument(String id, int expiry, T content, long cas, MutationToken mutationToken) {
+        super(id, expiry, content, cas, mutationToken);
+    }
+}
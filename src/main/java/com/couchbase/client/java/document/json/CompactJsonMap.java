@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.document.json;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The content of a compact {@link JsonObject}: the values in a flat array, indexed by the slots of a shared
+ * {@link JsonObjectShape}.
+ *
+ * Replacing the value of an existing field writes to its slot. Adding or removing a field promotes the content to
+ * a regular {@link HashMap}, which is used from then on.
+ *
+ * @since 2.7.24
+ */
+class CompactJsonMap extends AbstractMap<String, Object> implements Serializable {
+
+    private static final long serialVersionUID = -3271869435623394151L;
+
+    private JsonObjectShape shape;
+    private Object[] values;
+    private HashMap<String, Object> promoted;
+
+    /**
+     * Creates the content, taking ownership of the values.
+     *
+     * @param shape the shape of the object.
+     * @param values the values by slot, exactly as many as the shape has fields.
+     */
+    CompactJsonMap(final JsonObjectShape shape, final Object[] values) {
+        this.shape = shape;
+        this.values = values;
+    }
+
+    /**
+     * Whether the content has been promoted to a {@link HashMap}.
+     */
+    boolean isPromoted() {
+        return promoted != null;
+    }
+
+    @Override
+    public int size() {
+        return promoted != null ? promoted.size() : values.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        if (promoted != null) {
+            return promoted.containsKey(key);
+        }
+        return key instanceof String && shape.slot((String) key) >= 0;
+    }
+
+    @Override
+    public Object get(final Object key) {
+        if (promoted != null) {
+            return promoted.get(key);
+        }
+        int slot = key instanceof String ? shape.slot((String) key) : -1;
+        return slot < 0 ? null : values[slot];
+    }
+
+    @Override
+    public Object put(final String key, final Object value) {
+        if (promoted == null) {
+            int slot = shape.slot(key);
+            if (slot >= 0) {
+                Object old = values[slot];
+                values[slot] = value;
+                return old;
+            }
+            promote();
+        }
+        return promoted.put(key, value);
+    }
+
+    @Override
+    public Object remove(final Object key) {
+        if (promoted == null) {
+            if (!containsKey(key)) {
+                return null;
+            }
+            promote();
+        }
+        return promoted.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        promoted = new HashMap<String, Object>();
+        shape = null;
+        values = null;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (promoted != null) {
+            return promoted.entrySet();
+        }
+        final String[] names = shape.names();
+        final Object[] values = this.values;
+        return new AbstractSet<Map.Entry<String, Object>>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new EntryIterator(names, values);
+            }
+
+            @Override
+            public int size() {
+                return names.length;
+            }
+        };
+    }
+
+    private void promote() {
+        String[] names = shape.names();
+        HashMap<String, Object> map = new HashMap<String, Object>((int) ((names.length + 1) / 0.75f) + 1);
+        for (int i = 0; i < names.length; i++) {
+            map.put(names[i], values[i]);
+        }
+        promoted = map;
+        shape = null;
+        values = null;
+    }
+
+    /**
+     * Serializes as a regular {@link HashMap}, since shapes are only shared within a JVM.
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        return new HashMap<String, Object>(this);
+    }
+
+    /**
+     * Iterates over a snapshot of the slots, writing values and removals through to the map.
+     */
+    private class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+        private final String[] names;
+        private final Object[] values;
+        private int next;
+        private int current = -1;
+
+        EntryIterator(final String[] names, final Object[] values) {
+            this.names = names;
+            this.values = values;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < names.length;
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (next >= names.length) {
+                throw new NoSuchElementException();
+            }
+            current = next++;
+            return new Entry(names[current], values[current]);
+        }
+
+        @Override
+        public void remove() {
+            if (current < 0) {
+                throw new IllegalStateException();
+            }
+            CompactJsonMap.this.remove(names[current]);
+            current = -1;
+        }
+    }
+
+    private class Entry extends SimpleEntry<String, Object> {
+
+        private static final long serialVersionUID = 5381823120574235493L;
+
+        Entry(final String key, final Object value) {
+            super(key, value);
+        }
+
+        @Override
+        public Object setValue(final Object value) {
+            CompactJsonMap.this.put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
@@ -86,6 +86,13 @@ public class JsonObject extends JsonValue implements Serializable {
         content = new HashMap<String, Object>(initialCapacity);
     }
 
+    /**
+     * Private constructor to create a compact object, see {@link #fromShape(JsonObjectShape, Object[])}.
+     */
+    private JsonObject(JsonObjectShape shape, Object[] values) {
+        content = new CompactJsonMap(shape, values);
+    }
+
     /**
      * Creates a empty {@link JsonObject}.
      *
@@ -104,6 +111,24 @@ public class JsonObject extends JsonValue implements Serializable {
         return new JsonObject();
     }
 
+    /**
+     * Creates a compact {@link JsonObject} which keeps its values in a flat array indexed by the shared shape,
+     * instead of a {@link HashMap} of its own. Adding or removing fields later converts it to a regular object.
+     *
+     * The values are not checked and the array is not copied, this is meant for decoders only.
+     *
+     * @param shape the shape holding the field names.
+     * @param values the values of the fields by slot, exactly as many as the shape has fields.
+     * @return a compact {@link JsonObject}.
+     */
+    @InterfaceAudience.Private
+    public static JsonObject fromShape(JsonObjectShape shape, Object[] values) {
+        if (values.length != shape.size()) {
+            throw new IllegalArgumentException("Expected " + shape.size() + " values, got " + values.length);
+        }
+        return new JsonObject(shape, values);
+    }
+
     /**
      * Constructs a {@link JsonObject} from a {@link Map Map&lt;String, ?&gt;}.
      *
@@ -1079,6 +1104,17 @@ public class JsonObject extends JsonValue implements Serializable {
         return content.containsValue(value);
     }
 
+    /**
+     * Whether this object is compact: decoded with the `com.couchbase.json.compactObjects` system property set,
+     * sharing its field names with all objects that have the same fields and not structurally modified since.
+     *
+     * @return true if the values are kept in a flat array indexed by a shared {@link JsonObjectShape}.
+     */
+    @InterfaceStability.Experimental
+    public boolean isCompact() {
+        return content instanceof CompactJsonMap && !((CompactJsonMap) content).isPromoted();
+    }
+
     /**
      * The size of the {@link JsonObject}.
      *
@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.document.json;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+
+/**
+ * The ordered set of field names shared by all compact {@link JsonObject}s with the same fields.
+ *
+ * Shapes form trees rooted at an empty shape, {@link #ROOT} for top-level objects and {@link #NESTED} for objects
+ * within other objects or arrays: {@link #with(String)} returns the shape with one more field, which is created once
+ * and then shared by every object whose fields were added in the same order. Each field has a slot, the index of its
+ * value in the object's value array. Since the field names are kept by the shape, objects decoded with the same
+ * shape share the same name strings.
+ *
+ * The number of shapes is bounded, as well as the number of fields per shape and of different fields following a
+ * shape, so that objects used as maps with arbitrary keys cannot grow the trees without limit. Once a bound is hit,
+ * {@link #with(String)} returns null and objects are built the regular way. Shapes are only weakly held by the
+ * shape they follow, so the shapes of objects which are gone are reclaimed and count against the bounds no more.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Private
+public final class JsonObjectShape {
+
+    /**
+     * The maximum number of shapes, across all trees.
+     */
+    static final int MAX_SHAPES = 16384;
+
+    /**
+     * The maximum number of fields of a shape.
+     */
+    static final int MAX_FIELDS = 1024;
+
+    /**
+     * The maximum number of different fields which can follow a shape.
+     */
+    static final int MAX_TRANSITIONS = 64;
+
+    /**
+     * Up to this number of fields slots are found by scanning the names instead of a lookup table.
+     */
+    private static final int MAX_SCANNED_FIELDS = 8;
+
+    private static final AtomicInteger SHAPES = new AtomicInteger();
+
+    /**
+     * The transitions to shapes which may still be in use, so that they are enqueued once their shape is collected.
+     */
+    private static final Set<Transition> TRANSITIONS = Collections.newSetFromMap(
+        new ConcurrentHashMap<Transition, Boolean>());
+
+    private static final ReferenceQueue<JsonObjectShape> COLLECTED = new ReferenceQueue<JsonObjectShape>();
+
+    /**
+     * The shape without any fields, where top-level objects start.
+     */
+    public static final JsonObjectShape ROOT = new JsonObjectShape(null, null);
+
+    /**
+     * The shape without any fields, where objects nested in other objects or arrays start, so that nested objects
+     * used as maps do not take up the transitions of top-level objects.
+     */
+    public static final JsonObjectShape NESTED = new JsonObjectShape(null, null);
+
+    private final JsonObjectShape parent;
+    private final String name;
+    private final int size;
+    private final ConcurrentMap<String, Transition> transitions;
+    private volatile String[] names;
+    private volatile Map<String, Integer> slots;
+    private volatile int sizeHint;
+
+    private JsonObjectShape(final JsonObjectShape parent, final String name) {
+        this.parent = parent;
+        this.name = name;
+        this.size = parent == null ? 0 : parent.size + 1;
+        this.transitions = new ConcurrentHashMap<String, Transition>(4, 0.75f, 1);
+    }
+
+    /**
+     * Returns the shape with the given field added after the fields of this shape, if it already exists.
+     *
+     * @param field the name of the field.
+     * @return the shared shape, or null if it has not been created yet.
+     */
+    public JsonObjectShape find(final String field) {
+        Transition transition = transitions.get(field);
+        return transition == null ? null : transition.get();
+    }
+
+    /**
+     * Returns the shape with the given field added after the fields of this shape.
+     *
+     * @param field the name of the field.
+     * @return the shared shape, or null if this shape already has the field or a bound has been reached.
+     */
+    public JsonObjectShape with(final String field) {
+        JsonObjectShape next = find(field);
+        if (next != null) {
+            return next;
+        }
+        reclaim();
+        if (size == MAX_FIELDS || transitions.size() >= MAX_TRANSITIONS || contains(field)) {
+            return null;
+        }
+        if (SHAPES.incrementAndGet() > MAX_SHAPES) {
+            SHAPES.decrementAndGet();
+            return null;
+        }
+        next = new JsonObjectShape(this, field);
+        Transition created = new Transition(this, field, next);
+        TRANSITIONS.add(created);
+        while (true) {
+            Transition existing = transitions.putIfAbsent(field, created);
+            if (existing == null) {
+                return next;
+            }
+            JsonObjectShape other = existing.get();
+            if (other != null) {
+                // cleared so that it is not enqueued and counted twice
+                created.clear();
+                TRANSITIONS.remove(created);
+                SHAPES.decrementAndGet();
+                return other;
+            }
+            if (transitions.replace(field, existing, created)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * The number of shapes currently counted against {@link #MAX_SHAPES}.
+     */
+    static int count() {
+        reclaim();
+        return SHAPES.get();
+    }
+
+    /**
+     * Removes the transitions to collected shapes and releases their share of the bounds.
+     */
+    private static void reclaim() {
+        Reference<? extends JsonObjectShape> collected;
+        while ((collected = COLLECTED.poll()) != null) {
+            Transition transition = (Transition) collected;
+            if (TRANSITIONS.remove(transition)) {
+                transition.from.transitions.remove(transition.field, transition);
+                SHAPES.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * The number of fields of this shape.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The number of fields of the last object decoded starting with this shape, so decoders can size the values of
+     * the next one up front. 0 if unknown.
+     */
+    public int sizeHint() {
+        return sizeHint;
+    }
+
+    /**
+     * Records the number of fields of an object decoded starting with this shape.
+     *
+     * @param size the number of fields of the object.
+     */
+    public void sizeHint(final int size) {
+        if (sizeHint != size) {
+            sizeHint = size;
+        }
+    }
+
+    /**
+     * Returns the slot of the field, or -1 if this shape does not have it.
+     *
+     * @param field the name of the field.
+     * @return the slot of the field or -1.
+     */
+    int slot(final String field) {
+        if (size <= MAX_SCANNED_FIELDS) {
+            String[] names = names();
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(field)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        Map<String, Integer> slots = this.slots;
+        if (slots == null) {
+            String[] names = names();
+            slots = new HashMap<String, Integer>((int) (names.length / 0.75f) + 1);
+            for (int i = 0; i < names.length; i++) {
+                slots.put(names[i], i);
+            }
+            this.slots = slots;
+        }
+        Integer slot = slots.get(field);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Returns the field names by slot, the array must not be modified.
+     */
+    String[] names() {
+        String[] names = this.names;
+        if (names == null) {
+            names = new String[size];
+            JsonObjectShape current = this;
+            for (int i = size - 1; i >= 0; i--) {
+                names[i] = current.name;
+                current = current.parent;
+            }
+            this.names = names;
+        }
+        return names;
+    }
+
+    private boolean contains(final String field) {
+        for (JsonObjectShape current = this; current.parent != null; current = current.parent) {
+            if (current.name.equals(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A weak reference from a shape to the shape with one more field.
+     */
+    private static final class Transition extends WeakReference<JsonObjectShape> {
+
+        private final JsonObjectShape from;
+        private final String field;
+
+        Transition(final JsonObjectShape from, final String field, final JsonObjectShape to) {
+            super(to, COLLECTED);
+            this.from = from;
+            this.field = field;
+        }
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.document.json;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.deps.com.fasterxml.jackson.core.JsonParser;
+import com.couchbase.client.deps.com.fasterxml.jackson.core.JsonToken;
+import com.couchbase.client.java.error.TranscodingException;
+import com.couchbase.client.java.transcoder.JacksonTransformers;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A JSON object which keeps its encoded representation and only decodes what is asked for.
+ *
+ * The first field access scans the top level of the raw bytes once, skipping over all nested content, and
+ * remembers the offset of every field. As with the full decode, the last occurrence of a duplicate field wins.
+ * Apart from numbers, only the fields asked for are decoded, and their values are cached. The full {@link JsonObject}
+ * is only built once {@link #toJsonObject()} is called. As long as the content is unmodified its original bytes are
+ * written back as-is when the document is stored again. Objects and arrays returned for a field can be modified; the
+ * changes are carried over into the full {@link JsonObject} and are written when the document is stored.
+ *
+ * Note that the raw content is only validated when it is first scanned, so malformed JSON surfaces as a
+ * {@link TranscodingException} on access and not when the document is loaded.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class LazyJsonObject {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Object ABSENT = new Object();
+    private static final boolean DECIMAL_FOR_FLOAT = Boolean.parseBoolean(
+        System.getProperty("com.couchbase.json.decimalForFloat", "false")
+    );
+
+    private final byte[] raw;
+    private JsonObject materialized;
+    private JsonObject snapshot;
+    private Map<String, Object> fields;
+    private Map<String, Integer> offsets;
+    private boolean containersReturned;
+
+    private LazyJsonObject(final byte[] raw, final JsonObject materialized) {
+        this.raw = raw;
+        this.materialized = materialized;
+    }
+
+    /**
+     * Creates a {@link LazyJsonObject} on top of the encoded JSON object. The array is not copied and must
+     * not be modified afterwards.
+     *
+     * @param raw the UTF-8 encoded JSON object.
+     * @return a {@link LazyJsonObject}.
+     */
+    public static LazyJsonObject fromBytes(final byte[] raw) {
+        if (raw == null) {
+            throw new NullPointerException("Raw content must not be null.");
+        }
+        return new LazyJsonObject(raw, null);
+    }
+
+    /**
+     * Creates a {@link LazyJsonObject} from an already decoded {@link JsonObject}.
+     *
+     * @param content the content.
+     * @return a {@link LazyJsonObject}.
+     */
+    public static LazyJsonObject from(final JsonObject content) {
+        if (content == null) {
+            throw new NullPointerException("Content must not be null.");
+        }
+        return new LazyJsonObject(null, content);
+    }
+
+    /**
+     * Retrieves the (potential null) value of a top-level field, decoding only that field if needed.
+     *
+     * @param name the key of the field.
+     * @return the value of the field, or null if it does not exist.
+     */
+    public synchronized Object get(final String name) {
+        if (materialized != null) {
+            return materialized.get(name);
+        }
+        Object value = field(name);
+        if (value instanceof JsonObject || value instanceof JsonArray) {
+            containersReturned = true;
+        }
+        return value == ABSENT ? null : value;
+    }
+
+    /**
+     * Checks if the object contains the given top-level field.
+     *
+     * @param name the key of the field.
+     * @return true if the field is present.
+     */
+    public synchronized boolean containsKey(final String name) {
+        if (materialized != null) {
+            return materialized.containsKey(name);
+        }
+        return field(name) != ABSENT;
+    }
+
+    public String getString(final String name) {
+        return (String) get(name);
+    }
+
+    public Integer getInt(final String name) {
+        Number number = (Number) get(name);
+        if (number == null || number instanceof Integer) {
+            return (Integer) number;
+        }
+        return number.intValue();
+    }
+
+    public Long getLong(final String name) {
+        Number number = (Number) get(name);
+        if (number == null || number instanceof Long) {
+            return (Long) number;
+        }
+        return number.longValue();
+    }
+
+    public Double getDouble(final String name) {
+        Number number = (Number) get(name);
+        if (number == null || number instanceof Double) {
+            return (Double) number;
+        }
+        return number.doubleValue();
+    }
+
+    public Boolean getBoolean(final String name) {
+        return (Boolean) get(name);
+    }
+
+    public JsonObject getObject(final String name) {
+        return (JsonObject) get(name);
+    }
+
+    public JsonArray getArray(final String name) {
+        return (JsonArray) get(name);
+    }
+
+    /**
+     * Decodes (if not done already) and returns the full {@link JsonObject}.
+     *
+     * Since the returned object is mutable, from this point on field access goes through it. Objects and arrays
+     * returned for a field before are part of it, so changes made through them are kept. The original bytes are
+     * still passed through as long as the returned object stays equal to them, which is checked when the content
+     * is encoded.
+     *
+     * @return the decoded {@link JsonObject}.
+     */
+    public synchronized JsonObject toJsonObject() {
+        if (materialized == null) {
+            JsonObject full = parseRaw();
+            if (containersReturned) {
+                for (Map.Entry<String, Object> field : fields.entrySet()) {
+                    if (field.getValue() instanceof JsonObject || field.getValue() instanceof JsonArray) {
+                        full.put(field.getKey(), field.getValue());
+                    }
+                }
+            }
+            materialized = full;
+            fields = null;
+            offsets = null;
+        }
+        return materialized;
+    }
+
+    /**
+     * Returns true if the full {@link JsonObject} has been built.
+     */
+    public synchronized boolean isMaterialized() {
+        return materialized != null;
+    }
+
+    /**
+     * Returns the original encoded bytes if the content is unmodified, null otherwise.
+     *
+     * The returned array must not be modified.
+     */
+    @InterfaceAudience.Private
+    public synchronized byte[] unmodifiedBytes() {
+        if (raw == null) {
+            return null;
+        }
+        materializeIfContainersModified();
+        if (materialized == null || materialized.equals(snapshot())) {
+            return raw;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the content as a {@link JsonObject} for comparisons, without handing out or materializing it.
+     */
+    private synchronized JsonObject view() {
+        materializeIfContainersModified();
+        return materialized != null ? materialized : snapshot();
+    }
+
+    /**
+     * Builds the full {@link JsonObject} if an object or array returned for a field has been modified since,
+     * so that the raw content is no longer taken as unmodified.
+     */
+    private void materializeIfContainersModified() {
+        if (materialized != null || !containersReturned) {
+            return;
+        }
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            Object value = field.getValue();
+            if ((value instanceof JsonObject || value instanceof JsonArray)
+                && !value.equals(snapshot().get(field.getKey()))) {
+                toJsonObject();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the raw content decoded into a private {@link JsonObject} which is never modified.
+     */
+    private JsonObject snapshot() {
+        if (snapshot == null) {
+            snapshot = parseRaw();
+        }
+        return snapshot;
+    }
+
+    private JsonObject parseRaw() {
+        try {
+            return JacksonTransformers.MAPPER.readValue(raw, JsonObject.class);
+        } catch (IOException ex) {
+            throw new TranscodingException("Could not decode lazy JSON content.", ex);
+        }
+    }
+
+    private Object field(final String name) {
+        if (fields == null) {
+            fields = new HashMap<String, Object>();
+            offsets = new HashMap<String, Integer>();
+            scan();
+        }
+        if (fields.containsKey(name)) {
+            return fields.get(name);
+        }
+
+        Integer offset = offsets.remove(name);
+        Object value;
+        try {
+            value = offset != null ? decodeAt(offset) : ABSENT;
+        } catch (IOException ex) {
+            throw new TranscodingException("Could not decode field \"" + name + "\" of lazy JSON content.", ex);
+        }
+        fields.put(name, value);
+        return value;
+    }
+
+    /**
+     * Scans the top level of the raw content and remembers the offset of the value of every field, skipping
+     * the values. Numbers are decoded right away instead, since the parser has already read them and they cannot
+     * be decoded on their own later. A field which occurs more than once maps to its last value.
+     */
+    private void scan() {
+        JsonParser parser = null;
+        try {
+            parser = JacksonTransformers.MAPPER.getFactory().createParser(raw);
+            JsonToken current = parser.nextToken();
+            if (current != JsonToken.START_OBJECT) {
+                throw new TranscodingException("Expecting Object as root level object, was: " + current);
+            }
+            while ((current = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT) {
+                    offsets.remove(field);
+                    fields.put(field, decodeValue(parser, value));
+                } else {
+                    fields.remove(field);
+                    offsets.put(field, (int) parser.getTokenLocation().getByteOffset());
+                    parser.skipChildren();
+                }
+            }
+            if (current != JsonToken.END_OBJECT) {
+                throw new TranscodingException("Lazy JSON content is truncated.");
+            }
+        } catch (IOException ex) {
+            throw new TranscodingException("Could not scan lazy JSON content.", ex);
+        } finally {
+            if (parser != null) {
+                try {
+                    parser.close();
+                } catch (IOException ex) {
+                    // nothing to release for a parser over a byte array
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes the value starting at the given offset of the raw content.
+     */
+    private Object decodeAt(final int offset) throws IOException {
+        JsonParser parser = JacksonTransformers.MAPPER.getFactory().createParser(raw, offset, raw.length - offset);
+        try {
+            return decodeValue(parser, parser.nextToken());
+        } finally {
+            parser.close();
+        }
+    }
+
+    private static Object decodeValue(final JsonParser parser, final JsonToken token) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+                return JacksonTransformers.MAPPER.readValue(parser, JsonObject.class);
+            case START_ARRAY:
+                return JacksonTransformers.MAPPER.readValue(parser, JsonArray.class);
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                return parser.getBooleanValue();
+            case VALUE_STRING:
+                return parser.getValueAsString();
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                Number numberValue = parser.getNumberValue();
+                if (numberValue instanceof Double && DECIMAL_FOR_FLOAT) {
+                    numberValue = parser.getDecimalValue();
+                }
+                return numberValue;
+            case VALUE_NULL:
+                return null;
+            default:
+                throw new TranscodingException("Could not decode JSON token: " + token);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        LazyJsonObject other = (LazyJsonObject) o;
+        byte[] bytes = unmodifiedBytes();
+        if (bytes != null && Arrays.equals(bytes, other.unmodifiedBytes())) {
+            return true;
+        }
+        return view().equals(other.view());
+    }
+
+    @Override
+    public int hashCode() {
+        return view().hashCode();
+    }
+
+    @Override
+    public synchronized String toString() {
+        materializeIfContainersModified();
+        return materialized != null ? materialized.toString() : new String(raw, UTF_8);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.future;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+
+/**
+ * A callback invoked once a {@link CouchbaseFuture} completes.
+ *
+ * On Java 8 and later, it is a functional interface which can bridge to a {@code CompletableFuture}:
+ *
+ * ```
+ * final CompletableFuture<JsonDocument> result = new CompletableFuture<>();
+ * bucket.future().get("id").addListener((doc, error) -> {
+ *     if (error == null) {
+ *         result.complete(doc);
+ *     } else {
+ *         result.completeExceptionally(error);
+ *     }
+ * });
+ * ```
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public interface CompletionListener<T> {
+
+    /**
+     * Called once the future completed, usually on the thread which completed it.
+     *
+     * Listeners should not block, since they run on the threads of the SDK handling responses.
+     *
+     * @param value the value of the future, or null if it failed.
+     * @param error the cause if the future failed, or null if it succeeded.
+     */
+    void onComplete(T value, Throwable error);
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.future;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.logging.CouchbaseLogger;
+import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import rx.Observable;
+import rx.Subscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The result of an operation of a {@link com.couchbase.client.java.FutureBucket}, completed directly from the
+ * response of the operation.
+ *
+ * Besides blocking with {@link #get()}, callbacks can be registered with {@link #addListener(CompletionListener)},
+ * which allows to bridge to {@code CompletableFuture} and other future types. Cancelling the future fails it with
+ * a {@link CancellationException}, a request already sent is not aborted on the server.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class CouchbaseFuture<T> implements Future<T> {
+
+    private static final CouchbaseLogger LOGGER = CouchbaseLoggerFactory.getInstance(CouchbaseFuture.class);
+
+    private volatile boolean done;
+    private T value;
+    private Throwable error;
+    private int waiters;
+    private CompletionListener<? super T> listener;
+    private List<CompletionListener<? super T>> moreListeners;
+
+    /**
+     * Creates a future which is completed with the last value of the given observable, or with null if the
+     * observable completes empty.
+     *
+     * @param observable the observable to subscribe to.
+     * @return the future of the observable.
+     */
+    public static <T> CouchbaseFuture<T> from(final Observable<T> observable) {
+        final CouchbaseFuture<T> future = new CouchbaseFuture<T>();
+        final Subscriber<T> subscriber = new Subscriber<T>() {
+            private T last;
+
+            @Override
+            public void onCompleted() {
+                future.complete(last);
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                future.fail(e);
+            }
+
+            @Override
+            public void onNext(T t) {
+                last = t;
+            }
+        };
+        future.addListener(new CompletionListener<T>() {
+            @Override
+            public void onComplete(T value, Throwable error) {
+                subscriber.unsubscribe();
+            }
+        });
+        observable.subscribe(subscriber);
+        return future;
+    }
+
+    /**
+     * Completes this future with the given value, unless it is already completed.
+     *
+     * @return true if this call completed the future.
+     */
+    @InterfaceAudience.Private
+    public boolean complete(final T value) {
+        return finish(value, null);
+    }
+
+    /**
+     * Fails this future with the given cause, unless it is already completed.
+     *
+     * @return true if this call completed the future.
+     */
+    @InterfaceAudience.Private
+    public boolean fail(final Throwable error) {
+        if (error == null) {
+            throw new IllegalArgumentException("The cause must not be null");
+        }
+        return finish(null, error);
+    }
+
+    /**
+     * Registers a listener which is called once this future completes, immediately if it is already completed.
+     *
+     * @param listener the listener.
+     * @return this future for chaining purposes.
+     */
+    public CouchbaseFuture<T> addListener(final CompletionListener<? super T> listener) {
+        synchronized (this) {
+            if (!done) {
+                if (this.listener == null) {
+                    this.listener = listener;
+                } else {
+                    if (moreListeners == null) {
+                        moreListeners = new ArrayList<CompletionListener<? super T>>(2);
+                    }
+                    moreListeners.add(listener);
+                }
+                return this;
+            }
+        }
+        notifyListener(listener, value, error);
+        return this;
+    }
+
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+        return finish(null, new CancellationException());
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return done && error instanceof CancellationException;
+    }
+
+    @Override
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Waits until this future completes and returns its value.
+     *
+     * @throws ExecutionException with the cause of the failure if the operation failed.
+     * @throws CancellationException if the future has been cancelled.
+     */
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        if (!done) {
+            synchronized (this) {
+                while (!done) {
+                    waiters++;
+                    try {
+                        wait();
+                    } finally {
+                        waiters--;
+                    }
+                }
+            }
+        }
+        return report();
+    }
+
+    /**
+     * Waits at most the given time until this future completes and returns its value.
+     *
+     * @throws ExecutionException with the cause of the failure if the operation failed.
+     * @throws CancellationException if the future has been cancelled.
+     * @throws TimeoutException if the future did not complete in time, it is not cancelled.
+     */
+    @Override
+    public T get(final long timeout, final TimeUnit unit)
+        throws InterruptedException, ExecutionException, TimeoutException {
+        if (!done) {
+            long remaining = unit.toNanos(timeout);
+            long deadline = System.nanoTime() + remaining;
+            synchronized (this) {
+                while (!done) {
+                    if (remaining <= 0) {
+                        throw new TimeoutException();
+                    }
+                    waiters++;
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    } finally {
+                        waiters--;
+                    }
+                    remaining = deadline - System.nanoTime();
+                }
+            }
+        }
+        return report();
+    }
+
+    private T report() throws ExecutionException {
+        Throwable cause = error;
+        if (cause == null) {
+            return value;
+        }
+        if (cause instanceof CancellationException) {
+            throw (CancellationException) cause;
+        }
+        throw new ExecutionException(cause);
+    }
+
+    private boolean finish(final T value, final Throwable error) {
+        CompletionListener<? super T> first;
+        List<CompletionListener<? super T>> more;
+        synchronized (this) {
+            if (done) {
+                return false;
+            }
+            this.value = value;
+            this.error = error;
+            this.done = true;
+            first = listener;
+            more = moreListeners;
+            listener = null;
+            moreListeners = null;
+            if (waiters > 0) {
+                notifyAll();
+            }
+        }
+        if (first != null) {
+            notifyListener(first, value, error);
+        }
+        if (more != null) {
+            for (CompletionListener<? super T> next : more) {
+                notifyListener(next, value, error);
+            }
+        }
+        return true;
+    }
+
+    private static <T> void notifyListener(final CompletionListener<? super T> listener, final T value,
+        final Throwable error) {
+        try {
+            listener.onComplete(value, error);
+        } catch (Throwable t) {
+            LOGGER.warn("Completion listener {} failed.", listener, t);
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (!done) {
+            return "CouchbaseFuture{pending}";
+        }
+        return error == null ? "CouchbaseFuture{value=" + value + '}' : "CouchbaseFuture{error=" + error + '}';
+    }
+}
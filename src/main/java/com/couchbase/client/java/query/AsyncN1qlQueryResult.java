@@ -35,6 +35,21 @@ public interface AsyncN1qlQueryResult {
      */
     Observable<AsyncN1qlQueryRow> rows();
 
+    /**
+     * Binds each row directly to the given target type, skipping the intermediate {@link AsyncN1qlQueryRow} and
+     * {@link JsonObject} representations.
+     *
+     * The target type is decoded through the same Jackson configuration used for documents, so any type that
+     * can be data-bound (POJOs, {@link JsonObject}, maps, scalars...) is supported. Rows can only be consumed once,
+     * so either this method or {@link #rows()} must be used, not both.
+     *
+     * @param target the type to bind each row to.
+     * @return an async stream of the decoded rows (empty if fatal errors occurred).
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    <T> Observable<T> rowsAs(Class<T> target);
+
     /**
      * @return an async single-item representing the signature of the results, that can be used to
      * learn about the common structure of each {@link #rows() row}. This signature is usually a
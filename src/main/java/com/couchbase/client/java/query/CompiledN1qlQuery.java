@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.query;
+
+import java.io.Serializable;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.deps.com.fasterxml.jackson.core.JsonProcessingException;
+import com.couchbase.client.java.CouchbaseAsyncBucket;
+import com.couchbase.client.java.document.json.JsonArray;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.error.TranscodingException;
+import com.couchbase.client.java.transcoder.JacksonTransformers;
+
+/**
+ * A N1QL query whose statement and {@link N1qlParams} are rendered only once and reused for every execution.
+ *
+ * Building the request body of a regular {@link N1qlQuery} assembles a {@link JsonObject} from the statement and all
+ * parameters, encodes it and substitutes the bucket placeholder on every execution. A compiled query renders the
+ * statement (with the bucket already substituted) and the {@link N1qlParams} into a template the first time it is
+ * executed against a bucket. Each execution then only encodes its arguments and client context ID and appends them
+ * to the template.
+ *
+ * Compile the statement once and {@link #bind(JsonArray) bind} the arguments of each execution, all bound queries
+ * share the same template:
+ *
+ * ```
+ * CompiledN1qlQuery byType = N1qlQuery.compile("SELECT * FROM #CURRENT_BUCKET# WHERE type = $1", params);
+ * bucket.query(byType.bind(JsonArray.from("airline")));
+ * bucket.query(byType.bind(JsonArray.from("airport")));
+ * ```
+ *
+ * The {@link N1qlParams} are copied when the query is compiled, so modifying them afterwards has no effect. Every
+ * bound query gets its own copy, on which the bucket sets the server side timeout and client context ID of that
+ * execution if they are missing. Compiled queries can also be used with non-adhoc params, but prepared executions
+ * still build their request body on every call.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class CompiledN1qlQuery extends ParameterizedN1qlQuery {
+
+    private static final long serialVersionUID = -2315460651387364924L;
+
+    private final Template template;
+    private final String clientContextId;
+
+    /* package */ CompiledN1qlQuery(Statement statement, N1qlParams params) {
+        this(new Template(statement.toString(), params == null ? N1qlParams.build() : params.copy()),
+            new RawStatement(statement.toString()), (JsonArray) null,
+            params == null ? N1qlParams.build() : params.copy(), null);
+    }
+
+    private CompiledN1qlQuery(Template template, Statement statement, JsonArray positionalParams,
+        N1qlParams params, String clientContextId) {
+        super(statement, positionalParams, params);
+        this.template = template;
+        this.clientContextId = clientContextId;
+    }
+
+    private CompiledN1qlQuery(Template template, Statement statement, JsonObject namedParams,
+        N1qlParams params, String clientContextId) {
+        super(statement, namedParams, params);
+        this.template = template;
+        this.clientContextId = clientContextId;
+    }
+
+    /**
+     * Creates a query sharing this compiled template with the given positional arguments.
+     *
+     * @param positionalParams the values for the positional placeholders of the statement.
+     * @return the bound query.
+     */
+    public CompiledN1qlQuery bind(JsonArray positionalParams) {
+        return new CompiledN1qlQuery(template, statement(), positionalParams, template.params.copy(),
+            clientContextId);
+    }
+
+    /**
+     * Creates a query sharing this compiled template with the given named arguments.
+     *
+     * @param namedParams the values for the named placeholders of the statement.
+     * @return the bound query.
+     * @throws IllegalArgumentException if one of the names is empty.
+     */
+    public CompiledN1qlQuery bind(JsonObject namedParams) {
+        for (String name : namedParams.getNames()) {
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("The name of a named parameter must not be empty.");
+            }
+        }
+        return new CompiledN1qlQuery(template, statement(), namedParams, template.params.copy(), clientContextId);
+    }
+
+    /**
+     * Creates a query sharing this compiled template and arguments with a client context ID only used for
+     * this request, instead of the one of the {@link N1qlParams}.
+     *
+     * @param clientContextId the client context ID for this request.
+     * @return the query with the given client context ID.
+     */
+    public CompiledN1qlQuery withContextId(String clientContextId) {
+        if (isPositional()) {
+            return new CompiledN1qlQuery(template, statement(), (JsonArray) statementParameters(),
+                template.params.copy(), clientContextId);
+        }
+        return new CompiledN1qlQuery(template, statement(), (JsonObject) statementParameters(),
+            template.params.copy(), clientContextId);
+    }
+
+    /**
+     * The client context ID sent with this request, either the one set on this query or the one of
+     * the {@link N1qlParams}.
+     */
+    public String clientContextId() {
+        return clientContextId != null ? clientContextId : params().clientContextId();
+    }
+
+    /**
+     * Renders the request body for the given bucket, reusing the template rendered for it.
+     *
+     * @param bucket the name of the bucket substituted for the bucket placeholder.
+     * @return the encoded request body.
+     */
+    @InterfaceAudience.Private
+    public String render(String bucket) {
+        String prefix = template.prefix(bucket);
+        StringBuilder body = new StringBuilder(prefix.length() + 128).append(prefix);
+        try {
+            if (isPositional()) {
+                JsonArray args = (JsonArray) statementParameters();
+                if (args != null && !args.isEmpty()) {
+                    body.append(",\"args\":").append(JacksonTransformers.MAPPER.writeValueAsString(args));
+                }
+            } else {
+                JsonObject named = (JsonObject) statementParameters();
+                if (named != null) {
+                    for (String key : named.getNames()) {
+                        String name = key.charAt(0) == '$' ? key : '$' + key;
+                        body.append(',')
+                            .append(JacksonTransformers.MAPPER.writeValueAsString(name))
+                            .append(':')
+                            .append(JacksonTransformers.MAPPER.writeValueAsString(named.get(key)));
+                    }
+                }
+            }
+            String timeout = params().serverSideTimeout();
+            if (timeout != null && !template.params.hasServerSideTimeout()) {
+                body.append(",\"timeout\":").append(JacksonTransformers.MAPPER.writeValueAsString(timeout));
+            }
+            String contextId = clientContextId();
+            if (contextId != null) {
+                body.append(",\"client_context_id\":").append(JacksonTransformers.MAPPER.writeValueAsString(contextId));
+            }
+        } catch (JsonProcessingException e) {
+            throw new TranscodingException("Could not encode N1QL query arguments.", e);
+        }
+        return body.append('}').toString();
+    }
+
+    @Override
+    public JsonObject n1ql() {
+        JsonObject query = super.n1ql();
+        if (clientContextId != null) {
+            query.put("client_context_id", clientContextId);
+        }
+        return query;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("CompiledN1qlQuery{");
+        sb.append("statement=").append(statement().toString());
+        if (statementParameters() != null) {
+            sb.append(", params=").append(statementParameters().toString());
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * The part of the request body shared by all queries bound from the same compiled query, rendered from the
+     * params as they were when the query was compiled.
+     */
+    private static class Template implements Serializable {
+
+        private static final long serialVersionUID = 4127839046152312753L;
+
+        private final String statement;
+        private final N1qlParams params;
+        private transient volatile Rendered rendered;
+
+        Template(String statement, N1qlParams params) {
+            this.statement = statement;
+            this.params = params;
+        }
+
+        /**
+         * Returns the rendered body for the bucket, without the closing brace so arguments can be appended.
+         */
+        String prefix(String bucket) {
+            Rendered current = rendered;
+            if (current == null || !current.bucket.equals(bucket)) {
+                JsonObject fixed = JsonObject.create().put("statement",
+                    statement.replace(CouchbaseAsyncBucket.CURRENT_BUCKET_IDENTIFIER, "`" + bucket + "`"));
+                params.injectParams(fixed);
+                fixed.removeKey("client_context_id");
+                String encoded = fixed.toString();
+                current = new Rendered(bucket, encoded.substring(0, encoded.length() - 1));
+                rendered = current;
+            }
+            return current.prefix;
+        }
+    }
+
+    private static class Rendered {
+
+        final String bucket;
+        final String prefix;
+
+        Rendered(String bucket, String prefix) {
+            this.bucket = bucket;
+            this.prefix = prefix;
+        }
+    }
+}
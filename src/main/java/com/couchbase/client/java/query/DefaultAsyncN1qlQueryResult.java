@@ -17,7 +17,12 @@ package com.couchbase.client.java.query;
 
 import com.couchbase.client.core.annotations.InterfaceAudience;
 import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.deps.com.fasterxml.jackson.databind.ObjectReader;
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
 import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.error.TranscodingException;
+import com.couchbase.client.java.transcoder.JacksonTransformers;
+import com.couchbase.client.java.transcoder.TranscoderUtils;
 import rx.Observable;
 import rx.functions.Func1;
 
@@ -31,6 +36,7 @@ import rx.functions.Func1;
 public class DefaultAsyncN1qlQueryResult implements AsyncN1qlQueryResult {
 
     private final Observable<AsyncN1qlQueryRow> rows;
+    private final Observable<ByteBuf> rawRows;
     private final Observable<Object> signature;
     private final Observable<N1qlMetrics> info;
     private final boolean parsingSuccess;
@@ -43,7 +49,21 @@ public class DefaultAsyncN1qlQueryResult implements AsyncN1qlQueryResult {
     public DefaultAsyncN1qlQueryResult(Observable<AsyncN1qlQueryRow> rows, Observable<Object> signature,
                                        Observable<N1qlMetrics> info, Observable<JsonObject> errors, Observable<JsonObject> profileInfo,
                                        Observable<String> finalStatus, boolean parsingSuccess, String requestId, String clientContextId) {
+        this(rows, null, signature, info, errors, profileInfo, finalStatus, parsingSuccess, requestId, clientContextId);
+    }
+
+    /**
+     * Creates a result which can also bind the raw row buffers straight to a target type in {@link #rowsAs(Class)}.
+     *
+     * Both rows and rawRows are expected to be derived from the same single-subscription source.
+     */
+    public DefaultAsyncN1qlQueryResult(Observable<AsyncN1qlQueryRow> rows, Observable<ByteBuf> rawRows,
+                                       Observable<Object> signature, Observable<N1qlMetrics> info,
+                                       Observable<JsonObject> errors, Observable<JsonObject> profileInfo,
+                                       Observable<String> finalStatus, boolean parsingSuccess, String requestId,
+                                       String clientContextId) {
         this.rows = rows;
+        this.rawRows = rawRows;
         this.signature = signature;
         this.info = info;
         this.errors = errors;
@@ -59,6 +79,35 @@ public class DefaultAsyncN1qlQueryResult implements AsyncN1qlQueryResult {
         return rows;
     }
 
+    @Override
+    public <T> Observable<T> rowsAs(final Class<T> target) {
+        final ObjectReader reader = JacksonTransformers.readerFor(target);
+        if (rawRows == null) {
+            return rows.map(new Func1<AsyncN1qlQueryRow, T>() {
+                @Override
+                public T call(AsyncN1qlQueryRow row) {
+                    try {
+                        return reader.readValue(row.byteValue());
+                    } catch (Exception e) {
+                        throw new TranscodingException("Could not decode N1QL Query Row into " + target.getName(), e);
+                    }
+                }
+            });
+        }
+        return rawRows.map(new Func1<ByteBuf, T>() {
+            @Override
+            public T call(ByteBuf byteBuf) {
+                try {
+                    return TranscoderUtils.byteBufToClass(byteBuf, reader);
+                } catch (Exception e) {
+                    throw new TranscodingException("Could not decode N1QL Query Row into " + target.getName(), e);
+                } finally {
+                    byteBuf.release();
+                }
+            }
+        });
+    }
+
     @Override
     public Observable<Object> signature() {
         return signature;
@@ -15,13 +15,17 @@
  */
 package com.couchbase.client.java.query;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
 import com.couchbase.client.core.annotations.InterfaceAudience;
 import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.deps.com.fasterxml.jackson.databind.ObjectReader;
 import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.error.TranscodingException;
+import com.couchbase.client.java.transcoder.JacksonTransformers;
 
 @InterfaceStability.Committed
 @InterfaceAudience.Public
@@ -81,6 +85,20 @@ public class DefaultN1qlQueryResult implements N1qlQueryResult {
         return this.allRows.iterator();
     }
 
+    @Override
+    public <T> List<T> allRowsAs(final Class<T> target) {
+        ObjectReader reader = JacksonTransformers.readerFor(target);
+        List<T> result = new ArrayList<T>(allRows.size());
+        for (N1qlQueryRow row : allRows) {
+            try {
+                result.add(reader.<T>readValue(row.byteValue()));
+            } catch (IOException e) {
+                throw new TranscodingException("Could not decode N1QL Query Row into " + target.getName(), e);
+            }
+        }
+        return result;
+    }
+
     @Override
     public Object signature() {
         return this.signature;
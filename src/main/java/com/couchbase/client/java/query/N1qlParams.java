@@ -73,6 +73,11 @@ public class N1qlParams implements Serializable {
      */
     private boolean adhoc;
 
+    /**
+     * If set, the blocking API streams the rows instead of collecting all of them before returning the result.
+     */
+    private boolean streamRows;
+
     private N1qlParams() {
         adhoc = true;
         disableMetrics = false;
@@ -322,6 +327,25 @@ public class N1qlParams implements Serializable {
         return this;
     }
 
+    /**
+     * Allows to specify if the blocking API should stream the rows instead of collecting them before returning.
+     *
+     * By default the blocking {@link N1qlQueryResult} is only returned once all rows have been received. If set
+     * to true, a {@link StreamingN1qlQueryResult} is returned as soon as the first row arrived, and only the rows
+     * not yet consumed are held in memory. Errors which happen after the first row are then raised while
+     * iterating the rows or when accessing the metadata, and not by the query call itself. This setting is only
+     * considered by the client and has no effect on the asynchronous API.
+     *
+     * @param streamRows true to stream the rows, default is false (collect all rows up front).
+     * @return this {@link N1qlParams} for chaining.
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    public N1qlParams streamRows(boolean streamRows) {
+        this.streamRows = streamRows;
+        return this;
+    }
+
     /**
      * Allows to add a list of credentials (in the form of {@link Credential} objects) to this
      * request. Credentials for usernames that were previously set by a similar call are replaced.
@@ -468,6 +492,38 @@ public class N1qlParams implements Serializable {
         return serverSideTimeout != null;
     }
 
+    /**
+     * The server side timeout in the N1QL duration format, or null if none is set.
+     */
+    /* package */ String serverSideTimeout() {
+        return serverSideTimeout;
+    }
+
+    /**
+     * Creates an independent copy of these params, so that modifying one does not affect the other.
+     */
+    /* package */ N1qlParams copy() {
+        N1qlParams copy = new N1qlParams();
+        copy.serverSideTimeout = serverSideTimeout;
+        copy.consistency = consistency;
+        copy.scanWait = scanWait;
+        copy.clientContextId = clientContextId;
+        copy.maxParallelism = maxParallelism;
+        copy.pipelineCap = pipelineCap;
+        copy.pipelineBatch = pipelineBatch;
+        copy.scanCap = scanCap;
+        copy.disableMetrics = disableMetrics;
+        copy.mutationState = mutationState;
+        copy.rawParams = rawParams == null ? null : new HashMap<String, Object>(rawParams);
+        copy.pretty = pretty;
+        copy.readonly = readonly;
+        copy.profile = profile;
+        copy.credentials.putAll(credentials);
+        copy.adhoc = adhoc;
+        copy.streamRows = streamRows;
+        return copy;
+    }
+
     /**
      * Helper method to check if a client context ID is set.
      */
@@ -484,6 +540,14 @@ public class N1qlParams implements Serializable {
         return adhoc;
     }
 
+    /**
+     * True if the blocking API should stream the rows, false if it collects them before returning the result.
+     */
+    @InterfaceStability.Experimental
+    public boolean isStreamRows() {
+        return streamRows;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -493,6 +557,7 @@ public class N1qlParams implements Serializable {
 
         if (disableMetrics != that.disableMetrics) return false;
         if (adhoc != that.adhoc) return false;
+        if (streamRows != that.streamRows) return false;
         if (pretty != that.pretty) return false;
         if (readonly != that.readonly) return false;
         if (serverSideTimeout != null ? !serverSideTimeout.equals(that.serverSideTimeout) : that.serverSideTimeout != null)
@@ -531,6 +596,7 @@ public class N1qlParams implements Serializable {
         result = 31 * result + credentials.hashCode();
         result = 31 * result + (rawParams != null ? rawParams.hashCode() : 0);
         result = 31 * result + (adhoc ? 1 : 0);
+        result = 31 * result + (streamRows ? 1 : 0);
         result = 31 * result + (pretty ? 1 : 0);
         result = 31 * result + (readonly ? 1 : 0);
         result = 31 * result + (profile != null ? profile.hashCode() : 0);
@@ -549,6 +615,7 @@ public class N1qlParams implements Serializable {
         sb.append(", pipelineCap=").append(pipelineCap);
         sb.append(", pipelineBatch=").append(pipelineBatch);
         sb.append(", adhoc=").append(adhoc);
+        sb.append(", streamRows=").append(streamRows);
         sb.append(", readonly=").append(readonly);
         sb.append(", pretty=").append(pretty);
         sb.append(", disableMetrics=").append(disableMetrics);
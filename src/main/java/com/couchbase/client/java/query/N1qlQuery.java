@@ -409,4 +409,52 @@ public abstract class N1qlQuery implements Serializable {
     public static ParameterizedN1qlQuery parameterized(String statement, JsonObject namedParams, N1qlParams params) {
         return new ParameterizedN1qlQuery(new RawStatement(statement), namedParams, params);
     }
+
+    //== COMPILED ==
+
+    /**
+     * Create a new {@link CompiledN1qlQuery}, whose request body is rendered only once and reused for all queries
+     * {@link CompiledN1qlQuery#bind(JsonArray) bound} from it.
+     *
+     * @param statement the statement to execute (containing optional placeholders).
+     * @since 2.7.24
+     */
+    public static CompiledN1qlQuery compile(Statement statement) {
+        return new CompiledN1qlQuery(statement, null);
+    }
+
+    /**
+     * Create a new {@link CompiledN1qlQuery} with custom {@link N1qlParams}, whose request body is rendered only
+     * once and reused for all queries {@link CompiledN1qlQuery#bind(JsonArray) bound} from it.
+     *
+     * @param statement the statement to execute (containing optional placeholders).
+     * @param params the {@link N1qlParams query parameters}.
+     * @since 2.7.24
+     */
+    public static CompiledN1qlQuery compile(Statement statement, N1qlParams params) {
+        return new CompiledN1qlQuery(statement, params);
+    }
+
+    /**
+     * Create a new {@link CompiledN1qlQuery} from a raw statement, whose request body is rendered only once and
+     * reused for all queries {@link CompiledN1qlQuery#bind(JsonArray) bound} from it.
+     *
+     * @param statement the raw statement to execute (containing optional placeholders).
+     * @since 2.7.24
+     */
+    public static CompiledN1qlQuery compile(String statement) {
+        return compile(new RawStatement(statement), null);
+    }
+
+    /**
+     * Create a new {@link CompiledN1qlQuery} from a raw statement with custom {@link N1qlParams}, whose request
+     * body is rendered only once and reused for all queries {@link CompiledN1qlQuery#bind(JsonArray) bound} from it.
+     *
+     * @param statement the raw statement to execute (containing optional placeholders).
+     * @param params the {@link N1qlParams query parameters}.
+     * @since 2.7.24
+     */
+    public static CompiledN1qlQuery compile(String statement, N1qlParams params) {
+        return compile(new RawStatement(statement), params);
+    }
 }
@@ -45,6 +45,17 @@ public interface N1qlQueryResult extends Iterable<N1qlQueryRow> {
      */
     Iterator<N1qlQueryRow> rows();
 
+    /**
+     * Binds all rows to the given target type, decoding each row straight from its raw bytes without
+     * building an intermediate {@link JsonObject}.
+     *
+     * @param target the type to bind each row to.
+     * @return the list of decoded rows, the results of the query, if successful.
+     * @since 2.7.24
+     */
+    @InterfaceStability.Experimental
+    <T> List<T> allRowsAs(Class<T> target);
+
     /**
      * @return an object representing the signature of the results, that can be used to
      * learn about the common structure of each {@link #rows() row}. This signature is usually a
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.query;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+
+/**
+ * A point-in-time snapshot of the counters of the prepared statement cache used for non-adhoc
+ * {@link N1qlQuery N1qlQueries}.
+ *
+ * All counters are cumulative since the bucket has been opened.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class PreparedStatementCacheStats {
+
+    private final int size;
+    private final int maxSize;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long reprepares;
+    private final long sharedPrepares;
+
+    public PreparedStatementCacheStats(int size, int maxSize, long hits, long misses, long evictions,
+        long reprepares, long sharedPrepares) {
+        this.size = size;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.reprepares = reprepares;
+        this.sharedPrepares = sharedPrepares;
+    }
+
+    /**
+     * The number of prepared statements currently cached.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The number of prepared statements after which entries are evicted.
+     */
+    public int maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * The number of queries which found their prepared statement in the cache.
+     */
+    public long hits() {
+        return hits;
+    }
+
+    /**
+     * The number of queries which did not find their prepared statement in the cache.
+     */
+    public long misses() {
+        return misses;
+    }
+
+    /**
+     * The number of prepared statements evicted because the cache was full.
+     */
+    public long evictions() {
+        return evictions;
+    }
+
+    /**
+     * The number of cached prepared statements rejected by the server and prepared again.
+     */
+    public long reprepares() {
+        return reprepares;
+    }
+
+    /**
+     * The number of misses which joined a PREPARE already in flight for the same statement instead of
+     * issuing their own.
+     */
+    public long sharedPrepares() {
+        return sharedPrepares;
+    }
+
+    /**
+     * The ratio of hits to all lookups, or 0 if there have not been any.
+     */
+    public double hitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "PreparedStatementCacheStats{" +
+            "size=" + size +
+            ", maxSize=" + maxSize +
+            ", hits=" + hits +
+            ", misses=" + misses +
+            ", evictions=" + evictions +
+            ", reprepares=" + reprepares +
+            ", sharedPrepares=" + sharedPrepares +
+            '}';
+    }
+}
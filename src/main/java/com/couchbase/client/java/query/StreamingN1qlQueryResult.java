@@ -0,0 +1,511 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.query;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.deps.com.fasterxml.jackson.databind.ObjectReader;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.error.TranscodingException;
+import com.couchbase.client.java.transcoder.JacksonTransformers;
+import rx.Observable;
+import rx.Subscriber;
+import rx.exceptions.MissingBackpressureException;
+import rx.functions.Func6;
+
+/**
+ * A blocking {@link N1qlQueryResult} which streams its rows instead of collecting them up front.
+ *
+ * Rows are requested from the underlying {@link AsyncN1qlQueryResult} in batches of at most the configured
+ * prefetch size and handed out through {@link #rows()} as they arrive, so a consumer iterating the result
+ * only holds the rows it has not processed yet.
+ *
+ * The metadata of the query (signature, metrics, errors, status...) is only complete once all rows have been
+ * received. Calling any of those accessors (or {@link #allRows()}) drains the remaining rows into memory first;
+ * rows drained that way are still returned by an iterator afterwards. The streaming iterator can only be
+ * obtained once, after {@link #allRows()} has been called every iterator walks the collected list.
+ *
+ * Since the core does not yet honor the requested demand, rows which arrive faster than they are consumed are
+ * buffered up to the configured limit. Once that limit is exceeded the stream fails with a
+ * {@link MissingBackpressureException}. Every wait for a row or for the metadata is bounded by the query
+ * timeout, after which a {@link TimeoutException} nested in a {@link RuntimeException} is thrown.
+ *
+ * A result which is not consumed to the end should be {@link #close() closed} to stop receiving rows. If it is
+ * abandoned without that, it unsubscribes itself as soon as it has been garbage collected and the next row
+ * arrives.
+ *
+ * This class is not thread safe and is meant to be consumed by a single thread, like an {@link Iterator}.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class StreamingN1qlQueryResult implements N1qlQueryResult, Closeable {
+
+    private static final Object COMPLETED = new Object();
+
+    private final RowSubscriber rowSubscriber;
+    private final MetadataSubscriber metadataSubscriber;
+    private final boolean parseSuccess;
+    private final String requestId;
+    private final String clientContextId;
+    private final long deadlineNanos;
+
+    /**
+     * Rows which have been taken out of the subscriber queue but not been handed out yet.
+     */
+    private final Deque<N1qlQueryRow> drained;
+    private List<N1qlQueryRow> allRows;
+    private boolean streamingIteratorCreated;
+    private boolean rowsDone;
+
+    /**
+     * Creates a streaming result and immediately subscribes to the rows and metadata of the async result.
+     *
+     * @param aqr the async result to stream.
+     * @param prefetch the maximum number of rows requested ahead of the consumer.
+     * @param bufferLimit the maximum number of rows buffered ahead of the consumer before the stream fails.
+     * @param timeout the query timeout, which bounds the time spent waiting for rows and metadata.
+     * @param timeUnit the unit of the timeout.
+     */
+    public StreamingN1qlQueryResult(final AsyncN1qlQueryResult aqr, final int prefetch, final int bufferLimit,
+        final long timeout, final TimeUnit timeUnit) {
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("Prefetch must be at least 1, was " + prefetch);
+        }
+        if (bufferLimit < prefetch) {
+            throw new IllegalArgumentException("Buffer limit must be at least the prefetch of " + prefetch
+                + ", was " + bufferLimit);
+        }
+        this.deadlineNanos = System.nanoTime() + timeUnit.toNanos(timeout);
+        this.parseSuccess = aqr.parseSuccess();
+        this.requestId = aqr.requestId();
+        this.clientContextId = aqr.clientContextId();
+        this.drained = new ArrayDeque<N1qlQueryRow>();
+
+        this.metadataSubscriber = new MetadataSubscriber();
+        Observable.zip(
+            aqr.signature().singleOrDefault(JsonObject.empty()),
+            aqr.info().singleOrDefault(N1qlMetrics.EMPTY_METRICS),
+            aqr.errors().toList(),
+            aqr.profileInfo().singleOrDefault(JsonObject.empty()),
+            aqr.status(),
+            aqr.finalSuccess().singleOrDefault(Boolean.FALSE),
+            new Func6<Object, N1qlMetrics, List<JsonObject>, JsonObject, String, Boolean, Metadata>() {
+                @Override
+                public Metadata call(Object signature, N1qlMetrics info, List<JsonObject> errors,
+                    JsonObject profileInfo, String status, Boolean finalSuccess) {
+                    return new Metadata(signature, info, errors, profileInfo, status,
+                        finalSuccess != null && finalSuccess);
+                }
+            }
+        ).subscribe(metadataSubscriber);
+
+        this.rowSubscriber = new RowSubscriber(this, prefetch, bufferLimit);
+        aqr.rows().subscribe(rowSubscriber);
+    }
+
+    /**
+     * Blocks until the first row has arrived, or until the query completed if it has no rows at all.
+     *
+     * This is called by the blocking API before the result is returned, so that errors which fail the query
+     * before any row is received are thrown by the query call itself, like they are for the eager result.
+     *
+     * @return this result, for chaining.
+     */
+    @InterfaceAudience.Private
+    public StreamingN1qlQueryResult awaitFirstRow() {
+        if (drained.isEmpty() && !rowsDone) {
+            N1qlQueryRow row = take();
+            if (row == null) {
+                metadata();
+            } else {
+                drained.add(row);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Stops receiving rows and metadata for this result. Rows which have already been buffered can still be
+     * iterated, but the metadata accessors fail if it has not been received yet.
+     */
+    @Override
+    public void close() {
+        rowSubscriber.unsubscribe();
+        metadataSubscriber.unsubscribe();
+        rowSubscriber.offerTerminal(new IllegalStateException("The result has been closed."));
+        metadataSubscriber.onError(new IllegalStateException("The result has been closed."));
+    }
+
+    @Override
+    public List<N1qlQueryRow> allRows() {
+        if (allRows == null) {
+            if (streamingIteratorCreated) {
+                throw new IllegalStateException("The rows of this result are already being streamed, "
+                    + "allRows() must be called before iterating.");
+            }
+            drainRows();
+            allRows = new ArrayList<N1qlQueryRow>(drained);
+            drained.clear();
+        }
+        return allRows;
+    }
+
+    @Override
+    public Iterator<N1qlQueryRow> rows() {
+        if (allRows != null) {
+            return allRows.iterator();
+        }
+        if (streamingIteratorCreated) {
+            throw new IllegalStateException("The rows of this result can only be streamed once, "
+                + "use allRows() to iterate them multiple times.");
+        }
+        streamingIteratorCreated = true;
+        return new StreamingIterator();
+    }
+
+    @Override
+    public Iterator<N1qlQueryRow> iterator() {
+        return rows();
+    }
+
+    @Override
+    public <T> List<T> allRowsAs(final Class<T> target) {
+        ObjectReader reader = JacksonTransformers.readerFor(target);
+        List<N1qlQueryRow> rows = allRows();
+        List<T> result = new ArrayList<T>(rows.size());
+        for (N1qlQueryRow row : rows) {
+            try {
+                result.add(reader.<T>readValue(row.byteValue()));
+            } catch (IOException e) {
+                throw new TranscodingException("Could not decode N1QL Query Row into " + target.getName(), e);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Object signature() {
+        return metadata().signature;
+    }
+
+    @Override
+    public N1qlMetrics info() {
+        return metadata().info;
+    }
+
+    @Override
+    public JsonObject profileInfo() {
+        return metadata().profileInfo;
+    }
+
+    @Override
+    public boolean parseSuccess() {
+        return parseSuccess;
+    }
+
+    @Override
+    public List<JsonObject> errors() {
+        return metadata().errors;
+    }
+
+    @Override
+    public boolean finalSuccess() {
+        return metadata().finalSuccess;
+    }
+
+    @Override
+    public String status() {
+        return metadata().status;
+    }
+
+    @Override
+    public String requestId() {
+        return requestId;
+    }
+
+    @Override
+    public String clientContextId() {
+        return clientContextId;
+    }
+
+    /**
+     * Returns the next row, either one drained earlier or the next one from the stream, or null at the end.
+     */
+    private N1qlQueryRow nextRow() {
+        if (!drained.isEmpty()) {
+            return drained.poll();
+        }
+        if (rowsDone) {
+            return null;
+        }
+        N1qlQueryRow row = take();
+        if (row == null) {
+            rowsDone = true;
+        }
+        return row;
+    }
+
+    private N1qlQueryRow take() {
+        try {
+            return rowSubscriber.take(deadlineNanos);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Moves all rows which are still in flight into memory, so that the metadata can complete.
+     */
+    private void drainRows() {
+        while (!rowsDone) {
+            N1qlQueryRow row = take();
+            if (row == null) {
+                rowsDone = true;
+            } else {
+                drained.add(row);
+            }
+        }
+    }
+
+    private Metadata metadata() {
+        drainRows();
+        try {
+            return metadataSubscriber.await(deadlineNanos);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StreamingN1qlQueryResult{" +
+                "parseSuccess=" + parseSuccess +
+                ", streaming=" + (allRows == null) +
+                ", requestId='" + requestId + '\'' +
+                ", clientContextId='" + clientContextId + '\'' +
+                '}';
+    }
+
+    private static RuntimeException propagate(final Throwable error) {
+        if (error instanceof RuntimeException) {
+            return (RuntimeException) error;
+        }
+        return new RuntimeException(error);
+    }
+
+    private class StreamingIterator implements Iterator<N1qlQueryRow> {
+
+        private N1qlQueryRow next;
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = nextRow();
+            }
+            return next != null;
+        }
+
+        @Override
+        public N1qlQueryRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            N1qlQueryRow row = next;
+            next = null;
+            return row;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove");
+        }
+    }
+
+    /**
+     * Subscribes to the rows with a bounded demand and replenishes it as the consumer takes rows out.
+     *
+     * Only a weak reference to the result is kept, so that a result abandoned by its consumer stops the
+     * subscription once it has been garbage collected.
+     */
+    private static class RowSubscriber extends Subscriber<AsyncN1qlQueryRow> {
+
+        private final BlockingQueue<Object> queue = new LinkedBlockingQueue<Object>();
+        private final WeakReference<StreamingN1qlQueryResult> owner;
+        private final int prefetch;
+        private final int bufferLimit;
+        private final int replenishThreshold;
+        private int consumedSinceRequest;
+        private volatile boolean terminated;
+
+        RowSubscriber(final StreamingN1qlQueryResult owner, final int prefetch, final int bufferLimit) {
+            this.owner = new WeakReference<StreamingN1qlQueryResult>(owner);
+            this.prefetch = prefetch;
+            this.bufferLimit = bufferLimit;
+            this.replenishThreshold = Math.max(1, prefetch / 2);
+        }
+
+        @Override
+        public void onStart() {
+            request(prefetch);
+        }
+
+        @Override
+        public void onNext(final AsyncN1qlQueryRow row) {
+            if (terminated) {
+                return;
+            }
+            if (owner.get() == null) {
+                unsubscribe();
+                terminated = true;
+                queue.clear();
+            } else if (queue.size() >= bufferLimit) {
+                unsubscribe();
+                offerTerminal(new MissingBackpressureException("More than " + bufferLimit + " N1QL rows "
+                    + "have been buffered ahead of the consumer."));
+            } else {
+                queue.offer(row);
+            }
+        }
+
+        @Override
+        public void onCompleted() {
+            offerTerminal(COMPLETED);
+        }
+
+        @Override
+        public void onError(final Throwable e) {
+            offerTerminal(e);
+        }
+
+        /**
+         * Enqueues the terminal event, unless the stream already terminated.
+         */
+        synchronized void offerTerminal(final Object terminal) {
+            if (!terminated) {
+                terminated = true;
+                queue.offer(terminal);
+            }
+        }
+
+        /**
+         * Blocks until the next row is available, returns null once the stream completed.
+         */
+        N1qlQueryRow take(final long deadlineNanos) {
+            Object item;
+            try {
+                item = queue.poll(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for N1QL rows.", e);
+            }
+
+            if (item == null) {
+                throw new RuntimeException(new TimeoutException());
+            } else if (item == COMPLETED) {
+                queue.offer(COMPLETED);
+                return null;
+            } else if (item instanceof Throwable) {
+                queue.offer(item);
+                throw propagate((Throwable) item);
+            }
+
+            if (++consumedSinceRequest >= replenishThreshold) {
+                request(consumedSinceRequest);
+                consumedSinceRequest = 0;
+            }
+            return new DefaultN1qlQueryRow((AsyncN1qlQueryRow) item);
+        }
+    }
+
+    private static class MetadataSubscriber extends Subscriber<Metadata> {
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile Metadata metadata;
+        private volatile Throwable error;
+
+        @Override
+        public void onNext(final Metadata metadata) {
+            this.metadata = metadata;
+        }
+
+        @Override
+        public void onCompleted() {
+            latch.countDown();
+        }
+
+        @Override
+        public void onError(final Throwable e) {
+            if (latch.getCount() > 0) {
+                this.error = e;
+                latch.countDown();
+            }
+        }
+
+        Metadata await(final long deadlineNanos) {
+            try {
+                if (!latch.await(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    throw new RuntimeException(new TimeoutException());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for N1QL metadata.", e);
+            }
+            if (error != null) {
+                throw propagate(error);
+            }
+            return metadata;
+        }
+    }
+
+    private static class Metadata {
+
+        final Object signature;
+        final N1qlMetrics info;
+        final List<JsonObject> errors;
+        final JsonObject profileInfo;
+        final String status;
+        final boolean finalSuccess;
+
+        Metadata(Object signature, N1qlMetrics info, List<JsonObject> errors, JsonObject profileInfo,
+            String status, boolean finalSuccess) {
+            this.signature = signature;
+            this.info = info;
+            this.errors = errors;
+            this.profileInfo = profileInfo;
+            this.status = status;
+            this.finalSuccess = finalSuccess;
+        }
+    }
+}
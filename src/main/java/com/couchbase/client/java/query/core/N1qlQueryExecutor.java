@@ -41,6 +41,7 @@ import com.couchbase.client.java.error.QueryExecutionException;
 import com.couchbase.client.java.error.TranscodingException;
 import com.couchbase.client.java.query.AsyncN1qlQueryResult;
 import com.couchbase.client.java.query.AsyncN1qlQueryRow;
+import com.couchbase.client.java.query.CompiledN1qlQuery;
 import com.couchbase.client.java.query.DefaultAsyncN1qlQueryResult;
 import com.couchbase.client.java.query.DefaultAsyncN1qlQueryRow;
 import com.couchbase.client.java.query.DefaultN1qlQueryResult;
@@ -51,10 +52,13 @@ import com.couchbase.client.java.query.ParameterizedN1qlQuery;
 import com.couchbase.client.java.query.PrepareStatement;
 import com.couchbase.client.java.query.PreparedN1qlQuery;
 import com.couchbase.client.java.query.PreparedPayload;
+import com.couchbase.client.java.query.PreparedStatementCacheStats;
 import com.couchbase.client.java.query.SimpleN1qlQuery;
 import com.couchbase.client.java.query.Statement;
+import com.couchbase.client.java.query.StreamingN1qlQueryResult;
 import com.couchbase.client.java.transcoder.TranscoderUtils;
 import com.couchbase.client.java.util.LRUCache;
+import com.couchbase.client.java.util.SystemProperties;
 import io.opentracing.tag.Tags;
 import rx.Observable;
 import rx.Subscriber;
@@ -72,6 +76,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 import static com.couchbase.client.java.CouchbaseAsyncBucket.JSON_OBJECT_TRANSCODER;
 import static com.couchbase.client.java.bucket.api.Utils.applyTimeout;
@@ -90,9 +95,11 @@ public class N1qlQueryExecutor {
     private static final CouchbaseLogger LOGGER = CouchbaseLoggerFactory.getInstance(N1qlQueryExecutor.class);
 
     /**
-     * The maximum number of cached queries after which the eldest will be evicted.
+     * The maximum number of cached queries after which the least used will be evicted.
      */
-    private static final int QUERY_CACHE_SIZE = 5000;
+    private static final int QUERY_CACHE_SIZE = SystemProperties.intProperty("com.couchbase.query.preparedCacheSize", 5000, 1);
+
+    private static final Pattern CURRENT_BUCKET_PATTERN = Pattern.compile(CouchbaseAsyncBucket.CURRENT_BUCKET_IDENTIFIER);
 
     private static final String ERROR_FIELD_CODE = "code";
     private static final String ERROR_FIELD_MSG = "msg";
@@ -100,11 +107,22 @@ public class N1qlQueryExecutor {
 
     public static final java.lang.String ENCODED_PLAN_ENABLED_PROPERTY = "com.couchbase.query.encodedPlanEnabled";
 
+    /**
+     * The maximum number of rows a streaming blocking result requests ahead of its consumer.
+     */
+    public static final int STREAMING_ROW_PREFETCH = SystemProperties.intProperty("com.couchbase.query.rowPrefetch", 256, 1);
+
+    /**
+     * The maximum number of rows a streaming blocking result buffers ahead of its consumer before it fails.
+     */
+    public static final int STREAMING_ROW_BUFFER_LIMIT = Math.max(STREAMING_ROW_PREFETCH,
+        SystemProperties.intProperty("com.couchbase.query.rowBufferLimit", 65536, 1));
+
     private final ClusterFacade core;
     private final String bucket;
     private final String username;
     private final String password;
-    private final Map<String, PreparedPayload> queryCache;
+    private final PreparedStatementCache queryCache;
     private final boolean encodedPlanEnabled;
 
     /**
@@ -117,7 +135,7 @@ public class N1qlQueryExecutor {
      * @param password the password for the bucket.
      */
     public N1qlQueryExecutor(ClusterFacade core, String bucket, String username, String password) {
-        this(core, bucket, username, password, new LRUCache<String, PreparedPayload>(QUERY_CACHE_SIZE), true);
+        this(core, bucket, username, password, new PreparedStatementCache(QUERY_CACHE_SIZE), true);
     }
 
     /**
@@ -129,7 +147,7 @@ public class N1qlQueryExecutor {
      * @param password the password for the bucket.
      */
     public N1qlQueryExecutor(ClusterFacade core, String bucket, String password) {
-        this(core, bucket, bucket, password, new LRUCache<String, PreparedPayload>(QUERY_CACHE_SIZE), true);
+        this(core, bucket, bucket, password, new PreparedStatementCache(QUERY_CACHE_SIZE), true);
     }
 
     /**
@@ -142,7 +160,7 @@ public class N1qlQueryExecutor {
      * @param encodedPlanEnabled true to include an encoded plan when running prepared queries, false otherwise.
      */
     public N1qlQueryExecutor(ClusterFacade core, String bucket, String password, boolean encodedPlanEnabled) {
-        this(core, bucket, bucket, password, new LRUCache<String, PreparedPayload>(QUERY_CACHE_SIZE), encodedPlanEnabled);
+        this(core, bucket, bucket, password, new PreparedStatementCache(QUERY_CACHE_SIZE), encodedPlanEnabled);
     }
 
     /**
@@ -156,21 +174,34 @@ public class N1qlQueryExecutor {
      * @param encodedPlanEnabled true to include an encoded plan when running prepared queries, false otherwise.
      */
     public N1qlQueryExecutor(ClusterFacade core, String bucket, String username, String password, boolean encodedPlanEnabled) {
-        this(core, bucket, username, password, new LRUCache<String, PreparedPayload>(QUERY_CACHE_SIZE), encodedPlanEnabled);
+        this(core, bucket, username, password, new PreparedStatementCache(QUERY_CACHE_SIZE), encodedPlanEnabled);
     }
 
     /**
      * This constructor is for testing purpose, prefer using {@link #N1qlQueryExecutor(ClusterFacade, String, String, String)}.
+     *
+     * @deprecated the given {@link LRUCache} is still used to store the prepared statements, but it is locked on
+     *   every access and does not record any {@link PreparedStatementCacheStats}. Use the constructor taking a
+     *   {@link PreparedStatementCache} instead.
      */
+    @Deprecated
     protected N1qlQueryExecutor(ClusterFacade core, String bucket, String username, String password,
             LRUCache<String, PreparedPayload> lruCache, boolean encodedPlanEnabled) {
+        this(core, bucket, username, password, new LruPreparedStatementCache(lruCache), encodedPlanEnabled);
+    }
+
+    /**
+     * This constructor is for testing purpose, prefer using {@link #N1qlQueryExecutor(ClusterFacade, String, String, String)}.
+     */
+    protected N1qlQueryExecutor(ClusterFacade core, String bucket, String username, String password,
+            PreparedStatementCache queryCache, boolean encodedPlanEnabled) {
         this.core = core;
         this.bucket = bucket;
         this.username = username;
         this.password = password;
         this.encodedPlanEnabled = encodedPlanEnabled;
 
-        queryCache = Collections.synchronizedMap(lruCache);
+        this.queryCache = queryCache;
     }
 
     public Observable<AsyncN1qlQueryResult> execute(final N1qlQuery query, CouchbaseEnvironment env, long timeout, TimeUnit timeUnit) {
@@ -283,8 +314,8 @@ public class N1qlQueryExecutor {
                 String contextId = response.clientRequestId() == null ? "" : response.clientRequestId();
                 String requestId = response.requestId();
 
-                AsyncN1qlQueryResult r = new DefaultAsyncN1qlQueryResult(rows, signature, info, errors, profileInfo,
-                        finalStatus, parseSuccess, requestId, contextId);
+                AsyncN1qlQueryResult r = new DefaultAsyncN1qlQueryResult(rows, response.rows(), signature, info, errors,
+                        profileInfo, finalStatus, parseSuccess, requestId, contextId);
                 return Observable.just(r);
             }
         });
@@ -384,21 +415,32 @@ public class N1qlQueryExecutor {
     protected Observable<AsyncN1qlQueryResult> retryPrepareAndExecuteOnce(Throwable error, N1qlQuery query, CouchbaseEnvironment env, long timeout, TimeUnit timeUnit) {
         if (error instanceof QueryExecutionException &&
                 shouldRetry(((QueryExecutionException) error).getN1qlError())) {
-            queryCache.remove(query.statement().toString());
+            queryCache.invalidate(query.statement().toString());
             return prepareAndExecute(query, env, timeout, timeUnit);
         }
         return Observable.error(error);
     }
 
     /**
-     * Issues a N1QL PREPARE, puts the plan in cache then EXECUTE it.
+     * Issues a N1QL PREPARE (or joins the one already in flight for the same statement), puts the plan in
+     * cache then EXECUTE it.
+     *
+     * The PREPARE only carries the statement and none of the {@link com.couchbase.client.java.query.N1qlParams} of the query, so the plan is the
+     * same no matter which caller issued it. Each caller applies its own parameters and timeout to its EXECUTE,
+     * but a caller joining a PREPARE in flight waits for it as issued by the first caller, and unsubscribing from
+     * the result does not cancel the shared PREPARE.
      */
     protected Observable<AsyncN1qlQueryResult> prepareAndExecute(final N1qlQuery query, final CouchbaseEnvironment env, final long timeout, final TimeUnit timeUnit) {
-        return prepare(query.statement())
+        Observable<PreparedPayload> prepare = Observable.defer(new Func0<Observable<PreparedPayload>>() {
+            @Override
+            public Observable<PreparedPayload> call() {
+                return prepare(query.statement());
+            }
+        });
+        return queryCache.prepareOnce(query.statement().toString(), prepare)
                 .flatMap(new Func1<PreparedPayload, Observable<AsyncN1qlQueryResult>>() {
                     @Override
                     public Observable<AsyncN1qlQueryResult> call(PreparedPayload payload) {
-                        queryCache.put(query.statement().toString(), payload);
                         return executePrepared(query, payload, env, timeout, timeUnit);
                     }
                 });
@@ -567,18 +609,26 @@ public class N1qlQueryExecutor {
      */
     private GenericQueryRequest createN1qlRequest(final N1qlQuery query, String bucket, String username, String password,
             String targetNode) {
-        String rawQuery = query.n1ql().toString();
-        rawQuery = rawQuery.replaceAll(
-          CouchbaseAsyncBucket.CURRENT_BUCKET_IDENTIFIER,
-          "`" + bucket + "`"
-        );
+        String rawQuery;
+        String contextId;
+        if (query instanceof CompiledN1qlQuery) {
+            CompiledN1qlQuery compiled = (CompiledN1qlQuery) query;
+            rawQuery = compiled.render(bucket);
+            contextId = compiled.clientContextId();
+        } else {
+            rawQuery = query.n1ql().toString();
+            if (rawQuery.contains(CouchbaseAsyncBucket.CURRENT_BUCKET_IDENTIFIER)) {
+                rawQuery = CURRENT_BUCKET_PATTERN.matcher(rawQuery).replaceAll("`" + bucket + "`");
+            }
+            contextId = query.params().clientContextId();
+        }
         String statement = query.statement().toString();
         if (targetNode != null) {
             return GenericQueryRequest.jsonQuery(rawQuery, bucket, username, password, targetNode,
-                query.params().clientContextId(), statement);
+                contextId, statement);
         } else {
             return GenericQueryRequest.jsonQuery(rawQuery, bucket, username, password,
-                query.params().clientContextId(), statement);
+                contextId, statement);
         }
     }
 
@@ -597,9 +647,14 @@ public class N1qlQueryExecutor {
      * Invalidates and clears the query cache.
      */
     public int invalidateQueryCache() {
-        int oldSize = queryCache.size();
-        queryCache.clear();
-        return oldSize;
+        return queryCache.clear();
+    }
+
+    /**
+     * @return a snapshot of the counters of the prepared statement cache.
+     */
+    public PreparedStatementCacheStats queryCacheStats() {
+        return queryCache.stats();
     }
 
     /**
@@ -609,6 +664,22 @@ public class N1qlQueryExecutor {
         return this.encodedPlanEnabled;
     }
 
+    /**
+     * Returns a function that can be used in a map to convert an {@link AsyncN1qlQueryResult} to a
+     * {@link StreamingN1qlQueryResult}, which streams its rows to the caller and waits for them at most
+     * the given query timeout.
+     */
+    public static Func1<AsyncN1qlQueryResult, StreamingN1qlQueryResult> asyncResultToStreaming(final long timeout,
+        final TimeUnit timeUnit) {
+        return new Func1<AsyncN1qlQueryResult, StreamingN1qlQueryResult>() {
+            @Override
+            public StreamingN1qlQueryResult call(AsyncN1qlQueryResult aqr) {
+                return new StreamingN1qlQueryResult(aqr, STREAMING_ROW_PREFETCH, STREAMING_ROW_BUFFER_LIMIT,
+                    timeout, timeUnit);
+            }
+        };
+    }
+
     /**
      * A function that can be used in a flatMap to convert an {@link AsyncN1qlQueryResult} to a {@link N1qlQueryResult}.
      */
@@ -637,4 +708,47 @@ public class N1qlQueryExecutor {
         }
     };
 
+
+    /**
+     * Adapts an {@link LRUCache} passed to the deprecated constructor, keeping it as the store of the
+     * prepared statements.
+     */
+    private static class LruPreparedStatementCache extends PreparedStatementCache {
+
+        private final Map<String, PreparedPayload> cache;
+
+        LruPreparedStatementCache(final LRUCache<String, PreparedPayload> lruCache) {
+            super(Integer.MAX_VALUE);
+            this.cache = Collections.synchronizedMap(lruCache);
+        }
+
+        @Override
+        public PreparedPayload get(final String statement) {
+            return cache.get(statement);
+        }
+
+        @Override
+        public void put(final String statement, final PreparedPayload payload) {
+            cache.put(statement, payload);
+        }
+
+        @Override
+        public boolean remove(final String statement) {
+            return cache.remove(statement) != null;
+        }
+
+        @Override
+        public int clear() {
+            synchronized (cache) {
+                int removed = cache.size();
+                cache.clear();
+                return removed;
+            }
+        }
+
+        @Override
+        public int size() {
+            return cache.size();
+        }
+    }
 }
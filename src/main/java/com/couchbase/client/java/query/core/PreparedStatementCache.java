@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.query.core;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.java.query.PreparedPayload;
+import com.couchbase.client.java.query.PreparedStatementCacheStats;
+import rx.Observable;
+import rx.functions.Action1;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrent, bounded cache of {@link PreparedPayload prepared statements}, keyed by the statement.
+ *
+ * Lookups are lock-free: they only read from a {@link ConcurrentHashMap} and bump a small per-entry
+ * frequency counter. Once the cache grows beyond its maximum size, the inserting thread runs a CLOCK sweep over
+ * the entries in insertion order: entries which have been used since the last sweep get their frequency halved
+ * and a second chance, the first one without recent use is evicted. Frequently executed statements therefore
+ * survive bursts of one-off statements. Only one thread sweeps at a time, others skip eviction, so the cache can
+ * briefly exceed its size by the number of concurrent inserts.
+ *
+ * In addition, {@link #prepareOnce(String, Observable)} lets concurrent misses on the same statement share a
+ * single PREPARE in flight.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Uncommitted
+@InterfaceAudience.Private
+public class PreparedStatementCache {
+
+    /**
+     * The maximum frequency an entry can accumulate, which bounds the number of sweeps it survives unused.
+     */
+    private static final int MAX_FREQUENCY = 15;
+
+    private final int maxSize;
+    private final ConcurrentMap<String, Entry> entries;
+    private final ConcurrentLinkedQueue<Entry> clock;
+    private final ConcurrentMap<String, Observable<PreparedPayload>> inFlight;
+    private final ReentrantLock sweepLock;
+    private final AtomicInteger size;
+    private final AtomicInteger stale;
+
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+    private final AtomicLong reprepares;
+    private final AtomicLong sharedPrepares;
+
+    public PreparedStatementCache(final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The maximum size must be at least 1, was " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.entries = new ConcurrentHashMap<String, Entry>(Math.min(maxSize, 1024));
+        this.clock = new ConcurrentLinkedQueue<Entry>();
+        this.inFlight = new ConcurrentHashMap<String, Observable<PreparedPayload>>();
+        this.sweepLock = new ReentrantLock();
+        this.size = new AtomicInteger();
+        this.stale = new AtomicInteger();
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.evictions = new AtomicLong();
+        this.reprepares = new AtomicLong();
+        this.sharedPrepares = new AtomicLong();
+    }
+
+    /**
+     * Returns the prepared statement for the given statement and records a hit, or records a miss and
+     * returns null if it is not cached.
+     */
+    public PreparedPayload get(final String statement) {
+        Entry entry = entries.get(statement);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        entry.touch();
+        return entry.payload;
+    }
+
+    /**
+     * Caches the prepared statement, replacing a previous one for the same statement.
+     */
+    public void put(final String statement, final PreparedPayload payload) {
+        Entry fresh = new Entry(statement, payload);
+        Entry existing = entries.putIfAbsent(statement, fresh);
+        if (existing != null) {
+            existing.payload = payload;
+            existing.touch();
+            return;
+        }
+
+        clock.offer(fresh);
+        if (size.incrementAndGet() > maxSize) {
+            sweep();
+        }
+    }
+
+    /**
+     * Removes the prepared statement for the given statement, if cached.
+     *
+     * @return true if it was cached.
+     */
+    public boolean remove(final String statement) {
+        Entry entry = entries.remove(statement);
+        if (entry == null) {
+            return false;
+        }
+        entry.removed = true;
+        size.decrementAndGet();
+        if (stale.incrementAndGet() > maxSize) {
+            purgeStale();
+        }
+        return true;
+    }
+
+    /**
+     * Removes a prepared statement which has been rejected by the server so that it is prepared again.
+     */
+    public void invalidate(final String statement) {
+        reprepares.incrementAndGet();
+        remove(statement);
+    }
+
+    /**
+     * Removes all prepared statements.
+     *
+     * @return the number of removed statements.
+     */
+    public int clear() {
+        int removed = 0;
+        for (String statement : entries.keySet()) {
+            if (remove(statement)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the shared PREPARE for the statement if one is already in flight, otherwise registers the given
+     * one. Once it emits, the prepared statement is cached and the PREPARE is no longer shared, so that later
+     * misses (like a re-prepare after the server rejected the plan) issue a new one.
+     *
+     * Concurrent callers all get the PREPARE registered by the first one, so it must not depend on anything
+     * but the statement (like the timeout or other options of an individual query).
+     *
+     * @param statement the statement to prepare.
+     * @param prepare the (deferred) PREPARE to run if none is in flight.
+     * @return the PREPARE to subscribe to, shared by all concurrent callers.
+     */
+    public Observable<PreparedPayload> prepareOnce(final String statement, final Observable<PreparedPayload> prepare) {
+        Observable<PreparedPayload> shared = inFlight.get(statement);
+        if (shared != null) {
+            sharedPrepares.incrementAndGet();
+            return shared;
+        }
+
+        final AtomicReference<Observable<PreparedPayload>> registered = new AtomicReference<Observable<PreparedPayload>>();
+        Observable<PreparedPayload> candidate = prepare
+            .doOnNext(new Action1<PreparedPayload>() {
+                @Override
+                public void call(PreparedPayload payload) {
+                    put(statement, payload);
+                    inFlight.remove(statement, registered.get());
+                }
+            })
+            .doOnError(new Action1<Throwable>() {
+                @Override
+                public void call(Throwable throwable) {
+                    inFlight.remove(statement, registered.get());
+                }
+            })
+            .cache();
+        registered.set(candidate);
+
+        shared = inFlight.putIfAbsent(statement, candidate);
+        if (shared != null) {
+            sharedPrepares.incrementAndGet();
+            return shared;
+        }
+        return candidate;
+    }
+
+    /**
+     * The number of prepared statements currently cached.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * The number of prepared statements after which entries are evicted.
+     */
+    public int maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns a snapshot of the cache counters.
+     */
+    public PreparedStatementCacheStats stats() {
+        return new PreparedStatementCacheStats(size.get(), maxSize, hits.get(), misses.get(), evictions.get(),
+            reprepares.get(), sharedPrepares.get());
+    }
+
+    /**
+     * Runs the CLOCK sweep until the cache is back within its size, unless another thread already sweeps.
+     */
+    private void sweep() {
+        if (!sweepLock.tryLock()) {
+            return;
+        }
+        try {
+            while (size.get() > maxSize) {
+                Entry candidate = clock.poll();
+                if (candidate == null) {
+                    break;
+                }
+                if (candidate.removed) {
+                    stale.decrementAndGet();
+                    continue;
+                }
+                int frequency = candidate.frequency;
+                if (frequency > 0) {
+                    candidate.frequency = frequency >> 1;
+                    clock.offer(candidate);
+                } else if (entries.remove(candidate.statement, candidate)) {
+                    candidate.removed = true;
+                    size.decrementAndGet();
+                    evictions.incrementAndGet();
+                }
+            }
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    /**
+     * Drops the clock slots of removed entries, so that repeated remove/put cycles do not grow the clock.
+     */
+    private void purgeStale() {
+        if (!sweepLock.tryLock()) {
+            return;
+        }
+        try {
+            Iterator<Entry> iterator = clock.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().removed) {
+                    iterator.remove();
+                    stale.decrementAndGet();
+                }
+            }
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PreparedStatementCache{" + stats() + '}';
+    }
+
+    private static class Entry {
+
+        final String statement;
+        volatile PreparedPayload payload;
+        volatile int frequency;
+        volatile boolean removed;
+
+        Entry(final String statement, final PreparedPayload payload) {
+            this.statement = statement;
+            this.payload = payload;
+        }
+
+        /**
+         * Racy on purpose, a lost increment only makes the entry look slightly less popular.
+         */
+        void touch() {
+            int current = frequency;
+            if (current < MAX_FREQUENCY) {
+                frequency = current + 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.transcoder;
+
+import java.io.Externalizable;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+
+/**
+ * The classes which the {@link CompactSerializableTranscoder} encodes with a numeric id instead of their name.
+ *
+ * A registered class is encoded as its id followed by the values of its non-static, non-transient fields, in the
+ * order of the class hierarchy from the top and by name within each class. Enums are encoded as their id and
+ * ordinal. Since only a fingerprint of the field layout is part of the encoded documents, the same ids must be
+ * registered for the same classes on all clients, and changing the fields of a registered class (or the constants
+ * of an enum) makes the documents written before unreadable: they are rejected when read. Register a changed class
+ * with a new id instead.
+ *
+ * Registered classes which are not enums need a constructor without arguments, which does not have to be public.
+ * Classes which customize their Java serialization (with {@code writeObject}, {@code readResolve} and the like),
+ * collections, maps and classes with fields of collection types which can not be created (like an
+ * {@link java.util.EnumSet}) can not be registered.
+ *
+ * ```
+ * CompactClassRegistry registry = CompactClassRegistry.create()
+ *     .register(1, Airline.class)
+ *     .register(2, Route.class);
+ * ```
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class CompactClassRegistry {
+
+    private final ConcurrentMap<Class<?>, Layout> byType;
+    private final ConcurrentMap<Integer, Layout> byId;
+
+    private CompactClassRegistry() {
+        this.byType = new ConcurrentHashMap<Class<?>, Layout>();
+        this.byId = new ConcurrentHashMap<Integer, Layout>();
+    }
+
+    /**
+     * Creates an empty registry.
+     */
+    public static CompactClassRegistry create() {
+        return new CompactClassRegistry();
+    }
+
+    /**
+     * Registers a class under the given id.
+     *
+     * @param id the id the class is encoded with, must not be negative.
+     * @param type the class to register, a concrete class or an enum.
+     * @return this registry for chaining purposes.
+     * @throws IllegalArgumentException if the id or class is already registered, or the class can not be encoded.
+     */
+    public CompactClassRegistry register(final int id, final Class<?> type) {
+        if (id < 0) {
+            throw new IllegalArgumentException("The class id must not be negative.");
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("The class to register must not be null.");
+        }
+        Layout layout = new Layout(id, type);
+        if (byId.putIfAbsent(id, layout) != null) {
+            throw new IllegalArgumentException("The class id " + id + " is already registered for "
+                + byId.get(id).type.getName() + ".");
+        }
+        if (byType.putIfAbsent(type, layout) != null) {
+            byId.remove(id);
+            throw new IllegalArgumentException("The class " + type.getName() + " is already registered.");
+        }
+        return this;
+    }
+
+    /**
+     * Checks whether the given class has been registered.
+     */
+    public boolean isRegistered(final Class<?> type) {
+        return byType.containsKey(type);
+    }
+
+    /**
+     * Returns the layout of a registered class, or null if it has not been registered.
+     */
+    Layout layout(final Class<?> type) {
+        return byType.get(type);
+    }
+
+    /**
+     * Returns the layout of the class registered under the id, or null if there is none.
+     */
+    Layout layout(final int id) {
+        return byId.get(id);
+    }
+
+    /**
+     * The id, the encoded fields and the layout fingerprint of a registered class.
+     */
+    static final class Layout {
+
+        final int id;
+        final Class<?> type;
+        final Field[] fields;
+        final Object[] constants;
+        final int fingerprint;
+        private final Constructor<?> constructor;
+
+        Layout(final int id, final Class<?> type) {
+            this.id = id;
+            this.type = type;
+            if (type.isEnum()) {
+                this.constants = type.getEnumConstants();
+                this.fields = new Field[0];
+                this.constructor = null;
+                this.fingerprint = fingerprint(constants, fields);
+                return;
+            }
+            if (type.isInterface() || type.isArray() || type.isPrimitive()
+                || Modifier.isAbstract(type.getModifiers())) {
+                throw new IllegalArgumentException("Only concrete classes and enums can be registered, not "
+                    + type.getName() + ".");
+            }
+            if (Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)) {
+                throw new IllegalArgumentException("Collections and maps are encoded without registration, "
+                    + type.getName() + " can not be registered.");
+            }
+            checkDefaultSerialization(type);
+            this.constants = null;
+            try {
+                this.constructor = type.getDeclaredConstructor();
+            } catch (NoSuchMethodException ex) {
+                throw new IllegalArgumentException("The class " + type.getName()
+                    + " needs a constructor without arguments to be registered.");
+            }
+            makeAccessible(constructor, type);
+            this.fields = fields(type);
+            this.fingerprint = fingerprint(null, fields);
+        }
+
+        Object newInstance() throws Exception {
+            return constructor.newInstance();
+        }
+
+        /**
+         * Rejects classes whose Java serialization is customized, since the encoding only writes their fields.
+         */
+        private static void checkDefaultSerialization(final Class<?> type) {
+            if (Externalizable.class.isAssignableFrom(type)) {
+                throw new IllegalArgumentException("The class " + type.getName()
+                    + " is externalizable and can not be registered.");
+            }
+            for (Class<?> current = type; current != null && current != Object.class;
+                current = current.getSuperclass()) {
+                if (declares(current, "writeObject", ObjectOutputStream.class)
+                    || declares(current, "readObject", ObjectInputStream.class)
+                    || declares(current, "readObjectNoData")
+                    || declares(current, "writeReplace")
+                    || declares(current, "readResolve")) {
+                    throw new IllegalArgumentException("The class " + type.getName()
+                        + " customizes its serialization in " + current.getName() + " and can not be registered.");
+                }
+            }
+        }
+
+        private static boolean declares(final Class<?> type, final String name, final Class<?>... parameters) {
+            try {
+                return !Modifier.isStatic(type.getDeclaredMethod(name, parameters).getModifiers());
+            } catch (NoSuchMethodException ex) {
+                return false;
+            }
+        }
+
+        /**
+         * Makes a member accessible, failing registration if the module system does not allow it (like for
+         * JDK classes on Java 9 and later).
+         */
+        private static void makeAccessible(final AccessibleObject member, final Class<?> type) {
+            try {
+                member.setAccessible(true);
+            } catch (RuntimeException ex) {
+                throw new IllegalArgumentException("The class " + type.getName()
+                    + " can not be registered, its members are not accessible.", ex);
+            }
+        }
+
+        private static Field[] fields(final Class<?> type) {
+            List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+            for (Class<?> current = type; current != null && current != Object.class;
+                current = current.getSuperclass()) {
+                hierarchy.add(current);
+            }
+            Collections.reverse(hierarchy);
+
+            List<Field> fields = new ArrayList<Field>();
+            for (Class<?> declaring : hierarchy) {
+                Field[] declared = declaring.getDeclaredFields();
+                Arrays.sort(declared, new Comparator<Field>() {
+                    @Override
+                    public int compare(Field a, Field b) {
+                        return a.getName().compareTo(b.getName());
+                    }
+                });
+                for (Field field : declared) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                        continue;
+                    }
+                    if (!CompactCodec.isSupportedFieldType(field.getType())) {
+                        throw new IllegalArgumentException("The field " + field.getName() + " of the class "
+                            + type.getName() + " has the type " + field.getType().getName()
+                            + ", which can not be decoded.");
+                    }
+                    makeAccessible(field, type);
+                    fields.add(field);
+                }
+            }
+            return fields.toArray(new Field[fields.size()]);
+        }
+
+        /**
+         * Hashes the names and types of the fields, or the names of the enum constants, in encoding order.
+         */
+        private static int fingerprint(final Object[] constants, final Field[] fields) {
+            StringBuilder layout = new StringBuilder();
+            if (constants != null) {
+                for (Object constant : constants) {
+                    layout.append(((Enum<?>) constant).name()).append(';');
+                }
+            }
+            for (Field field : fields) {
+                layout.append(field.getName()).append(':').append(field.getType().getName()).append(';');
+            }
+            return layout.toString().hashCode();
+        }
+    }
+}
@@ -0,0 +1,657 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.transcoder;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.ByteBufUtil;
+import com.couchbase.client.deps.io.netty.util.CharsetUtil;
+import com.couchbase.client.java.error.TranscodingException;
+
+/**
+ * The encoding of the {@link CompactSerializableTranscoder}.
+ *
+ * Every value starts with a one byte tag, followed by its payload. Integral numbers and lengths are written as
+ * (zig-zag) varints, registered classes as their id followed by their fields. Fields of primitive types are
+ * written without tag, since their type is known from the class layout. The first occurrence of a class id in a
+ * value is followed by the fingerprint of its layout, so that content written before the class changed is rejected
+ * instead of being read into the wrong fields.
+ *
+ * Objects, collections, maps, arrays and dates are numbered in the order they are written, and written again as a
+ * reference to that number, so that shared and cyclic references are kept.
+ */
+final class CompactCodec {
+
+    static final byte MAGIC = (byte) 0xC5;
+    static final byte VERSION = 2;
+
+    private static final int MAX_DEPTH = 256;
+
+    private static final byte NULL = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte BYTE = 3;
+    private static final byte SHORT = 4;
+    private static final byte INT = 5;
+    private static final byte LONG = 6;
+    private static final byte FLOAT = 7;
+    private static final byte DOUBLE = 8;
+    private static final byte CHAR = 9;
+    private static final byte STRING = 10;
+    private static final byte BYTES = 11;
+    private static final byte INTS = 12;
+    private static final byte LONGS = 13;
+    private static final byte DOUBLES = 14;
+    private static final byte LIST = 15;
+    private static final byte SET = 16;
+    private static final byte MAP = 17;
+    private static final byte DATE = 18;
+    private static final byte BIG_INTEGER = 19;
+    private static final byte BIG_DECIMAL = 20;
+    private static final byte ENUM = 21;
+    private static final byte OBJECT = 22;
+    private static final byte REFERENCE = 23;
+
+    /**
+     * The implementations collections and maps are read into if the declared type of a field is an interface or
+     * abstract class which the default one does not implement.
+     */
+    private static final Class<?>[] LIST_TYPES = { ArrayList.class, LinkedList.class };
+    private static final Class<?>[] SET_TYPES = { LinkedHashSet.class, TreeSet.class };
+    private static final Class<?>[] MAP_TYPES = { LinkedHashMap.class, TreeMap.class, ConcurrentHashMap.class };
+
+    private CompactCodec() {}
+
+    /**
+     * Thrown when a value can not be encoded, so the caller can fall back to another encoding.
+     */
+    static class UnsupportedTypeException extends TranscodingException {
+
+        private static final long serialVersionUID = -4412637713427716530L;
+
+        UnsupportedTypeException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Encodes the value with the header into the buffer.
+     */
+    static void encode(final Object value, final ByteBuf out, final CompactClassRegistry registry) throws Exception {
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        writeValue(value, out, new Context(registry, true), 0);
+    }
+
+    /**
+     * Decodes a value with the header from the buffer.
+     */
+    static Object decode(final ByteBuf in, final CompactClassRegistry registry) throws Exception {
+        if (in.readableBytes() < 2 || in.readByte() != MAGIC) {
+            throw new TranscodingException("Content is not in the compact binary encoding.");
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new TranscodingException("Unsupported version " + version + " of the compact binary encoding.");
+        }
+        return readValue(in, new Context(registry, false), 0, null);
+    }
+
+    /**
+     * Checks whether values of the given declared field type can be decoded, which only fails for collection or
+     * map types without a public constructor or known implementation, like an {@link java.util.EnumSet}.
+     */
+    static boolean isSupportedFieldType(final Class<?> type) {
+        if (Collection.class.isAssignableFrom(type)) {
+            return implementation(type, Collection.class, LIST_TYPES) != null
+                || implementation(type, Collection.class, SET_TYPES) != null;
+        }
+        return !Map.class.isAssignableFrom(type) || implementation(type, Map.class, MAP_TYPES) != null;
+    }
+
+    private static void writeValue(final Object value, final ByteBuf out, final Context context, final int depth)
+        throws Exception {
+        if (value == null) {
+            out.writeByte(NULL);
+            return;
+        }
+        if (depth > MAX_DEPTH) {
+            throw new UnsupportedTypeException("Values nested deeper than " + MAX_DEPTH
+                + " levels can not be encoded.");
+        }
+        Class<?> type = value.getClass();
+        if (type == String.class) {
+            String string = (String) value;
+            int length = ByteBufUtil.utf8Bytes(string);
+            out.writeByte(STRING);
+            writeVarint(out, length);
+            ByteBufUtil.reserveAndWriteUtf8(out, string, length);
+        } else if (type == Integer.class) {
+            out.writeByte(INT);
+            writeVarint(out, zigZag((Integer) value));
+        } else if (type == Long.class) {
+            out.writeByte(LONG);
+            writeVarlong(out, zigZag((Long) value));
+        } else if (type == Boolean.class) {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (type == Double.class) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (type == Float.class) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (type == Short.class) {
+            out.writeByte(SHORT);
+            writeVarint(out, zigZag((Short) value));
+        } else if (type == Byte.class) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (type == Character.class) {
+            out.writeByte(CHAR);
+            writeVarint(out, (Character) value);
+        } else if (type == BigInteger.class) {
+            byte[] bytes = ((BigInteger) value).toByteArray();
+            out.writeByte(BIG_INTEGER);
+            writeVarint(out, bytes.length);
+            out.writeBytes(bytes);
+        } else if (type == BigDecimal.class) {
+            BigDecimal decimal = (BigDecimal) value;
+            byte[] bytes = decimal.unscaledValue().toByteArray();
+            out.writeByte(BIG_DECIMAL);
+            writeVarint(out, zigZag(decimal.scale()));
+            writeVarint(out, bytes.length);
+            out.writeBytes(bytes);
+        } else if (writeKnownReference(value, out, context)) {
+            return;
+        } else if (type == byte[].class) {
+            byte[] bytes = (byte[]) value;
+            out.writeByte(BYTES);
+            writeVarint(out, bytes.length);
+            out.writeBytes(bytes);
+        } else if (type == int[].class) {
+            int[] ints = (int[]) value;
+            out.writeByte(INTS);
+            writeVarint(out, ints.length);
+            for (int i : ints) {
+                writeVarint(out, zigZag(i));
+            }
+        } else if (type == long[].class) {
+            long[] longs = (long[]) value;
+            out.writeByte(LONGS);
+            writeVarint(out, longs.length);
+            for (long l : longs) {
+                writeVarlong(out, zigZag(l));
+            }
+        } else if (type == double[].class) {
+            double[] doubles = (double[]) value;
+            out.writeByte(DOUBLES);
+            writeVarint(out, doubles.length);
+            for (double d : doubles) {
+                out.writeDouble(d);
+            }
+        } else if (type == Date.class) {
+            out.writeByte(DATE);
+            writeVarlong(out, zigZag(((Date) value).getTime()));
+        } else {
+            writeReference(value, type, out, context, depth);
+        }
+    }
+
+    private static void writeReference(final Object value, final Class<?> type, final ByteBuf out,
+        final Context context, final int depth) throws Exception {
+        Class<?> registered = value instanceof Enum ? ((Enum<?>) value).getDeclaringClass() : type;
+        CompactClassRegistry.Layout layout = context.registry.layout(registered);
+        if (layout != null) {
+            if (layout.constants != null) {
+                out.writeByte(ENUM);
+                writeClass(layout, out, context);
+                writeVarint(out, ((Enum<?>) value).ordinal());
+                return;
+            }
+            out.writeByte(OBJECT);
+            writeClass(layout, out, context);
+            for (Field field : layout.fields) {
+                writeField(field, value, out, context, depth);
+            }
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.writeByte(LIST);
+            writeVarint(out, list.size());
+            for (Object element : list) {
+                writeValue(element, out, context, depth + 1);
+            }
+        } else if (value instanceof Set) {
+            if (value instanceof SortedSet && ((SortedSet<?>) value).comparator() != null) {
+                throw new UnsupportedTypeException("Sorted sets with a comparator can not be encoded.");
+            }
+            Set<?> set = (Set<?>) value;
+            out.writeByte(SET);
+            writeVarint(out, set.size());
+            for (Object element : set) {
+                writeValue(element, out, context, depth + 1);
+            }
+        } else if (value instanceof Map) {
+            if (value instanceof SortedMap && ((SortedMap<?, ?>) value).comparator() != null) {
+                throw new UnsupportedTypeException("Sorted maps with a comparator can not be encoded.");
+            }
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeByte(MAP);
+            writeVarint(out, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(entry.getKey(), out, context, depth + 1);
+                writeValue(entry.getValue(), out, context, depth + 1);
+            }
+        } else {
+            throw new UnsupportedTypeException("The class " + type.getName() + " is not registered.");
+        }
+    }
+
+    /**
+     * Writes a reference to the value if it has been written before, otherwise numbers it if it is an object,
+     * collection, map, array or date about to be written.
+     *
+     * @return true if a reference has been written.
+     */
+    private static boolean writeKnownReference(final Object value, final ByteBuf out, final Context context) {
+        Integer handle = context.handles.get(value);
+        if (handle != null) {
+            out.writeByte(REFERENCE);
+            writeVarint(out, handle);
+            return true;
+        }
+        if (!(value instanceof Enum)) {
+            context.handles.put(value, context.handles.size());
+        }
+        return false;
+    }
+
+    /**
+     * Writes the id of the class, followed by the fingerprint of its layout on its first occurrence.
+     */
+    private static void writeClass(final CompactClassRegistry.Layout layout, final ByteBuf out,
+        final Context context) {
+        writeVarint(out, layout.id);
+        if (context.checked.add(layout.id)) {
+            out.writeInt(layout.fingerprint);
+        }
+    }
+
+    private static void writeField(final Field field, final Object owner, final ByteBuf out,
+        final Context context, final int depth) throws Exception {
+        Class<?> type = field.getType();
+        if (!type.isPrimitive()) {
+            writeValue(field.get(owner), out, context, depth + 1);
+        } else if (type == int.class) {
+            writeVarint(out, zigZag(field.getInt(owner)));
+        } else if (type == long.class) {
+            writeVarlong(out, zigZag(field.getLong(owner)));
+        } else if (type == boolean.class) {
+            out.writeBoolean(field.getBoolean(owner));
+        } else if (type == double.class) {
+            out.writeDouble(field.getDouble(owner));
+        } else if (type == float.class) {
+            out.writeFloat(field.getFloat(owner));
+        } else if (type == short.class) {
+            writeVarint(out, zigZag(field.getShort(owner)));
+        } else if (type == byte.class) {
+            out.writeByte(field.getByte(owner));
+        } else {
+            writeVarint(out, field.getChar(owner));
+        }
+    }
+
+    /**
+     * Reads a value, creating collections and maps as the given declared type of the field they are read into.
+     */
+    private static Object readValue(final ByteBuf in, final Context context, final int depth,
+        final Class<?> declared) throws Exception {
+        if (depth > MAX_DEPTH) {
+            throw new TranscodingException("Values are nested deeper than " + MAX_DEPTH + " levels.");
+        }
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case BYTE:
+                return in.readByte();
+            case SHORT:
+                return (short) unZigZag(readVarint(in));
+            case INT:
+                return unZigZag(readVarint(in));
+            case LONG:
+                return unZigZag(readVarlong(in));
+            case FLOAT:
+                return in.readFloat();
+            case DOUBLE:
+                return in.readDouble();
+            case CHAR:
+                return (char) readVarint(in);
+            case STRING:
+                int length = readLength(in, 1);
+                String string = in.toString(in.readerIndex(), length, CharsetUtil.UTF_8);
+                in.skipBytes(length);
+                return string;
+            case BYTES:
+                return context.read(readBytes(in));
+            case INTS:
+                int[] ints = context.read(new int[readLength(in, 1)]);
+                for (int i = 0; i < ints.length; i++) {
+                    ints[i] = unZigZag(readVarint(in));
+                }
+                return ints;
+            case LONGS:
+                long[] longs = context.read(new long[readLength(in, 1)]);
+                for (int i = 0; i < longs.length; i++) {
+                    longs[i] = unZigZag(readVarlong(in));
+                }
+                return longs;
+            case DOUBLES:
+                double[] doubles = context.read(new double[readLength(in, 8)]);
+                for (int i = 0; i < doubles.length; i++) {
+                    doubles[i] = in.readDouble();
+                }
+                return doubles;
+            case LIST:
+                int listSize = readLength(in, 1);
+                Collection<Object> list = context.read(collection(declared, LIST_TYPES, listSize));
+                for (int i = 0; i < listSize; i++) {
+                    list.add(readValue(in, context, depth + 1, null));
+                }
+                return list;
+            case SET:
+                int setSize = readLength(in, 1);
+                Collection<Object> set = context.read(collection(declared, SET_TYPES, setSize));
+                for (int i = 0; i < setSize; i++) {
+                    set.add(readValue(in, context, depth + 1, null));
+                }
+                return set;
+            case MAP:
+                int mapSize = readLength(in, 2);
+                Map<Object, Object> map = context.read(map(declared, mapSize));
+                for (int i = 0; i < mapSize; i++) {
+                    Object key = readValue(in, context, depth + 1, null);
+                    map.put(key, readValue(in, context, depth + 1, null));
+                }
+                return map;
+            case DATE:
+                return context.read(new Date(unZigZag(readVarlong(in))));
+            case BIG_INTEGER:
+                return new BigInteger(readBytes(in));
+            case BIG_DECIMAL:
+                int scale = unZigZag(readVarint(in));
+                return new BigDecimal(new BigInteger(readBytes(in)), scale);
+            case ENUM:
+                Object[] constants = readClass(in, context).constants;
+                int ordinal = readVarint(in);
+                if (constants == null || ordinal >= constants.length) {
+                    throw new TranscodingException("Unknown enum constant " + ordinal + ".");
+                }
+                return constants[ordinal];
+            case OBJECT:
+                CompactClassRegistry.Layout layout = readClass(in, context);
+                if (layout.constants != null) {
+                    throw new TranscodingException("The class " + layout.type.getName() + " is an enum.");
+                }
+                Object instance = context.read(layout.newInstance());
+                for (Field field : layout.fields) {
+                    readField(field, instance, in, context, depth);
+                }
+                return instance;
+            case REFERENCE:
+                int handle = readVarint(in);
+                if (handle < 0 || handle >= context.references.size()) {
+                    throw new TranscodingException("Unknown reference " + handle + " in compact binary content.");
+                }
+                return context.references.get(handle);
+            default:
+                throw new TranscodingException("Unknown tag " + tag + " in compact binary content.");
+        }
+    }
+
+    private static void readField(final Field field, final Object owner, final ByteBuf in,
+        final Context context, final int depth) throws Exception {
+        Class<?> type = field.getType();
+        if (!type.isPrimitive()) {
+            Object value = readValue(in, context, depth + 1, type);
+            if (value != null && !type.isInstance(value)) {
+                throw new TranscodingException("A value of type " + value.getClass().getName()
+                    + " can not be read into the field " + field.getName() + " of type " + type.getName() + ".");
+            }
+            field.set(owner, value);
+        } else if (type == int.class) {
+            field.setInt(owner, unZigZag(readVarint(in)));
+        } else if (type == long.class) {
+            field.setLong(owner, unZigZag(readVarlong(in)));
+        } else if (type == boolean.class) {
+            field.setBoolean(owner, in.readBoolean());
+        } else if (type == double.class) {
+            field.setDouble(owner, in.readDouble());
+        } else if (type == float.class) {
+            field.setFloat(owner, in.readFloat());
+        } else if (type == short.class) {
+            field.setShort(owner, (short) unZigZag(readVarint(in)));
+        } else if (type == byte.class) {
+            field.setByte(owner, in.readByte());
+        } else {
+            field.setChar(owner, (char) readVarint(in));
+        }
+    }
+
+    /**
+     * Reads the id of a class and checks the fingerprint of its layout on its first occurrence.
+     */
+    private static CompactClassRegistry.Layout readClass(final ByteBuf in, final Context context) {
+        CompactClassRegistry.Layout layout = registered(context.registry, readVarint(in));
+        if (context.checked.add(layout.id) && in.readInt() != layout.fingerprint) {
+            throw new TranscodingException("The layout of the class " + layout.type.getName()
+                + " differs from the one the content has been written with.");
+        }
+        return layout;
+    }
+
+    /**
+     * Creates the collection a list or set is read into: the default implementation if it fits the declared type
+     * of the field, else the declared type itself if it is concrete, or the first implementation which fits.
+     */
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> collection(final Class<?> declared, final Class<?>[] implementations,
+        final int size) throws Exception {
+        if (declared == null || declared.isAssignableFrom(implementations[0])) {
+            return implementations == LIST_TYPES ? new ArrayList<Object>(size)
+                : new LinkedHashSet<Object>(capacity(size));
+        }
+        return (Collection<Object>) instantiate(declared, Collection.class, implementations);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> map(final Class<?> declared, final int size) throws Exception {
+        if (declared == null || declared.isAssignableFrom(LinkedHashMap.class)) {
+            return new LinkedHashMap<Object, Object>(capacity(size));
+        }
+        return (Map<Object, Object>) instantiate(declared, Map.class, MAP_TYPES);
+    }
+
+    private static Object instantiate(final Class<?> declared, final Class<?> base, final Class<?>[] implementations)
+        throws Exception {
+        Class<?> type = implementation(declared, base, implementations);
+        if (type == null) {
+            throw new TranscodingException("A " + base.getSimpleName().toLowerCase() + " can not be read into the "
+                + "type " + declared.getName() + ".");
+        }
+        return type.getConstructor().newInstance();
+    }
+
+    /**
+     * The class collections or maps of the declared type are created with, or null if there is none.
+     */
+    private static Class<?> implementation(final Class<?> declared, final Class<?> base,
+        final Class<?>[] implementations) {
+        if (!base.isAssignableFrom(declared)) {
+            return null;
+        }
+        if (!declared.isInterface() && !Modifier.isAbstract(declared.getModifiers())) {
+            try {
+                declared.getConstructor();
+                return declared;
+            } catch (NoSuchMethodException ex) {
+                return null;
+            }
+        }
+        for (Class<?> implementation : implementations) {
+            if (declared.isAssignableFrom(implementation)) {
+                return implementation;
+            }
+        }
+        return null;
+    }
+
+    private static CompactClassRegistry.Layout registered(final CompactClassRegistry registry, final int id) {
+        CompactClassRegistry.Layout layout = registry.layout(id);
+        if (layout == null) {
+            throw new TranscodingException("No class is registered for the class id " + id + ".");
+        }
+        return layout;
+    }
+
+    private static byte[] readBytes(final ByteBuf in) {
+        byte[] bytes = new byte[readLength(in, 1)];
+        in.readBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Reads a length and checks that enough bytes are left for it, so corrupt content can not trigger
+     * huge allocations.
+     */
+    private static int readLength(final ByteBuf in, final int minBytesPerElement) {
+        int length = readVarint(in);
+        if (length < 0 || (long) length * minBytesPerElement > in.readableBytes()) {
+            throw new TranscodingException("Invalid length " + length + " in compact binary content.");
+        }
+        return length;
+    }
+
+    private static int capacity(final int size) {
+        return size < 3 ? size + 1 : (int) (size / 0.75f + 1);
+    }
+
+    private static int zigZag(final int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int unZigZag(final int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long unZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(final ByteBuf out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static void writeVarlong(final ByteBuf out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static int readVarint(final ByteBuf in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new TranscodingException("Malformed varint in compact binary content.");
+    }
+
+    private static long readVarlong(final ByteBuf in) {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new TranscodingException("Malformed varint in compact binary content.");
+    }
+
+    /**
+     * The state of encoding or decoding a single value: the numbered references and the classes whose layout
+     * fingerprint has already been written or checked.
+     */
+    private static final class Context {
+
+        final CompactClassRegistry registry;
+        final Map<Object, Integer> handles;
+        final List<Object> references;
+        final Set<Integer> checked;
+
+        Context(final CompactClassRegistry registry, final boolean encoding) {
+            this.registry = registry;
+            this.handles = encoding ? new IdentityHashMap<Object, Integer>() : null;
+            this.references = encoding ? null : new ArrayList<Object>();
+            this.checked = new HashSet<Integer>();
+        }
+
+        /**
+         * Numbers a decoded value before its content is read, so that references to it from within resolve.
+         */
+        <T> T read(final T value) {
+            references.add(value);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.transcoder;
+
+import java.io.Serializable;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.lang.Tuple;
+import com.couchbase.client.core.lang.Tuple2;
+import com.couchbase.client.core.logging.CouchbaseLogger;
+import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.kv.MutationToken;
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.ByteBufAllocator;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.java.document.SerializableDocument;
+import com.couchbase.client.java.error.TranscodingException;
+
+/**
+ * A transcoder for {@link SerializableDocument}s which replaces Java serialization with a compact binary encoding.
+ *
+ * Classes registered in the {@link CompactClassRegistry} are written as their numeric id and the values of their
+ * fields, without class names or per-object descriptors. Numbers and lengths are written as varints, and the
+ * content is encoded straight into a buffer from the allocator. Besides registered classes, strings, boxed
+ * primitives, primitive and byte arrays, lists, sets, maps, dates, big integers and big decimals are supported.
+ * Lists, sets and maps are read back as {@link java.util.ArrayList}, {@link java.util.LinkedHashSet} and
+ * {@link java.util.LinkedHashMap}, or as the type a field is declared with: its concrete class, or an implementation
+ * like a {@link java.util.TreeSet} for a sorted set. Shared and cyclic references are kept. Sorted sets and maps with
+ * a comparator are written with Java serialization, since the comparator can not be encoded.
+ *
+ * Documents written with Java serialization by the {@link SerializableTranscoder} are still read, and content which
+ * can not be encoded compactly (like an unregistered class) is written with Java serialization as well, so
+ * classes can be registered one at a time. To migrate, first register this transcoder on all readers, since the
+ * {@link SerializableTranscoder} can not read the compact encoding:
+ *
+ * ```
+ * CompactClassRegistry registry = CompactClassRegistry.create().register(1, Airline.class);
+ * Bucket bucket = cluster.openBucket("default", Collections.<Transcoder<? extends Document, ?>>singletonList(
+ *     new CompactSerializableTranscoder(registry, PooledByteBufAllocator.DEFAULT)));
+ * ```
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class CompactSerializableTranscoder extends AbstractTranscoder<SerializableDocument, Serializable> {
+
+    private static final CouchbaseLogger LOGGER = CouchbaseLoggerFactory.getInstance(
+        CompactSerializableTranscoder.class);
+
+    /**
+     * The flags of documents in the compact encoding: the private common flags, without the legacy serialized
+     * flag of the Java serialized documents.
+     */
+    public static final int COMPACT_SERIALIZED_FLAGS = TranscoderUtils.PRIVATE_COMMON_FLAGS;
+
+    private final CompactClassRegistry registry;
+    private final ByteBufAllocator allocator;
+    private final EncodeSizeHint sizeHint;
+
+    public CompactSerializableTranscoder(final CompactClassRegistry registry) {
+        this(registry, null);
+    }
+
+    /**
+     * Creates a transcoder which encodes straight into buffers taken from the given allocator.
+     *
+     * @param registry the classes encoded with their id.
+     * @param allocator the allocator to use for encoding, or null to encode into unpooled heap buffers.
+     */
+    public CompactSerializableTranscoder(final CompactClassRegistry registry, final ByteBufAllocator allocator) {
+        if (registry == null) {
+            throw new IllegalArgumentException("The class registry must not be null.");
+        }
+        this.registry = registry;
+        this.allocator = allocator;
+        this.sizeHint = new EncodeSizeHint();
+    }
+
+    @Override
+    protected Tuple2<ByteBuf, Integer> doEncode(final SerializableDocument document) throws Exception {
+        Serializable content = document.content();
+        ByteBuf target = allocator == null ? Unpooled.buffer(sizeHint.next()) : allocator.buffer(sizeHint.next());
+        try {
+            CompactCodec.encode(content, target, registry);
+            sizeHint.record(target.readableBytes());
+            return Tuple.create(target, COMPACT_SERIALIZED_FLAGS);
+        } catch (CompactCodec.UnsupportedTypeException ex) {
+            target.release();
+            LOGGER.debug("Falling back to Java serialization for document {}: {}", document.id(), ex.getMessage());
+            return Tuple.create(TranscoderUtils.serialize(content), TranscoderUtils.SERIALIZED_COMPAT_FLAGS);
+        } catch (Exception ex) {
+            target.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    protected SerializableDocument doDecode(String id, ByteBuf content, long cas, int expiry, int flags,
+        ResponseStatus status) throws Exception {
+        if (!TranscoderUtils.hasSerializableFlags(flags)) {
+            throw new TranscodingException("Flags (0x" + Integer.toHexString(flags) + ") indicate non-serialized " +
+                "document for id " + id + ", could not decode.");
+        }
+
+        if ((flags & TranscoderUtils.SERIALIZED_LEGACY_FLAGS) != 0) {
+            return newDocument(id, expiry, TranscoderUtils.deserialize(content), cas);
+        }
+        Object decoded = CompactCodec.decode(content, registry);
+        if (decoded != null && !(decoded instanceof Serializable)) {
+            throw new TranscodingException("Decoded content of type " + decoded.getClass().getName() + " for id " + id
+                + " is not serializable.");
+        }
+        return newDocument(id, expiry, (Serializable) decoded, cas);
+    }
+
+    @Override
+    public SerializableDocument newDocument(String id, int expiry, Serializable content, long cas) {
+        return SerializableDocument.create(id, expiry, content, cas);
+    }
+
+    @Override
+    public SerializableDocument newDocument(String id, int expiry, Serializable content, long cas,
+        MutationToken mutationToken) {
+        return SerializableDocument.create(id, expiry, content, cas, mutationToken);
+    }
+
+    @Override
+    public Class<SerializableDocument> documentType() {
+        return SerializableDocument.class;
+    }
+}
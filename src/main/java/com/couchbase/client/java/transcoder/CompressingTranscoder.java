@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.transcoder;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.lang.Tuple;
+import com.couchbase.client.core.lang.Tuple2;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.kv.MutationToken;
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.deps.io.netty.handler.codec.compression.Snappy;
+import com.couchbase.client.java.document.BinaryDocument;
+import com.couchbase.client.java.document.Document;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.document.RawJsonDocument;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.error.TranscodingException;
+
+/**
+ * A {@link Transcoder} which compresses the documents encoded by another transcoder with Snappy and
+ * transparently decompresses them when reading.
+ *
+ * Documents whose encoded size is at least the threshold are compressed and stored with the
+ * {@link TranscoderUtils#SNAPPY_COMPRESSION_FLAGS} set in addition to the flags of the wrapped transcoder. If the
+ * compressed form is not smaller (like for already compressed binary content), the document is stored as is.
+ * Documents without compression flags are passed to the wrapped transcoder unchanged, so existing documents
+ * can still be read.
+ *
+ * The compressed content is a sequence of raw Snappy blocks of at most 32 KiB of input each, every block
+ * prefixed with its compressed length as a 4 byte big endian integer.
+ *
+ * Register it as a custom transcoder of the bucket, where it replaces the transcoder for its document type:
+ *
+ * ```
+ * Bucket bucket = cluster.openBucket("default",
+ *     Collections.<Transcoder<? extends Document, ?>>singletonList(CompressingTranscoder.json()));
+ * ```
+ *
+ * Note that the server only sees opaque bytes for compressed documents, so they cannot be used with N1QL, views,
+ * full text search or the subdocument API. All clients reading them must use a compressing transcoder as well.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class CompressingTranscoder<D extends Document<T>, T> implements Transcoder<D, T> {
+
+    /**
+     * The default minimum encoded size in bytes for a document to be compressed.
+     */
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    /**
+     * The maximum number of bytes compressed into a single Snappy block, the block encoder only
+     * references offsets which fit into a short.
+     */
+    private static final int MAX_CHUNK_SIZE = Short.MAX_VALUE;
+
+    private final Transcoder<D, T> delegate;
+    private final int threshold;
+
+    private final AtomicLong encoded = new AtomicLong();
+    private final AtomicLong compressed = new AtomicLong();
+    private final AtomicLong rawBytes = new AtomicLong();
+    private final AtomicLong storedBytes = new AtomicLong();
+    private final AtomicLong compressNanos = new AtomicLong();
+    private final AtomicLong decompressed = new AtomicLong();
+    private final AtomicLong decompressNanos = new AtomicLong();
+
+    public CompressingTranscoder(final Transcoder<D, T> delegate) {
+        this(delegate, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Creates a transcoder compressing the documents encoded by the given transcoder.
+     *
+     * @param delegate the transcoder encoding and decoding the uncompressed content.
+     * @param threshold the minimum encoded size in bytes for a document to be compressed.
+     */
+    public CompressingTranscoder(final Transcoder<D, T> delegate, final int threshold) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("The transcoder to compress for must not be null.");
+        }
+        if (threshold < 0) {
+            throw new IllegalArgumentException("The compression threshold must not be negative.");
+        }
+        this.delegate = delegate;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Creates a compressing transcoder for {@link JsonDocument}s with the default threshold.
+     */
+    public static CompressingTranscoder<JsonDocument, JsonObject> json() {
+        return new CompressingTranscoder<JsonDocument, JsonObject>(new JsonTranscoder());
+    }
+
+    /**
+     * Creates a compressing transcoder for {@link RawJsonDocument}s with the default threshold.
+     */
+    public static CompressingTranscoder<RawJsonDocument, String> rawJson() {
+        return new CompressingTranscoder<RawJsonDocument, String>(new RawJsonTranscoder());
+    }
+
+    /**
+     * Creates a compressing transcoder for {@link BinaryDocument}s with the default threshold.
+     */
+    public static CompressingTranscoder<BinaryDocument, ByteBuf> binary() {
+        return new CompressingTranscoder<BinaryDocument, ByteBuf>(new BinaryTranscoder());
+    }
+
+    @Override
+    public Tuple2<ByteBuf, Integer> encode(final D document) {
+        Tuple2<ByteBuf, Integer> encoded = delegate.encode(document);
+        ByteBuf content = encoded.value1();
+        int flags = encoded.value2();
+        int length = content.readableBytes();
+
+        this.encoded.incrementAndGet();
+        rawBytes.addAndGet(length);
+        if (length < threshold || length == 0 || TranscoderUtils.hasCompressionFlags(flags)) {
+            storedBytes.addAndGet(length);
+            return encoded;
+        }
+
+        ByteBuf compressed = Unpooled.buffer(length);
+        long start = System.nanoTime();
+        try {
+            compress(content, compressed);
+        } catch (RuntimeException ex) {
+            compressed.release();
+            content.release();
+            throw new TranscodingException("Could not compress document with ID " + document.id(), ex);
+        } finally {
+            compressNanos.addAndGet(System.nanoTime() - start);
+        }
+
+        if (compressed.readableBytes() >= length) {
+            compressed.release();
+            storedBytes.addAndGet(length);
+            return encoded;
+        }
+        content.release();
+        this.compressed.incrementAndGet();
+        storedBytes.addAndGet(compressed.readableBytes());
+        return Tuple.create(compressed, flags | TranscoderUtils.SNAPPY_COMPRESSION_FLAGS);
+    }
+
+    @Override
+    public D decode(final String id, final ByteBuf content, final long cas, final int expiry, final int flags,
+        final ResponseStatus status) {
+        int compression = TranscoderUtils.extractCompressionFlags(flags);
+        if (compression == 0 || content == null) {
+            return delegate.decode(id, content, cas, expiry, flags, status);
+        }
+        if (compression != TranscoderUtils.SNAPPY_COMPRESSION_FLAGS) {
+            content.release();
+            throw new TranscodingException("Flags (0x" + Integer.toHexString(flags) + ") indicate an unsupported "
+                + "compression for id " + id + ", could not decode.");
+        }
+
+        ByteBuf decompressed;
+        long start = System.nanoTime();
+        try {
+            decompressed = decompress(content);
+        } catch (RuntimeException ex) {
+            throw new TranscodingException("Could not decompress document with ID " + id, ex);
+        } finally {
+            content.release();
+            decompressNanos.addAndGet(System.nanoTime() - start);
+        }
+        this.decompressed.incrementAndGet();
+        return delegate.decode(id, decompressed, cas, expiry, flags & ~TranscoderUtils.COMPRESSION_MASK, status);
+    }
+
+    /**
+     * Compresses the readable bytes of the content into the given buffer, one block per chunk.
+     */
+    private static void compress(final ByteBuf content, final ByteBuf compressed) {
+        Snappy snappy = new Snappy();
+        int offset = content.readerIndex();
+        int end = content.writerIndex();
+        while (offset < end) {
+            int chunk = Math.min(MAX_CHUNK_SIZE, end - offset);
+            int lengthIndex = compressed.writerIndex();
+            compressed.writeInt(0);
+            snappy.encode(content.slice(offset, chunk), compressed, chunk);
+            compressed.setInt(lengthIndex, compressed.writerIndex() - lengthIndex - 4);
+            offset += chunk;
+        }
+    }
+
+    /**
+     * Decompresses the content into a new buffer, checking that every block has the length announced
+     * in its preamble.
+     */
+    private static ByteBuf decompress(final ByteBuf content) {
+        int total = 0;
+        ByteBuf chunks = content.duplicate();
+        while (chunks.isReadable()) {
+            ByteBuf block = readBlock(chunks);
+            total += uncompressedLength(block);
+            if (total < 0) {
+                throw new IllegalStateException("Invalid length preamble of compressed content.");
+            }
+        }
+
+        ByteBuf decompressed = Unpooled.buffer(total);
+        try {
+            Snappy snappy = new Snappy();
+            chunks = content.duplicate();
+            while (chunks.isReadable()) {
+                ByteBuf block = readBlock(chunks);
+                int expected = decompressed.readableBytes() + uncompressedLength(block.duplicate());
+                snappy.reset();
+                snappy.decode(block, decompressed);
+                if (decompressed.readableBytes() != expected) {
+                    throw new IllegalStateException("Decompressed block does not have its announced length.");
+                }
+            }
+            return decompressed;
+        } catch (RuntimeException ex) {
+            decompressed.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Reads the next length prefixed block of compressed content.
+     */
+    private static ByteBuf readBlock(final ByteBuf chunks) {
+        if (chunks.readableBytes() < 4) {
+            throw new IllegalStateException("Compressed content is truncated.");
+        }
+        int length = chunks.readInt();
+        if (length <= 0 || length > chunks.readableBytes()) {
+            throw new IllegalStateException("Compressed content is truncated.");
+        }
+        return chunks.readSlice(length);
+    }
+
+    /**
+     * Reads the uncompressed length from the varint preamble of a Snappy block.
+     */
+    private static int uncompressedLength(final ByteBuf in) {
+        int length = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (!in.isReadable()) {
+                break;
+            }
+            int b = in.readUnsignedByte();
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (length < 0) {
+                    break;
+                }
+                return length;
+            }
+        }
+        throw new IllegalStateException("Invalid length preamble of compressed content.");
+    }
+
+    /**
+     * Returns a snapshot of the compression counters of this transcoder.
+     */
+    public CompressionStats stats() {
+        return new CompressionStats(encoded.get(), compressed.get(), rawBytes.get(), storedBytes.get(),
+            compressNanos.get(), decompressed.get(), decompressNanos.get());
+    }
+
+    /**
+     * The minimum encoded size in bytes for a document to be compressed.
+     */
+    public int threshold() {
+        return threshold;
+    }
+
+    @Override
+    @Deprecated
+    public D newDocument(final String id, final int expiry, final T content, final long cas) {
+        return delegate.newDocument(id, expiry, content, cas);
+    }
+
+    @Override
+    public D newDocument(final String id, final int expiry, final T content, final long cas,
+        final MutationToken mutationToken) {
+        return delegate.newDocument(id, expiry, content, cas, mutationToken);
+    }
+
+    @Override
+    public Class<D> documentType() {
+        return delegate.documentType();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.transcoder;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+
+/**
+ * A point-in-time snapshot of the counters of a {@link CompressingTranscoder}.
+ *
+ * All counters are cumulative since the transcoder has been created.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class CompressionStats {
+
+    private final long encoded;
+    private final long compressed;
+    private final long rawBytes;
+    private final long storedBytes;
+    private final long compressNanos;
+    private final long decompressed;
+    private final long decompressNanos;
+
+    public CompressionStats(long encoded, long compressed, long rawBytes, long storedBytes, long compressNanos,
+        long decompressed, long decompressNanos) {
+        this.encoded = encoded;
+        this.compressed = compressed;
+        this.rawBytes = rawBytes;
+        this.storedBytes = storedBytes;
+        this.compressNanos = compressNanos;
+        this.decompressed = decompressed;
+        this.decompressNanos = decompressNanos;
+    }
+
+    /**
+     * The number of documents encoded.
+     */
+    public long encoded() {
+        return encoded;
+    }
+
+    /**
+     * The number of encoded documents which have been stored compressed.
+     */
+    public long compressed() {
+        return compressed;
+    }
+
+    /**
+     * The number of bytes of the encoded documents before compression.
+     */
+    public long rawBytes() {
+        return rawBytes;
+    }
+
+    /**
+     * The number of bytes of the encoded documents as sent to the server, compressed or not.
+     */
+    public long storedBytes() {
+        return storedBytes;
+    }
+
+    /**
+     * The CPU time spent compressing, including the attempts whose result was discarded because
+     * it was not smaller than the input.
+     */
+    public long compressNanos() {
+        return compressNanos;
+    }
+
+    /**
+     * The number of compressed documents decompressed when reading.
+     */
+    public long decompressed() {
+        return decompressed;
+    }
+
+    /**
+     * The CPU time spent decompressing.
+     */
+    public long decompressNanos() {
+        return decompressNanos;
+    }
+
+    /**
+     * The ratio of raw bytes to stored bytes, or 1 if no document has been encoded.
+     */
+    public double compressionRatio() {
+        return storedBytes == 0 ? 1 : (double) rawBytes / storedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "CompressionStats{" +
+            "encoded=" + encoded +
+            ", compressed=" + compressed +
+            ", rawBytes=" + rawBytes +
+            ", storedBytes=" + storedBytes +
+            ", compressNanos=" + compressNanos +
+            ", decompressed=" + decompressed +
+            ", decompressNanos=" + decompressNanos +
+            '}';
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.transcoder;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+
+/**
+ * Learns the typical encoded size of a document type so that encode buffers can be allocated
+ * with a fitting initial capacity.
+ *
+ * The estimate grows immediately to the largest recently seen size (so subsequent encodes of a similar
+ * document do not need to resize the buffer) and slowly decays towards smaller sizes again. Updates are
+ * racy on purpose, a lost update only results in a slightly off estimate.
+ *
+ * @since 2.7.24
+ */
+@InterfaceAudience.Private
+@InterfaceStability.Uncommitted
+public class EncodeSizeHint {
+
+    /**
+     * The smallest initial capacity handed out.
+     */
+    public static final int MIN_SIZE = 64;
+
+    /**
+     * The largest initial capacity handed out, which matches the maximum document size.
+     */
+    public static final int MAX_SIZE = 20 * 1024 * 1024;
+
+    private volatile int estimate;
+
+    public EncodeSizeHint() {
+        this(256);
+    }
+
+    public EncodeSizeHint(final int initial) {
+        this.estimate = clamp(initial);
+    }
+
+    /**
+     * Returns the capacity to allocate for the next encode.
+     */
+    public int next() {
+        return estimate;
+    }
+
+    /**
+     * Records the actual size of an encoded document.
+     *
+     * @param actual the number of bytes written.
+     */
+    public void record(final int actual) {
+        int current = estimate;
+        if (actual > current) {
+            estimate = clamp(actual);
+        } else if (actual < current) {
+            estimate = clamp(current - ((current - actual) >> 3));
+        }
+    }
+
+    private static int clamp(final int size) {
+        return Math.max(MIN_SIZE, Math.min(MAX_SIZE, size));
+    }
+
+    @Override
+    public String toString() {
+        return "EncodeSizeHint{estimate=" + estimate + '}';
+    }
+}
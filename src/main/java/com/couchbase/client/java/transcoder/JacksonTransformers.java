@@ -20,9 +20,15 @@ import com.couchbase.client.deps.com.fasterxml.jackson.databind.*;
 import com.couchbase.client.deps.com.fasterxml.jackson.databind.module.SimpleModule;
 import com.couchbase.client.java.document.json.JsonArray;
 import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.document.json.JsonObjectShape;
+import com.couchbase.client.java.document.json.JsonValue;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class JacksonTransformers {
 
@@ -30,8 +36,56 @@ public class JacksonTransformers {
     public static final SimpleModule JSON_VALUE_MODULE = new SimpleModule("JsonValueModule",
         new Version(1, 0, 0, null, null, null));
 
+    /**
+     * The maximum number of new {@link JsonObjectShape}s a single decode of compact objects creates.
+     */
+    static final int MAX_NEW_SHAPES_PER_DECODE = 256;
+
+    private static final ConcurrentMap<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<Class<?>, ObjectReader>();
+    private static final ConcurrentMap<Class<?>, ObjectWriter> WRITERS = new ConcurrentHashMap<Class<?>, ObjectWriter>();
+
     private JacksonTransformers() {}
 
+    /**
+     * Returns an {@link ObjectReader} for the given type which shares the configuration of the {@link #MAPPER}.
+     *
+     * Readers are immutable and thread safe, so they are created once per type and cached.
+     *
+     * @param type the target type to bind to.
+     * @return the cached reader for the type.
+     */
+    public static ObjectReader readerFor(final Class<?> type) {
+        ObjectReader reader = READERS.get(type);
+        if (reader == null) {
+            reader = MAPPER.readerFor(type);
+            ObjectReader existing = READERS.putIfAbsent(type, reader);
+            if (existing != null) {
+                reader = existing;
+            }
+        }
+        return reader;
+    }
+
+    /**
+     * Returns an {@link ObjectWriter} for the given type which shares the configuration of the {@link #MAPPER}.
+     *
+     * Writers are immutable and thread safe, so they are created once per type and cached.
+     *
+     * @param type the type of the values to write.
+     * @return the cached writer for the type.
+     */
+    public static ObjectWriter writerFor(final Class<?> type) {
+        ObjectWriter writer = WRITERS.get(type);
+        if (writer == null) {
+            writer = MAPPER.writerFor(type);
+            ObjectWriter existing = WRITERS.putIfAbsent(type, writer);
+            if (existing != null) {
+                writer = existing;
+            }
+        }
+        return writer;
+    }
+
     static {
         JSON_VALUE_MODULE.addSerializer(JsonObject.class, new JacksonTransformers.JsonObjectSerializer());
         JSON_VALUE_MODULE.addSerializer(JsonArray.class, new JacksonTransformers.JsonArraySerializer());
@@ -40,116 +94,239 @@ public class JacksonTransformers {
         MAPPER.registerModule(JacksonTransformers.JSON_VALUE_MODULE);
     }
 
+    /**
+     * Writes a {@link JsonObject} straight to the generator.
+     *
+     * The content is walked in place instead of being copied through {@link JsonObject#toMap()} first, so
+     * encoding a document does not allocate a second, recursive copy of it.
+     */
     static class JsonObjectSerializer extends JsonSerializer<JsonObject> {
         @Override
         public void serialize(JsonObject value, JsonGenerator jgen,
                               SerializerProvider provider) throws IOException {
-            jgen.writeObject(value.toMap());
+            writeObject(value, jgen, provider);
         }
     }
 
+    /**
+     * Writes a {@link JsonArray} straight to the generator, without copying it through
+     * {@link JsonArray#toList()} first.
+     */
     static class JsonArraySerializer extends JsonSerializer<JsonArray> {
         @Override
         public void serialize(JsonArray value, JsonGenerator jgen,
                               SerializerProvider provider) throws IOException {
-            jgen.writeObject(value.toList());
+            writeArray(value, jgen, provider);
+        }
+    }
+
+    private static void writeObject(final JsonObject value, final JsonGenerator jgen,
+        final SerializerProvider provider) throws IOException {
+        jgen.writeStartObject();
+        for (String name : value.getNames()) {
+            jgen.writeFieldName(name);
+            writeValue(value.get(name), jgen, provider);
+        }
+        jgen.writeEndObject();
+    }
+
+    private static void writeArray(final JsonArray value, final JsonGenerator jgen,
+        final SerializerProvider provider) throws IOException {
+        jgen.writeStartArray();
+        for (Object item : value) {
+            writeValue(item, jgen, provider);
+        }
+        jgen.writeEndArray();
+    }
+
+    /**
+     * Writes a single value, covering all types accepted by {@link JsonValue#checkType(Object)} directly and
+     * handing anything else to the regular Jackson serializers.
+     */
+    private static void writeValue(final Object value, final JsonGenerator jgen,
+        final SerializerProvider provider) throws IOException {
+        if (value == null) {
+            jgen.writeNull();
+        } else if (value instanceof String) {
+            jgen.writeString((String) value);
+        } else if (value instanceof JsonObject) {
+            writeObject((JsonObject) value, jgen, provider);
+        } else if (value instanceof JsonArray) {
+            writeArray((JsonArray) value, jgen, provider);
+        } else if (value instanceof Integer) {
+            jgen.writeNumber((Integer) value);
+        } else if (value instanceof Long) {
+            jgen.writeNumber((Long) value);
+        } else if (value instanceof Double) {
+            jgen.writeNumber((Double) value);
+        } else if (value instanceof Boolean) {
+            jgen.writeBoolean((Boolean) value);
+        } else if (value instanceof BigInteger) {
+            jgen.writeNumber((BigInteger) value);
+        } else {
+            // BigDecimal goes through its serializer as well so that WRITE_BIGDECIMAL_AS_PLAIN is honored
+            provider.defaultSerializeValue(value, jgen);
         }
     }
 
     static abstract class AbstractJsonValueDeserializer<T> extends JsonDeserializer<T> {
 
+        private static final Object[] NO_VALUES = new Object[0];
+
         private final boolean decimalForFloat;
+        private final boolean compactObjects;
 
         public AbstractJsonValueDeserializer() {
+            this(Boolean.parseBoolean(System.getProperty("com.couchbase.json.compactObjects", "false")));
+        }
+
+        /**
+         * @param compactObjects whether objects are decoded into compact {@link JsonObject}s sharing their field
+         *     names, see {@link JsonObjectShape}.
+         */
+        protected AbstractJsonValueDeserializer(final boolean compactObjects) {
             decimalForFloat = Boolean.parseBoolean(
                 System.getProperty("com.couchbase.json.decimalForFloat", "false")
             );
+            this.compactObjects = compactObjects;
         }
 
-        protected JsonObject decodeObject(final JsonParser parser, final JsonObject target) throws IOException {
+        /**
+         * Decodes a top-level object, compact if enabled.
+         */
+        protected JsonObject decodeRootObject(final JsonParser parser) throws IOException {
+            return compactObjects ? decodeCompactObject(parser, JsonObjectShape.ROOT, new ShapeBudget())
+                : decodeObject(parser, JsonObject.empty(), null);
+        }
+
+        /**
+         * Decodes a top-level array, whose objects are compact if enabled.
+         */
+        protected JsonArray decodeRootArray(final JsonParser parser) throws IOException {
+            return decodeArray(parser, JsonArray.empty(), compactObjects ? new ShapeBudget() : null);
+        }
+
+        /**
+         * Decodes an object into a compact {@link JsonObject} whose values are indexed by a shared
+         * {@link JsonObjectShape}, so objects with the same fields in the same order share their field names.
+         * If no shape can be used, for example because of a duplicate field or because the decode already created
+         * its share of new shapes, the rest of the object is decoded the regular way.
+         */
+        protected JsonObject decodeCompactObject(final JsonParser parser, final JsonObjectShape root,
+            final ShapeBudget budget) throws IOException {
+            JsonObjectShape shape = root;
+            JsonObjectShape first = null;
+            Object[] values = NO_VALUES;
+            int count = 0;
+            JsonToken current = parser.nextToken();
+            while (current != null && current != JsonToken.END_OBJECT) {
+                String field = parser.getCurrentName();
+                JsonObjectShape next = shape.find(field);
+                if (next == null && budget.remaining > 0) {
+                    budget.remaining--;
+                    next = shape.with(field);
+                }
+                Object value = decodeValue(parser, parser.nextToken(), budget);
+                if (next == null) {
+                    JsonObject target = JsonObject.fromShape(shape, Arrays.copyOf(values, count));
+                    target.put(field, value);
+                    return decodeObject(parser, target, budget);
+                }
+                if (count == 0) {
+                    first = next;
+                    int hint = first.sizeHint();
+                    values = new Object[hint > 0 ? hint : 8];
+                } else if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                values[count++] = value;
+                shape = next;
+                current = parser.nextToken();
+            }
+            if (first != null) {
+                first.sizeHint(count);
+            }
+            return JsonObject.fromShape(shape, count == values.length ? values : Arrays.copyOf(values, count));
+        }
+
+        /**
+         * Decodes the value starting at the current token, the budget is null unless objects are compact.
+         */
+        private Object decodeValue(final JsonParser parser, final JsonToken current, final ShapeBudget budget)
+            throws IOException {
+            switch (current) {
+                case START_OBJECT:
+                    return budget != null ? decodeCompactObject(parser, JsonObjectShape.NESTED, budget)
+                        : decodeObject(parser, JsonObject.empty(), null);
+                case START_ARRAY:
+                    return decodeArray(parser, JsonArray.empty(), budget);
+                case VALUE_TRUE:
+                case VALUE_FALSE:
+                    return parser.getBooleanValue();
+                case VALUE_STRING:
+                    return parser.getValueAsString();
+                case VALUE_NUMBER_INT:
+                case VALUE_NUMBER_FLOAT:
+                    Number numberValue = parser.getNumberValue();
+                    if (numberValue instanceof Double && decimalForFloat) {
+                        numberValue = parser.getDecimalValue();
+                    }
+                    return numberValue;
+                case VALUE_NULL:
+                    return null;
+                default:
+                    throw new IllegalStateException("Could not decode JSON token: " + current);
+            }
+        }
+
+        protected JsonObject decodeObject(final JsonParser parser, final JsonObject target,
+            final ShapeBudget budget) throws IOException {
             JsonToken current = parser.nextToken();
             String field = null;
-            while(current != null && current != JsonToken.END_OBJECT) {
-                if (current == JsonToken.START_OBJECT) {
-                    target.put(field, decodeObject(parser, JsonObject.empty()));
-                } else if (current == JsonToken.START_ARRAY) {
-                    target.put(field, decodeArray(parser, JsonArray.empty()));
-                } else if (current == JsonToken.FIELD_NAME) {
+            while (current != null && current != JsonToken.END_OBJECT) {
+                if (current == JsonToken.FIELD_NAME) {
                     field = parser.getCurrentName();
                 } else {
-                    switch(current) {
-                        case VALUE_TRUE:
-                        case VALUE_FALSE:
-                            target.put(field, parser.getBooleanValue());
-                            break;
-                        case VALUE_STRING:
-                            target.put(field, parser.getValueAsString());
-                            break;
-                        case VALUE_NUMBER_INT:
-                        case VALUE_NUMBER_FLOAT:
-                            Number numberValue = parser.getNumberValue();
-                            if (numberValue instanceof Double && decimalForFloat) {
-                                numberValue = parser.getDecimalValue();
-                            }
-                            target.put(field, numberValue);
-                            break;
-                        case VALUE_NULL:
-                            target.put(field, (JsonObject) null);
-                            break;
-                        default:
-                            throw new IllegalStateException("Could not decode JSON token: " + current);
-                    }
+                    target.put(field, decodeValue(parser, current, budget));
                 }
-
                 current = parser.nextToken();
             }
             return target;
         }
 
-        protected JsonArray decodeArray(final JsonParser parser, final JsonArray target) throws IOException {
+        protected JsonArray decodeArray(final JsonParser parser, final JsonArray target, final ShapeBudget budget)
+            throws IOException {
             JsonToken current = parser.nextToken();
             while (current != null && current != JsonToken.END_ARRAY) {
-                if (current == JsonToken.START_OBJECT) {
-                    target.add(decodeObject(parser, JsonObject.empty()));
-                } else if (current == JsonToken.START_ARRAY) {
-                    target.add(decodeArray(parser, JsonArray.empty()));
-                } else {
-                    switch(current) {
-                        case VALUE_TRUE:
-                        case VALUE_FALSE:
-                            target.add(parser.getBooleanValue());
-                            break;
-                        case VALUE_STRING:
-                            target.add(parser.getValueAsString());
-                            break;
-                        case VALUE_NUMBER_INT:
-                        case VALUE_NUMBER_FLOAT:
-                            Number numberValue = parser.getNumberValue();
-                            if (numberValue instanceof Double && decimalForFloat) {
-                                numberValue = parser.getDecimalValue();
-                            }
-                            target.add(numberValue);
-                            break;
-                        case VALUE_NULL:
-                            target.add((JsonObject) null);
-                            break;
-                        default:
-                            throw new IllegalStateException("Could not decode JSON token.");
-                    }
-                }
-
+                target.add(decodeValue(parser, current, budget));
                 current = parser.nextToken();
             }
             return target;
         }
+
+        /**
+         * The number of shapes a single decode may still create, so that one payload with objects used as maps
+         * cannot use up the bounds of the {@link JsonObjectShape}s.
+         */
+        static final class ShapeBudget {
+            int remaining = MAX_NEW_SHAPES_PER_DECODE;
+        }
     }
 
     static class JsonArrayDeserializer extends AbstractJsonValueDeserializer<JsonArray> {
+
+        JsonArrayDeserializer() {
+        }
+
+        JsonArrayDeserializer(final boolean compactObjects) {
+            super(compactObjects);
+        }
+
         @Override
         public JsonArray deserialize(JsonParser jp, DeserializationContext ctx)
             throws IOException {
             if (jp.getCurrentToken() == JsonToken.START_ARRAY) {
-                return decodeArray(jp, JsonArray.empty());
+                return decodeRootArray(jp);
             } else {
                 throw new IllegalStateException("Expecting Array as root level object, " +
                     "was: " + jp.getCurrentToken());
@@ -158,11 +335,19 @@ public class JacksonTransformers {
     }
 
     static class JsonObjectDeserializer extends AbstractJsonValueDeserializer<JsonObject> {
+
+        JsonObjectDeserializer() {
+        }
+
+        JsonObjectDeserializer(final boolean compactObjects) {
+            super(compactObjects);
+        }
+
         @Override
         public JsonObject deserialize(JsonParser jp, DeserializationContext ctx)
             throws IOException {
             if (jp.getCurrentToken() == JsonToken.START_OBJECT) {
-                return decodeObject(jp, JsonObject.empty());
+                return decodeRootObject(jp);
             } else {
                 throw new IllegalStateException("Expecting Object as root level object, " +
                     "was: " + jp.getCurrentToken());
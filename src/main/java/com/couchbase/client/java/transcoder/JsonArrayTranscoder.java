@@ -20,6 +20,7 @@ import com.couchbase.client.core.lang.Tuple2;
 import com.couchbase.client.core.message.ResponseStatus;
 import com.couchbase.client.core.message.kv.MutationToken;
 import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.ByteBufAllocator;
 import com.couchbase.client.deps.io.netty.buffer.Unpooled;
 import com.couchbase.client.java.document.JsonArrayDocument;
 import com.couchbase.client.java.document.JsonDocument;
@@ -34,6 +35,23 @@ import com.couchbase.client.java.error.TranscodingException;
  */
 public class JsonArrayTranscoder extends AbstractTranscoder<JsonArrayDocument, JsonArray> {
 
+    private final ByteBufAllocator allocator;
+    private final EncodeSizeHint sizeHint;
+
+    public JsonArrayTranscoder() {
+        this(null);
+    }
+
+    /**
+     * Creates a transcoder which encodes straight into buffers taken from the given allocator.
+     *
+     * @param allocator the allocator to use for encoding, or null to encode into unpooled heap buffers.
+     */
+    public JsonArrayTranscoder(final ByteBufAllocator allocator) {
+        this.allocator = allocator;
+        this.sizeHint = new EncodeSizeHint();
+    }
+
     @Override
     public Class<JsonArrayDocument> documentType() {
         return JsonArrayDocument.class;
@@ -70,6 +88,9 @@ public class JsonArrayTranscoder extends AbstractTranscoder<JsonArrayDocument, J
     }
 
     public ByteBuf jsonArrayToByteBuf(JsonArray input) throws Exception {
+        if (allocator != null) {
+            return TranscoderUtils.encodeToByteBuf(input, JacksonTransformers.MAPPER, allocator, sizeHint);
+        }
         return Unpooled.wrappedBuffer(JacksonTransformers.MAPPER.writeValueAsBytes(input));
     }
 
@@ -20,6 +20,7 @@ import com.couchbase.client.core.lang.Tuple2;
 import com.couchbase.client.core.message.ResponseStatus;
 import com.couchbase.client.core.message.kv.MutationToken;
 import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.ByteBufAllocator;
 import com.couchbase.client.deps.io.netty.buffer.Unpooled;
 import com.couchbase.client.java.document.JsonDocument;
 import com.couchbase.client.java.document.json.JsonArray;
@@ -34,7 +35,21 @@ import com.couchbase.client.java.error.TranscodingException;
  */
 public class JsonTranscoder extends AbstractTranscoder<JsonDocument, JsonObject> {
 
+    private final ByteBufAllocator allocator;
+    private final EncodeSizeHint sizeHint;
+
     public JsonTranscoder() {
+        this(null);
+    }
+
+    /**
+     * Creates a transcoder which encodes straight into buffers taken from the given allocator.
+     *
+     * @param allocator the allocator to use for encoding, or null to encode into unpooled heap buffers.
+     */
+    public JsonTranscoder(final ByteBufAllocator allocator) {
+        this.allocator = allocator;
+        this.sizeHint = new EncodeSizeHint();
     }
 
     @Override
@@ -73,6 +88,9 @@ public class JsonTranscoder extends AbstractTranscoder<JsonDocument, JsonObject>
     }
 
     public ByteBuf jsonObjectToByteBuf(JsonObject input) throws Exception {
+        if (allocator != null) {
+            return TranscoderUtils.encodeToByteBuf(input, JacksonTransformers.MAPPER, allocator, sizeHint);
+        }
         return Unpooled.wrappedBuffer(JacksonTransformers.MAPPER.writeValueAsBytes(input));
     }
 
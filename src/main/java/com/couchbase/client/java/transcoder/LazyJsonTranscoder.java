@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.transcoder;
+
+import com.couchbase.client.core.lang.Tuple;
+import com.couchbase.client.core.lang.Tuple2;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.kv.MutationToken;
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.java.document.LazyJsonDocument;
+import com.couchbase.client.java.document.json.LazyJsonObject;
+import com.couchbase.client.java.error.TranscodingException;
+
+/**
+ * A transcoder to encode and decode {@link LazyJsonDocument}s.
+ *
+ * Decoding only copies the raw bytes out of the response buffer (which is released right after) and defers
+ * all parsing to the {@link LazyJsonObject}. Encoding passes unmodified content through as-is.
+ *
+ * @since 2.7.24
+ */
+public class LazyJsonTranscoder extends AbstractTranscoder<LazyJsonDocument, LazyJsonObject> {
+
+    @Override
+    public Class<LazyJsonDocument> documentType() {
+        return LazyJsonDocument.class;
+    }
+
+    @Override
+    protected Tuple2<ByteBuf, Integer> doEncode(final LazyJsonDocument document) throws Exception {
+        LazyJsonObject content = document.content();
+        if (content == null) {
+            throw new TranscodingException("Content of LazyJsonDocument " + document.id() + " must not be null.");
+        }
+        byte[] unmodified = content.unmodifiedBytes();
+        ByteBuf encoded;
+        if (unmodified != null) {
+            encoded = Unpooled.wrappedBuffer(unmodified);
+        } else {
+            encoded = Unpooled.wrappedBuffer(JacksonTransformers.MAPPER.writeValueAsBytes(content.toJsonObject()));
+        }
+        return Tuple.create(encoded, TranscoderUtils.JSON_COMPAT_FLAGS);
+    }
+
+    @Override
+    protected LazyJsonDocument doDecode(String id, ByteBuf content, long cas, int expiry, int flags,
+        ResponseStatus status) throws Exception {
+        if (!TranscoderUtils.hasJsonFlags(flags)) {
+            throw new TranscodingException("Flags (0x" + Integer.toHexString(flags) + ") indicate non-JSON document for "
+                + "id " + id + ", could not decode.");
+        }
+        return newDocument(id, expiry, LazyJsonObject.fromBytes(TranscoderUtils.copyByteBufToByteArray(content)), cas);
+    }
+
+    @Override
+    public LazyJsonDocument newDocument(String id, int expiry, LazyJsonObject content, long cas) {
+        return LazyJsonDocument.create(id, expiry, content, cas, null);
+    }
+
+    @Override
+    public LazyJsonDocument newDocument(String id, int expiry, LazyJsonObject content, long cas,
+        MutationToken mutationToken) {
+        return LazyJsonDocument.create(id, expiry, content, cas, mutationToken);
+    }
+}
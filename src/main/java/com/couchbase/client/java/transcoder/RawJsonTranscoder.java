@@ -20,6 +20,7 @@ import com.couchbase.client.core.lang.Tuple2;
 import com.couchbase.client.core.message.ResponseStatus;
 import com.couchbase.client.core.message.kv.MutationToken;
 import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.ByteBufAllocator;
 import com.couchbase.client.deps.io.netty.util.CharsetUtil;
 import com.couchbase.client.java.document.RawJsonDocument;
 import com.couchbase.client.java.error.TranscodingException;
@@ -32,10 +33,27 @@ import com.couchbase.client.java.error.TranscodingException;
  */
 public class RawJsonTranscoder extends AbstractTranscoder<RawJsonDocument, String> {
 
+    private final ByteBufAllocator allocator;
+
+    public RawJsonTranscoder() {
+        this(null);
+    }
+
+    /**
+     * Creates a transcoder which encodes straight into buffers taken from the given allocator.
+     *
+     * @param allocator the allocator to use for encoding, or null to encode into unpooled heap buffers.
+     */
+    public RawJsonTranscoder(final ByteBufAllocator allocator) {
+        this.allocator = allocator;
+    }
+
     @Override
     protected Tuple2<ByteBuf, Integer> doEncode(RawJsonDocument document) throws Exception {
         return Tuple.create(
-            TranscoderUtils.encodeStringAsUtf8(document.content()),
+            allocator == null
+                ? TranscoderUtils.encodeStringAsUtf8(document.content())
+                : TranscoderUtils.encodeStringAsUtf8(document.content(), allocator),
             TranscoderUtils.JSON_COMPAT_FLAGS
         );
     }
@@ -0,0 +1,523 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.transcoder;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.ByteBufUtil;
+import com.couchbase.client.deps.io.netty.util.CharsetUtil;
+import com.couchbase.client.java.document.json.JsonArray;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.error.TranscodingException;
+
+/**
+ * Converts between {@link JsonObject}s and the binary Smile format.
+ *
+ * The encoding follows the Smile specification as written by Jackson's default Smile generator: a header, shared
+ * property names (a repeated name is written as a one or two byte back reference to its first occurrence, names
+ * longer than 56 bytes included), no shared string values and no end marker. Small integers take a single byte and strings are written without
+ * escaping. Content written by other Smile generators can be read as well, unless it uses shared string values or
+ * binary values, which have no {@link JsonObject} counterpart.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public final class SmileCodec {
+
+    private static final byte HEADER_0 = ':';
+    private static final byte HEADER_1 = ')';
+    private static final byte HEADER_2 = '\n';
+    private static final int HEADER_SHARED_NAMES = 0x01;
+    private static final int HEADER_SHARED_VALUES = 0x02;
+
+    private static final int MAX_SHARED_NAMES = 1024;
+    private static final int MAX_SHORT_NAME = 56;
+    private static final int MAX_SHORT_STRING = 64;
+
+    private static final int TOKEN_EMPTY_STRING = 0x20;
+    private static final int TOKEN_NULL = 0x21;
+    private static final int TOKEN_FALSE = 0x22;
+    private static final int TOKEN_TRUE = 0x23;
+    private static final int TOKEN_INT_32 = 0x24;
+    private static final int TOKEN_INT_64 = 0x25;
+    private static final int TOKEN_BIG_INTEGER = 0x26;
+    private static final int TOKEN_FLOAT_32 = 0x28;
+    private static final int TOKEN_FLOAT_64 = 0x29;
+    private static final int TOKEN_BIG_DECIMAL = 0x2A;
+    private static final int TOKEN_TINY_ASCII = 0x40;
+    private static final int TOKEN_SHORT_ASCII = 0x60;
+    private static final int TOKEN_TINY_UNICODE = 0x80;
+    private static final int TOKEN_SHORT_UNICODE = 0xA0;
+    private static final int TOKEN_SMALL_INT = 0xC0;
+    private static final int TOKEN_LONG_ASCII = 0xE0;
+    private static final int TOKEN_LONG_UNICODE = 0xE4;
+    private static final int TOKEN_START_ARRAY = 0xF8;
+    private static final int TOKEN_END_ARRAY = 0xF9;
+    private static final int TOKEN_START_OBJECT = 0xFA;
+    private static final int TOKEN_END_OBJECT = 0xFB;
+    private static final int TOKEN_END_STRING = 0xFC;
+
+    private static final int KEY_LONG_SHARED = 0x30;
+    private static final int KEY_LONG_NAME = 0x34;
+    private static final int KEY_SHORT_SHARED = 0x40;
+    private static final int KEY_SHORT_ASCII = 0x80;
+    private static final int KEY_SHORT_UNICODE = 0xC0;
+
+    private SmileCodec() {}
+
+    /**
+     * Encodes the object with a Smile header into the buffer.
+     *
+     * @param content the object to encode.
+     * @param target the buffer to write to.
+     * @return the target buffer.
+     */
+    public static ByteBuf encode(final JsonObject content, final ByteBuf target) {
+        target.writeByte(HEADER_0);
+        target.writeByte(HEADER_1);
+        target.writeByte(HEADER_2);
+        target.writeByte(HEADER_SHARED_NAMES);
+        new Writer(target).writeObject(content);
+        return target;
+    }
+
+    /**
+     * Decodes an object from Smile content with a header, without releasing the buffer.
+     *
+     * @param content the Smile content.
+     * @return the decoded object.
+     */
+    public static JsonObject decode(final ByteBuf content) {
+        ByteBuf in = content.duplicate();
+        if (in.readableBytes() < 4 || in.readByte() != HEADER_0 || in.readByte() != HEADER_1
+            || in.readByte() != HEADER_2) {
+            throw new TranscodingException("Content does not start with a Smile header.");
+        }
+        int features = in.readUnsignedByte();
+        if ((features >> 4) != 0) {
+            throw new TranscodingException("Unsupported Smile version " + (features >> 4) + ".");
+        }
+        if ((features & HEADER_SHARED_VALUES) != 0) {
+            throw new TranscodingException("Smile content with shared string values is not supported.");
+        }
+        int token = in.readUnsignedByte();
+        if (token != TOKEN_START_OBJECT) {
+            throw new TranscodingException("Smile content does not contain an object but token 0x"
+                + Integer.toHexString(token) + ".");
+        }
+        try {
+            return new Reader(in).readObject();
+        } catch (IndexOutOfBoundsException ex) {
+            throw new TranscodingException("Smile content is truncated.", ex);
+        }
+    }
+
+    /**
+     * Writes values, remembering the property names seen so far.
+     */
+    private static final class Writer {
+
+        private final ByteBuf out;
+        private final Map<String, Integer> names;
+
+        Writer(final ByteBuf out) {
+            this.out = out;
+            this.names = new HashMap<String, Integer>();
+        }
+
+        void writeObject(final JsonObject object) {
+            out.writeByte(TOKEN_START_OBJECT);
+            for (String name : object.getNames()) {
+                writeName(name);
+                writeValue(object.get(name));
+            }
+            out.writeByte(TOKEN_END_OBJECT);
+        }
+
+        void writeArray(final JsonArray array) {
+            out.writeByte(TOKEN_START_ARRAY);
+            for (Object item : array) {
+                writeValue(item);
+            }
+            out.writeByte(TOKEN_END_ARRAY);
+        }
+
+        void writeName(final String name) {
+            if (name.isEmpty()) {
+                out.writeByte(TOKEN_EMPTY_STRING);
+                return;
+            }
+            Integer shared = names.get(name);
+            if (shared != null) {
+                int index = shared;
+                if (index < 64) {
+                    out.writeByte(KEY_SHORT_SHARED + index);
+                } else {
+                    out.writeByte(KEY_LONG_SHARED + (index >> 8));
+                    out.writeByte(index);
+                }
+                return;
+            }
+            int length = ByteBufUtil.utf8Bytes(name);
+            if (length > MAX_SHORT_NAME) {
+                out.writeByte(KEY_LONG_NAME);
+                ByteBufUtil.reserveAndWriteUtf8(out, name, length);
+                out.writeByte(TOKEN_END_STRING);
+            } else if (length == name.length()) {
+                out.writeByte(KEY_SHORT_ASCII + length - 1);
+                ByteBufUtil.reserveAndWriteUtf8(out, name, length);
+            } else {
+                out.writeByte(KEY_SHORT_UNICODE + length - 2);
+                ByteBufUtil.reserveAndWriteUtf8(out, name, length);
+            }
+            if (names.size() == MAX_SHARED_NAMES) {
+                names.clear();
+            }
+            names.put(name, names.size());
+        }
+
+        void writeValue(final Object value) {
+            if (value == null) {
+                out.writeByte(TOKEN_NULL);
+            } else if (value instanceof String) {
+                writeString((String) value);
+            } else if (value instanceof JsonObject) {
+                writeObject((JsonObject) value);
+            } else if (value instanceof JsonArray) {
+                writeArray((JsonArray) value);
+            } else if (value instanceof Integer) {
+                writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                long l = (Long) value;
+                if (l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE) {
+                    writeInt((int) l);
+                } else {
+                    out.writeByte(TOKEN_INT_64);
+                    writeVLong((l << 1) ^ (l >> 63));
+                }
+            } else if (value instanceof Double) {
+                long bits = Double.doubleToRawLongBits((Double) value);
+                out.writeByte(TOKEN_FLOAT_64);
+                for (int shift = 63; shift > 0; shift -= 7) {
+                    out.writeByte((int) (bits >>> shift) & 0x7F);
+                }
+                out.writeByte((int) bits & 0x7F);
+            } else if (value instanceof Boolean) {
+                out.writeByte((Boolean) value ? TOKEN_TRUE : TOKEN_FALSE);
+            } else if (value instanceof BigInteger) {
+                out.writeByte(TOKEN_BIG_INTEGER);
+                write7BitBinary(((BigInteger) value).toByteArray());
+            } else if (value instanceof BigDecimal) {
+                BigDecimal decimal = (BigDecimal) value;
+                int scale = decimal.scale();
+                out.writeByte(TOKEN_BIG_DECIMAL);
+                writeVLong(((scale << 1) ^ (scale >> 31)) & 0xFFFFFFFFL);
+                write7BitBinary(decimal.unscaledValue().toByteArray());
+            } else {
+                throw new TranscodingException("Unsupported type " + value.getClass().getName()
+                    + " in JsonObject.");
+            }
+        }
+
+        private void writeInt(final int value) {
+            int zigZag = (value << 1) ^ (value >> 31);
+            if (zigZag >= 0 && zigZag <= 0x1F) {
+                out.writeByte(TOKEN_SMALL_INT + zigZag);
+            } else {
+                out.writeByte(TOKEN_INT_32);
+                writeVLong(zigZag & 0xFFFFFFFFL);
+            }
+        }
+
+        private void writeString(final String value) {
+            if (value.isEmpty()) {
+                out.writeByte(TOKEN_EMPTY_STRING);
+                return;
+            }
+            int length = ByteBufUtil.utf8Bytes(value);
+            boolean ascii = length == value.length();
+            if (ascii && length <= 32) {
+                out.writeByte(TOKEN_TINY_ASCII + length - 1);
+            } else if (ascii && length <= MAX_SHORT_STRING) {
+                out.writeByte(TOKEN_SHORT_ASCII + length - 33);
+            } else if (!ascii && length <= 33) {
+                out.writeByte(TOKEN_TINY_UNICODE + length - 2);
+            } else if (!ascii && length <= MAX_SHORT_STRING) {
+                out.writeByte(TOKEN_SHORT_UNICODE + length - 34);
+            } else {
+                out.writeByte(ascii ? TOKEN_LONG_ASCII : TOKEN_LONG_UNICODE);
+                ByteBufUtil.reserveAndWriteUtf8(out, value, length);
+                out.writeByte(TOKEN_END_STRING);
+                return;
+            }
+            ByteBufUtil.reserveAndWriteUtf8(out, value, length);
+        }
+
+        /**
+         * Writes an unsigned variable length integer, most significant group first: 7 bits per byte with
+         * the high bit clear, and 6 bits in the last byte, which has the high bit set.
+         */
+        private void writeVLong(final long value) {
+            int groups = 0;
+            for (long rest = value >>> 6; rest != 0; rest >>>= 7) {
+                groups++;
+            }
+            for (int i = groups; i > 0; i--) {
+                out.writeByte((int) (value >>> (6 + 7 * (i - 1))) & 0x7F);
+            }
+            out.writeByte(0x80 | ((int) value & 0x3F));
+        }
+
+        /**
+         * Writes the length of the data followed by the data in 7 bit bytes, see {@link Reader#read7BitBinary()}.
+         */
+        private void write7BitBinary(final byte[] data) {
+            writeVLong(data.length);
+            for (int offset = 0; offset < data.length; offset += 7) {
+                int count = Math.min(7, data.length - offset);
+                long bits = 0;
+                for (int i = 0; i < count; i++) {
+                    bits = (bits << 8) | (data[offset + i] & 0xFF);
+                }
+                int remaining = count * 8;
+                for (int i = 0; i < count; i++) {
+                    remaining -= 7;
+                    out.writeByte((int) (bits >>> remaining) & 0x7F);
+                }
+                out.writeByte((int) bits & ((1 << remaining) - 1));
+            }
+        }
+    }
+
+    /**
+     * Reads values, remembering the property names seen so far.
+     */
+    private static final class Reader {
+
+        private final ByteBuf in;
+        private String[] names;
+        private int nameCount;
+        private byte[] scratch;
+        private char[] chars;
+
+        Reader(final ByteBuf in) {
+            this.in = in;
+            this.names = new String[16];
+            this.scratch = new byte[0];
+            this.chars = new char[64];
+        }
+
+        JsonObject readObject() {
+            JsonObject object = JsonObject.create();
+            while (true) {
+                int token = in.readUnsignedByte();
+                if (token == TOKEN_END_OBJECT) {
+                    return object;
+                }
+                String name = readName(token);
+                object.put(name, readValue(in.readUnsignedByte()));
+            }
+        }
+
+        JsonArray readArray() {
+            JsonArray array = JsonArray.create();
+            while (true) {
+                int token = in.readUnsignedByte();
+                if (token == TOKEN_END_ARRAY) {
+                    return array;
+                }
+                array.add(readValue(token));
+            }
+        }
+
+        String readName(final int token) {
+            if (token == TOKEN_EMPTY_STRING) {
+                return "";
+            } else if (token >= KEY_SHORT_SHARED && token < KEY_SHORT_ASCII) {
+                return sharedName(token - KEY_SHORT_SHARED);
+            } else if (token >= KEY_LONG_SHARED && token < KEY_LONG_NAME) {
+                return sharedName(((token & 0x03) << 8) | in.readUnsignedByte());
+            } else if (token == KEY_LONG_NAME) {
+                return addName(readTerminated());
+            } else if (token >= KEY_SHORT_ASCII && token < KEY_SHORT_UNICODE) {
+                return addName(readAscii(token - KEY_SHORT_ASCII + 1));
+            } else if (token >= KEY_SHORT_UNICODE && token < TOKEN_START_ARRAY) {
+                return addName(readString(token - KEY_SHORT_UNICODE + 2));
+            }
+            throw new TranscodingException("Invalid Smile property name token 0x" + Integer.toHexString(token) + ".");
+        }
+
+        private String sharedName(final int index) {
+            if (index >= nameCount) {
+                throw new TranscodingException("Invalid Smile shared property name reference " + index + ".");
+            }
+            return names[index];
+        }
+
+        private String addName(final String name) {
+            if (nameCount == MAX_SHARED_NAMES) {
+                nameCount = 0;
+            } else if (nameCount == names.length) {
+                names = Arrays.copyOf(names, Math.min(names.length * 2, MAX_SHARED_NAMES));
+            }
+            names[nameCount++] = name;
+            return name;
+        }
+
+        Object readValue(final int token) {
+            switch (token >> 5) {
+                case 2:
+                    return readAscii(token - TOKEN_TINY_ASCII + 1);
+                case 3:
+                    return readAscii(token - TOKEN_SHORT_ASCII + 33);
+                case 4:
+                    return readString(token - TOKEN_TINY_UNICODE + 2);
+                case 5:
+                    return readString(token - TOKEN_SHORT_UNICODE + 34);
+                case 6:
+                    int small = token - TOKEN_SMALL_INT;
+                    return (small >>> 1) ^ -(small & 1);
+                default:
+                    break;
+            }
+            switch (token) {
+                case TOKEN_EMPTY_STRING:
+                    return "";
+                case TOKEN_NULL:
+                    return null;
+                case TOKEN_FALSE:
+                    return Boolean.FALSE;
+                case TOKEN_TRUE:
+                    return Boolean.TRUE;
+                case TOKEN_INT_32:
+                    int zigZag = (int) readVLong();
+                    return (zigZag >>> 1) ^ -(zigZag & 1);
+                case TOKEN_INT_64:
+                    long zigZagLong = readVLong();
+                    return (zigZagLong >>> 1) ^ -(zigZagLong & 1);
+                case TOKEN_BIG_INTEGER:
+                    return new BigInteger(read7BitBinary());
+                case TOKEN_FLOAT_32:
+                    int floatBits = 0;
+                    for (int i = 0; i < 5; i++) {
+                        floatBits = (floatBits << 7) | in.readUnsignedByte();
+                    }
+                    return (double) Float.intBitsToFloat(floatBits);
+                case TOKEN_FLOAT_64:
+                    long doubleBits = 0;
+                    for (int i = 0; i < 10; i++) {
+                        doubleBits = (doubleBits << 7) | in.readUnsignedByte();
+                    }
+                    return Double.longBitsToDouble(doubleBits);
+                case TOKEN_BIG_DECIMAL:
+                    int scale = (int) readVLong();
+                    scale = (scale >>> 1) ^ -(scale & 1);
+                    return new BigDecimal(new BigInteger(read7BitBinary()), scale);
+                case TOKEN_LONG_ASCII:
+                case TOKEN_LONG_UNICODE:
+                    return readTerminated();
+                case TOKEN_START_ARRAY:
+                    return readArray();
+                case TOKEN_START_OBJECT:
+                    return readObject();
+                default:
+                    throw new TranscodingException("Unsupported Smile value token 0x" + Integer.toHexString(token)
+                        + ".");
+            }
+        }
+
+        /**
+         * Reads a string the token marks as ASCII, skipping the UTF-8 decoder.
+         */
+        private String readAscii(final int length) {
+            int index = in.readerIndex();
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) (in.getByte(index + i) & 0x7F);
+            }
+            in.skipBytes(length);
+            return new String(chars, 0, length);
+        }
+
+        private String readString(final int length) {
+            String value;
+            if (in.hasArray()) {
+                value = new String(in.array(), in.arrayOffset() + in.readerIndex(), length, CharsetUtil.UTF_8);
+                in.skipBytes(length);
+            } else {
+                if (scratch.length < length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+                in.readBytes(scratch, 0, length);
+                value = new String(scratch, 0, length, CharsetUtil.UTF_8);
+            }
+            return value;
+        }
+
+        private String readTerminated() {
+            int length = in.bytesBefore((byte) TOKEN_END_STRING);
+            if (length < 0) {
+                throw new TranscodingException("Smile content is truncated.");
+            }
+            String value = readString(length);
+            in.skipBytes(1);
+            return value;
+        }
+
+        private long readVLong() {
+            long value = 0;
+            for (int i = 0; i < 10; i++) {
+                int b = in.readUnsignedByte();
+                if ((b & 0x80) != 0) {
+                    return (value << 6) | (b & 0x3F);
+                }
+                value = (value << 7) | b;
+            }
+            throw new TranscodingException("Malformed Smile variable length integer.");
+        }
+
+        /**
+         * Reads data written as 7 bits per byte: every group of up to 7 bytes is written as one byte per input
+         * byte carrying 7 bits each, most significant first, followed by a byte with the remaining bits.
+         */
+        private byte[] read7BitBinary() {
+            long length = readVLong();
+            if (length < 0 || length > in.readableBytes()) {
+                throw new TranscodingException("Invalid Smile binary length " + length + ".");
+            }
+            byte[] data = new byte[(int) length];
+            for (int offset = 0; offset < data.length; offset += 7) {
+                int count = Math.min(7, data.length - offset);
+                long bits = 0;
+                for (int i = 0; i < count; i++) {
+                    bits = (bits << 7) | in.readUnsignedByte();
+                }
+                bits = (bits << count) | (in.readUnsignedByte() & ((1 << count) - 1));
+                for (int i = count - 1; i >= 0; i--) {
+                    data[offset + count - 1 - i] = (byte) (bits >>> (8 * i));
+                }
+            }
+            return data;
+        }
+    }
+}
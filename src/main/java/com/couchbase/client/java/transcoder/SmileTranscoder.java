@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.transcoder;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.lang.Tuple;
+import com.couchbase.client.core.lang.Tuple2;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.kv.MutationToken;
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.ByteBufAllocator;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.java.document.SmileDocument;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.error.TranscodingException;
+
+/**
+ * A transcoder to encode and decode {@link SmileDocument}s.
+ *
+ * Documents are written with the {@link TranscoderUtils#SMILE_COMPAT_FLAGS}. Documents flagged as JSON are decoded
+ * from JSON text, so documents written as {@link com.couchbase.client.java.document.JsonDocument} can be read
+ * (and then rewritten) as {@link SmileDocument}s.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class SmileTranscoder extends AbstractTranscoder<SmileDocument, JsonObject> {
+
+    private final ByteBufAllocator allocator;
+    private final EncodeSizeHint sizeHint;
+
+    public SmileTranscoder() {
+        this(null);
+    }
+
+    /**
+     * Creates a transcoder which encodes straight into buffers taken from the given allocator.
+     *
+     * @param allocator the allocator to use for encoding, or null to encode into unpooled heap buffers.
+     */
+    public SmileTranscoder(final ByteBufAllocator allocator) {
+        this.allocator = allocator;
+        this.sizeHint = new EncodeSizeHint();
+    }
+
+    @Override
+    public Class<SmileDocument> documentType() {
+        return SmileDocument.class;
+    }
+
+    @Override
+    protected Tuple2<ByteBuf, Integer> doEncode(final SmileDocument document) throws Exception {
+        ByteBuf target = allocator == null ? Unpooled.buffer(sizeHint.next()) : allocator.buffer(sizeHint.next());
+        try {
+            SmileCodec.encode(document.content(), target);
+        } catch (RuntimeException ex) {
+            target.release();
+            throw ex;
+        }
+        sizeHint.record(target.readableBytes());
+        return Tuple.create(target, TranscoderUtils.SMILE_COMPAT_FLAGS);
+    }
+
+    @Override
+    protected SmileDocument doDecode(String id, ByteBuf content, long cas, int expiry, int flags,
+        ResponseStatus status) throws Exception {
+        JsonObject decoded;
+        if (TranscoderUtils.hasSmileFlags(flags)) {
+            decoded = SmileCodec.decode(content);
+        } else if (TranscoderUtils.hasJsonFlags(flags)) {
+            decoded = TranscoderUtils.byteBufToClass(content, JsonObject.class, JacksonTransformers.MAPPER);
+        } else {
+            throw new TranscodingException("Flags (0x" + Integer.toHexString(flags) + ") indicate neither a Smile "
+                + "nor a JSON document for id " + id + ", could not decode.");
+        }
+        return newDocument(id, expiry, decoded, cas);
+    }
+
+    @Override
+    public SmileDocument newDocument(String id, int expiry, JsonObject content, long cas) {
+        return SmileDocument.create(id, expiry, content, cas);
+    }
+
+    @Override
+    public SmileDocument newDocument(String id, int expiry, JsonObject content, long cas,
+        MutationToken mutationToken) {
+        return SmileDocument.create(id, expiry, content, cas, mutationToken);
+    }
+}
@@ -20,6 +20,7 @@ import com.couchbase.client.core.lang.Tuple2;
 import com.couchbase.client.core.message.ResponseStatus;
 import com.couchbase.client.core.message.kv.MutationToken;
 import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.ByteBufAllocator;
 import com.couchbase.client.deps.io.netty.util.CharsetUtil;
 import com.couchbase.client.java.document.StringDocument;
 import com.couchbase.client.java.error.TranscodingException;
@@ -32,6 +33,21 @@ import com.couchbase.client.java.error.TranscodingException;
  */
 public class StringTranscoder extends AbstractTranscoder<StringDocument, String> {
 
+    private final ByteBufAllocator allocator;
+
+    public StringTranscoder() {
+        this(null);
+    }
+
+    /**
+     * Creates a transcoder which encodes straight into buffers taken from the given allocator.
+     *
+     * @param allocator the allocator to use for encoding, or null to encode into unpooled heap buffers.
+     */
+    public StringTranscoder(final ByteBufAllocator allocator) {
+        this.allocator = allocator;
+    }
+
     @Override
     protected StringDocument doDecode(String id, ByteBuf content, long cas, int expiry, int flags,
         ResponseStatus status) throws Exception {
@@ -45,7 +61,9 @@ public class StringTranscoder extends AbstractTranscoder<StringDocument, String>
     @Override
     protected Tuple2<ByteBuf, Integer> doEncode(StringDocument document) throws Exception {
         return Tuple.create(
-            TranscoderUtils.encodeStringAsUtf8(document.content()),
+            allocator == null
+                ? TranscoderUtils.encodeStringAsUtf8(document.content())
+                : TranscoderUtils.encodeStringAsUtf8(document.content(), allocator),
             TranscoderUtils.STRING_COMMON_FLAGS
         );
     }
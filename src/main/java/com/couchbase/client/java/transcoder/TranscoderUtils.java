@@ -19,8 +19,12 @@ import com.couchbase.client.core.endpoint.util.WhitespaceSkipper;
 import com.couchbase.client.core.logging.CouchbaseLogger;
 import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
 import com.couchbase.client.deps.com.fasterxml.jackson.databind.ObjectMapper;
+import com.couchbase.client.deps.com.fasterxml.jackson.databind.ObjectReader;
+import com.couchbase.client.deps.com.fasterxml.jackson.databind.ObjectWriter;
 import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.ByteBufAllocator;
 import com.couchbase.client.deps.io.netty.buffer.ByteBufInputStream;
+import com.couchbase.client.deps.io.netty.buffer.ByteBufOutputStream;
 import com.couchbase.client.deps.io.netty.buffer.ByteBufUtil;
 import com.couchbase.client.deps.io.netty.buffer.Unpooled;
 import com.couchbase.client.java.document.json.JsonArray;
@@ -61,10 +65,27 @@ public class TranscoderUtils {
      */
     public static final int COMMON_FORMAT_MASK = 0x0F000000;
 
+    /**
+     * This mask allows to compare a 32 bits flags with the 3 compression bits
+     * ("11100000 00000000 00000000 00000000").
+     *
+     * @see #extractCompressionFlags(int)
+     */
+    public static final int COMPRESSION_MASK = 0xE0000000;
+
+    /**
+     * The compression bits set on documents compressed with Snappy by the {@link CompressingTranscoder}.
+     *
+     * The lowest compression bit is used so that the flags stay positive and {@link #hasCommonFlags(int)}
+     * keeps working.
+     */
+    public static final int SNAPPY_COMPRESSION_FLAGS = 1 << 29;
+
     public static final int PRIVATE_COMMON_FLAGS = createCommonFlags(CommonFlags.PRIVATE.ordinal());
     public static final int JSON_COMMON_FLAGS = createCommonFlags(CommonFlags.JSON.ordinal());
     public static final int BINARY_COMMON_FLAGS = createCommonFlags(CommonFlags.BINARY.ordinal());
     public static final int STRING_COMMON_FLAGS = createCommonFlags(CommonFlags.STRING.ordinal());
+    public static final int SMILE_COMMON_FLAGS = createCommonFlags(CommonFlags.SMILE.ordinal());
 
     public static final int SERIALIZED_LEGACY_FLAGS = 1;
     public static final int BINARY_LEGACY_FLAGS = (8 << 8);
@@ -82,6 +103,7 @@ public class TranscoderUtils {
     public static final int LONG_COMPAT_FLAGS       = JSON_COMMON_FLAGS     | LONG_LEGACY_FLAGS;
     public static final int DOUBLE_COMPAT_FLAGS     = JSON_COMMON_FLAGS     | DOUBLE_LEGACY_FLAGS;
     public static final int STRING_COMPAT_FLAGS     = STRING_COMMON_FLAGS   | STRING_LEGACY_FLAGS;
+    public static final int SMILE_COMPAT_FLAGS      = SMILE_COMMON_FLAGS;
 
     private TranscoderUtils() {}
 
@@ -111,6 +133,16 @@ public class TranscoderUtils {
         return (flags >> 29) > 0;
     }
 
+    /**
+     * Returns only the compression bits from the full flags, still in their position.
+     *
+     * @param flags the flags to check.
+     * @return only the compression bits.
+     */
+    public static int extractCompressionFlags(final int flags) {
+        return flags & COMPRESSION_MASK;
+    }
+
     /**
      * Checks that flags has common flags bits set and that they correspond to expected common flags format.
      *
@@ -194,6 +226,18 @@ public class TranscoderUtils {
         return hasFlags(flags, PRIVATE_COMMON_FLAGS, SERIALIZED_LEGACY_FLAGS);
     }
 
+    /**
+     * Checks if the flags identify a Smile encoded JSON document.
+     *
+     * There is no legacy equivalent, so this method only checks the common flags.
+     *
+     * @param flags the flags to check.
+     * @return true if Smile, false otherwise.
+     */
+    public static boolean hasSmileFlags(final int flags) {
+        return hasCommonFormat(flags, SMILE_COMMON_FLAGS);
+    }
+
     /**
      * Checks if the flags identify a binary document.
      *
@@ -252,6 +296,78 @@ public class TranscoderUtils {
         return target;
     }
 
+    /**
+     * Helper method to encode a String into UTF8 straight into a buffer from the given allocator.
+     *
+     * @param source the source document.
+     * @param allocator the allocator to take the buffer from.
+     * @return the encoded byte buffer.
+     */
+    public static ByteBuf encodeStringAsUtf8(String source, ByteBufAllocator allocator) {
+        int length = ByteBufUtil.utf8Bytes(source);
+        ByteBuf target = allocator.buffer(length);
+        ByteBufUtil.reserveAndWriteUtf8(target, source, length);
+        return target;
+    }
+
+    /**
+     * Helper method to serialize a value with the given mapper straight into a buffer from the given allocator,
+     * without going through an intermediate byte array.
+     *
+     * The initial capacity of the buffer is taken from the size hint, which is then updated with the
+     * actual encoded size. If serialization fails the buffer is released before the exception is propagated.
+     *
+     * @param value the value to serialize.
+     * @param mapper the mapper to use for encoding.
+     * @param allocator the allocator to take the buffer from.
+     * @param sizeHint the size hint for the encoded type.
+     * @return the encoded byte buffer.
+     * @throws IOException in case encoding failed.
+     */
+    public static ByteBuf encodeToByteBuf(Object value, ObjectMapper mapper, ByteBufAllocator allocator,
+        EncodeSizeHint sizeHint) throws IOException {
+        ByteBuf target = allocator.buffer(sizeHint.next());
+        try {
+            mapper.writeValue((OutputStream) new ByteBufOutputStream(target), value);
+            sizeHint.record(target.readableBytes());
+            return target;
+        } catch (IOException ex) {
+            target.release();
+            throw ex;
+        } catch (RuntimeException ex) {
+            target.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Helper method to serialize a value with the given writer straight into a buffer from the given allocator,
+     * without going through an intermediate byte array.
+     *
+     * @param value the value to serialize.
+     * @param writer the writer to use for encoding.
+     * @param allocator the allocator to take the buffer from.
+     * @param sizeHint the size hint for the encoded type.
+     * @return the encoded byte buffer.
+     * @throws IOException in case encoding failed.
+     * @see #encodeToByteBuf(Object, ObjectMapper, ByteBufAllocator, EncodeSizeHint)
+     */
+    public static ByteBuf encodeToByteBuf(Object value, ObjectWriter writer, ByteBufAllocator allocator,
+        EncodeSizeHint sizeHint) throws IOException {
+        ByteBuf target = allocator.buffer(sizeHint.next());
+        try {
+            writer.writeValue((OutputStream) new ByteBufOutputStream(target), value);
+            sizeHint.record(target.readableBytes());
+            return target;
+        } catch (IOException ex) {
+            target.release();
+            throw ex;
+        } catch (RuntimeException ex) {
+            target.release();
+            throw ex;
+        }
+    }
+
     /**
      * A class that holds information from a {@link ByteBuf} that allows to
      * read its corresponding byte array. Offset and length are needed in case
@@ -344,6 +460,24 @@ public class TranscoderUtils {
         }
     }
 
+    /**
+     * Decode a {@link ByteBuf} into the type the given {@link ObjectReader} is bound to, without copying the
+     * readable bytes if the buffer is backed by an array. The buffer is not released.
+     *
+     * @param input the ByteBuf to decode.
+     * @param reader the reader bound to the target type.
+     * @param <T> the decoded type.
+     * @return the decoded value.
+     * @throws IOException in case decoding failed.
+     */
+    public static <T> T byteBufToClass(ByteBuf input, ObjectReader reader) throws IOException {
+        if (input.hasArray()) {
+            return reader.readValue(input.array(), input.arrayOffset() + input.readerIndex(), input.readableBytes());
+        } else {
+            return reader.readValue((InputStream) new ByteBufInputStream(input));
+        }
+    }
+
     /**
      * Converts a {@link ByteBuf} representing a valid JSON entity to a generic {@link Object},
      * <b>without releasing the buffer</b>. The entity can either be a JSON object, array or scalar value,
@@ -405,7 +539,11 @@ public class TranscoderUtils {
         PRIVATE,
         JSON,
         BINARY,
-        STRING
+        STRING,
+        /**
+         * Binary JSON in the Smile format, only understood by this client.
+         */
+        SMILE
     }
 
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.transcoder;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.lang.Tuple;
+import com.couchbase.client.core.lang.Tuple2;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.kv.MutationToken;
+import com.couchbase.client.deps.com.fasterxml.jackson.databind.ObjectReader;
+import com.couchbase.client.deps.com.fasterxml.jackson.databind.ObjectWriter;
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.ByteBufAllocator;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.java.document.TypedJsonDocument;
+import com.couchbase.client.java.error.TranscodingException;
+
+/**
+ * A transcoder to encode and decode {@link TypedJsonDocument}s, binding the JSON content straight to and from
+ * the content type with the cached {@link JacksonTransformers#readerFor(Class) reader} and
+ * {@link JacksonTransformers#writerFor(Class) writer} of the {@link JacksonTransformers#MAPPER}.
+ *
+ * The bucket registers a transcoder without content type, which can only encode documents. Register a transcoder
+ * for the content type to read them:
+ *
+ * ```
+ * Bucket bucket = cluster.openBucket("default",
+ *     Collections.<Transcoder<? extends Document, ?>>singletonList(new TypedJsonTranscoder<User>(User.class)));
+ * TypedJsonDocument<User> user = bucket.get("user::1", TypedJsonDocument.class);
+ * ```
+ *
+ * To bind several content types in the same bucket, subclass {@link TypedJsonDocument} per content type and
+ * register a transcoder creating the subclass for each of them:
+ *
+ * ```
+ * new TypedJsonTranscoder<User>(UserDocument.class, User.class) {
+ *     public TypedJsonDocument<User> newDocument(String id, int expiry, User content, long cas,
+ *         MutationToken mutationToken) {
+ *         return new UserDocument(id, expiry, content, cas, mutationToken);
+ *     }
+ * };
+ * ```
+ *
+ * @param <T> the type of the content.
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class TypedJsonTranscoder<T> extends AbstractTranscoder<TypedJsonDocument<T>, T> {
+
+    private final Class<? extends TypedJsonDocument> documentType;
+    private final Class<T> contentType;
+    private final ObjectReader reader;
+    private final ByteBufAllocator allocator;
+    private final EncodeSizeHint sizeHint;
+
+    /**
+     * Creates a transcoder which can only encode documents, used by the bucket if no content type
+     * has been registered.
+     */
+    public TypedJsonTranscoder() {
+        this(TypedJsonDocument.class, null, null);
+    }
+
+    /**
+     * Creates a transcoder binding {@link TypedJsonDocument}s to the given content type.
+     *
+     * @param contentType the type of the content.
+     */
+    public TypedJsonTranscoder(final Class<T> contentType) {
+        this(TypedJsonDocument.class, contentType, null);
+    }
+
+    /**
+     * Creates a transcoder binding {@link TypedJsonDocument}s to the given content type, which encodes
+     * straight into buffers taken from the given allocator.
+     *
+     * @param contentType the type of the content.
+     * @param allocator the allocator to use for encoding, or null to encode into unpooled heap buffers.
+     */
+    public TypedJsonTranscoder(final Class<T> contentType, final ByteBufAllocator allocator) {
+        this(TypedJsonDocument.class, contentType, allocator);
+    }
+
+    /**
+     * Creates a transcoder for a subclass of {@link TypedJsonDocument}, which must override
+     * {@link #newDocument(String, int, Object, long, MutationToken)} to create instances of it.
+     *
+     * @param documentType the subclass of {@link TypedJsonDocument} the transcoder is registered for.
+     * @param contentType the type of the content.
+     */
+    protected TypedJsonTranscoder(final Class<? extends TypedJsonDocument> documentType,
+        final Class<T> contentType) {
+        this(documentType, contentType, null);
+    }
+
+    private TypedJsonTranscoder(final Class<? extends TypedJsonDocument> documentType, final Class<T> contentType,
+        final ByteBufAllocator allocator) {
+        this.documentType = documentType;
+        this.contentType = contentType;
+        this.reader = contentType == null ? null : JacksonTransformers.readerFor(contentType);
+        this.allocator = allocator;
+        this.sizeHint = new EncodeSizeHint();
+    }
+
+    /**
+     * The type the content is bound to when decoding, or null if this transcoder can only encode.
+     */
+    public Class<T> contentType() {
+        return contentType;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Class<TypedJsonDocument<T>> documentType() {
+        return (Class<TypedJsonDocument<T>>) (Class<?>) documentType;
+    }
+
+    @Override
+    protected Tuple2<ByteBuf, Integer> doEncode(final TypedJsonDocument<T> document) throws Exception {
+        T content = document.content();
+        ObjectWriter writer = JacksonTransformers.writerFor(content == null
+            ? (contentType == null ? Object.class : contentType) : content.getClass());
+        ByteBuf encoded = allocator != null
+            ? TranscoderUtils.encodeToByteBuf(content, writer, allocator, sizeHint)
+            : Unpooled.wrappedBuffer(writer.writeValueAsBytes(content));
+        return Tuple.create(encoded, TranscoderUtils.JSON_COMPAT_FLAGS);
+    }
+
+    @Override
+    protected TypedJsonDocument<T> doDecode(final String id, final ByteBuf content, final long cas, final int expiry,
+        final int flags, final ResponseStatus status) throws Exception {
+        if (!TranscoderUtils.hasJsonFlags(flags)) {
+            throw new TranscodingException("Flags (0x" + Integer.toHexString(flags) + ") indicate non-JSON document for "
+                + "id " + id + ", could not decode.");
+        }
+        if (reader == null) {
+            throw new TranscodingException("No content type is registered to decode the TypedJsonDocument with id "
+                + id + ", register a TypedJsonTranscoder for it as a custom transcoder of the bucket.");
+        }
+        T decoded = TranscoderUtils.byteBufToClass(content, reader);
+        return newDocument(id, expiry, decoded, cas, null);
+    }
+
+    @Override
+    public TypedJsonDocument<T> newDocument(String id, int expiry, T content, long cas) {
+        return newDocument(id, expiry, content, cas, null);
+    }
+
+    @Override
+    public TypedJsonDocument<T> newDocument(String id, int expiry, T content, long cas,
+        MutationToken mutationToken) {
+        return TypedJsonDocument.create(id, expiry, content, cas, mutationToken);
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.util;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Options to configure the adaptive timeouts of a bucket, see
+ * {@link com.couchbase.client.java.Bucket#enableAdaptiveTimeouts(AdaptiveTimeoutOptions)}.
+ *
+ * The timeout of an operation is the {@link #multiplier(double) multiplier} times the {@link #percentile(double)
+ * percentile} of the recently observed latencies of the same operation type on the node hosting the document,
+ * clamped between the {@link #floor(long, TimeUnit) floor} and the configured KV timeout.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class AdaptiveTimeoutOptions {
+
+    /**
+     * The default percentile of the observed latencies the timeout is derived from.
+     */
+    public static final double DEFAULT_PERCENTILE = 0.99;
+
+    /**
+     * The default factor applied to the percentile.
+     */
+    public static final double DEFAULT_MULTIPLIER = 4.0;
+
+    /**
+     * The default lower bound of an adaptive timeout (100 milliseconds).
+     */
+    public static final long DEFAULT_FLOOR_MILLIS = 100;
+
+    /**
+     * The default number of latencies which need to be observed before a timeout adapts.
+     */
+    public static final int DEFAULT_MIN_SAMPLES = 1000;
+
+    double percentile = DEFAULT_PERCENTILE;
+    double multiplier = DEFAULT_MULTIPLIER;
+    long floorMillis = DEFAULT_FLOOR_MILLIS;
+    int minSamples = DEFAULT_MIN_SAMPLES;
+
+    private AdaptiveTimeoutOptions() {}
+
+    /**
+     * Create adaptive timeout options to modify default behavior.
+     */
+    public static AdaptiveTimeoutOptions adaptiveTimeoutOptions() {
+        return new AdaptiveTimeoutOptions();
+    }
+
+    /**
+     * Customizes the percentile of the observed latencies the timeout is derived from.
+     *
+     * @param percentile the percentile, between 0 (exclusive) and 1 (exclusive), like 0.99.
+     * @return these {@link AdaptiveTimeoutOptions} for chaining purposes.
+     */
+    public AdaptiveTimeoutOptions percentile(final double percentile) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("The percentile needs to be in (0, 1)");
+        }
+        this.percentile = percentile;
+        return this;
+    }
+
+    /**
+     * Customizes the factor applied to the percentile, which is the headroom an operation gets over the
+     * latency observed recently.
+     *
+     * @param multiplier the multiplier, needs to be at least 1.
+     * @return these {@link AdaptiveTimeoutOptions} for chaining purposes.
+     */
+    public AdaptiveTimeoutOptions multiplier(final double multiplier) {
+        if (multiplier < 1) {
+            throw new IllegalArgumentException("The multiplier needs to be >= 1");
+        }
+        this.multiplier = multiplier;
+        return this;
+    }
+
+    /**
+     * Customizes the lower bound of an adaptive timeout, so that very fast nodes do not time out on minor
+     * hiccups like a garbage collection pause.
+     *
+     * @param floor the minimum timeout, needs to be at least 1 millisecond.
+     * @param timeUnit the time unit of the floor.
+     * @return these {@link AdaptiveTimeoutOptions} for chaining purposes.
+     */
+    public AdaptiveTimeoutOptions floor(final long floor, final TimeUnit timeUnit) {
+        long millis = timeUnit.toMillis(floor);
+        if (millis < 1) {
+            throw new IllegalArgumentException("The floor needs to be at least 1 millisecond");
+        }
+        this.floorMillis = millis;
+        return this;
+    }
+
+    /**
+     * Customizes how many latencies of an operation type need to be observed before its timeout adapts, until
+     * then the configured KV timeout is used.
+     *
+     * @param minSamples the number of samples, needs to be at least 1.
+     * @return these {@link AdaptiveTimeoutOptions} for chaining purposes.
+     */
+    public AdaptiveTimeoutOptions minSamples(final int minSamples) {
+        if (minSamples < 1) {
+            throw new IllegalArgumentException("The minimum number of samples needs to be >= 1");
+        }
+        this.minSamples = minSamples;
+        return this;
+    }
+
+    public double percentile() {
+        return percentile;
+    }
+
+    public double multiplier() {
+        return multiplier;
+    }
+
+    public long floorMillis() {
+        return floorMillis;
+    }
+
+    public int minSamples() {
+        return minSamples;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveTimeoutOptions{" +
+            "percentile=" + percentile +
+            ", multiplier=" + multiplier +
+            ", floorMillis=" + floorMillis +
+            ", minSamples=" + minSamples +
+            '}';
+    }
+}
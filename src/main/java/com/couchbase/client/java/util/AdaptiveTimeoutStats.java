@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.util;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+
+import java.util.Map;
+
+/**
+ * A point-in-time snapshot of the adaptive timeouts of a bucket.
+ *
+ * Operation types are named like the methods of the bucket ("get", "getAndLock", "getAndTouch", "exists",
+ * "insert", "upsert", "replace", "remove", "touch", "unlock", "counter", "append" and "prepend"). Only
+ * operation types which have been performed since the adaptive timeouts have been enabled are included.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class AdaptiveTimeoutStats {
+
+    private final Map<String, Long> timeoutMillis;
+    private final Map<String, Map<String, Long>> nodeTimeoutMillis;
+    private final long floorMillis;
+    private final long ceilingMillis;
+    private final long recorded;
+    private final long timeouts;
+
+    public AdaptiveTimeoutStats(Map<String, Long> timeoutMillis, Map<String, Map<String, Long>> nodeTimeoutMillis,
+        long floorMillis, long ceilingMillis, long recorded, long timeouts) {
+        this.timeoutMillis = timeoutMillis;
+        this.nodeTimeoutMillis = nodeTimeoutMillis;
+        this.floorMillis = floorMillis;
+        this.ceilingMillis = ceilingMillis;
+        this.recorded = recorded;
+        this.timeouts = timeouts;
+    }
+
+    /**
+     * The current timeout in milliseconds per operation type, derived from the latencies on all nodes. It is
+     * used for documents on nodes which have not been observed often enough yet.
+     */
+    public Map<String, Long> timeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * The current timeout in milliseconds per node hostname and operation type.
+     */
+    public Map<String, Map<String, Long>> nodeTimeoutMillis() {
+        return nodeTimeoutMillis;
+    }
+
+    /**
+     * The lower bound of the timeouts in milliseconds.
+     */
+    public long floorMillis() {
+        return floorMillis;
+    }
+
+    /**
+     * The upper bound of the timeouts in milliseconds, which is the configured KV timeout.
+     */
+    public long ceilingMillis() {
+        return ceilingMillis;
+    }
+
+    /**
+     * The number of completed operations whose latencies have been recorded.
+     */
+    public long recorded() {
+        return recorded;
+    }
+
+    /**
+     * The number of operations which timed out. They are recorded at the timeout they have been given.
+     */
+    public long timeouts() {
+        return timeouts;
+    }
+
+    /**
+     * The ratio of timed out operations to all operations, or 0 if there have not been any.
+     */
+    public double timeoutRatio() {
+        long all = recorded + timeouts;
+        return all == 0 ? 0 : (double) timeouts / all;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveTimeoutStats{" +
+            "timeoutMillis=" + timeoutMillis +
+            ", nodeTimeoutMillis=" + nodeTimeoutMillis +
+            ", floorMillis=" + floorMillis +
+            ", ceilingMillis=" + ceilingMillis +
+            ", recorded=" + recorded +
+            ", timeouts=" + timeouts +
+            '}';
+    }
+}
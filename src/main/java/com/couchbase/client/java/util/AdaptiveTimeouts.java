@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.util;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.config.BucketConfig;
+import com.couchbase.client.core.config.ClusterConfig;
+import com.couchbase.client.core.config.ConfigurationProvider;
+import com.couchbase.client.core.config.CouchbaseBucketConfig;
+import com.couchbase.client.core.config.NodeInfo;
+import com.couchbase.client.core.message.internal.GetConfigProviderRequest;
+import com.couchbase.client.core.message.internal.GetConfigProviderResponse;
+import com.couchbase.client.java.bucket.api.PartitionGrouping;
+import com.couchbase.client.java.future.CompletionListener;
+import com.couchbase.client.java.future.CouchbaseFuture;
+import rx.Observable;
+import rx.Subscription;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func0;
+import rx.functions.Func1;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Derives the timeouts of KV operations from their recently observed latencies, see {@link AdaptiveTimeoutOptions}.
+ *
+ * Latencies are kept in a {@link LatencyHistogram} per operation type and, if the bucket config is known, in one
+ * per operation type and node hosting the document. The timeout of an operation uses the histogram of its node
+ * once it has seen enough samples and the one across all nodes until then, so that a node which suddenly stalls
+ * keeps the timeout it earned while it was healthy and fails fast. Timed out operations are recorded at the timeout
+ * they were given, a lower bound of their latency: a short stall stays below the percentile and keeps the timeout,
+ * while a latency shift that makes more operations time out raises it again, up to the ceiling.
+ *
+ * Timeouts are refreshed every 64 samples, looking up the timeout of an operation only reads a volatile field.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Uncommitted
+@InterfaceAudience.Private
+public class AdaptiveTimeouts {
+
+    /**
+     * The KV operation types with their own timeout.
+     */
+    public enum Operation {
+        GET("get"),
+        GET_AND_LOCK("getAndLock"),
+        GET_AND_TOUCH("getAndTouch"),
+        EXISTS("exists"),
+        INSERT("insert"),
+        UPSERT("upsert"),
+        REPLACE("replace"),
+        REMOVE("remove"),
+        TOUCH("touch"),
+        UNLOCK("unlock"),
+        COUNTER("counter"),
+        APPEND("append"),
+        PREPEND("prepend");
+
+        private final String metricName;
+
+        Operation(final String metricName) {
+            this.metricName = metricName;
+        }
+
+        /**
+         * The name of the operation type in the {@link AdaptiveTimeoutStats}.
+         */
+        public String metricName() {
+            return metricName;
+        }
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final long TIMEOUT_REFRESH_INTERVAL = 64;
+    private static final long DECAY_INTERVAL = 4096;
+
+    private final double percentile;
+    private final double multiplier;
+    private final long floorMillis;
+    private final long ceilingMillis;
+    private final int minSamples;
+
+    private final Trackers all;
+    private final ConcurrentMap<String, Trackers> nodes;
+    private final AtomicLong recorded;
+    private final AtomicLong timeouts;
+    private volatile CouchbaseBucketConfig config;
+    private volatile Subscription configSubscription;
+
+    public AdaptiveTimeouts(final AdaptiveTimeoutOptions options, final long ceilingMillis) {
+        this.percentile = options.percentile();
+        this.multiplier = options.multiplier();
+        this.ceilingMillis = ceilingMillis;
+        this.floorMillis = Math.min(options.floorMillis(), ceilingMillis);
+        this.minSamples = options.minSamples();
+        this.all = new Trackers();
+        this.nodes = new ConcurrentHashMap<String, Trackers>();
+        this.recorded = new AtomicLong();
+        this.timeouts = new AtomicLong();
+    }
+
+    /**
+     * Follows the config of the given bucket, so that latencies are also tracked per node.
+     *
+     * Until the config is known (and for memcached buckets) only the timeouts across all nodes are used.
+     */
+    public void attach(final ClusterFacade core, final String bucket) {
+        configSubscription = Observable
+            .defer(new Func0<Observable<GetConfigProviderResponse>>() {
+                @Override
+                public Observable<GetConfigProviderResponse> call() {
+                    return core.send(new GetConfigProviderRequest());
+                }
+            })
+            .flatMap(new Func1<GetConfigProviderResponse, Observable<ClusterConfig>>() {
+                @Override
+                public Observable<ClusterConfig> call(GetConfigProviderResponse response) {
+                    ConfigurationProvider provider = response.provider();
+                    return provider.configs().startWith(provider.config());
+                }
+            })
+            .subscribe(new Action1<ClusterConfig>() {
+                @Override
+                public void call(ClusterConfig clusterConfig) {
+                    onConfig(clusterConfig == null ? null : clusterConfig.bucketConfig(bucket));
+                }
+            }, new Action1<Throwable>() {
+                @Override
+                public void call(Throwable throwable) {
+                    // without a config, the timeouts are only tracked across all nodes
+                }
+            });
+    }
+
+    /**
+     * Stops following the bucket config.
+     */
+    public void close() {
+        Subscription subscription = configSubscription;
+        if (subscription != null) {
+            subscription.unsubscribe();
+        }
+    }
+
+    /**
+     * Uses the given bucket config to locate documents and drops the latencies of nodes which left the cluster.
+     */
+    void onConfig(final BucketConfig bucketConfig) {
+        if (!(bucketConfig instanceof CouchbaseBucketConfig)) {
+            config = null;
+            nodes.clear();
+            return;
+        }
+        CouchbaseBucketConfig cbc = (CouchbaseBucketConfig) bucketConfig;
+        Set<String> hostnames = new HashSet<String>();
+        for (NodeInfo node : cbc.nodes()) {
+            hostnames.add(node.hostname());
+        }
+        nodes.keySet().retainAll(hostnames);
+        config = cbc;
+    }
+
+    /**
+     * Returns the timeout in milliseconds for the given operation on the given document.
+     */
+    public long timeoutMillis(final Operation operation, final String id) {
+        Trackers node = nodeTrackers(id, false);
+        if (node != null) {
+            Tracker tracker = node.get(operation, false);
+            if (tracker != null && tracker.adapted) {
+                return tracker.timeoutMillis;
+            }
+        }
+        Tracker tracker = all.get(operation, false);
+        return tracker == null ? ceilingMillis : tracker.timeoutMillis;
+    }
+
+    /**
+     * Records the latency of the given operation once it terminates, or its timeout if it timed out.
+     *
+     * @param operation the operation type.
+     * @param id the document ID.
+     * @param response the operation, subscribed once.
+     * @return the operation which records its latency.
+     */
+    public <T> Observable<T> watch(final Operation operation, final String id, final Observable<T> response) {
+        return Observable.defer(new Func0<Observable<T>>() {
+            @Override
+            public Observable<T> call() {
+                final long start = System.nanoTime();
+                return response
+                    .doOnCompleted(new Action0() {
+                        @Override
+                        public void call() {
+                            record(operation, id, System.nanoTime() - start);
+                        }
+                    })
+                    .doOnError(new Action1<Throwable>() {
+                        @Override
+                        public void call(Throwable throwable) {
+                            if (isTimeout(throwable)) {
+                                recordTimeout(operation, id);
+                            } else {
+                                record(operation, id, System.nanoTime() - start);
+                            }
+                        }
+                    });
+            }
+        });
+    }
+
+    /**
+     * Records the latency of the given operation once its future completes, or its timeout if it timed out.
+     *
+     * @param operation the operation type.
+     * @param id the document ID.
+     * @param start the {@link System#nanoTime()} at which the operation has been sent.
+     * @param response the future of the operation.
+     * @return the same future.
+     */
+    public <T> CouchbaseFuture<T> watch(final Operation operation, final String id, final long start,
+        final CouchbaseFuture<T> response) {
+        return response.addListener(new CompletionListener<T>() {
+            @Override
+            public void onComplete(T value, Throwable error) {
+                if (error != null && isTimeout(error)) {
+                    recordTimeout(operation, id);
+                } else {
+                    record(operation, id, System.nanoTime() - start);
+                }
+            }
+        });
+    }
+
+    /**
+     * Records the latency of a completed operation.
+     */
+    void record(final Operation operation, final String id, final long nanos) {
+        recorded.incrementAndGet();
+        sample(operation, id, nanos / 1000);
+    }
+
+    /**
+     * Records a timed out operation at the timeout it has been given, which its latency exceeded.
+     */
+    void recordTimeout(final Operation operation, final String id) {
+        timeouts.incrementAndGet();
+        sample(operation, id, timeoutMillis(operation, id) * 1000);
+    }
+
+    private void sample(final Operation operation, final String id, final long micros) {
+        all.get(operation, true).record(micros);
+        Trackers node = nodeTrackers(id, true);
+        if (node != null) {
+            node.get(operation, true).record(micros);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the current timeouts.
+     */
+    public AdaptiveTimeoutStats stats() {
+        Map<String, Map<String, Long>> nodeTimeouts = new LinkedHashMap<String, Map<String, Long>>();
+        for (Map.Entry<String, Trackers> node : nodes.entrySet()) {
+            nodeTimeouts.put(node.getKey(), node.getValue().timeouts());
+        }
+        return new AdaptiveTimeoutStats(all.timeouts(), nodeTimeouts, floorMillis, ceilingMillis, recorded.get(),
+            timeouts.get());
+    }
+
+    private Trackers nodeTrackers(final String id, final boolean create) {
+        CouchbaseBucketConfig current = config;
+        if (current == null || current.numberOfPartitions() == 0) {
+            return null;
+        }
+        int index = current.nodeIndexForMaster(PartitionGrouping.partitionForId(id, current.numberOfPartitions()),
+            false);
+        if (index < 0) {
+            return null;
+        }
+        String hostname = current.nodeAtIndex(index).hostname();
+        Trackers trackers = nodes.get(hostname);
+        if (trackers == null && create) {
+            Trackers fresh = new Trackers();
+            trackers = nodes.putIfAbsent(hostname, fresh);
+            if (trackers == null) {
+                trackers = fresh;
+            }
+        }
+        return trackers;
+    }
+
+    private static boolean isTimeout(final Throwable throwable) {
+        return throwable instanceof TimeoutException
+            || (throwable instanceof RuntimeException && throwable.getCause() instanceof TimeoutException);
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveTimeouts{" + stats() + '}';
+    }
+
+    /**
+     * The trackers of all operation types, created on first use.
+     */
+    private class Trackers {
+
+        private final AtomicReferenceArray<Tracker> trackers = new AtomicReferenceArray<Tracker>(OPERATIONS.length);
+
+        Tracker get(final Operation operation, final boolean create) {
+            Tracker tracker = trackers.get(operation.ordinal());
+            if (tracker == null && create) {
+                trackers.compareAndSet(operation.ordinal(), null, new Tracker());
+                tracker = trackers.get(operation.ordinal());
+            }
+            return tracker;
+        }
+
+        Map<String, Long> timeouts() {
+            Map<String, Long> timeouts = new LinkedHashMap<String, Long>();
+            for (Operation operation : OPERATIONS) {
+                Tracker tracker = trackers.get(operation.ordinal());
+                if (tracker != null) {
+                    timeouts.put(operation.metricName(), tracker.timeoutMillis);
+                }
+            }
+            return timeouts;
+        }
+    }
+
+    /**
+     * The latencies and current timeout of one operation type.
+     */
+    private class Tracker {
+
+        private final LatencyHistogram latency = new LatencyHistogram(DECAY_INTERVAL);
+        private final AtomicLong samples = new AtomicLong();
+        volatile long timeoutMillis = ceilingMillis;
+        volatile boolean adapted;
+
+        void record(final long micros) {
+            latency.record(micros);
+            long count = samples.incrementAndGet();
+            if (count >= minSamples && (count == minSamples || count % TIMEOUT_REFRESH_INTERVAL == 0)) {
+                long target = (long) Math.ceil(latency.percentile(percentile) * multiplier / 1000.0);
+                timeoutMillis = Math.max(floorMillis, Math.min(ceilingMillis, target));
+                adapted = true;
+            }
+        }
+    }
+}
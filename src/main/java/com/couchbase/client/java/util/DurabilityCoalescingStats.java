@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.util;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+
+/**
+ * A point-in-time snapshot of the counters and latencies of the durability coalescing of a bucket.
+ *
+ * The mutation latency is the time until the server acknowledged the mutation, the durability latency the time
+ * from then on until its {@link com.couchbase.client.java.PersistTo} and {@link com.couchbase.client.java.ReplicateTo}
+ * requirements were met. Both favor recent samples. All counters are cumulative since durability coalescing has
+ * been enabled.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class DurabilityCoalescingStats {
+
+    private final long mutations;
+    private final long uncoalesced;
+    private final long polls;
+    private final long failures;
+    private final long mutationLatencyP50Micros;
+    private final long mutationLatencyP99Micros;
+    private final long durabilityLatencyP50Micros;
+    private final long durabilityLatencyP99Micros;
+
+    public DurabilityCoalescingStats(long mutations, long uncoalesced, long polls, long failures,
+        long mutationLatencyP50Micros, long mutationLatencyP99Micros, long durabilityLatencyP50Micros,
+        long durabilityLatencyP99Micros) {
+        this.mutations = mutations;
+        this.uncoalesced = uncoalesced;
+        this.polls = polls;
+        this.failures = failures;
+        this.mutationLatencyP50Micros = mutationLatencyP50Micros;
+        this.mutationLatencyP99Micros = mutationLatencyP99Micros;
+        this.durabilityLatencyP50Micros = durabilityLatencyP50Micros;
+        this.durabilityLatencyP99Micros = durabilityLatencyP99Micros;
+    }
+
+    /**
+     * The number of mutations whose durability requirements have been observed.
+     */
+    public long mutations() {
+        return mutations;
+    }
+
+    /**
+     * The number of mutations which did not carry a mutation token and have been observed on their own.
+     */
+    public long uncoalesced() {
+        return uncoalesced;
+    }
+
+    /**
+     * The number of shared observe rounds sent, each one polling the master and, if needed, the replicas of a
+     * partition for all mutations waiting on it.
+     */
+    public long polls() {
+        return polls;
+    }
+
+    /**
+     * The number of mutations whose durability requirements failed, not counting timeouts.
+     */
+    public long failures() {
+        return failures;
+    }
+
+    /**
+     * The median time in microseconds until a mutation was acknowledged by the server.
+     */
+    public long mutationLatencyP50Micros() {
+        return mutationLatencyP50Micros;
+    }
+
+    /**
+     * The 99th percentile of the time in microseconds until a mutation was acknowledged by the server.
+     */
+    public long mutationLatencyP99Micros() {
+        return mutationLatencyP99Micros;
+    }
+
+    /**
+     * The median time in microseconds from the acknowledgement of a mutation until its durability requirements
+     * were met.
+     */
+    public long durabilityLatencyP50Micros() {
+        return durabilityLatencyP50Micros;
+    }
+
+    /**
+     * The 99th percentile of the time in microseconds from the acknowledgement of a mutation until its durability
+     * requirements were met.
+     */
+    public long durabilityLatencyP99Micros() {
+        return durabilityLatencyP99Micros;
+    }
+
+    /**
+     * The ratio of observe rounds to coalesced mutations, or 0 if there have not been any. It is below 1 when
+     * mutations share rounds and above 1 when they need several rounds each.
+     */
+    public double pollsPerMutation() {
+        long coalesced = mutations - uncoalesced;
+        return coalesced <= 0 ? 0 : (double) polls / coalesced;
+    }
+
+    @Override
+    public String toString() {
+        return "DurabilityCoalescingStats{" +
+            "mutations=" + mutations +
+            ", uncoalesced=" + uncoalesced +
+            ", polls=" + polls +
+            ", failures=" + failures +
+            ", mutationLatencyP50Micros=" + mutationLatencyP50Micros +
+            ", mutationLatencyP99Micros=" + mutationLatencyP99Micros +
+            ", durabilityLatencyP50Micros=" + durabilityLatencyP50Micros +
+            ", durabilityLatencyP99Micros=" + durabilityLatencyP99Micros +
+            '}';
+    }
+}
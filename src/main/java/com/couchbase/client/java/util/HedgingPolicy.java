@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.util;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides when {@link TransparentReplicaGetHelper} hedges a read of the primary with a read of a replica, and
+ * counts how often it did and whether the hedge won.
+ *
+ * The hedge delay adapts to the observed latency of the primary: it is the configured {@link #percentile(double)
+ * percentile} of recent primary reads, so that only the slowest reads are hedged. To bound the additional load, a
+ * read may only hedge if the hedge budget allows it: every read adds {@link #budgetPercent(int) budgetPercent} of
+ * a hedge to the budget (up to a small burst) and every hedge takes a full one, so at most that share of reads
+ * generates a replica read on top.
+ *
+ * Reads of the primary which are cancelled by a winning hedge or fail are recorded with the time they took until
+ * then, as a lower bound of their latency.
+ *
+ * A policy is stateful and should be shared by all reads of the same workload, like in a static field.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class HedgingPolicy {
+
+    /**
+     * The default percentile of the primary latency after which a read is hedged.
+     */
+    public static final double DEFAULT_PERCENTILE = 0.95;
+
+    /**
+     * The default share of reads which may be hedged, in percent.
+     */
+    public static final int DEFAULT_BUDGET_PERCENT = 5;
+
+    /**
+     * The default delay before the first hedge, until enough primary latencies have been observed.
+     */
+    public static final long DEFAULT_INITIAL_DELAY_MILLIS = 10;
+
+    /**
+     * The number of primary latencies which need to be observed before the delay adapts.
+     */
+    static final int MIN_SAMPLES = 100;
+
+    /**
+     * The number of hedges which can be accumulated in the budget.
+     */
+    static final int MAX_BURST = 10;
+
+    private static final long CREDITS_PER_HEDGE = 100;
+    private static final long DELAY_REFRESH_INTERVAL = 64;
+
+    private double percentile = DEFAULT_PERCENTILE;
+    private int budgetPercent = DEFAULT_BUDGET_PERCENT;
+    private long initialDelayMicros = TimeUnit.MILLISECONDS.toMicros(DEFAULT_INITIAL_DELAY_MILLIS);
+    private long minDelayMicros = 0;
+
+    private final LatencyHistogram primaryLatency;
+    private final AtomicLong credits;
+    private final AtomicLong reads;
+    private final AtomicLong primaryLatencies;
+    private final AtomicLong hedges;
+    private final AtomicLong hedgeWins;
+    private final AtomicLong budgetRejections;
+    private volatile long delayMicros;
+
+    private HedgingPolicy() {
+        this.primaryLatency = new LatencyHistogram(4096);
+        this.credits = new AtomicLong(CREDITS_PER_HEDGE);
+        this.reads = new AtomicLong();
+        this.primaryLatencies = new AtomicLong();
+        this.hedges = new AtomicLong();
+        this.hedgeWins = new AtomicLong();
+        this.budgetRejections = new AtomicLong();
+        this.delayMicros = initialDelayMicros;
+    }
+
+    /**
+     * Create a hedging policy with the default settings.
+     */
+    public static HedgingPolicy hedgingPolicy() {
+        return new HedgingPolicy();
+    }
+
+    /**
+     * Customizes the percentile of the primary latency after which a read is hedged.
+     *
+     * @param percentile the percentile, between 0 (exclusive) and 1 (exclusive), like 0.95.
+     * @return this {@link HedgingPolicy} for chaining purposes.
+     */
+    public HedgingPolicy percentile(final double percentile) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("The percentile needs to be in (0, 1)");
+        }
+        this.percentile = percentile;
+        return this;
+    }
+
+    /**
+     * Customizes the share of reads which may be hedged.
+     *
+     * @param budgetPercent the share in percent, 0 disables hedging.
+     * @return this {@link HedgingPolicy} for chaining purposes.
+     */
+    public HedgingPolicy budgetPercent(final int budgetPercent) {
+        if (budgetPercent < 0 || budgetPercent > 100) {
+            throw new IllegalArgumentException("The budget needs to be between 0 and 100 percent");
+        }
+        this.budgetPercent = budgetPercent;
+        return this;
+    }
+
+    /**
+     * Customizes the delay before hedging until enough primary latencies have been observed.
+     *
+     * @param delay the initial delay.
+     * @param timeUnit the time unit of the delay.
+     * @return this {@link HedgingPolicy} for chaining purposes.
+     */
+    public HedgingPolicy initialDelay(final long delay, final TimeUnit timeUnit) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("The initial delay needs to be >= 0");
+        }
+        this.initialDelayMicros = timeUnit.toMicros(delay);
+        this.delayMicros = Math.max(initialDelayMicros, minDelayMicros);
+        return this;
+    }
+
+    /**
+     * Customizes the lower bound of the adaptive delay, so that very fast primaries do not lead to hedging on
+     * minor hiccups.
+     *
+     * @param delay the minimum delay.
+     * @param timeUnit the time unit of the delay.
+     * @return this {@link HedgingPolicy} for chaining purposes.
+     */
+    public HedgingPolicy minDelay(final long delay, final TimeUnit timeUnit) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("The minimum delay needs to be >= 0");
+        }
+        this.minDelayMicros = timeUnit.toMicros(delay);
+        this.delayMicros = Math.max(delayMicros, minDelayMicros);
+        return this;
+    }
+
+    /**
+     * The current delay in microseconds after which a read of the primary is hedged.
+     */
+    public long hedgeDelayMicros() {
+        return delayMicros;
+    }
+
+    /**
+     * The number of reads performed with this policy.
+     */
+    public long reads() {
+        return reads.get();
+    }
+
+    /**
+     * The number of reads which have been hedged with a read of the replicas.
+     */
+    public long hedges() {
+        return hedges.get();
+    }
+
+    /**
+     * The number of hedged reads where the replicas answered before the primary.
+     */
+    public long hedgeWins() {
+        return hedgeWins.get();
+    }
+
+    /**
+     * The number of reads which would have been hedged, but the hedge budget was exhausted.
+     */
+    public long budgetRejections() {
+        return budgetRejections.get();
+    }
+
+    /**
+     * The ratio of hedged reads to all reads, or 0 if there have not been any.
+     */
+    public double hedgeRate() {
+        long all = reads.get();
+        return all == 0 ? 0 : (double) hedges.get() / all;
+    }
+
+    /**
+     * The ratio of hedges won by the replicas to all hedges, or 0 if there have not been any.
+     */
+    public double hedgeWinRate() {
+        long all = hedges.get();
+        return all == 0 ? 0 : (double) hedgeWins.get() / all;
+    }
+
+    /**
+     * Counts a read and adds its share to the hedge budget.
+     */
+    void onRead() {
+        reads.incrementAndGet();
+        long earned = budgetPercent;
+        long max = MAX_BURST * CREDITS_PER_HEDGE;
+        long current;
+        do {
+            current = credits.get();
+            if (current >= max) {
+                return;
+            }
+        } while (!credits.compareAndSet(current, Math.min(max, current + earned)));
+    }
+
+    /**
+     * Records the latency of a read of the primary, or a lower bound if it did not answer, and adapts the delay.
+     */
+    void onPrimaryLatency(final long micros) {
+        primaryLatency.record(micros);
+        long samples = primaryLatencies.incrementAndGet();
+        if (samples >= MIN_SAMPLES && samples % DELAY_REFRESH_INTERVAL == 0) {
+            delayMicros = Math.max(minDelayMicros, primaryLatency.percentile(percentile));
+        }
+    }
+
+    /**
+     * Takes a hedge from the budget.
+     *
+     * @return true if the read may hedge, false if the budget is exhausted.
+     */
+    boolean tryHedge() {
+        long current;
+        do {
+            current = credits.get();
+            if (current < CREDITS_PER_HEDGE) {
+                budgetRejections.incrementAndGet();
+                return false;
+            }
+        } while (!credits.compareAndSet(current, current - CREDITS_PER_HEDGE));
+        hedges.incrementAndGet();
+        return true;
+    }
+
+    void onHedgeWin() {
+        hedgeWins.incrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return "HedgingPolicy{" +
+            "percentile=" + percentile +
+            ", budgetPercent=" + budgetPercent +
+            ", hedgeDelayMicros=" + delayMicros +
+            ", reads=" + reads.get() +
+            ", hedges=" + hedges.get() +
+            ", hedgeWins=" + hedgeWins.get() +
+            ", budgetRejections=" + budgetRejections.get() +
+            '}';
+    }
+}
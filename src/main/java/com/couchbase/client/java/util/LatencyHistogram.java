@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.util;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A small, lock-free histogram of latencies in microseconds which favors recent samples.
+ *
+ * Values are counted in log-linear buckets (8 buckets per power of two, so percentiles are accurate to about 12%)
+ * and recording is a single atomic increment. Every {@code decayInterval} samples all counts are halved, so the
+ * histogram follows changes in latency instead of averaging over the whole lifetime of the application.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Uncommitted
+@InterfaceAudience.Private
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong total;
+    private final AtomicLong recorded;
+    private final long decayInterval;
+    private final ReentrantLock decayLock;
+
+    public LatencyHistogram(final long decayInterval) {
+        if (decayInterval < 1) {
+            throw new IllegalArgumentException("The decay interval must be at least 1, was " + decayInterval);
+        }
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.total = new AtomicLong();
+        this.recorded = new AtomicLong();
+        this.decayInterval = decayInterval;
+        this.decayLock = new ReentrantLock();
+    }
+
+    /**
+     * Records a latency in microseconds, negative values are counted as 0.
+     */
+    public void record(final long micros) {
+        counts.incrementAndGet(bucketOf(Math.max(0, micros)));
+        total.incrementAndGet();
+        if (recorded.incrementAndGet() % decayInterval == 0) {
+            decay();
+        }
+    }
+
+    /**
+     * The number of samples currently counted, which is bounded by the decay.
+     */
+    public long count() {
+        return total.get();
+    }
+
+    /**
+     * Returns the latency in microseconds below which the given share of the counted samples fall, as the upper
+     * bound of the bucket the percentile falls in, or 0 if there are no samples.
+     *
+     * @param percentile the percentile, between 0 (exclusive) and 1 (inclusive), like 0.99.
+     */
+    public long percentile(final double percentile) {
+        if (percentile <= 0 || percentile > 1) {
+            throw new IllegalArgumentException("The percentile must be in (0, 1], was " + percentile);
+        }
+        long count = total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(count * percentile);
+        long seen = 0;
+        int highest = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long bucket = counts.get(i);
+            if (bucket == 0) {
+                continue;
+            }
+            seen += bucket;
+            highest = i;
+            if (seen >= threshold) {
+                return upperBoundOf(i);
+            }
+        }
+        // a concurrent decay can leave the total briefly above the sum of the buckets
+        return upperBoundOf(highest);
+    }
+
+    /**
+     * Halves all counts, unless another thread already does.
+     */
+    private void decay() {
+        if (!decayLock.tryLock()) {
+            return;
+        }
+        try {
+            for (int i = 0; i < BUCKETS; i++) {
+                long current;
+                do {
+                    current = counts.get(i);
+                } while (current > 0 && !counts.compareAndSet(i, current, current >> 1));
+                total.addAndGet(-(current - (current >> 1)));
+            }
+        } finally {
+            decayLock.unlock();
+        }
+    }
+
+    static int bucketOf(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int mantissa = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + mantissa;
+    }
+
+    static long upperBoundOf(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long mantissa = bucket % SUB_BUCKETS;
+        long lower = (SUB_BUCKETS + mantissa) << (exponent - SUB_BUCKET_BITS);
+        return lower + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram{count=" + count() + ", p50=" + percentile(0.5) + "us, p99=" + percentile(0.99)
+            + "us}";
+    }
+}
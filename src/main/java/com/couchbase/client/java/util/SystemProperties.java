@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.util;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.logging.CouchbaseLogger;
+import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+
+/**
+ * Reads tuning knobs from system properties without failing class initialization on malformed values.
+ *
+ * @since 2.7.24
+ */
+@InterfaceStability.Uncommitted
+@InterfaceAudience.Private
+public final class SystemProperties {
+
+    private static final CouchbaseLogger LOGGER = CouchbaseLoggerFactory.getInstance(SystemProperties.class);
+
+    private SystemProperties() {}
+
+    /**
+     * Returns the integer value of the system property, or the default if it is not set, not a number or below
+     * the minimum. Invalid values are logged.
+     *
+     * @param name the name of the system property.
+     * @param defaultValue the value to use if the property is not set or invalid.
+     * @param minimum the smallest valid value.
+     * @return the value to use.
+     */
+    public static int intProperty(final String name, final int defaultValue, final int minimum) {
+        String value = System.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed >= minimum) {
+                return parsed;
+            }
+        } catch (NumberFormatException ex) {
+            // fall through to the warning below
+        }
+        LOGGER.warn("Ignoring invalid value \"{}\" of system property {}, expected an integer of at least {}. "
+            + "Using the default {}.", value, name, minimum, defaultValue);
+        return defaultValue;
+    }
+}
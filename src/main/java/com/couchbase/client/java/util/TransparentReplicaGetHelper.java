@@ -22,10 +22,15 @@ import com.couchbase.client.java.ReplicaMode;
 import com.couchbase.client.java.document.Document;
 import com.couchbase.client.java.document.JsonDocument;
 import rx.Observable;
+import rx.Scheduler;
 import rx.Single;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func0;
 import rx.functions.Func1;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The {@link TransparentReplicaGetHelper} abstracts common logic to first grab the
@@ -35,6 +40,9 @@ import java.util.concurrent.TimeUnit;
  * NOTE: Using these APIs is eventually consistent meaning that you cannot rely on
  * a previous successful mutation to a document be reflected in the result. Use this
  * API only if you favor availability over consistency on the read path.
+ *
+ * The overloads taking a {@link HedgingPolicy} do not wait for the primary to fail, but also read from the
+ * replicas once the primary is slower than usual, and return whichever answers first.
  */
 @InterfaceStability.Experimental
 @InterfaceAudience.Public
@@ -148,9 +156,148 @@ public class TransparentReplicaGetHelper {
             throw new IllegalArgumentException("Replica timeout must be greater than 0ms");
         }
 
-        Observable<D> fallback = bucket
+        Observable<D> fallback = replicaRead(id, target, bucket, ReplicaMode.ALL, replicaTimeout);
+
+        return bucket
+            .async()
+            .get(id, target)
+            .timeout(primaryTimeout, TimeUnit.MILLISECONDS)
+            .onErrorResumeNext(fallback)
+            .toSingle();
+    }
+
+    /**
+     * Asynchronously fetch the document from the primary and, if it does not answer within the
+     * adaptive delay of the {@link HedgingPolicy}, also from the first replica and return the first
+     * document that comes back (using the environments KV timeout for both primary and replica).
+     *
+     * @param id the document ID to fetch.
+     * @param target the custom document type to use.
+     * @param bucket the bucket to use when fetching the doc.
+     * @param policy the hedging policy, shared between reads.
+     * @return a {@link Single} with either 0 or 1 {@link Document}.
+     */
+    @InterfaceStability.Experimental
+    @InterfaceAudience.Public
+    public static <D extends Document<?>> Single<D> getFirstPrimaryOrReplica(final String id,
+        final Class<D> target, final Bucket bucket, final HedgingPolicy policy) {
+        long timeout = bucket.environment().kvTimeout();
+        return getFirstPrimaryOrReplica(id, target, bucket, timeout, timeout, policy);
+    }
+
+    /**
+     * Asynchronously fetch the document from the primary and, if it does not answer within the
+     * adaptive delay of the {@link HedgingPolicy}, also from the first replica and return the first
+     * document that comes back. The slower read is unsubscribed once the other one answered. A hedge
+     * reads a single replica, so that every hedge taken from the budget adds exactly one read. If the
+     * primary fails after the hedge was sent, the answer of the hedge is used and all the replicas are
+     * only read if it has none.
+     *
+     * If the hedge budget of the policy is exhausted, this behaves like
+     * {@link #getFirstPrimaryOrReplica(String, Class, Bucket, long, long)}: the replicas are only
+     * read once the primary failed.
+     *
+     * @param id the document ID to fetch.
+     * @param target the custom document type to use.
+     * @param bucket the bucket to use when fetching the doc.
+     * @param primaryTimeout the timeout to use in MS when fetching the primary.
+     * @param replicaTimeout the timeout to use in MS when fetching the replicas.
+     * @param policy the hedging policy, shared between reads.
+     * @return a {@link Single} with either 0 or 1 {@link Document}.
+     */
+    @InterfaceStability.Experimental
+    @InterfaceAudience.Public
+    public static <D extends Document<?>> Single<D> getFirstPrimaryOrReplica(final String id,
+        final Class<D> target, final Bucket bucket, final long primaryTimeout, final long replicaTimeout,
+        final HedgingPolicy policy) {
+        if (primaryTimeout <= 0) {
+            throw new IllegalArgumentException("Primary timeout must be greater than 0ms");
+        }
+        if (replicaTimeout <= 0) {
+            throw new IllegalArgumentException("Replica timeout must be greater than 0ms");
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("Hedging policy must not be null");
+        }
+
+        final Scheduler scheduler = bucket.environment().scheduler();
+        return Observable.defer(new Func0<Observable<D>>() {
+            @Override
+            public Observable<D> call() {
+                policy.onRead();
+
+                // the primary fallback reuses the hedge if it was sent and only reads all replicas if it had nothing
+                final AtomicBoolean hedged = new AtomicBoolean();
+                final Observable<D> firstReplica = replicaRead(id, target, bucket, ReplicaMode.FIRST, replicaTimeout)
+                    .cache();
+                final Observable<D> allReplicas = Observable.defer(new Func0<Observable<D>>() {
+                    @Override
+                    public Observable<D> call() {
+                        return replicaRead(id, target, bucket, ReplicaMode.ALL, replicaTimeout);
+                    }
+                });
+                Observable<D> fallback = Observable.defer(new Func0<Observable<D>>() {
+                    @Override
+                    public Observable<D> call() {
+                        if (!hedged.get()) {
+                            return allReplicas;
+                        }
+                        return firstReplica.onErrorResumeNext(Observable.<D>empty()).switchIfEmpty(allReplicas);
+                    }
+                });
+
+                final long start = System.nanoTime();
+                final AtomicBoolean recorded = new AtomicBoolean();
+                Action0 recordLatency = new Action0() {
+                    @Override
+                    public void call() {
+                        // a primary cancelled by a winning hedge or failed records its elapsed time as a lower
+                        // bound, otherwise the slow tail would be missing and the delay would keep shrinking
+                        if (recorded.compareAndSet(false, true)) {
+                            policy.onPrimaryLatency(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                        }
+                    }
+                };
+                Observable<D> primary = bucket
+                    .async()
+                    .get(id, target)
+                    .timeout(primaryTimeout, TimeUnit.MILLISECONDS, scheduler)
+                    .doOnTerminate(recordLatency)
+                    .doOnUnsubscribe(recordLatency)
+                    .onErrorResumeNext(fallback);
+
+                Observable<D> hedge = Observable
+                    .timer(policy.hedgeDelayMicros(), TimeUnit.MICROSECONDS, scheduler)
+                    .flatMap(new Func1<Long, Observable<D>>() {
+                        @Override
+                        public Observable<D> call(Long ignored) {
+                            if (!policy.tryHedge()) {
+                                return Observable.never();
+                            }
+                            hedged.set(true);
+                            // an empty or failed hedge must not decide the race, the primary path still answers
+                            return firstReplica
+                                .onErrorResumeNext(Observable.<D>empty())
+                                .switchIfEmpty(Observable.<D>never())
+                                .doOnNext(new Action1<D>() {
+                                    @Override
+                                    public void call(D d) {
+                                        policy.onHedgeWin();
+                                    }
+                                });
+                        }
+                    });
+
+                return Observable.amb(primary, hedge);
+            }
+        }).toSingle();
+    }
+
+    private static <D extends Document<?>> Observable<D> replicaRead(final String id, final Class<D> target,
+        final Bucket bucket, final ReplicaMode mode, final long replicaTimeout) {
+        return bucket
             .async()
-            .getFromReplica(id, ReplicaMode.ALL, target)
+            .getFromReplica(id, mode, target)
             .timeout(replicaTimeout, TimeUnit.MILLISECONDS)
             .firstOrDefault(null)
             .filter(new Func1<D, Boolean>() {
@@ -159,12 +306,5 @@ public class TransparentReplicaGetHelper {
                     return d != null;
                 }
             });
-
-        return bucket
-            .async()
-            .get(id, target)
-            .timeout(primaryTimeout, TimeUnit.MILLISECONDS)
-            .onErrorResumeNext(fallback)
-            .toSingle();
     }
 }
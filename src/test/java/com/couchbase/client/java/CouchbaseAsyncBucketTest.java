@@ -15,7 +15,10 @@
  */
 package com.couchbase.client.java;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -28,24 +31,34 @@ import com.couchbase.client.core.endpoint.kv.KeyValueStatus;
 import com.couchbase.client.core.message.CouchbaseRequest;
 import com.couchbase.client.core.message.CouchbaseResponse;
 import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.kv.GetRequest;
+import com.couchbase.client.core.message.kv.GetResponse;
 import com.couchbase.client.core.message.kv.InsertRequest;
 import com.couchbase.client.core.message.kv.InsertResponse;
 import com.couchbase.client.core.message.kv.RemoveRequest;
 import com.couchbase.client.core.message.kv.RemoveResponse;
+import com.couchbase.client.core.message.kv.TouchRequest;
+import com.couchbase.client.core.message.kv.TouchResponse;
 import com.couchbase.client.core.message.kv.ReplaceRequest;
 import com.couchbase.client.core.message.kv.ReplaceResponse;
 import com.couchbase.client.core.message.kv.UpsertRequest;
 import com.couchbase.client.core.message.kv.UpsertResponse;
 import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.deps.io.netty.util.CharsetUtil;
+import com.couchbase.client.java.cache.NearCacheOptions;
 import com.couchbase.client.java.document.Document;
 import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.document.json.JsonObject;
 import com.couchbase.client.java.env.CouchbaseEnvironment;
 import com.couchbase.client.java.env.DefaultCouchbaseEnvironment;
 import com.couchbase.client.java.transcoder.Transcoder;
+import com.couchbase.client.java.transcoder.TranscoderUtils;
 import io.opentracing.Span;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import rx.Observable;
 import rx.plugins.RxJavaHooks;
 import rx.subjects.AsyncSubject;
@@ -165,4 +178,76 @@ public class CouchbaseAsyncBucketTest {
         verify(core, times(1)).send(any(CouchbaseRequest.class));
     }
 
+    @Test
+    public void shouldInvalidateNearCacheOnUpsert() {
+        CouchbaseCore core = mock(CouchbaseCore.class);
+        CouchbaseAsyncBucket bucket = new CouchbaseAsyncBucket(
+                core, ENV, "bucket", "", Collections.<Transcoder<? extends Document, ?>>emptyList()
+        );
+        bucket.enableNearCache(NearCacheOptions.nearCacheOptions());
+
+        final CouchbaseRequest requestMock = mock(CouchbaseRequest.class);
+        when(requestMock.span()).thenReturn(mock(Span.class));
+        when(core.send(any(CouchbaseRequest.class))).thenAnswer(new Answer<Observable<CouchbaseResponse>>() {
+            @Override
+            public Observable<CouchbaseResponse> answer(InvocationOnMock invocation) throws Throwable {
+                Object request = invocation.getArguments()[0];
+                if (request instanceof GetRequest) {
+                    return Observable.<CouchbaseResponse>just(new GetResponse(
+                        ResponseStatus.SUCCESS, KeyValueStatus.SUCCESS.code(), 1234, TranscoderUtils.JSON_COMMON_FLAGS,
+                        "bucket", Unpooled.copiedBuffer("{\"a\":1}", CharsetUtil.UTF_8), (GetRequest) request
+                    ));
+                }
+                return Observable.<CouchbaseResponse>just(new UpsertResponse(
+                    ResponseStatus.SUCCESS, KeyValueStatus.SUCCESS.code(), 1235, "bucket", Unpooled.EMPTY_BUFFER, null,
+                    requestMock
+                ));
+            }
+        });
+
+        bucket.get("foo").toBlocking().single();
+        bucket.get("foo").toBlocking().single();
+        verify(core, times(1)).send(isA(GetRequest.class));
+
+        bucket.upsert(JsonDocument.create("foo", JsonObject.create())).toBlocking().single();
+        bucket.get("foo").toBlocking().single();
+        verify(core, times(2)).send(isA(GetRequest.class));
+
+        assertEquals(1, bucket.nearCacheStats().hits());
+        assertEquals(1, bucket.nearCacheStats().invalidations());
+        bucket.disableNearCache();
+        assertNull(bucket.nearCacheStats());
+    }
+
+    @Test
+    public void shouldInvalidateNearCacheOnTouch() {
+        CouchbaseCore core = mock(CouchbaseCore.class);
+        CouchbaseAsyncBucket bucket = new CouchbaseAsyncBucket(
+                core, ENV, "bucket", "", Collections.<Transcoder<? extends Document, ?>>emptyList()
+        );
+        bucket.enableNearCache(NearCacheOptions.nearCacheOptions());
+
+        when(core.send(any(CouchbaseRequest.class))).thenAnswer(new Answer<Observable<CouchbaseResponse>>() {
+            @Override
+            public Observable<CouchbaseResponse> answer(InvocationOnMock invocation) throws Throwable {
+                Object request = invocation.getArguments()[0];
+                if (request instanceof GetRequest) {
+                    return Observable.<CouchbaseResponse>just(new GetResponse(
+                        ResponseStatus.SUCCESS, KeyValueStatus.SUCCESS.code(), 1234, TranscoderUtils.JSON_COMMON_FLAGS,
+                        "bucket", Unpooled.copiedBuffer("{\"a\":1}", CharsetUtil.UTF_8), (GetRequest) request
+                    ));
+                }
+                return Observable.<CouchbaseResponse>just(new TouchResponse(
+                    ResponseStatus.SUCCESS, KeyValueStatus.SUCCESS.code(), "bucket", Unpooled.EMPTY_BUFFER,
+                    (TouchRequest) request
+                ));
+            }
+        });
+
+        bucket.get("foo").toBlocking().single();
+        bucket.touch("foo", 10).toBlocking().single();
+        bucket.get("foo").toBlocking().single();
+        verify(core, times(2)).send(isA(GetRequest.class));
+        assertEquals(1, bucket.nearCacheStats().invalidations());
+    }
 }
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java;
+
+import com.couchbase.client.core.CouchbaseCore;
+import com.couchbase.client.core.endpoint.kv.KeyValueStatus;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.kv.CounterRequest;
+import com.couchbase.client.core.message.kv.CounterResponse;
+import com.couchbase.client.core.message.kv.GetRequest;
+import com.couchbase.client.core.message.kv.GetResponse;
+import com.couchbase.client.core.message.kv.InsertResponse;
+import com.couchbase.client.core.message.kv.TouchRequest;
+import com.couchbase.client.core.message.kv.TouchResponse;
+import com.couchbase.client.core.message.kv.UnlockRequest;
+import com.couchbase.client.core.message.kv.UnlockResponse;
+import com.couchbase.client.core.message.kv.UpsertResponse;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.deps.io.netty.util.CharsetUtil;
+import com.couchbase.client.java.cache.NearCacheOptions;
+import com.couchbase.client.java.document.Document;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.env.CouchbaseEnvironment;
+import com.couchbase.client.java.env.DefaultCouchbaseEnvironment;
+import com.couchbase.client.java.error.DocumentAlreadyExistsException;
+import com.couchbase.client.java.transcoder.Transcoder;
+import com.couchbase.client.java.transcoder.TranscoderUtils;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import rx.Observable;
+import rx.subjects.AsyncSubject;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the blocking KV operations of the {@link CouchbaseBucket}.
+ */
+public class CouchbaseBucketTest {
+
+    private static final CouchbaseEnvironment ENV = DefaultCouchbaseEnvironment.create();
+
+    @AfterClass
+    public static void tearDown() {
+        ENV.shutdown();
+    }
+
+    private static CouchbaseBucket bucket(CouchbaseCore core) {
+        return new CouchbaseBucket(ENV, core, "bucket", "", "",
+            Collections.<Transcoder<? extends Document, ?>>emptyList());
+    }
+
+    /**
+     * A core answering every request, like the real one, through an already completed subject.
+     */
+    private static CouchbaseCore answering(final ResponseStatus status) {
+        CouchbaseCore core = mock(CouchbaseCore.class);
+        when(core.send(any(CouchbaseRequest.class))).thenAnswer(new Answer<Observable<CouchbaseResponse>>() {
+            @Override
+            public Observable<CouchbaseResponse> answer(InvocationOnMock invocation) throws Throwable {
+                CouchbaseRequest request = (CouchbaseRequest) invocation.getArguments()[0];
+                AsyncSubject<CouchbaseResponse> response = AsyncSubject.create();
+                if (request instanceof GetRequest) {
+                    response.onNext(new GetResponse(status, KeyValueStatus.SUCCESS.code(), 1234,
+                        TranscoderUtils.JSON_COMMON_FLAGS, "bucket",
+                        Unpooled.copiedBuffer("{\"a\":1}", CharsetUtil.UTF_8), request));
+                } else if (request instanceof CounterRequest) {
+                    response.onNext(new CounterResponse(status, KeyValueStatus.SUCCESS.code(), "bucket", 7, 1235,
+                        null, request));
+                } else if (request instanceof TouchRequest) {
+                    response.onNext(new TouchResponse(status, KeyValueStatus.SUCCESS.code(), "bucket",
+                        Unpooled.EMPTY_BUFFER, request));
+                } else if (request instanceof UnlockRequest) {
+                    response.onNext(new UnlockResponse(status, KeyValueStatus.SUCCESS.code(), "bucket",
+                        Unpooled.EMPTY_BUFFER, request));
+                } else if (status == ResponseStatus.EXISTS) {
+                    response.onNext(new InsertResponse(status, KeyValueStatus.SUCCESS.code(), 0, "bucket",
+                        Unpooled.EMPTY_BUFFER, null, request));
+                } else {
+                    response.onNext(new UpsertResponse(status, KeyValueStatus.SUCCESS.code(), 1235, "bucket",
+                        Unpooled.EMPTY_BUFFER, null, request));
+                }
+                response.onCompleted();
+                return response;
+            }
+        });
+        return core;
+    }
+
+    @Test
+    public void shouldExecuteKvOperations() {
+        CouchbaseBucket bucket = bucket(answering(ResponseStatus.SUCCESS));
+
+        JsonDocument found = bucket.get("foo");
+        assertEquals(JsonObject.create().put("a", 1), found.content());
+        assertEquals(1234, found.cas());
+        assertEquals(1234, bucket.get(JsonDocument.create("foo")).cas());
+        assertEquals(1235, bucket.upsert(JsonDocument.create("foo", JsonObject.create())).cas());
+        assertEquals(7, bucket.counter("count", 1, 0).content().longValue());
+    }
+
+    @Test
+    public void shouldReturnNullForMissingDocument() {
+        CouchbaseBucket bucket = bucket(answering(ResponseStatus.NOT_EXISTS));
+        assertNull(bucket.get("foo"));
+        assertNull(bucket.get("foo", JsonDocument.class));
+    }
+
+    @Test(expected = DocumentAlreadyExistsException.class)
+    public void shouldThrowOperationErrorUnwrapped() {
+        bucket(answering(ResponseStatus.EXISTS)).insert(JsonDocument.create("foo", JsonObject.create()));
+    }
+
+    @Test
+    public void shouldWrapTimeoutInRuntimeException() {
+        CouchbaseCore core = mock(CouchbaseCore.class);
+        when(core.send(any(CouchbaseRequest.class))).thenReturn(Observable.<CouchbaseResponse>never());
+        try {
+            bucket(core).get("foo", 20, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+
+    @Test
+    public void shouldKeepNearCacheOnBlockingPath() {
+        CouchbaseCore core = answering(ResponseStatus.SUCCESS);
+        CouchbaseBucket bucket = bucket(core);
+        bucket.enableNearCache(NearCacheOptions.nearCacheOptions());
+
+        bucket.get("foo");
+        bucket.get("foo");
+        verify(core, times(1)).send(isA(GetRequest.class));
+
+        bucket.upsert(JsonDocument.create("foo", JsonObject.create()));
+        bucket.get("foo");
+        verify(core, times(2)).send(isA(GetRequest.class));
+        assertEquals(1, bucket.nearCacheStats().invalidations());
+    }
+
+    @Test
+    public void shouldKeepNearCacheOnFuturePath() throws Exception {
+        CouchbaseCore core = answering(ResponseStatus.SUCCESS);
+        CouchbaseBucket bucket = bucket(core);
+        bucket.enableNearCache(NearCacheOptions.nearCacheOptions());
+
+        bucket.get("foo");
+        assertEquals(1234, bucket.future().getAndLock("foo", 10).get().cas());
+        bucket.get("foo");
+        assertTrue(bucket.future().unlock("foo", 1234).get());
+        bucket.get("foo");
+        bucket.future().getAndTouch("foo", 10).get();
+        bucket.get("foo");
+        assertTrue(bucket.future().touch("foo", 10).get());
+        bucket.get("foo");
+
+        verify(core, times(7)).send(isA(GetRequest.class));
+        assertEquals(4, bucket.nearCacheStats().invalidations());
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bucket.api;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.config.ClusterConfig;
+import com.couchbase.client.core.config.CouchbaseBucketConfig;
+import com.couchbase.client.core.endpoint.kv.KeyValueStatus;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.cluster.GetClusterConfigRequest;
+import com.couchbase.client.core.message.cluster.GetClusterConfigResponse;
+import com.couchbase.client.core.message.kv.GetRequest;
+import com.couchbase.client.core.message.kv.GetResponse;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.deps.io.netty.util.CharsetUtil;
+import com.couchbase.client.java.CouchbaseAsyncBucket;
+import com.couchbase.client.java.bulk.BulkGetResult;
+import com.couchbase.client.java.document.Document;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.env.CouchbaseEnvironment;
+import com.couchbase.client.java.env.DefaultCouchbaseEnvironment;
+import com.couchbase.client.java.error.TemporaryFailureException;
+import com.couchbase.client.java.transcoder.Transcoder;
+import com.couchbase.client.java.transcoder.TranscoderUtils;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import rx.Observable;
+import rx.subjects.AsyncSubject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the functionality of {@link BulkGet} and {@link PartitionGrouping}.
+ */
+public class BulkGetTest {
+
+    private static final CouchbaseEnvironment ENV = DefaultCouchbaseEnvironment.create();
+
+    private static final Map<Class<? extends Document>, Transcoder<? extends Document, ?>> TRANSCODERS =
+        new HashMap<Class<? extends Document>, Transcoder<? extends Document, ?>>();
+
+    static {
+        TRANSCODERS.put(JsonDocument.class, CouchbaseAsyncBucket.JSON_OBJECT_TRANSCODER);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        ENV.shutdown();
+    }
+
+    @Test
+    public void shouldSplitFoundMissingAndFailed() {
+        ClusterFacade core = mockCore(new AtomicInteger());
+
+        BulkGetResult<JsonDocument> result = BulkGet.getAll(Arrays.asList("a", "missing", "b", "fail", "a"),
+            JsonDocument.class, ENV, "bucket", core, TRANSCODERS, 16, 0, null).toBlocking().single();
+
+        assertEquals(2, result.documents().size());
+        assertEquals("a", result.get("a").content().getString("id"));
+        assertEquals("b", result.get("b").content().getString("id"));
+        assertEquals(Collections.singleton("missing"), result.missing());
+        assertEquals(1, result.failures().size());
+        assertTrue(result.failures().get("fail") instanceof TemporaryFailureException);
+        assertFalse(result.isSuccess());
+    }
+
+    @Test
+    public void shouldTouchWhileGetting() {
+        final List<GetRequest> requests = new ArrayList<GetRequest>();
+        ClusterFacade core = mockCore(new AtomicInteger(), requests);
+
+        BulkGetResult<JsonDocument> result = BulkGet.getAndTouchAll(Arrays.asList("a", "missing"),
+            JsonDocument.class, 60, ENV, "bucket", core, TRANSCODERS, 16, 0, null).toBlocking().single();
+
+        assertEquals("a", result.get("a").content().getString("id"));
+        assertEquals(Collections.singleton("missing"), result.missing());
+        assertEquals(2, requests.size());
+        for (GetRequest request : requests) {
+            assertTrue(request.touch());
+            assertEquals(60, request.expiry());
+        }
+    }
+
+    @Test
+    public void shouldReportOutstandingIdsAsTimedOut() {
+        ClusterFacade core = mockCore(new AtomicInteger());
+
+        BulkGetResult<JsonDocument> result = BulkGet.getAll(Arrays.asList("a", "stall"),
+            JsonDocument.class, ENV, "bucket", core, TRANSCODERS, 16, 200, TimeUnit.MILLISECONDS)
+            .toBlocking().single();
+
+        assertEquals(1, result.documents().size());
+        assertTrue(result.failures().get("stall") instanceof TimeoutException);
+    }
+
+    @Test
+    public void shouldBoundRequestsInFlightPerNode() {
+        final AtomicInteger sent = new AtomicInteger();
+        ClusterFacade core = mockCore(sent);
+
+        List<String> ids = Arrays.asList("stall1", "stall2", "stall3", "stall4", "stall5");
+        BulkGetResult<JsonDocument> result = BulkGet.getAll(ids, JsonDocument.class, ENV, "bucket", core,
+            TRANSCODERS, 2, 200, TimeUnit.MILLISECONDS).toBlocking().single();
+
+        // all ids end up on the same node, so only two of them may ever be dispatched
+        assertEquals(2, sent.get());
+        assertEquals(5, result.failures().size());
+    }
+
+    @Test
+    public void shouldCompleteEmptyBatchWithoutIo() {
+        ClusterFacade core = mock(ClusterFacade.class);
+        BulkGetResult<JsonDocument> result = BulkGet.getAll(Collections.<String>emptyList(), JsonDocument.class,
+            ENV, "bucket", core, TRANSCODERS, 16, 0, null).toBlocking().single();
+        assertTrue(result.documents().isEmpty());
+        assertTrue(result.isSuccess());
+    }
+
+    @Test
+    public void shouldGroupByActiveNode() {
+        CouchbaseBucketConfig config = mock(CouchbaseBucketConfig.class);
+        when(config.numberOfPartitions()).thenReturn(1024);
+        when(config.nodeIndexForMaster(anyInt(), anyBoolean())).thenAnswer(new Answer<Short>() {
+            @Override
+            public Short answer(InvocationOnMock invocation) throws Throwable {
+                return (short) ((Integer) invocation.getArguments()[0] % 2);
+            }
+        });
+
+        List<String> ids = Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h");
+        Map<Integer, List<String>> groups = PartitionGrouping.byNode(config, ids);
+        int total = 0;
+        for (Map.Entry<Integer, List<String>> group : groups.entrySet()) {
+            for (String id : group.getValue()) {
+                assertEquals(PartitionGrouping.partitionForId(id, 1024) % 2, (int) group.getKey());
+            }
+            total += group.getValue().size();
+        }
+        assertEquals(ids.size(), total);
+
+        Map<Integer, List<String>> unknown = PartitionGrouping.byNode(null, ids);
+        assertEquals(ids, unknown.get(PartitionGrouping.UNKNOWN_NODE));
+    }
+
+    /**
+     * Creates a core which answers with a single node config and responds to gets based on the ID.
+     */
+    private static ClusterFacade mockCore(final AtomicInteger sent) {
+        return mockCore(sent, new ArrayList<GetRequest>());
+    }
+
+    /**
+     * Like {@link #mockCore(AtomicInteger)}, also collecting the get requests sent.
+     */
+    private static ClusterFacade mockCore(final AtomicInteger sent, final List<GetRequest> requests) {
+        final CouchbaseBucketConfig bucketConfig = mock(CouchbaseBucketConfig.class);
+        when(bucketConfig.numberOfPartitions()).thenReturn(1024);
+        when(bucketConfig.nodeIndexForMaster(anyInt(), anyBoolean())).thenReturn((short) 0);
+        final ClusterConfig clusterConfig = mock(ClusterConfig.class);
+        when(clusterConfig.bucketConfig("bucket")).thenReturn(bucketConfig);
+
+        ClusterFacade core = mock(ClusterFacade.class);
+        when(core.send(any(CouchbaseRequest.class))).thenAnswer(new Answer<Observable<?>>() {
+            @Override
+            public Observable<?> answer(InvocationOnMock invocation) throws Throwable {
+                Object request = invocation.getArguments()[0];
+                if (request instanceof GetClusterConfigRequest) {
+                    return Observable.just(new GetClusterConfigResponse(clusterConfig, ResponseStatus.SUCCESS));
+                }
+                GetRequest get = (GetRequest) request;
+                sent.incrementAndGet();
+                synchronized (requests) {
+                    requests.add(get);
+                }
+                AsyncSubject<GetResponse> response = AsyncSubject.create();
+                if (get.key().startsWith("stall")) {
+                    return response;
+                }
+
+                ResponseStatus status = ResponseStatus.SUCCESS;
+                if (get.key().equals("missing")) {
+                    status = ResponseStatus.NOT_EXISTS;
+                } else if (get.key().equals("fail")) {
+                    status = ResponseStatus.TEMPORARY_FAILURE;
+                }
+                String body = JsonObject.create().put("id", get.key()).toString();
+                response.onNext(new GetResponse(status, KeyValueStatus.SUCCESS.code(), 1234,
+                    TranscoderUtils.JSON_COMMON_FLAGS, "bucket", Unpooled.copiedBuffer(body, CharsetUtil.UTF_8), get));
+                response.onCompleted();
+                return response;
+            }
+        });
+        return core;
+    }
+}
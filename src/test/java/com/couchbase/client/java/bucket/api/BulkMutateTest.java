@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bucket.api;
+
+import com.couchbase.client.core.message.kv.MutationToken;
+import com.couchbase.client.java.bulk.BulkMutationOptions;
+import com.couchbase.client.java.bulk.BulkMutationResult;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.error.DocumentAlreadyExistsException;
+import com.couchbase.client.java.error.TemporaryFailureException;
+import com.couchbase.client.java.util.retry.RetryBuilder;
+import org.junit.Test;
+import rx.Observable;
+import rx.functions.Action1;
+import rx.functions.Func0;
+import rx.functions.Func1;
+import rx.subjects.PublishSubject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the functionality of {@link BulkMutate}.
+ */
+public class BulkMutateTest {
+
+    @Test
+    public void shouldCollectSuccessesAndFailures() {
+        List<JsonDocument> docs = documents("a", "b", "exists");
+
+        BulkMutationResult result = BulkMutate.execute(Observable.from(docs), new Func1<JsonDocument,
+            Observable<JsonDocument>>() {
+            @Override
+            public Observable<JsonDocument> call(JsonDocument doc) {
+                if (doc.id().equals("exists")) {
+                    return Observable.error(new DocumentAlreadyExistsException());
+                }
+                return Observable.just(JsonDocument.create(doc.id(), 0, doc.content(), doc.id().hashCode(),
+                    new MutationToken(1, 2, 3, "bucket")));
+            }
+        }, BulkMutationOptions.bulkMutationOptions()).toBlocking().single();
+
+        assertEquals(2, result.successCount());
+        assertEquals(2, result.cas().size());
+        assertEquals("a".hashCode(), (long) result.cas().get("a"));
+        assertEquals(2, result.mutationTokens().size());
+        assertEquals(1, result.failures().size());
+        assertTrue(result.failures().get("exists") instanceof DocumentAlreadyExistsException);
+        assertFalse(result.isSuccess());
+    }
+
+    @Test
+    public void shouldRetryTemporaryFailures() {
+        final ConcurrentMap<String, AtomicInteger> attempts = new ConcurrentHashMap<String, AtomicInteger>();
+
+        BulkMutationResult result = BulkMutate.execute(Observable.from(documents("a", "b")),
+            new Func1<JsonDocument, Observable<JsonDocument>>() {
+                @Override
+                public Observable<JsonDocument> call(final JsonDocument doc) {
+                    return Observable.defer(new Func0<Observable<JsonDocument>>() {
+                        @Override
+                        public Observable<JsonDocument> call() {
+                            attempts.putIfAbsent(doc.id(), new AtomicInteger());
+                            if (attempts.get(doc.id()).incrementAndGet() < 3) {
+                                return Observable.error(new TemporaryFailureException());
+                            }
+                            return Observable.just(doc);
+                        }
+                    });
+                }
+            }, BulkMutationOptions.bulkMutationOptions()
+                .retryBuilder(RetryBuilder.anyOf(TemporaryFailureException.class).max(5)))
+            .toBlocking().single();
+
+        assertTrue(result.isSuccess());
+        assertEquals(2, result.successCount());
+        assertEquals(3, attempts.get("a").get());
+        assertEquals(3, attempts.get("b").get());
+    }
+
+    @Test
+    public void shouldBoundMutationsInFlightAndSkipSuccesses() {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxSeen = new AtomicInteger();
+        final List<PublishSubject<JsonDocument>> pending = new ArrayList<PublishSubject<JsonDocument>>();
+
+        Observable<BulkMutationResult> bulk = BulkMutate.execute(Observable.from(documents("a", "b", "c", "d")),
+            new Func1<JsonDocument, Observable<JsonDocument>>() {
+                @Override
+                public Observable<JsonDocument> call(JsonDocument doc) {
+                    maxSeen.set(Math.max(maxSeen.get(), inFlight.incrementAndGet()));
+                    PublishSubject<JsonDocument> subject = PublishSubject.create();
+                    pending.add(subject);
+                    return subject.map(new Func1<JsonDocument, JsonDocument>() {
+                        @Override
+                        public JsonDocument call(JsonDocument d) {
+                            inFlight.decrementAndGet();
+                            return d;
+                        }
+                    });
+                }
+            }, BulkMutationOptions.bulkMutationOptions().maxInFlight(2).collectSuccesses(false));
+
+        final List<BulkMutationResult> results = new ArrayList<BulkMutationResult>();
+        bulk.subscribe(new Action1<BulkMutationResult>() {
+            @Override
+            public void call(BulkMutationResult r) {
+                results.add(r);
+            }
+        });
+
+        for (int i = 0; i < pending.size(); i++) {
+            PublishSubject<JsonDocument> subject = pending.get(i);
+            subject.onNext(JsonDocument.create("id" + i, JsonObject.empty(), 1));
+            subject.onCompleted();
+        }
+
+        assertEquals(4, pending.size());
+        assertEquals(2, maxSeen.get());
+        assertEquals(1, results.size());
+        assertEquals(4, results.get(0).successCount());
+        assertTrue(results.get(0).cas().isEmpty());
+    }
+
+    private static List<JsonDocument> documents(String... ids) {
+        List<JsonDocument> docs = new ArrayList<JsonDocument>();
+        for (String id : ids) {
+            docs.add(JsonDocument.create(id, JsonObject.create().put("id", id)));
+        }
+        return docs;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bucket.api;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.config.ClusterConfig;
+import com.couchbase.client.core.config.CouchbaseBucketConfig;
+import com.couchbase.client.core.endpoint.kv.KeyValueStatus;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.cluster.GetClusterConfigRequest;
+import com.couchbase.client.core.message.cluster.GetClusterConfigResponse;
+import com.couchbase.client.core.message.kv.TouchRequest;
+import com.couchbase.client.core.message.kv.TouchResponse;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.java.bulk.BulkTouchResult;
+import com.couchbase.client.java.env.CouchbaseEnvironment;
+import com.couchbase.client.java.env.DefaultCouchbaseEnvironment;
+import com.couchbase.client.java.error.TemporaryFailureException;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import rx.Observable;
+import rx.subjects.AsyncSubject;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the functionality of {@link BulkTouch}.
+ */
+public class BulkTouchTest {
+
+    private static final CouchbaseEnvironment ENV = DefaultCouchbaseEnvironment.create();
+
+    @AfterClass
+    public static void tearDown() {
+        ENV.shutdown();
+    }
+
+    @Test
+    public void shouldCountRefreshedAndSplitMissingAndFailed() {
+        Map<String, Integer> expiries = new ConcurrentHashMap<String, Integer>();
+        ClusterFacade core = mockCore(new AtomicInteger(), expiries);
+
+        BulkTouchResult result = BulkTouch.touchAll(Arrays.asList("a", "missing", "b", "fail", "a"), 60, ENV,
+            "bucket", core, 16, 0, null).toBlocking().single();
+
+        assertEquals(2, result.refreshedCount());
+        assertEquals(Collections.singleton("missing"), result.missing());
+        assertEquals(1, result.failures().size());
+        assertTrue(result.failures().get("fail") instanceof TemporaryFailureException);
+        assertFalse(result.isSuccess());
+        assertEquals(60, (int) expiries.get("a"));
+        assertEquals(60, (int) expiries.get("b"));
+    }
+
+    @Test
+    public void shouldReportOutstandingIdsAsTimedOut() {
+        ClusterFacade core = mockCore(new AtomicInteger(), new ConcurrentHashMap<String, Integer>());
+
+        BulkTouchResult result = BulkTouch.touchAll(Arrays.asList("a", "stall", "b"), 60, ENV, "bucket", core, 16,
+            200, TimeUnit.MILLISECONDS).toBlocking().single();
+
+        assertEquals(2, result.refreshedCount());
+        assertEquals(Collections.singleton("stall"), result.failures().keySet());
+        assertTrue(result.failures().get("stall") instanceof TimeoutException);
+    }
+
+    @Test
+    public void shouldBoundRequestsInFlightPerNode() {
+        AtomicInteger sent = new AtomicInteger();
+        ClusterFacade core = mockCore(sent, new ConcurrentHashMap<String, Integer>());
+
+        List<String> ids = Arrays.asList("stall1", "stall2", "stall3", "stall4", "stall5");
+        BulkTouchResult result = BulkTouch.touchAll(ids, 60, ENV, "bucket", core, 2, 200, TimeUnit.MILLISECONDS)
+            .toBlocking().single();
+
+        assertEquals(2, sent.get());
+        assertEquals(5, result.failures().size());
+        assertEquals(0, result.refreshedCount());
+    }
+
+    @Test
+    public void shouldCompleteEmptyBatchWithoutIo() {
+        BulkTouchResult result = BulkTouch.touchAll(Collections.<String>emptyList(), 60, ENV, "bucket",
+            mock(ClusterFacade.class), 16, 0, null).toBlocking().single();
+        assertEquals(0, result.refreshedCount());
+        assertTrue(result.isSuccess());
+    }
+
+    /**
+     * Creates a core which answers with a single node config and responds to touches based on the ID.
+     */
+    private static ClusterFacade mockCore(final AtomicInteger sent, final Map<String, Integer> expiries) {
+        final CouchbaseBucketConfig bucketConfig = mock(CouchbaseBucketConfig.class);
+        when(bucketConfig.numberOfPartitions()).thenReturn(1024);
+        when(bucketConfig.nodeIndexForMaster(anyInt(), anyBoolean())).thenReturn((short) 0);
+        final ClusterConfig clusterConfig = mock(ClusterConfig.class);
+        when(clusterConfig.bucketConfig("bucket")).thenReturn(bucketConfig);
+
+        ClusterFacade core = mock(ClusterFacade.class);
+        when(core.send(any(CouchbaseRequest.class))).thenAnswer(new Answer<Observable<?>>() {
+            @Override
+            public Observable<?> answer(InvocationOnMock invocation) throws Throwable {
+                Object request = invocation.getArguments()[0];
+                if (request instanceof GetClusterConfigRequest) {
+                    return Observable.just(new GetClusterConfigResponse(clusterConfig, ResponseStatus.SUCCESS));
+                }
+                TouchRequest touch = (TouchRequest) request;
+                sent.incrementAndGet();
+                AsyncSubject<TouchResponse> response = AsyncSubject.create();
+                if (touch.key().startsWith("stall")) {
+                    return response;
+                }
+
+                ResponseStatus status = ResponseStatus.SUCCESS;
+                if (touch.key().equals("missing")) {
+                    status = ResponseStatus.NOT_EXISTS;
+                } else if (touch.key().equals("fail")) {
+                    status = ResponseStatus.TEMPORARY_FAILURE;
+                } else {
+                    expiries.put(touch.key(), touch.expiry());
+                }
+                response.onNext(new TouchResponse(status, KeyValueStatus.SUCCESS.code(), "bucket",
+                    Unpooled.EMPTY_BUFFER, touch));
+                response.onCompleted();
+                return response;
+            }
+        });
+        return core;
+    }
+}
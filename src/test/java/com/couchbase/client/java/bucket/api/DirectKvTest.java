@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bucket.api;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.endpoint.kv.KeyValueStatus;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.kv.GetRequest;
+import com.couchbase.client.core.message.kv.GetResponse;
+import com.couchbase.client.core.message.kv.InsertRequest;
+import com.couchbase.client.core.message.kv.InsertResponse;
+import com.couchbase.client.core.message.kv.UpsertRequest;
+import com.couchbase.client.core.message.kv.UpsertResponse;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.deps.io.netty.util.CharsetUtil;
+import com.couchbase.client.java.CouchbaseAsyncBucket;
+import com.couchbase.client.java.document.Document;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.env.CouchbaseEnvironment;
+import com.couchbase.client.java.env.DefaultCouchbaseEnvironment;
+import com.couchbase.client.java.error.DocumentAlreadyExistsException;
+import com.couchbase.client.java.future.CouchbaseFuture;
+import com.couchbase.client.java.transcoder.Transcoder;
+import com.couchbase.client.java.transcoder.TranscoderUtils;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import rx.Observable;
+import rx.schedulers.TestScheduler;
+import rx.subjects.AsyncSubject;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the functionality of {@link DirectKv}.
+ */
+public class DirectKvTest {
+
+    private static final CouchbaseEnvironment ENV = DefaultCouchbaseEnvironment.create();
+
+    private static final Map<Class<? extends Document>, Transcoder<? extends Document, ?>> TRANSCODERS =
+        new HashMap<Class<? extends Document>, Transcoder<? extends Document, ?>>();
+
+    @SuppressWarnings("unchecked")
+    private static final Transcoder<Document<Object>, Object> JSON_TRANSCODER =
+        (Transcoder<Document<Object>, Object>) (Transcoder<?, ?>) CouchbaseAsyncBucket.JSON_OBJECT_TRANSCODER;
+
+    static {
+        TRANSCODERS.put(JsonDocument.class, CouchbaseAsyncBucket.JSON_OBJECT_TRANSCODER);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        ENV.shutdown();
+    }
+
+    private static ClusterFacade answering(final ResponseStatus status) {
+        ClusterFacade core = mock(ClusterFacade.class);
+        when(core.send(any(CouchbaseRequest.class))).thenAnswer(new Answer<Observable<?>>() {
+            @Override
+            public Observable<?> answer(InvocationOnMock invocation) throws Throwable {
+                CouchbaseRequest request = (CouchbaseRequest) invocation.getArguments()[0];
+                AsyncSubject<CouchbaseResponse> response = AsyncSubject.create();
+                if (request instanceof GetRequest) {
+                    response.onNext(new GetResponse(status, KeyValueStatus.SUCCESS.code(), 1234,
+                        TranscoderUtils.JSON_COMMON_FLAGS, "bucket",
+                        Unpooled.copiedBuffer("{\"a\":1}", CharsetUtil.UTF_8), request));
+                } else if (request instanceof UpsertRequest) {
+                    response.onNext(new UpsertResponse(status, KeyValueStatus.SUCCESS.code(), 42, "bucket",
+                        Unpooled.EMPTY_BUFFER, null, request));
+                } else if (request instanceof InsertRequest) {
+                    response.onNext(new InsertResponse(status, KeyValueStatus.SUCCESS.code(), 42, "bucket",
+                        Unpooled.EMPTY_BUFFER, null, request));
+                }
+                response.onCompleted();
+                return response;
+            }
+        });
+        return core;
+    }
+
+    @Test
+    public void shouldGetDocument() throws Exception {
+        CouchbaseFuture<JsonDocument> future = DirectKv.get("id", JsonDocument.class, ENV, "bucket",
+            answering(ResponseStatus.SUCCESS), TRANSCODERS, 1, TimeUnit.SECONDS);
+        JsonDocument document = future.get();
+        assertEquals("id", document.id());
+        assertEquals(1234, document.cas());
+        assertEquals(JsonObject.create().put("a", 1), document.content());
+    }
+
+    @Test
+    public void shouldCompleteMissingDocumentWithNull() throws Exception {
+        assertNull(DirectKv.get("id", JsonDocument.class, ENV, "bucket", answering(ResponseStatus.NOT_EXISTS),
+            TRANSCODERS, 1, TimeUnit.SECONDS).get());
+    }
+
+    @Test
+    public void shouldUpsertDocument() throws Exception {
+        JsonDocument document = JsonDocument.create("id", JsonObject.create().put("a", 1));
+        JsonDocument result = DirectKv.upsert(document, ENV, JSON_TRANSCODER, answering(ResponseStatus.SUCCESS),
+            "bucket", 1, TimeUnit.SECONDS).get();
+        assertEquals("id", result.id());
+        assertEquals(42, result.cas());
+    }
+
+    @Test
+    public void shouldFailWithSameErrorAsObservable() throws Exception {
+        JsonDocument document = JsonDocument.create("id", JsonObject.create().put("a", 1));
+        try {
+            DirectKv.insert(document, ENV, JSON_TRANSCODER, answering(ResponseStatus.EXISTS), "bucket", 1,
+                TimeUnit.SECONDS).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof DocumentAlreadyExistsException);
+        }
+    }
+
+    @Test
+    public void shouldTimeOut() throws Exception {
+        ClusterFacade core = mock(ClusterFacade.class);
+        when(core.send(isA(GetRequest.class))).thenReturn(Observable.<CouchbaseResponse>never());
+        CouchbaseFuture<JsonDocument> future = DirectKv.get("id", JsonDocument.class, ENV, "bucket", core,
+            TRANSCODERS, 20, TimeUnit.MILLISECONDS);
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+
+    @Test
+    public void shouldTimeOutOnEnvironmentScheduler() throws Exception {
+        TestScheduler scheduler = new TestScheduler();
+        CouchbaseEnvironment environment = mock(CouchbaseEnvironment.class);
+        when(environment.scheduler()).thenReturn(scheduler);
+        ClusterFacade core = mock(ClusterFacade.class);
+        when(core.send(isA(GetRequest.class))).thenReturn(Observable.<CouchbaseResponse>never());
+
+        CouchbaseFuture<JsonDocument> future = DirectKv.get("id", JsonDocument.class, environment, "bucket", core,
+            TRANSCODERS, 1, TimeUnit.SECONDS);
+        scheduler.advanceTimeBy(999, TimeUnit.MILLISECONDS);
+        assertFalse(future.isDone());
+
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+        try {
+            future.get(0, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bucket.api;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.DocumentMutationLostException;
+import com.couchbase.client.core.ReplicaNotConfiguredException;
+import com.couchbase.client.core.config.ClusterConfig;
+import com.couchbase.client.core.config.CouchbaseBucketConfig;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.cluster.GetClusterConfigRequest;
+import com.couchbase.client.core.message.cluster.GetClusterConfigResponse;
+import com.couchbase.client.core.message.kv.FailoverObserveSeqnoResponse;
+import com.couchbase.client.core.message.kv.MutationToken;
+import com.couchbase.client.core.message.kv.NoFailoverObserveSeqnoResponse;
+import com.couchbase.client.core.message.kv.ObserveSeqnoRequest;
+import com.couchbase.client.core.message.observe.Observe;
+import com.couchbase.client.core.time.Delay;
+import com.couchbase.client.java.env.CouchbaseEnvironment;
+import com.couchbase.client.java.env.DefaultCouchbaseEnvironment;
+import com.couchbase.client.java.util.DurabilityCoalescingStats;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+import rx.subjects.AsyncSubject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the functionality of {@link DurabilityCoordinator}.
+ */
+public class DurabilityCoordinatorTest {
+
+    private static final CouchbaseEnvironment ENV = DefaultCouchbaseEnvironment.builder()
+        .observeIntervalDelay(Delay.fixed(1, TimeUnit.MILLISECONDS))
+        .build();
+
+    @AfterClass
+    public static void tearDown() {
+        ENV.shutdown();
+    }
+
+    private static Observable<Boolean> observe(DurabilityCoordinator coordinator, long vbucketID, long seqno,
+        Observe.PersistTo persistTo, Observe.ReplicateTo replicateTo) {
+        MutationToken token = new MutationToken(vbucketID, 42, seqno, "bucket");
+        return coordinator.observe("key" + seqno, seqno, false, token, persistTo, replicateTo, null);
+    }
+
+    @Test
+    public void shouldShareRoundsBetweenMutationsOfSamePartition() {
+        FakeServer server = new FakeServer(1);
+        server.masterPersisted = 100;
+        DurabilityCoordinator coordinator = new DurabilityCoordinator(ENV, "bucket", server.core);
+
+        TestSubscriber<Boolean> first = TestSubscriber.create();
+        TestSubscriber<Boolean> second = TestSubscriber.create();
+        TestSubscriber<Boolean> third = TestSubscriber.create();
+        observe(coordinator, 1, 5, Observe.PersistTo.MASTER, Observe.ReplicateTo.NONE).subscribe(first);
+        observe(coordinator, 1, 6, Observe.PersistTo.MASTER, Observe.ReplicateTo.NONE).subscribe(second);
+        observe(coordinator, 1, 7, Observe.PersistTo.MASTER, Observe.ReplicateTo.NONE).subscribe(third);
+        assertEquals(1, server.observes.get());
+        server.release();
+
+        for (TestSubscriber<Boolean> subscriber : new TestSubscriber[] { first, second, third }) {
+            subscriber.awaitTerminalEvent(1, TimeUnit.SECONDS);
+            subscriber.assertValue(true);
+        }
+        assertEquals(2, server.observes.get());
+        assertEquals(0, server.replicaObserves.get());
+
+        DurabilityCoalescingStats stats = coordinator.stats();
+        assertEquals(3, stats.mutations());
+        assertEquals(2, stats.polls());
+        assertEquals(0, stats.failures());
+        assertEquals(2 / 3.0, stats.pollsPerMutation(), 0.001);
+    }
+
+    @Test
+    public void shouldKeepPollingUntilReplicated() {
+        FakeServer server = new FakeServer(1);
+        server.release();
+        server.replicateAfter = 3;
+        DurabilityCoordinator coordinator = new DurabilityCoordinator(ENV, "bucket", server.core);
+
+        Boolean result = observe(coordinator, 1, 5, Observe.PersistTo.NONE, Observe.ReplicateTo.ONE)
+            .timeout(1, TimeUnit.SECONDS).toBlocking().single();
+
+        assertTrue(result);
+        assertEquals(3, server.replicaObserves.get());
+        assertEquals(3, coordinator.stats().polls());
+    }
+
+    @Test
+    public void shouldNotShareRoundsBetweenPartitions() {
+        FakeServer server = new FakeServer(1);
+        server.masterPersisted = 100;
+        server.release();
+        DurabilityCoordinator coordinator = new DurabilityCoordinator(ENV, "bucket", server.core);
+
+        observe(coordinator, 1, 5, Observe.PersistTo.MASTER, Observe.ReplicateTo.NONE).toBlocking().single();
+        observe(coordinator, 2, 5, Observe.PersistTo.MASTER, Observe.ReplicateTo.NONE).toBlocking().single();
+        assertEquals(2, server.observes.get());
+    }
+
+    @Test
+    public void shouldFailLostMutation() {
+        FakeServer server = new FakeServer(1);
+        server.failoverReceived = 4L;
+        server.release();
+        DurabilityCoordinator coordinator = new DurabilityCoordinator(ENV, "bucket", server.core);
+
+        TestSubscriber<Boolean> subscriber = TestSubscriber.create();
+        observe(coordinator, 1, 5, Observe.PersistTo.MASTER, Observe.ReplicateTo.NONE).subscribe(subscriber);
+        subscriber.awaitTerminalEvent(1, TimeUnit.SECONDS);
+        subscriber.assertError(DocumentMutationLostException.class);
+        assertEquals(1, coordinator.stats().failures());
+    }
+
+    @Test
+    public void shouldFailWithoutEnoughReplicas() {
+        FakeServer server = new FakeServer(1);
+        server.release();
+        DurabilityCoordinator coordinator = new DurabilityCoordinator(ENV, "bucket", server.core);
+
+        TestSubscriber<Boolean> subscriber = TestSubscriber.create();
+        observe(coordinator, 1, 5, Observe.PersistTo.NONE, Observe.ReplicateTo.TWO).subscribe(subscriber);
+        subscriber.awaitTerminalEvent(1, TimeUnit.SECONDS);
+        subscriber.assertError(ReplicaNotConfiguredException.class);
+    }
+
+    @Test
+    public void shouldStopPollingForUnsubscribedMutation() throws Exception {
+        FakeServer server = new FakeServer(1);
+        DurabilityCoordinator coordinator = new DurabilityCoordinator(ENV, "bucket", server.core);
+
+        TestSubscriber<Boolean> subscriber = TestSubscriber.create();
+        observe(coordinator, 1, 5, Observe.PersistTo.MASTER, Observe.ReplicateTo.NONE).subscribe(subscriber);
+        subscriber.unsubscribe();
+        server.release();
+        Thread.sleep(50);
+
+        assertEquals(1, server.observes.get());
+        subscriber.assertNoTerminalEvent();
+    }
+
+    @Test
+    public void shouldRecordMutationLatency() {
+        DurabilityCoordinator coordinator = new DurabilityCoordinator(ENV, "bucket", mock(ClusterFacade.class));
+        coordinator.timed(Observable.just("doc").delay(5, TimeUnit.MILLISECONDS)).toBlocking().single();
+        assertTrue(coordinator.stats().mutationLatencyP50Micros() >= 5000);
+    }
+
+    /**
+     * Answers observe requests from a partition state, holding the answers back until released.
+     */
+    private static class FakeServer {
+
+        final AtomicInteger observes = new AtomicInteger();
+        final AtomicInteger replicaObserves = new AtomicInteger();
+        final List<Runnable> pending = new ArrayList<Runnable>();
+        final ClusterFacade core = mock(ClusterFacade.class);
+        volatile long masterPersisted;
+        volatile int replicateAfter = Integer.MAX_VALUE;
+        volatile Long failoverReceived;
+        boolean released;
+
+        FakeServer(int replicas) {
+            ClusterConfig clusterConfig = mock(ClusterConfig.class);
+            CouchbaseBucketConfig bucketConfig = mock(CouchbaseBucketConfig.class);
+            when(clusterConfig.bucketConfig(anyString())).thenReturn(bucketConfig);
+            when(bucketConfig.numberOfReplicas()).thenReturn(replicas);
+            final GetClusterConfigResponse config = new GetClusterConfigResponse(clusterConfig,
+                ResponseStatus.SUCCESS);
+
+            when(core.send(any(CouchbaseRequest.class))).thenAnswer(new Answer<Observable<?>>() {
+                @Override
+                public Observable<?> answer(InvocationOnMock invocation) throws Throwable {
+                    Object request = invocation.getArguments()[0];
+                    if (request instanceof GetClusterConfigRequest) {
+                        return Observable.just(config);
+                    }
+                    final ObserveSeqnoRequest observe = (ObserveSeqnoRequest) request;
+                    final int round = observe.master() ? observes.incrementAndGet()
+                        : replicaObserves.incrementAndGet();
+                    final AsyncSubject<CouchbaseResponse> response = AsyncSubject.create();
+                    Runnable answer = new Runnable() {
+                        @Override
+                        public void run() {
+                            response.onNext(respond(observe, round));
+                            response.onCompleted();
+                        }
+                    };
+                    synchronized (FakeServer.this) {
+                        if (!released) {
+                            pending.add(answer);
+                            return response;
+                        }
+                    }
+                    answer.run();
+                    return response;
+                }
+            });
+        }
+
+        CouchbaseResponse respond(ObserveSeqnoRequest observe, int round) {
+            long current = observe.master() || round >= replicateAfter ? 100 : 0;
+            long persisted = observe.master() ? masterPersisted : 0;
+            if (failoverReceived != null) {
+                return new FailoverObserveSeqnoResponse(observe.master(), (short) 1, 43, persisted, current, 42,
+                    failoverReceived, ResponseStatus.SUCCESS, (short) 0, "bucket", observe);
+            }
+            return new NoFailoverObserveSeqnoResponse(observe.master(), (short) 1, 42, persisted, current,
+                ResponseStatus.SUCCESS, (short) 0, "bucket", observe);
+        }
+
+        void release() {
+            List<Runnable> answers;
+            synchronized (this) {
+                released = true;
+                answers = new ArrayList<Runnable>(pending);
+                pending.clear();
+            }
+            for (Runnable answer : answers) {
+                answer.run();
+            }
+        }
+    }
+}
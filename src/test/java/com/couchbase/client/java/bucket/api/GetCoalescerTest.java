@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bucket.api;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.endpoint.kv.KeyValueStatus;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.kv.GetRequest;
+import com.couchbase.client.core.message.kv.GetResponse;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.deps.io.netty.util.CharsetUtil;
+import com.couchbase.client.java.CouchbaseAsyncBucket;
+import com.couchbase.client.java.cache.GetCoalescingStats;
+import com.couchbase.client.java.document.Document;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.document.RawJsonDocument;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.env.CouchbaseEnvironment;
+import com.couchbase.client.java.env.DefaultCouchbaseEnvironment;
+import com.couchbase.client.java.transcoder.Transcoder;
+import com.couchbase.client.java.transcoder.TranscoderUtils;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+import rx.subjects.AsyncSubject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the functionality of {@link GetCoalescer}.
+ */
+public class GetCoalescerTest {
+
+    private static final CouchbaseEnvironment ENV = DefaultCouchbaseEnvironment.create();
+
+    private static final Map<Class<? extends Document>, Transcoder<? extends Document, ?>> TRANSCODERS =
+        new HashMap<Class<? extends Document>, Transcoder<? extends Document, ?>>();
+
+    static {
+        TRANSCODERS.put(JsonDocument.class, CouchbaseAsyncBucket.JSON_OBJECT_TRANSCODER);
+        TRANSCODERS.put(RawJsonDocument.class, CouchbaseAsyncBucket.RAW_JSON_TRANSCODER);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        ENV.shutdown();
+    }
+
+    @Test
+    public void shouldShareConcurrentGets() {
+        FakeServer server = new FakeServer();
+        GetCoalescer coalescer = new GetCoalescer(ENV, "bucket", server.core, TRANSCODERS);
+
+        TestSubscriber<JsonDocument> first = TestSubscriber.create();
+        TestSubscriber<JsonDocument> second = TestSubscriber.create();
+        TestSubscriber<RawJsonDocument> raw = TestSubscriber.create();
+        coalescer.get("a", JsonDocument.class, 0, null).subscribe(first);
+        coalescer.get("a", JsonDocument.class, 0, null).subscribe(second);
+        coalescer.get("a", RawJsonDocument.class, 0, null).subscribe(raw);
+        assertEquals(1, coalescer.stats().inFlight());
+        server.release();
+
+        first.assertValueCount(1);
+        second.assertValueCount(1);
+        raw.assertValueCount(1);
+        assertEquals(1, server.gets.get());
+        assertEquals(first.getOnNextEvents().get(0).content(), second.getOnNextEvents().get(0).content());
+        assertNotSame(first.getOnNextEvents().get(0).content(), second.getOnNextEvents().get(0).content());
+        assertEquals("{\"id\":\"a\"}", raw.getOnNextEvents().get(0).content());
+
+        GetCoalescingStats stats = coalescer.stats();
+        assertEquals(3, stats.gets());
+        assertEquals(2, stats.coalesced());
+        assertEquals(0, stats.inFlight());
+        assertEquals(2 / 3.0, stats.coalesceRatio(), 0.001);
+    }
+
+    @Test
+    public void shouldNotShareCompletedGets() {
+        FakeServer server = new FakeServer();
+        GetCoalescer coalescer = new GetCoalescer(ENV, "bucket", server.core, TRANSCODERS);
+        server.release();
+
+        coalescer.get("a", JsonDocument.class, 0, null).toBlocking().single();
+        coalescer.get("a", JsonDocument.class, 0, null).toBlocking().single();
+        assertEquals(2, server.gets.get());
+        assertEquals(0, coalescer.stats().coalesced());
+    }
+
+    @Test
+    public void shouldCompleteAllWaitersOfMissingDocument() {
+        FakeServer server = new FakeServer();
+        GetCoalescer coalescer = new GetCoalescer(ENV, "bucket", server.core, TRANSCODERS);
+
+        TestSubscriber<JsonDocument> first = TestSubscriber.create();
+        TestSubscriber<JsonDocument> second = TestSubscriber.create();
+        coalescer.get("missing", JsonDocument.class, 0, null).subscribe(first);
+        coalescer.get("missing", JsonDocument.class, 0, null).subscribe(second);
+        server.release();
+
+        first.assertNoValues();
+        first.assertCompleted();
+        second.assertNoValues();
+        second.assertCompleted();
+        assertEquals(1, server.gets.get());
+    }
+
+    @Test
+    public void shouldNotJoinGetSentBeforeMutation() {
+        FakeServer server = new FakeServer();
+        GetCoalescer coalescer = new GetCoalescer(ENV, "bucket", server.core, TRANSCODERS);
+
+        TestSubscriber<JsonDocument> before = TestSubscriber.create();
+        TestSubscriber<JsonDocument> after = TestSubscriber.create();
+        coalescer.get("a", JsonDocument.class, 0, null).subscribe(before);
+        coalescer.detaching("a", Observable.just("mutated")).toBlocking().single();
+        coalescer.get("a", JsonDocument.class, 0, null).subscribe(after);
+        server.release();
+
+        before.assertValueCount(1);
+        after.assertValueCount(1);
+        assertEquals(2, server.gets.get());
+        assertEquals(0, coalescer.stats().coalesced());
+        assertEquals(1, coalescer.stats().detached());
+    }
+
+    /**
+     * A core which holds get responses until released and answers with a small document per ID.
+     */
+    private static class FakeServer {
+
+        final AtomicInteger gets = new AtomicInteger();
+        final List<Runnable> pending = new ArrayList<Runnable>();
+        final ClusterFacade core = mock(ClusterFacade.class);
+        boolean released;
+
+        FakeServer() {
+            when(core.send(any(CouchbaseRequest.class))).thenAnswer(new Answer<Observable<?>>() {
+                @Override
+                public Observable<?> answer(InvocationOnMock invocation) throws Throwable {
+                    final GetRequest get = (GetRequest) invocation.getArguments()[0];
+                    gets.incrementAndGet();
+                    final AsyncSubject<GetResponse> response = AsyncSubject.create();
+                    Runnable answer = new Runnable() {
+                        @Override
+                        public void run() {
+                            ResponseStatus status = get.key().equals("missing") ? ResponseStatus.NOT_EXISTS
+                                : ResponseStatus.SUCCESS;
+                            String body = JsonObject.create().put("id", get.key()).toString();
+                            response.onNext(new GetResponse(status, KeyValueStatus.SUCCESS.code(), 1234,
+                                TranscoderUtils.JSON_COMMON_FLAGS, "bucket",
+                                Unpooled.copiedBuffer(body, CharsetUtil.UTF_8), get));
+                            response.onCompleted();
+                        }
+                    };
+                    if (released) {
+                        answer.run();
+                    } else {
+                        pending.add(answer);
+                    }
+                    return response;
+                }
+            });
+        }
+
+        void release() {
+            released = true;
+            for (Runnable answer : pending) {
+                answer.run();
+            }
+            pending.clear();
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bucket.api;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.endpoint.kv.KeyValueStatus;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.kv.GetRequest;
+import com.couchbase.client.core.message.kv.GetResponse;
+import com.couchbase.client.core.message.kv.ObserveRequest;
+import com.couchbase.client.core.message.kv.ObserveResponse;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.deps.io.netty.util.CharsetUtil;
+import com.couchbase.client.java.CouchbaseAsyncBucket;
+import com.couchbase.client.java.cache.NearCacheOptions;
+import com.couchbase.client.java.cache.NearCacheStats;
+import com.couchbase.client.java.document.Document;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.env.CouchbaseEnvironment;
+import com.couchbase.client.java.env.DefaultCouchbaseEnvironment;
+import com.couchbase.client.java.transcoder.Transcoder;
+import com.couchbase.client.java.transcoder.TranscoderUtils;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+import rx.subjects.AsyncSubject;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the functionality of {@link NearCache}.
+ */
+public class NearCacheTest {
+
+    private static final CouchbaseEnvironment ENV = DefaultCouchbaseEnvironment.create();
+
+    private static final Map<Class<? extends Document>, Transcoder<? extends Document, ?>> TRANSCODERS =
+        new HashMap<Class<? extends Document>, Transcoder<? extends Document, ?>>();
+
+    static {
+        TRANSCODERS.put(JsonDocument.class, CouchbaseAsyncBucket.JSON_OBJECT_TRANSCODER);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        ENV.shutdown();
+    }
+
+    @Test
+    public void shouldServeHitsFromCache() {
+        FakeServer server = new FakeServer();
+        NearCache cache = new NearCache(ENV, "bucket", server.core, TRANSCODERS, NearCacheOptions.nearCacheOptions());
+
+        JsonDocument first = cache.get("a", JsonDocument.class, 0, null).toBlocking().single();
+        JsonDocument second = cache.get("a", JsonDocument.class, 0, null).toBlocking().single();
+
+        assertEquals(1, server.gets.get());
+        assertEquals(first.content(), second.content());
+        assertEquals(first.cas(), second.cas());
+        assertNotSame(first.content(), second.content());
+
+        NearCacheStats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.size());
+        assertEquals(0.5, stats.hitRatio(), 0.001);
+    }
+
+    @Test
+    public void shouldNotCacheMissingDocuments() {
+        FakeServer server = new FakeServer();
+        NearCache cache = new NearCache(ENV, "bucket", server.core, TRANSCODERS, NearCacheOptions.nearCacheOptions());
+
+        assertTrue(cache.get("missing", JsonDocument.class, 0, null).isEmpty().toBlocking().single());
+        assertTrue(cache.get("missing", JsonDocument.class, 0, null).isEmpty().toBlocking().single());
+        assertEquals(2, server.gets.get());
+        assertEquals(0, cache.stats().size());
+    }
+
+    @Test
+    public void shouldCoalesceConcurrentMisses() {
+        FakeServer server = new FakeServer();
+        server.hold = true;
+        NearCache cache = new NearCache(ENV, "bucket", server.core, TRANSCODERS, NearCacheOptions.nearCacheOptions());
+
+        TestSubscriber<JsonDocument> first = TestSubscriber.create();
+        TestSubscriber<JsonDocument> second = TestSubscriber.create();
+        cache.get("a", JsonDocument.class, 0, null).subscribe(first);
+        cache.get("a", JsonDocument.class, 0, null).subscribe(second);
+        server.release();
+
+        first.assertValueCount(1);
+        second.assertValueCount(1);
+        assertEquals(1, server.gets.get());
+        assertEquals(1, cache.stats().coalescedLoads());
+    }
+
+    @Test
+    public void shouldWaitForCoalescedMissWithOwnTimeout() {
+        FakeServer server = new FakeServer();
+        server.hold = true;
+        NearCache cache = new NearCache(ENV, "bucket", server.core, TRANSCODERS, NearCacheOptions.nearCacheOptions());
+
+        TestSubscriber<JsonDocument> first = TestSubscriber.create();
+        TestSubscriber<JsonDocument> second = TestSubscriber.create();
+        cache.get("a", JsonDocument.class, 10, TimeUnit.SECONDS).subscribe(first);
+        cache.get("a", JsonDocument.class, 50, TimeUnit.MILLISECONDS).subscribe(second);
+
+        second.awaitTerminalEvent(1, TimeUnit.SECONDS);
+        second.assertError(TimeoutException.class);
+        first.assertNoTerminalEvent();
+
+        server.release();
+        first.assertValueCount(1);
+        assertEquals(1, server.gets.get());
+        assertEquals(1, cache.stats().coalescedLoads());
+    }
+
+    @Test
+    public void shouldNotJoinMissWithShorterTimeout() {
+        FakeServer server = new FakeServer();
+        server.hold = true;
+        NearCache cache = new NearCache(ENV, "bucket", server.core, TRANSCODERS, NearCacheOptions.nearCacheOptions());
+
+        TestSubscriber<JsonDocument> first = TestSubscriber.create();
+        TestSubscriber<JsonDocument> second = TestSubscriber.create();
+        TestSubscriber<JsonDocument> third = TestSubscriber.create();
+        cache.get("a", JsonDocument.class, 1, TimeUnit.SECONDS).subscribe(first);
+        cache.get("a", JsonDocument.class, 10, TimeUnit.SECONDS).subscribe(second);
+        cache.get("a", JsonDocument.class, 5, TimeUnit.SECONDS).subscribe(third);
+        server.release();
+
+        first.assertValueCount(1);
+        second.assertValueCount(1);
+        third.assertValueCount(1);
+        assertEquals(2, server.gets.get());
+        assertEquals(1, cache.stats().coalescedLoads());
+    }
+
+    @Test
+    public void shouldInvalidateOnMutation() {
+        FakeServer server = new FakeServer();
+        NearCache cache = new NearCache(ENV, "bucket", server.core, TRANSCODERS, NearCacheOptions.nearCacheOptions());
+
+        cache.get("a", JsonDocument.class, 0, null).toBlocking().single();
+        cache.invalidating("a", Observable.just("mutated")).toBlocking().single();
+        cache.get("a", JsonDocument.class, 0, null).toBlocking().single();
+
+        assertEquals(2, server.gets.get());
+        assertEquals(1, cache.stats().invalidations());
+    }
+
+    @Test
+    public void shouldNotCacheFetchInFlightDuringMutation() {
+        FakeServer server = new FakeServer();
+        server.hold = true;
+        NearCache cache = new NearCache(ENV, "bucket", server.core, TRANSCODERS, NearCacheOptions.nearCacheOptions());
+
+        TestSubscriber<JsonDocument> before = TestSubscriber.create();
+        cache.get("a", JsonDocument.class, 0, null).subscribe(before);
+        cache.invalidate("a");
+        server.release();
+        before.assertValueCount(1);
+
+        server.hold = false;
+        cache.get("a", JsonDocument.class, 0, null).toBlocking().single();
+        assertEquals(2, server.gets.get());
+    }
+
+    @Test
+    public void shouldRevalidateUnchangedDocument() throws Exception {
+        FakeServer server = new FakeServer();
+        NearCache cache = new NearCache(ENV, "bucket", server.core, TRANSCODERS, NearCacheOptions.nearCacheOptions()
+            .defaultTtl(1, TimeUnit.MILLISECONDS).revalidate(true));
+
+        cache.get("a", JsonDocument.class, 0, null).toBlocking().single();
+        Thread.sleep(5);
+        JsonDocument revalidated = cache.get("a", JsonDocument.class, 0, null).toBlocking().single();
+        assertEquals(1, server.gets.get());
+        assertEquals(1, server.observes.get());
+        assertEquals("a", revalidated.content().getString("id"));
+        assertEquals(1, cache.stats().revalidations());
+
+        server.cas.incrementAndGet();
+        Thread.sleep(5);
+        cache.get("a", JsonDocument.class, 0, null).toBlocking().single();
+        assertEquals(2, server.gets.get());
+        assertEquals(1, cache.stats().revalidationMisses());
+    }
+
+    @Test
+    public void shouldStayWithinMaxBytes() {
+        FakeServer server = new FakeServer();
+        NearCache cache = new NearCache(ENV, "bucket", server.core, TRANSCODERS, NearCacheOptions.nearCacheOptions()
+            .maxBytes(512));
+
+        for (int i = 0; i < 20; i++) {
+            cache.get("doc" + i, JsonDocument.class, 0, null).toBlocking().single();
+        }
+
+        NearCacheStats stats = cache.stats();
+        assertTrue(stats.bytes() <= 512);
+        assertTrue(stats.evictions() > 0);
+        assertEquals(20, stats.size() + stats.evictions());
+    }
+
+    @Test
+    public void shouldBypassTypesWithoutTtl() {
+        FakeServer server = new FakeServer();
+        NearCache cache = new NearCache(ENV, "bucket", server.core, TRANSCODERS, NearCacheOptions.nearCacheOptions()
+            .ttl(JsonDocument.class, 0, TimeUnit.SECONDS));
+
+        cache.get("a", JsonDocument.class, 0, null).toBlocking().single();
+        cache.get("a", JsonDocument.class, 0, null).toBlocking().single();
+        assertEquals(2, server.gets.get());
+        assertEquals(0, cache.stats().misses());
+    }
+
+    /**
+     * A core which answers gets with a small document per ID and observes with the current CAS.
+     */
+    private static class FakeServer {
+
+        final AtomicInteger gets = new AtomicInteger();
+        final AtomicInteger observes = new AtomicInteger();
+        final AtomicLong cas = new AtomicLong(1234);
+        final AsyncSubject<Void> gate = AsyncSubject.create();
+        final ClusterFacade core = mock(ClusterFacade.class);
+        volatile boolean hold;
+
+        FakeServer() {
+            when(core.send(any(CouchbaseRequest.class))).thenAnswer(new Answer<Observable<?>>() {
+                @Override
+                public Observable<?> answer(InvocationOnMock invocation) throws Throwable {
+                    Object request = invocation.getArguments()[0];
+                    if (request instanceof ObserveRequest) {
+                        observes.incrementAndGet();
+                        return Observable.just(new ObserveResponse(ResponseStatus.SUCCESS,
+                            KeyValueStatus.SUCCESS.code(), ObserveResponse.ObserveStatus.FOUND_PERSISTED.value(),
+                            true, cas.get(), "bucket", (ObserveRequest) request));
+                    }
+
+                    GetRequest get = (GetRequest) request;
+                    gets.incrementAndGet();
+                    ResponseStatus status = get.key().equals("missing") ? ResponseStatus.NOT_EXISTS
+                        : ResponseStatus.SUCCESS;
+                    String body = JsonObject.create().put("id", get.key()).toString();
+                    Observable<GetResponse> response = Observable.just(new GetResponse(status,
+                        KeyValueStatus.SUCCESS.code(), cas.get(), TranscoderUtils.JSON_COMMON_FLAGS, "bucket",
+                        Unpooled.copiedBuffer(body, CharsetUtil.UTF_8), get));
+                    return hold ? gate.ignoreElements().cast(GetResponse.class).concatWith(response) : response;
+                }
+            });
+        }
+
+        void release() {
+            gate.onCompleted();
+        }
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bulk;
+
+import com.couchbase.client.core.BackpressureException;
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.java.AsyncBucket;
+import com.couchbase.client.java.document.Document;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.env.CouchbaseEnvironment;
+import com.couchbase.client.java.error.CASMismatchException;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import rx.Observable;
+import rx.functions.Action0;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+import rx.subjects.PublishSubject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the functionality of {@link WriteBehindBuffer}.
+ */
+public class WriteBehindBufferTest {
+
+    private final ConcurrentMap<String, Document<?>> stored = new ConcurrentHashMap<String, Document<?>>();
+    private final AtomicInteger writes = new AtomicInteger();
+    private volatile PublishSubject<Void> gate;
+    private AsyncBucket bucket;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        CouchbaseEnvironment environment = mock(CouchbaseEnvironment.class);
+        when(environment.scheduler()).thenReturn(Schedulers.computation());
+        when(environment.kvTimeout()).thenReturn(2500L);
+        ClusterFacade core = mock(ClusterFacade.class);
+        when(core.send(any(CouchbaseRequest.class))).thenReturn(Observable.<CouchbaseResponse>error(new IllegalStateException()));
+        bucket = mock(AsyncBucket.class);
+        when(bucket.environment()).thenReturn(environment);
+        when(bucket.name()).thenReturn("bucket");
+        when(bucket.core()).thenReturn(Observable.just(core));
+        when(bucket.upsert(any(Document.class), anyLong(), any(TimeUnit.class))).thenAnswer(new Answer<Observable<?>>() {
+            @Override
+            public Observable<?> answer(InvocationOnMock invocation) {
+                final Document<?> document = (Document<?>) invocation.getArguments()[0];
+                Observable<Document<?>> written = Observable.defer(new rx.functions.Func0<Observable<Document<?>>>() {
+                    @Override
+                    public Observable<Document<?>> call() {
+                        writes.incrementAndGet();
+                        if (document.id().startsWith("fail")) {
+                            return Observable.error(new CASMismatchException());
+                        }
+                        stored.put(document.id(), document);
+                        return Observable.<Document<?>>just(document);
+                    }
+                });
+                PublishSubject<Void> current = gate;
+                return current == null ? written : current.ignoreElements().cast(Document.class).concatWith(written);
+            }
+        });
+    }
+
+    private static WriteBehindOptions manualFlush() {
+        return WriteBehindOptions.writeBehindOptions()
+            .flushInterval(1, TimeUnit.HOURS)
+            .flushThreshold(Integer.MAX_VALUE)
+            .bulkOptions(BulkMutationOptions.bulkMutationOptions().retryBuilder(null));
+    }
+
+    private static JsonDocument doc(String id, int version) {
+        return JsonDocument.create(id, JsonObject.create().put("version", version));
+    }
+
+    @Test
+    public void shouldOnlyWriteLatestDocumentPerKey() {
+        WriteBehindBuffer buffer = new WriteBehindBuffer(bucket, manualFlush());
+        for (int version = 0; version < 100; version++) {
+            buffer.upsert(doc("a", version));
+            buffer.upsert(doc("b", version));
+        }
+        assertEquals(99, ((JsonDocument) buffer.pending("a")).content().getInt("version").intValue());
+
+        BulkMutationResult result = buffer.flush().toBlocking().single();
+        assertEquals(2, result.successCount());
+        assertEquals(2, writes.get());
+        assertEquals(99, ((JsonDocument) stored.get("a")).content().getInt("version").intValue());
+        assertNull(buffer.pending("a"));
+
+        WriteBehindStats stats = buffer.stats();
+        assertEquals(200, stats.recorded());
+        assertEquals(2, stats.written());
+        assertEquals(0.99, stats.coalesceRatio(), 0.001);
+    }
+
+    @Test
+    public void shouldReportFailedKeys() {
+        final List<String> failed = new ArrayList<String>();
+        WriteBehindBuffer buffer = new WriteBehindBuffer(bucket, manualFlush().listener(new WriteBehindListener() {
+            @Override
+            public void onFlushFailure(String id, Throwable cause) {
+                assertTrue(cause instanceof CASMismatchException);
+                failed.add(id);
+            }
+        }));
+        buffer.upsert(doc("ok", 1));
+        buffer.upsert(doc("fail", 1));
+
+        BulkMutationResult result = buffer.flush().toBlocking().single();
+        assertEquals(1, result.successCount());
+        assertEquals(1, failed.size());
+        assertEquals("fail", failed.get(0));
+        assertEquals(1, buffer.stats().failed());
+    }
+
+    @Test
+    public void shouldBlockWritersOfNewKeysWhenFull() throws Exception {
+        gate = PublishSubject.create();
+        final WriteBehindBuffer buffer = new WriteBehindBuffer(bucket, manualFlush().maxPending(2));
+        buffer.upsert(doc("a", 1));
+        buffer.upsert(doc("b", 1));
+        buffer.upsert(doc("b", 2));
+        assertFalse(buffer.upsert(doc("c", 1), 10, TimeUnit.MILLISECONDS));
+        assertNull(buffer.pending("a"));
+        assertEquals(0, writes.get());
+
+        // a and b have been taken by the flush triggered by the full buffer, room is freed once they are written
+        final PublishSubject<Void> held = gate;
+        gate = null;
+        Schedulers.computation().createWorker().schedule(new Action0() {
+            @Override
+            public void call() {
+                held.onCompleted();
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+        assertTrue(buffer.upsert(doc("c", 1), 5, TimeUnit.SECONDS));
+        assertEquals(2, writes.get());
+        assertEquals(2, ((JsonDocument) stored.get("b")).content().getInt("version").intValue());
+
+        buffer.upsert(doc("d", 1));
+        try {
+            buffer.upsert(doc("e", 1));
+        } catch (BackpressureException ex) {
+            fail("room should have been freed by a flush");
+        }
+        assertEquals(6, buffer.stats().recorded());
+    }
+
+    @Test
+    public void shouldNotOverlapFlushes() {
+        gate = PublishSubject.create();
+        WriteBehindBuffer buffer = new WriteBehindBuffer(bucket, manualFlush());
+        buffer.upsert(doc("a", 1));
+        TestSubscriber<BulkMutationResult> first = TestSubscriber.create();
+        buffer.flush().subscribe(first);
+
+        PublishSubject<Void> held = gate;
+        gate = null;
+        buffer.upsert(doc("a", 2));
+        TestSubscriber<BulkMutationResult> second = TestSubscriber.create();
+        buffer.flush().subscribe(second);
+        assertEquals(1, buffer.stats().flushes());
+
+        held.onCompleted();
+        first.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        second.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        assertEquals(2, writes.get());
+        assertEquals(2, ((JsonDocument) stored.get("a")).content().getInt("version").intValue());
+    }
+
+    @Test
+    public void shouldWaitWithOneBackgroundFlushAtMost() {
+        gate = PublishSubject.create();
+        WriteBehindBuffer buffer = new WriteBehindBuffer(bucket, manualFlush().maxPending(1));
+        buffer.upsert(doc("a", 1));
+        for (int i = 0; i < 5; i++) {
+            assertFalse(buffer.upsert(doc("b", 1), 1, TimeUnit.MILLISECONDS));
+        }
+        // the first blocked writer started a flush, the second one queued another one behind it
+        assertEquals(1, buffer.stats().flushes());
+
+        PublishSubject<Void> held = gate;
+        gate = null;
+        held.onCompleted();
+        assertTrue(buffer.upsert(doc("b", 1), 5, TimeUnit.SECONDS));
+        buffer.close().toBlocking().single();
+        assertTrue(stored.containsKey("a"));
+        assertTrue(stored.containsKey("b"));
+    }
+
+    @Test
+    public void shouldReportBatchWhenGroupingFails() {
+        when(bucket.core()).thenReturn(Observable.<ClusterFacade>error(new IllegalStateException()));
+        final List<String> failed = new ArrayList<String>();
+        WriteBehindBuffer buffer = new WriteBehindBuffer(bucket, manualFlush().listener(new WriteBehindListener() {
+            @Override
+            public void onFlushFailure(String id, Throwable cause) {
+                assertTrue(cause instanceof IllegalStateException);
+                failed.add(id);
+            }
+        }));
+        buffer.upsert(doc("a", 1));
+        buffer.upsert(doc("b", 1));
+
+        BulkMutationResult result = buffer.flush().toBlocking().single();
+        assertEquals(0, result.successCount());
+        assertEquals(2, result.failures().size());
+        assertEquals(2, failed.size());
+        assertEquals(0, writes.get());
+        assertEquals(0, buffer.pending());
+    }
+
+    @Test
+    public void shouldFlushOnCloseAndRejectLaterWrites() {
+        WriteBehindBuffer buffer = new WriteBehindBuffer(bucket, manualFlush());
+        buffer.upsert(doc("a", 1));
+
+        buffer.close().toBlocking().single();
+        assertTrue(stored.containsKey("a"));
+        try {
+            buffer.upsert(doc("a", 2));
+            fail();
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+    }
+}
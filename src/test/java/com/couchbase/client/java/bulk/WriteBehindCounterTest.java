@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.bulk;
+
+import com.couchbase.client.java.AsyncBucket;
+import com.couchbase.client.java.document.JsonLongDocument;
+import com.couchbase.client.java.env.CouchbaseEnvironment;
+import com.couchbase.client.java.error.DocumentDoesNotExistException;
+import com.couchbase.client.java.error.TemporaryFailureException;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import rx.Observable;
+import rx.functions.Action0;
+import rx.schedulers.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the functionality of {@link WriteBehindCounter}.
+ */
+public class WriteBehindCounterTest {
+
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
+    private final AtomicInteger operations = new AtomicInteger();
+    private final AtomicInteger temporaryFailures = new AtomicInteger();
+    private AsyncBucket bucket;
+
+    @Before
+    public void setup() {
+        CouchbaseEnvironment environment = mock(CouchbaseEnvironment.class);
+        when(environment.scheduler()).thenReturn(Schedulers.computation());
+        when(environment.kvTimeout()).thenReturn(2500L);
+        bucket = mock(AsyncBucket.class);
+        when(bucket.environment()).thenReturn(environment);
+        when(bucket.counter(anyString(), anyLong(), anyLong(), anyLong(), any(TimeUnit.class)))
+            .thenAnswer(new Answer<Observable<JsonLongDocument>>() {
+                @Override
+                public Observable<JsonLongDocument> answer(InvocationOnMock invocation) {
+                    String id = (String) invocation.getArguments()[0];
+                    long delta = (Long) invocation.getArguments()[1];
+                    long initial = (Long) invocation.getArguments()[2];
+                    operations.incrementAndGet();
+                    if (id.equals("missing")) {
+                        return Observable.error(new DocumentDoesNotExistException());
+                    }
+                    if (temporaryFailures.getAndDecrement() > 0) {
+                        return Observable.error(new TemporaryFailureException());
+                    }
+                    AtomicLong counter = counters.putIfAbsent(id, new AtomicLong(initial));
+                    long value = counter == null ? initial : counter.addAndGet(delta);
+                    return Observable.just(JsonLongDocument.create(id, value));
+                }
+            });
+    }
+
+    private static WriteBehindOptions manualFlush() {
+        return WriteBehindOptions.writeBehindOptions()
+            .flushInterval(1, TimeUnit.HOURS)
+            .flushThreshold(Integer.MAX_VALUE)
+            .bulkOptions(BulkMutationOptions.bulkMutationOptions().retryBuilder(null));
+    }
+
+    @Test
+    public void shouldApplyExactSumsWithOneOperationPerKey() throws Exception {
+        final WriteBehindCounter counter = new WriteBehindCounter(bucket, manualFlush());
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        counter.increment("k" + (i % 3));
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(13336, counter.pending("k0"));
+
+        BulkMutationResult result = counter.flush().toBlocking().single();
+        assertEquals(3, result.successCount());
+        assertEquals(3, operations.get());
+        assertEquals(13336, counters.get("k0").get());
+        assertEquals(13332, counters.get("k1").get());
+        assertEquals(13332, counters.get("k2").get());
+
+        counter.add("k0", -6);
+        counter.flush().toBlocking().single();
+        assertEquals(13330, counters.get("k0").get());
+
+        WriteBehindStats stats = counter.stats();
+        assertEquals(40001, stats.recorded());
+        assertEquals(4, stats.written());
+        assertEquals(0, stats.pending());
+        assertTrue(stats.coalesceRatio() > 0.99);
+    }
+
+    @Test
+    public void shouldKeepDeltasRejectedBeforeReachingServer() {
+        final List<String> failed = new ArrayList<String>();
+        WriteBehindCounter counter = new WriteBehindCounter(bucket, manualFlush().listener(new WriteBehindListener() {
+            @Override
+            public void onFlushFailure(String id, Throwable cause) {
+                failed.add(id);
+            }
+        }));
+        temporaryFailures.set(1);
+        counter.add("k", 5);
+        counter.add("missing", 1);
+
+        BulkMutationResult result = counter.flush().toBlocking().single();
+        assertEquals(2, result.failures().size());
+        assertEquals(2, failed.size());
+        assertEquals(5, counter.pending("k"));
+        assertEquals(0, counter.pending("missing"));
+
+        counter.add("k", 1);
+        counter.flush().toBlocking().single();
+        assertEquals(6, counters.get("k").get());
+        assertEquals(2, counter.stats().failed());
+    }
+
+    @Test
+    public void shouldFlushOnThreshold() throws Exception {
+        WriteBehindCounter counter = new WriteBehindCounter(bucket, manualFlush().flushThreshold(10));
+        for (int i = 0; i < 10; i++) {
+            counter.increment("k");
+        }
+
+        for (int i = 0; i < 100 && counters.get("k") == null; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(10, counters.get("k").get());
+        assertEquals(1, counter.stats().flushes());
+    }
+
+    @Test
+    public void shouldFlushOnInterval() throws Exception {
+        WriteBehindCounter counter = new WriteBehindCounter(bucket, manualFlush()
+            .flushInterval(20, TimeUnit.MILLISECONDS));
+        // the timer is only started by the first write, once the counter has been constructed
+        verify(bucket.environment(), never()).scheduler();
+        counter.add("k", 3);
+
+        for (int i = 0; i < 100 && counters.get("k") == null; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(3, counters.get("k").get());
+        counter.close().toBlocking().single();
+    }
+
+    @Test
+    public void shouldFlushOnCloseAndRejectLaterDeltas() {
+        WriteBehindCounter counter = new WriteBehindCounter(bucket, manualFlush());
+        counter.add("k", 7);
+
+        counter.close().toBlocking().single();
+        assertEquals(7, counters.get("k").get());
+        assertTrue(counter.isClosed());
+        try {
+            counter.increment("k");
+            fail();
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void shouldNotifyWhenClosed() {
+        WriteBehindCounter counter = new WriteBehindCounter(bucket, manualFlush());
+        final AtomicInteger closed = new AtomicInteger();
+        Action0 onClose = new Action0() {
+            @Override
+            public void call() {
+                closed.incrementAndGet();
+            }
+        };
+        counter.whenClosed(onClose);
+        assertEquals(0, closed.get());
+
+        counter.close().toBlocking().single();
+        counter.close().toBlocking().single();
+        assertEquals(1, closed.get());
+        counter.whenClosed(onClose);
+        assertEquals(2, closed.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectFlushIntervalBelowOneMillisecond() {
+        WriteBehindOptions.writeBehindOptions().flushInterval(500, TimeUnit.MICROSECONDS);
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.document.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the functionality of compact {@link JsonObject}s built from a {@link JsonObjectShape}.
+ */
+public class CompactJsonObjectTest {
+
+    private static JsonObjectShape shape(String... fields) {
+        JsonObjectShape shape = JsonObjectShape.ROOT;
+        for (String field : fields) {
+            shape = shape.with(field);
+        }
+        return shape;
+    }
+
+    private static JsonObject airline(String name, int id) {
+        return JsonObject.fromShape(shape("name", "id", "country", "active"),
+            new Object[] { name, id, "United States", null });
+    }
+
+    @Test
+    public void shouldShareShapesAndNames() {
+        assertSame(shape("name", "id"), shape("name", "id"));
+        assertFalse(shape("name", "id") == shape("id", "name"));
+        assertEquals(2, shape("name", "id").size());
+
+        String name = shape("name").names()[0];
+        Iterator<String> names = airline("United", 1).getNames().iterator();
+        assertSame(name, names.next());
+    }
+
+    @Test
+    public void shouldNotAddDuplicateFields() {
+        assertNull(shape("name", "id").with("name"));
+    }
+
+    @Test
+    public void shouldBoundTransitionsPerShape() {
+        JsonObjectShape parent = shape("transitions");
+        List<JsonObjectShape> children = new ArrayList<JsonObjectShape>();
+        for (int i = 0; i < JsonObjectShape.MAX_TRANSITIONS; i++) {
+            JsonObjectShape child = parent.with("field" + i);
+            assertEquals(2, child.size());
+            children.add(child);
+        }
+
+        assertNull(parent.with("field" + JsonObjectShape.MAX_TRANSITIONS));
+        assertSame(children.get(0), parent.with("field0"));
+        assertSame(children.get(0), parent.find("field0"));
+        assertNull(parent.find("field" + JsonObjectShape.MAX_TRANSITIONS));
+    }
+
+    @Test
+    public void shouldReclaimUnusedShapes() throws Exception {
+        JsonObjectShape parent = shape("reclaimed");
+        List<JsonObjectShape> children = new ArrayList<JsonObjectShape>();
+        for (int i = 0; i < JsonObjectShape.MAX_TRANSITIONS; i++) {
+            children.add(parent.with("field" + i));
+        }
+        int created = JsonObjectShape.count();
+
+        children.clear();
+        for (int i = 0; i < 50 && JsonObjectShape.count() > created - JsonObjectShape.MAX_TRANSITIONS; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertTrue(JsonObjectShape.count() <= created - JsonObjectShape.MAX_TRANSITIONS);
+        assertEquals(2, parent.with("field" + JsonObjectShape.MAX_TRANSITIONS).size());
+    }
+
+    @Test
+    public void shouldKeepNestedShapesApartFromRootShapes() {
+        assertFalse(JsonObjectShape.ROOT.with("name") == JsonObjectShape.NESTED.with("name"));
+        assertSame(JsonObjectShape.NESTED.with("name"), JsonObjectShape.NESTED.with("name"));
+    }
+
+    @Test
+    public void shouldBehaveLikeRegularObject() {
+        JsonObject compact = airline("United", 1);
+        JsonObject regular = JsonObject.create().put("name", "United").put("id", 1).put("country", "United States")
+            .putNull("active");
+
+        assertEquals(regular, compact);
+        assertEquals(compact, regular);
+        assertEquals(regular.hashCode(), compact.hashCode());
+        assertEquals(4, compact.size());
+        assertEquals("United", compact.getString("name"));
+        assertEquals(1, (int) compact.getInt("id"));
+        assertNull(compact.get("active"));
+        assertTrue(compact.containsKey("active"));
+        assertFalse(compact.containsKey("missing"));
+        assertNull(compact.get("missing"));
+        assertTrue(compact.containsValue("United States"));
+        assertEquals(regular.toMap(), compact.toMap());
+        assertEquals(new HashSet<String>(regular.getNames()), compact.getNames());
+        assertEquals(regular, JsonObject.fromJson(compact.toString()));
+    }
+
+    @Test
+    public void shouldReplaceValuesInPlace() {
+        JsonObject compact = airline("United", 1);
+        compact.put("name", "Delta").put("active", true);
+
+        assertEquals("Delta", compact.getString("name"));
+        assertTrue(compact.getBoolean("active"));
+        assertTrue(compact.isCompact());
+        assertEquals("United", airline("United", 1).getString("name"));
+    }
+
+    @Test
+    public void shouldPromoteOnStructuralChange() {
+        JsonObject added = airline("United", 1).put("callsign", "UNITED");
+        assertFalse(added.isCompact());
+        assertEquals(5, added.size());
+        assertEquals("UNITED", added.getString("callsign"));
+        assertEquals("United", added.getString("name"));
+
+        JsonObject removed = airline("United", 1).removeKey("country");
+        assertFalse(removed.isCompact());
+        assertEquals(3, removed.size());
+        assertFalse(removed.containsKey("country"));
+
+        JsonObject unchanged = airline("United", 1).removeKey("missing");
+        assertTrue(unchanged.isCompact());
+    }
+
+    @Test
+    public void shouldWriteThroughEntries() {
+        CompactJsonMap content = new CompactJsonMap(shape("name", "id", "active"), new Object[] { "United", 1, null });
+        Iterator<Map.Entry<String, Object>> entries = content.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, Object> entry = entries.next();
+            if (entry.getKey().equals("id")) {
+                entry.setValue(2);
+            } else if (entry.getKey().equals("active")) {
+                entries.remove();
+            }
+        }
+
+        assertTrue(content.isPromoted());
+        assertEquals(JsonObject.create().put("name", "United").put("id", 2).toMap(), content);
+    }
+
+    @Test
+    public void shouldSerializeAsRegularObject() throws Exception {
+        JsonObject compact = airline("United", 1);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(compact);
+        out.close();
+
+        JsonObject read = (JsonObject) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))
+            .readObject();
+        assertEquals(compact, read);
+        read.put("callsign", "UNITED");
+        assertEquals("UNITED", read.getString("callsign"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMismatchingValues() {
+        JsonObject.fromShape(shape("name", "id"), new Object[] { "United" });
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.document.json;
+
+import com.couchbase.client.java.error.TranscodingException;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the functionality of the {@link LazyJsonObject}.
+ */
+public class LazyJsonObjectTest {
+
+    private static LazyJsonObject lazy(String json) {
+        return LazyJsonObject.fromBytes(json.getBytes(Charset.forName("UTF-8")));
+    }
+
+    @Test
+    public void shouldReadTopLevelFieldsWithoutMaterializing() {
+        LazyJsonObject object = lazy("{\"skip\":{\"name\":\"inner\",\"list\":[{\"name\":1}]},\"name\":\"outer\","
+            + "\"int\":1,\"long\":9223372036854775807,\"double\":1.5,\"bool\":true,\"null\":null,"
+            + "\"obj\":{\"a\":[1]},\"arr\":[\"x\"]}");
+
+        assertEquals("outer", object.getString("name"));
+        assertEquals(1, (int) object.getInt("int"));
+        assertEquals(Long.MAX_VALUE, (long) object.getLong("long"));
+        assertEquals(1.5, object.getDouble("double"), 0.0);
+        assertTrue(object.getBoolean("bool"));
+        assertEquals(JsonObject.create().put("a", JsonArray.from(1)), object.getObject("obj"));
+        assertEquals(JsonArray.from("x"), object.getArray("arr"));
+        assertNull(object.get("null"));
+        assertTrue(object.containsKey("null"));
+        assertFalse(object.containsKey("missing"));
+        assertNull(object.get("missing"));
+        assertFalse(object.isMaterialized());
+    }
+
+    @Test
+    public void shouldMaterializeOnDemand() {
+        LazyJsonObject object = lazy("{\"a\":1,\"b\":[true]}");
+        assertEquals(1, (int) object.getInt("a"));
+        assertTrue(object.unmodifiedBytes() != null);
+
+        JsonObject full = object.toJsonObject();
+        assertTrue(object.isMaterialized());
+        assertTrue(object.unmodifiedBytes() != null);
+        assertEquals(JsonObject.create().put("a", 1).put("b", JsonArray.from(true)), full);
+
+        full.put("a", 2);
+        assertEquals(2, (int) object.getInt("a"));
+        assertNull(object.unmodifiedBytes());
+    }
+
+    @Test
+    public void shouldCompareByContent() {
+        assertEquals(lazy("{\"a\":1, \"b\":2}"), LazyJsonObject.from(JsonObject.create().put("b", 2).put("a", 1)));
+        assertEquals(lazy("{\"a\":1}").hashCode(), JsonObject.create().put("a", 1).hashCode());
+        assertFalse(lazy("{\"a\":1}").equals(lazy("{\"a\":2}")));
+    }
+
+    @Test
+    public void shouldNotMaterializeWhenCompared() {
+        LazyJsonObject object = lazy("{\"a\":1,\"b\":2}");
+        assertEquals(lazy("{\"b\":2,\"a\":1}"), object);
+        assertEquals(object.hashCode(), lazy("{\"a\":1,\"b\":2}").hashCode());
+        assertFalse(object.isMaterialized());
+        assertTrue(object.unmodifiedBytes() != null);
+    }
+
+    @Test
+    public void shouldDecodeFieldsInAnyOrder() {
+        LazyJsonObject object = lazy("{\"a\":{\"x\":[1,2]},\"b\":\"two\",\"c\":3,\"d\":[4]}");
+        assertEquals(3, (int) object.getInt("c"));
+        assertEquals(JsonObject.create().put("x", JsonArray.from(1, 2)), object.getObject("a"));
+        assertEquals("two", object.getString("b"));
+        assertEquals(JsonArray.from(4), object.getArray("d"));
+        assertFalse(object.containsKey("e"));
+        assertEquals("two", object.getString("b"));
+        assertFalse(object.isMaterialized());
+    }
+
+    @Test
+    public void shouldKeepChangesMadeThroughReturnedContainers() {
+        LazyJsonObject object = lazy("{\"a\":{\"x\":1},\"b\":[1],\"c\":2}");
+        object.getObject("a").put("y", 2);
+        object.getArray("b").add(2);
+
+        assertNull(object.unmodifiedBytes());
+        JsonObject expected = JsonObject.create().put("a", JsonObject.create().put("x", 1).put("y", 2))
+            .put("b", JsonArray.from(1, 2)).put("c", 2);
+        assertEquals(expected, object.toJsonObject());
+        object.getObject("a").put("z", 3);
+        assertEquals(3, (int) object.toJsonObject().getObject("a").getInt("z"));
+    }
+
+    @Test
+    public void shouldPassThroughWhenReturnedContainersAreUnchanged() {
+        LazyJsonObject object = lazy("{\"a\":{\"x\":1},\"b\":[1]}");
+        assertEquals(1, (int) object.getObject("a").getInt("x"));
+        assertEquals(JsonArray.from(1), object.getArray("b"));
+
+        assertTrue(object.unmodifiedBytes() != null);
+        assertFalse(object.isMaterialized());
+    }
+
+    @Test
+    public void shouldUseLastOccurrenceOfDuplicateFields() {
+        LazyJsonObject object = lazy("{\"a\":1,\"b\":{\"c\":1},\"a\":2,\"b\":{\"c\":2}}");
+        assertEquals(2, (int) object.getInt("a"));
+        assertEquals(JsonObject.create().put("c", 2), object.getObject("b"));
+        assertFalse(object.isMaterialized());
+
+        assertEquals(2, (int) object.toJsonObject().getInt("a"));
+        assertEquals(JsonObject.create().put("c", 2), object.toJsonObject().getObject("b"));
+    }
+
+    @Test(expected = TranscodingException.class)
+    public void shouldFailOnMalformedContentWhenAccessed() {
+        lazy("{\"a\":1,").getString("b");
+    }
+
+    @Test(expected = TranscodingException.class)
+    public void shouldFailOnNonObjectRoot() {
+        lazy("[1,2]").getString("a");
+    }
+}
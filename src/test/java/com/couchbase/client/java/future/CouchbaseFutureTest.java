@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.future;
+
+import org.junit.Test;
+import rx.Observable;
+import rx.subjects.PublishSubject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Verifies the functionality of {@link CouchbaseFuture}.
+ */
+public class CouchbaseFutureTest {
+
+    @Test
+    public void shouldCompleteOnlyOnce() throws Exception {
+        CouchbaseFuture<String> future = new CouchbaseFuture<String>();
+        assertFalse(future.isDone());
+        assertTrue(future.complete("a"));
+        assertFalse(future.complete("b"));
+        assertFalse(future.fail(new IllegalStateException()));
+        assertTrue(future.isDone());
+        assertEquals("a", future.get());
+        assertEquals("a", future.get(1, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void shouldWrapFailureInExecutionException() throws Exception {
+        CouchbaseFuture<String> future = new CouchbaseFuture<String>();
+        IllegalStateException cause = new IllegalStateException();
+        future.fail(cause);
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertSame(cause, e.getCause());
+        }
+    }
+
+    @Test
+    public void shouldNotifyListenersInOrder() {
+        CouchbaseFuture<String> future = new CouchbaseFuture<String>();
+        final List<String> calls = new ArrayList<String>();
+        for (int i = 0; i < 3; i++) {
+            final int index = i;
+            future.addListener(new CompletionListener<String>() {
+                @Override
+                public void onComplete(String value, Throwable error) {
+                    calls.add(index + value);
+                }
+            });
+        }
+        future.complete("a");
+        future.addListener(new CompletionListener<Object>() {
+            @Override
+            public void onComplete(Object value, Throwable error) {
+                calls.add("late" + value);
+            }
+        });
+        assertEquals("[0a, 1a, 2a, latea]", calls.toString());
+    }
+
+    @Test
+    public void shouldNotifyOtherListenersIfOneThrows() {
+        CouchbaseFuture<String> future = new CouchbaseFuture<String>();
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        future.addListener(new CompletionListener<String>() {
+            @Override
+            public void onComplete(String value, Throwable error) {
+                throw new IllegalStateException();
+            }
+        });
+        future.addListener(new CompletionListener<String>() {
+            @Override
+            public void onComplete(String value, Throwable error) {
+                errors.add(error);
+            }
+        });
+        future.fail(new IllegalArgumentException());
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0) instanceof IllegalArgumentException);
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void shouldTimeOutWaiting() throws Exception {
+        new CouchbaseFuture<String>().get(10, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void shouldWakeUpWaiter() throws Exception {
+        final CouchbaseFuture<String> future = new CouchbaseFuture<String>();
+        final CountDownLatch waiting = new CountDownLatch(1);
+        Thread completer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    waiting.await();
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                future.complete("a");
+            }
+        });
+        completer.start();
+        waiting.countDown();
+        assertEquals("a", future.get(5, TimeUnit.SECONDS));
+        completer.join();
+    }
+
+    @Test
+    public void shouldCancel() throws Exception {
+        CouchbaseFuture<String> future = new CouchbaseFuture<String>();
+        assertTrue(future.cancel(true));
+        assertTrue(future.isCancelled());
+        assertFalse(future.complete("a"));
+        try {
+            future.get();
+            fail();
+        } catch (CancellationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void shouldCompleteFromLastValueOfObservable() throws Exception {
+        assertEquals("b", CouchbaseFuture.from(Observable.just("a", "b")).get());
+        assertNull(CouchbaseFuture.from(Observable.<String>empty()).get());
+
+        CouchbaseFuture<String> failed = CouchbaseFuture.from(Observable.<String>error(new IllegalStateException()));
+        try {
+            failed.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void shouldUnsubscribeWhenCancelled() {
+        PublishSubject<String> subject = PublishSubject.create();
+        CouchbaseFuture<String> future = CouchbaseFuture.from(subject);
+        assertTrue(subject.hasObservers());
+        future.cancel(false);
+        assertFalse(subject.hasObservers());
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import com.couchbase.client.java.document.json.JsonArray;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.query.consistency.ScanConsistency;
+import com.couchbase.client.java.transcoder.JacksonTransformers;
+import org.junit.Test;
+
+public class CompiledN1qlQueryTest {
+
+    private static JsonObject parse(String body) throws Exception {
+        return JacksonTransformers.MAPPER.readValue(body, JsonObject.class);
+    }
+
+    @Test
+    public void shouldRenderSameBodyAsParameterizedQuery() throws Exception {
+        N1qlParams params = N1qlParams.build()
+            .consistency(ScanConsistency.REQUEST_PLUS)
+            .serverSideTimeout(2, TimeUnit.SECONDS)
+            .withContextId("ctx");
+        String statement = "SELECT * FROM #CURRENT_BUCKET# WHERE type = $1 AND name LIKE $2";
+        JsonArray args = JsonArray.from("airline", "A%");
+
+        CompiledN1qlQuery compiled = N1qlQuery.compile(statement, params).bind(args);
+        JsonObject expected = N1qlQuery.parameterized(statement, args, params).n1ql()
+            .put("statement", "SELECT * FROM `travel` WHERE type = $1 AND name LIKE $2");
+
+        assertEquals(expected, parse(compiled.render("travel")));
+    }
+
+    @Test
+    public void shouldPrefixNamedArguments() throws Exception {
+        CompiledN1qlQuery compiled = N1qlQuery.compile("SELECT $type, $name")
+            .bind(JsonObject.create().put("type", "airline").put("$name", JsonObject.create().put("a", 1)));
+
+        JsonObject body = parse(compiled.render("default"));
+        assertEquals("SELECT $type, $name", body.getString("statement"));
+        assertEquals("airline", body.getString("$type"));
+        assertEquals(JsonObject.create().put("a", 1), body.getObject("$name"));
+        assertFalse(body.containsKey("type"));
+    }
+
+    @Test
+    public void shouldShareTemplateBetweenBoundQueries() throws Exception {
+        CompiledN1qlQuery compiled = N1qlQuery.compile("SELECT $1 FROM #CURRENT_BUCKET#");
+
+        JsonObject first = parse(compiled.bind(JsonArray.from(1)).render("a"));
+        JsonObject second = parse(compiled.bind(JsonArray.from("two")).render("a"));
+        JsonObject unbound = parse(compiled.render("a"));
+
+        assertEquals(JsonArray.from(1), first.getArray("args"));
+        assertEquals(JsonArray.from("two"), second.getArray("args"));
+        assertFalse(unbound.containsKey("args"));
+        assertEquals("SELECT $1 FROM `a`", first.getString("statement"));
+        assertEquals(first.getString("statement"), second.getString("statement"));
+    }
+
+    @Test
+    public void shouldRenderAgainForOtherBucket() throws Exception {
+        CompiledN1qlQuery compiled = N1qlQuery.compile("SELECT * FROM #CURRENT_BUCKET#");
+        assertEquals("SELECT * FROM `a`", parse(compiled.render("a")).getString("statement"));
+        assertEquals("SELECT * FROM `b`", parse(compiled.render("b")).getString("statement"));
+    }
+
+    @Test
+    public void shouldUsePerRequestContextId() throws Exception {
+        CompiledN1qlQuery compiled = N1qlQuery.compile("SELECT 1", N1qlParams.build().withContextId("shared"));
+
+        assertEquals("shared", parse(compiled.render("a")).getString("client_context_id"));
+        CompiledN1qlQuery own = compiled.bind(JsonArray.from(1)).withContextId("own");
+        assertEquals("own", own.clientContextId());
+        assertEquals("own", parse(own.render("a")).getString("client_context_id"));
+        assertEquals(JsonArray.from(1), parse(own.render("a")).getArray("args"));
+        assertEquals("own", own.n1ql().getString("client_context_id"));
+        assertTrue(own.isPositional());
+    }
+
+    @Test
+    public void shouldCopyParamsWhenCompiling() throws Exception {
+        N1qlParams params = N1qlParams.build().pretty(false);
+        CompiledN1qlQuery compiled = N1qlQuery.compile("SELECT 1", params);
+        params.readonly(true).withContextId("late");
+
+        JsonObject body = parse(compiled.bind(JsonArray.from(1)).render("a"));
+        assertEquals(false, body.getBoolean("pretty"));
+        assertFalse(body.containsKey("readonly"));
+        assertFalse(body.containsKey("client_context_id"));
+    }
+
+    @Test
+    public void shouldNotShareExecutionParamsBetweenBoundQueries() throws Exception {
+        CompiledN1qlQuery compiled = N1qlQuery.compile("SELECT $1");
+        CompiledN1qlQuery first = compiled.bind(JsonArray.from(1));
+        first.params().serverSideTimeout(1, TimeUnit.SECONDS).withContextId("first");
+        CompiledN1qlQuery second = compiled.bind(JsonArray.from(2));
+
+        JsonObject firstBody = parse(first.render("a"));
+        assertEquals("1s", firstBody.getString("timeout"));
+        assertEquals("first", firstBody.getString("client_context_id"));
+
+        JsonObject secondBody = parse(second.render("a"));
+        assertFalse(secondBody.containsKey("timeout"));
+        assertFalse(secondBody.containsKey("client_context_id"));
+        assertEquals(null, second.params().clientContextId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectEmptyParameterName() {
+        N1qlQuery.compile("SELECT $a").bind(JsonObject.create().put("", 1));
+    }
+}
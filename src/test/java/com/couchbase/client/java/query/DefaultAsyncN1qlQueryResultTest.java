@@ -18,7 +18,14 @@ package com.couchbase.client.java.query;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+import java.util.List;
+
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.deps.io.netty.util.CharsetUtil;
 import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.error.TranscodingException;
 import org.junit.Test;
 import rx.Observable;
 
@@ -69,4 +76,73 @@ public class DefaultAsyncN1qlQueryResultTest {
         assertEquals(false, aqr.finalSuccess().toBlocking().single());
         assertEquals(false, aqrWeirdCase.finalSuccess().toBlocking().single());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldBindRawRowsToTargetTypeAndReleaseThem() {
+        ByteBuf first = Unpooled.copiedBuffer("{\"name\":\"foo\",\"age\":12}", CharsetUtil.UTF_8);
+        ByteBuf second = Unpooled.copiedBuffer("{\"name\":\"bar\",\"age\":34}", CharsetUtil.UTF_8);
+        DefaultAsyncN1qlQueryResult aqr = new DefaultAsyncN1qlQueryResult(
+                Observable.<AsyncN1qlQueryRow>empty(), Observable.just(first, second), Observable.empty(),
+                Observable.<N1qlMetrics>empty(), Observable.<JsonObject>empty(), Observable.<JsonObject>empty(),
+                Observable.just("success"), true, null, null);
+
+        List<User> users = aqr.rowsAs(User.class).toList().toBlocking().single();
+
+        assertEquals(2, users.size());
+        assertEquals("foo", users.get(0).name);
+        assertEquals(12, users.get(0).age);
+        assertEquals("bar", users.get(1).name);
+        assertEquals(34, users.get(1).age);
+        assertEquals(0, first.refCnt());
+        assertEquals(0, second.refCnt());
+    }
+
+    @Test
+    public void shouldReleaseRawRowOnBindFailure() {
+        ByteBuf row = Unpooled.copiedBuffer("{\"name\":", CharsetUtil.UTF_8);
+        DefaultAsyncN1qlQueryResult aqr = new DefaultAsyncN1qlQueryResult(
+                Observable.<AsyncN1qlQueryRow>empty(), Observable.just(row), Observable.empty(),
+                Observable.<N1qlMetrics>empty(), Observable.<JsonObject>empty(), Observable.<JsonObject>empty(),
+                Observable.just("success"), true, null, null);
+
+        try {
+            aqr.rowsAs(User.class).toBlocking().single();
+            fail("Expected TranscodingException");
+        } catch (TranscodingException e) {
+            assertEquals(0, row.refCnt());
+        }
+    }
+
+    @Test
+    public void shouldBindRowsWithoutRawSource() {
+        List<AsyncN1qlQueryRow> rows = Arrays.<AsyncN1qlQueryRow>asList(
+                new DefaultAsyncN1qlQueryRow("{\"name\":\"foo\",\"age\":12}".getBytes(CharsetUtil.UTF_8)));
+        DefaultAsyncN1qlQueryResult aqr = new DefaultAsyncN1qlQueryResult(
+                Observable.from(rows), Observable.empty(),
+                Observable.<N1qlMetrics>empty(), Observable.<JsonObject>empty(),
+                Observable.<JsonObject>empty(), Observable.just("success"), true, null, null);
+
+        User user = aqr.rowsAs(User.class).toBlocking().single();
+        assertEquals("foo", user.name);
+        assertEquals(12, user.age);
+    }
+
+    @Test
+    public void shouldBindAllRowsOfBlockingResult() {
+        List<AsyncN1qlQueryRow> rows = Arrays.<AsyncN1qlQueryRow>asList(
+                new DefaultAsyncN1qlQueryRow("{\"name\":\"foo\",\"age\":12}".getBytes(CharsetUtil.UTF_8)),
+                new DefaultAsyncN1qlQueryRow("{\"name\":\"bar\",\"age\":34}".getBytes(CharsetUtil.UTF_8)));
+        N1qlQueryResult result = new DefaultN1qlQueryResult(rows, JsonObject.empty(), N1qlMetrics.EMPTY_METRICS,
+                Arrays.<JsonObject>asList(), JsonObject.empty(), "success", true, true, null, null);
+
+        List<User> users = result.allRowsAs(User.class);
+        assertEquals(2, users.size());
+        assertEquals("bar", users.get(1).name);
+        assertEquals(34, users.get(1).age);
+    }
+
+    public static class User {
+        public String name;
+        public int age;
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.couchbase.client.deps.io.netty.util.CharsetUtil;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.error.TranscodingException;
+import org.junit.Test;
+import rx.Observable;
+import rx.Subscriber;
+import rx.exceptions.MissingBackpressureException;
+import rx.functions.Action1;
+import rx.subjects.PublishSubject;
+
+public class StreamingN1qlQueryResultTest {
+
+    private static List<AsyncN1qlQueryRow> rows(int count) {
+        List<AsyncN1qlQueryRow> rows = new ArrayList<AsyncN1qlQueryRow>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new DefaultAsyncN1qlQueryRow(("{\"id\":" + i + "}").getBytes(CharsetUtil.UTF_8)));
+        }
+        return rows;
+    }
+
+    private static AsyncN1qlQueryResult result(Observable<AsyncN1qlQueryRow> rows) {
+        return new DefaultAsyncN1qlQueryResult(rows, Observable.<Object>just(JsonObject.empty()),
+            Observable.just(new N1qlMetrics(JsonObject.create().put("resultCount", 10))),
+            Observable.<JsonObject>empty(), Observable.<JsonObject>empty(), Observable.just("success"),
+            true, "requestId", "contextId");
+    }
+
+    private static StreamingN1qlQueryResult streaming(AsyncN1qlQueryResult result, int prefetch) {
+        return new StreamingN1qlQueryResult(result, prefetch, 1000, 10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldOnlyRequestPrefetchedRowsAheadOfConsumer() {
+        final AtomicLong requested = new AtomicLong();
+        Observable<AsyncN1qlQueryRow> source = Observable.from(rows(100)).doOnRequest(new Action1<Long>() {
+            @Override
+            public void call(Long n) {
+                requested.addAndGet(n);
+            }
+        });
+
+        StreamingN1qlQueryResult result = streaming(result(source), 10);
+        assertEquals(10, requested.get());
+
+        Iterator<N1qlQueryRow> iterator = result.rows();
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, (int) iterator.next().value().getInt("id"));
+        }
+        assertEquals(15, requested.get());
+
+        int count = 5;
+        while (iterator.hasNext()) {
+            assertEquals(count++, (int) iterator.next().value().getInt("id"));
+        }
+        assertEquals(100, count);
+        assertTrue(result.finalSuccess());
+        assertEquals("success", result.status());
+        assertEquals(10, result.info().resultCount());
+    }
+
+    @Test
+    public void shouldKeepRowsDrainedForMetadata() {
+        StreamingN1qlQueryResult result = streaming(result(Observable.from(rows(20))), 4);
+
+        Iterator<N1qlQueryRow> iterator = result.iterator();
+        assertEquals(0, (int) iterator.next().value().getInt("id"));
+        assertEquals("success", result.status());
+
+        int count = 1;
+        while (iterator.hasNext()) {
+            assertEquals(count++, (int) iterator.next().value().getInt("id"));
+        }
+        assertEquals(20, count);
+    }
+
+    @Test
+    public void shouldCollectAllRowsOnDemand() {
+        StreamingN1qlQueryResult result = streaming(result(Observable.from(rows(20))), 4);
+
+        assertEquals(20, result.allRows().size());
+        assertEquals(20, result.allRowsAs(JsonObject.class).size());
+
+        int count = 0;
+        for (N1qlQueryRow row : result) {
+            assertEquals(count++, (int) row.value().getInt("id"));
+        }
+        assertEquals(20, count);
+        assertTrue(result.rows().hasNext());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotAllowCollectingAfterStreamingStarted() {
+        StreamingN1qlQueryResult result = streaming(result(Observable.from(rows(20))), 4);
+        result.rows().next();
+        result.allRows();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldOnlyStreamOnce() {
+        StreamingN1qlQueryResult result = streaming(result(Observable.from(rows(20))), 4);
+        result.rows();
+        result.rows();
+    }
+
+    @Test
+    public void shouldPropagateRowErrorToIteratorAndMetadata() {
+        Observable<AsyncN1qlQueryRow> source = Observable.from(rows(2))
+            .concatWith(Observable.<AsyncN1qlQueryRow>error(new TranscodingException("bad row")));
+        StreamingN1qlQueryResult result = streaming(result(source), 4);
+
+        Iterator<N1qlQueryRow> iterator = result.rows();
+        iterator.next();
+        iterator.next();
+        try {
+            iterator.hasNext();
+            fail("Expected TranscodingException");
+        } catch (TranscodingException e) {
+            assertEquals("bad row", e.getMessage());
+        }
+        try {
+            result.info();
+            fail("Expected TranscodingException");
+        } catch (TranscodingException e) {
+            assertEquals("bad row", e.getMessage());
+        }
+    }
+
+    @Test
+    public void shouldHandleEmptyResult() {
+        StreamingN1qlQueryResult result = streaming(result(Observable.<AsyncN1qlQueryRow>empty()), 4);
+        assertFalse(result.rows().hasNext());
+        assertTrue(result.errors().isEmpty());
+        assertEquals("requestId", result.requestId());
+        assertEquals("contextId", result.clientContextId());
+    }
+
+    @Test
+    public void shouldFailWhenBufferLimitIsExceeded() {
+        final AtomicReference<Subscriber<? super AsyncN1qlQueryRow>> subscriber =
+            new AtomicReference<Subscriber<? super AsyncN1qlQueryRow>>();
+        Observable<AsyncN1qlQueryRow> source = Observable.create(new Observable.OnSubscribe<AsyncN1qlQueryRow>() {
+            @Override
+            public void call(Subscriber<? super AsyncN1qlQueryRow> s) {
+                subscriber.set(s);
+                for (AsyncN1qlQueryRow row : rows(5)) {
+                    s.onNext(row);
+                }
+            }
+        });
+        StreamingN1qlQueryResult result = new StreamingN1qlQueryResult(result(source), 2, 4, 10, TimeUnit.SECONDS);
+        assertTrue(subscriber.get().isUnsubscribed());
+
+        Iterator<N1qlQueryRow> iterator = result.rows();
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, (int) iterator.next().value().getInt("id"));
+        }
+        try {
+            iterator.hasNext();
+            fail("Expected MissingBackpressureException");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof MissingBackpressureException);
+        }
+    }
+
+    @Test
+    public void shouldTimeOutWaitingForRows() {
+        PublishSubject<AsyncN1qlQueryRow> source = PublishSubject.create();
+        StreamingN1qlQueryResult result = new StreamingN1qlQueryResult(result(source), 4, 4, 50,
+            TimeUnit.MILLISECONDS);
+        try {
+            result.rows().hasNext();
+            fail("Expected TimeoutException");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertFalse(source.hasObservers());
+    }
+
+    @Test
+    public void shouldUnsubscribeWhenClosed() {
+        PublishSubject<AsyncN1qlQueryRow> source = PublishSubject.create();
+        StreamingN1qlQueryResult result = streaming(result(source), 4);
+        source.onNext(rows(1).get(0));
+        assertTrue(source.hasObservers());
+
+        result.close();
+        assertFalse(source.hasObservers());
+        Iterator<N1qlQueryRow> iterator = result.rows();
+        assertEquals(0, (int) iterator.next().value().getInt("id"));
+        try {
+            iterator.hasNext();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void shouldUnsubscribeWhenAbandoned() throws Exception {
+        PublishSubject<AsyncN1qlQueryRow> source = PublishSubject.create();
+        streaming(result(source), 4);
+        for (int i = 0; i < 50 && source.hasObservers(); i++) {
+            System.gc();
+            Thread.sleep(10);
+            source.onNext(rows(1).get(0));
+        }
+        assertFalse(source.hasObservers());
+    }
+
+    @Test
+    public void shouldRaiseErrorBeforeFirstRowWhenAwaited() {
+        Observable<AsyncN1qlQueryRow> source = Observable.error(new TranscodingException("bad row"));
+        StreamingN1qlQueryResult result = streaming(result(source), 4);
+        try {
+            result.awaitFirstRow();
+            fail("Expected TranscodingException");
+        } catch (TranscodingException e) {
+            assertEquals("bad row", e.getMessage());
+        }
+    }
+
+    @Test
+    public void shouldKeepFirstRowWhenAwaited() {
+        StreamingN1qlQueryResult result = streaming(result(Observable.from(rows(3))), 4).awaitFirstRow();
+        int count = 0;
+        for (N1qlQueryRow row : result) {
+            assertEquals(count++, (int) row.value().getInt("id"));
+        }
+        assertEquals(3, count);
+    }
+
+    @Test
+    public void shouldNotStreamByDefault() {
+        assertFalse(N1qlParams.build().isStreamRows());
+        assertTrue(N1qlParams.build().streamRows(true).isStreamRows());
+    }
+}
@@ -53,6 +53,8 @@ import org.junit.AfterClass;
 import org.junit.Test;
 import org.mockito.internal.stubbing.answers.ReturnsElementsOf;
 import rx.Observable;
+import rx.observers.TestSubscriber;
+import rx.subjects.PublishSubject;
 
 /**
  * Tests the functionality of {@link N1qlQueryExecutor}.
@@ -71,7 +73,7 @@ public class N1qlQueryExecutorTest {
 
     @Test
     public void testPreparedStatementInCacheBypassesPreparation() {
-        LRUCache<String, PreparedPayload> cache = new LRUCache<>(3);
+        PreparedStatementCache cache = new PreparedStatementCache(3);
         CouchbaseCore mockFacade = mock(CouchbaseCore.class);
         N1qlQueryExecutor executor = spy(new N1qlQueryExecutor(mockFacade, "default", "", "", cache, true));
 
@@ -100,7 +102,7 @@ public class N1qlQueryExecutorTest {
 
     @Test
     public void testPreparedStatementNotInCacheTriggersPreparation() {
-        LRUCache<String, PreparedPayload> cache = new LRUCache<>(3);
+        PreparedStatementCache cache = new PreparedStatementCache(3);
         CouchbaseCore mockFacade = mock(CouchbaseCore.class);
         N1qlQueryExecutor executor = spy(new N1qlQueryExecutor(mockFacade, "default", "", "", cache, true));
 
@@ -123,7 +125,7 @@ public class N1qlQueryExecutorTest {
         assertEquals(1, cache.size());
 
         //also check how the plan is used in a PreparedN1qlQuery
-        PreparedPayload plan = cache.values().iterator().next();
+        PreparedPayload plan = cache.get(st.toString());
         PreparedN1qlQuery planQuery = new PreparedN1qlQuery(plan, N1qlParams.build());
         JsonObject n1qlPlanQuery = planQuery.n1ql();
         assertEquals("server", plan.payload());
@@ -132,9 +134,64 @@ public class N1qlQueryExecutorTest {
         assertFalse(n1qlPlanQuery.containsKey("statement"));
     }
 
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testLegacyLruCacheStoresPreparedStatements() {
+        LRUCache<String, PreparedPayload> cache = new LRUCache<String, PreparedPayload>(3);
+        CouchbaseCore mockFacade = mock(CouchbaseCore.class);
+        N1qlQueryExecutor executor = spy(new N1qlQueryExecutor(mockFacade, "default", "", "", cache, true));
+
+        Statement st = Select.select("*");
+        N1qlQuery q = N1qlQuery.simple(st, N1qlParams.build().adhoc(false));
+        PreparedPayload payloadFromServer = new PreparedPayload(st, "server", "encodedPlan");
+
+        doReturn(Observable.just(payloadFromServer)).when(executor).prepare(any(Statement.class));
+        doReturn(Observable.<AsyncN1qlQueryResult>empty()).when(executor)
+                                                      .executePrepared(any(N1qlQuery.class), any(PreparedPayload.class), eq(ENV), any(Integer.class), any(TimeUnit.class));
+
+        executor.execute(q, ENV, 1, TimeUnit.SECONDS).toBlocking().firstOrDefault(null);
+        executor.execute(q, ENV, 1, TimeUnit.SECONDS).toBlocking().firstOrDefault(null);
+
+        verify(executor, times(1)).prepare(any(Statement.class));
+        assertEquals(payloadFromServer, cache.get(st.toString()));
+        assertEquals(1, executor.invalidateQueryCache());
+        assertTrue(cache.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentMissesShareOnePreparation() {
+        PreparedStatementCache cache = new PreparedStatementCache(3);
+        CouchbaseCore mockFacade = mock(CouchbaseCore.class);
+        N1qlQueryExecutor executor = spy(new N1qlQueryExecutor(mockFacade, "default", "", "", cache, true));
+
+        Statement st = Select.select("*");
+        N1qlQuery q = N1qlQuery.simple(st, N1qlParams.build().adhoc(false));
+        PreparedPayload payloadFromServer = new PreparedPayload(st, "server", "encodedPlan");
+        PublishSubject<PreparedPayload> server = PublishSubject.create();
+
+        doReturn(server).when(executor).prepare(any(Statement.class));
+        doReturn(Observable.<AsyncN1qlQueryResult>empty()).when(executor)
+                                                      .executePrepared(any(N1qlQuery.class), any(PreparedPayload.class), eq(ENV), any(Integer.class), any(TimeUnit.class));
+
+        TestSubscriber<AsyncN1qlQueryResult> first = TestSubscriber.create();
+        TestSubscriber<AsyncN1qlQueryResult> second = TestSubscriber.create();
+        executor.execute(q, ENV, 1, TimeUnit.SECONDS).subscribe(first);
+        executor.execute(q, ENV, 1, TimeUnit.SECONDS).subscribe(second);
+        server.onNext(payloadFromServer);
+        server.onCompleted();
+
+        first.assertCompleted();
+        second.assertCompleted();
+        verify(executor, times(1)).prepare(any(Statement.class));
+        verify(executor, times(2)).executePrepared(q, payloadFromServer, ENV, 1, TimeUnit.SECONDS);
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.stats().misses());
+        assertEquals(1, cache.stats().sharedPrepares());
+    }
+
     @Test
     public void testExtractionOfPayloadFromPrepareResponse() {
-        LRUCache<String, PreparedPayload> cache = new LRUCache<>(3);
+        PreparedStatementCache cache = new PreparedStatementCache(3);
         CouchbaseCore mockFacade = mock(CouchbaseCore.class);
         N1qlQueryExecutor executor = new N1qlQueryExecutor(mockFacade, "default", "", "", cache, true);
 
@@ -155,7 +212,7 @@ public class N1qlQueryExecutorTest {
 
     @Test
     public void testCachedPlanExecutionErrorTriggersRetry() {
-        LRUCache<String, PreparedPayload> cache = new LRUCache<>(3);
+        PreparedStatementCache cache = new PreparedStatementCache(3);
         CouchbaseCore mockFacade = mock(CouchbaseCore.class);
         N1qlQueryExecutor executor = spy(new N1qlQueryExecutor(mockFacade, "default", "", "", cache, true));
 
@@ -176,7 +233,7 @@ public class N1qlQueryExecutorTest {
         doReturn(Observable.just(result4050)).when(executor).executeQuery(any(PreparedN1qlQuery.class), eq(ENV), any(Integer.class), any(TimeUnit.class));
 
         assertEquals(1, cache.size());
-        assertEquals(payloadFromCache, cache.values().iterator().next());
+        assertEquals(payloadFromCache, cache.get(st.toString()));
 
         executor.execute(q, ENV, 1, TimeUnit.SECONDS).toBlocking().firstOrDefault(null);
 
@@ -186,12 +243,12 @@ public class N1qlQueryExecutorTest {
         verify(executor, times(1)).retryPrepareAndExecuteOnce(any(Throwable.class), any(N1qlQuery.class), eq(ENV), any(Integer.class), any(TimeUnit.class));
         verify(executor, times(1)).prepare(any(Statement.class));
         assertEquals(1, cache.size());
-        assertEquals(payloadFromServer, cache.values().iterator().next());
+        assertEquals(payloadFromServer, cache.get(st.toString()));
     }
 
     @Test
     public void testUncachedPlanExecutionErrorTriggersRetry() {
-        LRUCache<String, PreparedPayload> cache = new LRUCache<>(3);
+        PreparedStatementCache cache = new PreparedStatementCache(3);
         CouchbaseCore mockFacade = mock(CouchbaseCore.class);
         N1qlQueryExecutor executor = spy(new N1qlQueryExecutor(mockFacade, "default", "", "", cache, true));
 
@@ -235,7 +292,7 @@ public class N1qlQueryExecutorTest {
         verify(executor, times(1)).retryPrepareAndExecuteOnce(any(Throwable.class), any(N1qlQuery.class), eq(ENV), any(Integer.class), any(TimeUnit.class));
         verify(executor, times(2)).prepare(any(Statement.class));
         assertEquals(1, cache.size());
-        assertEquals(payloadFromServer2, cache.values().iterator().next());
+        assertEquals(payloadFromServer2, cache.get(st.toString()));
         assertTrue(success);
         assertEquals(0, errors.size());
     }
@@ -243,7 +300,7 @@ public class N1qlQueryExecutorTest {
 
     @Test
     public void testUncachedPlanExecutionDoubleErrorTriggersRetryThenFails() {
-        LRUCache<String, PreparedPayload> cache = new LRUCache<>(3);
+        PreparedStatementCache cache = new PreparedStatementCache(3);
         CouchbaseCore mockFacade = mock(CouchbaseCore.class);
         N1qlQueryExecutor executor = spy(new N1qlQueryExecutor(mockFacade, "default", "", "", cache, true));
 
@@ -292,14 +349,14 @@ public class N1qlQueryExecutorTest {
         verify(executor, times(1)).retryPrepareAndExecuteOnce(any(Throwable.class), any(N1qlQuery.class), eq(ENV), any(Integer.class), any(TimeUnit.class));
         verify(executor, times(2)).prepare(any(Statement.class));
         assertEquals(1, cache.size());
-        assertEquals(payloadFromServer2, cache.values().iterator().next());
+        assertEquals(payloadFromServer2, cache.get(st.toString()));
         assertFalse(success);
         assertEquals(1, errors.size());
         assertEquals(4050, errors.get(0).getInt("code").intValue());
     }
 
     private void testRetryCondition(int code, String msg, boolean retryExpected) {
-        LRUCache<String, PreparedPayload> cache = new LRUCache<>(3);
+        PreparedStatementCache cache = new PreparedStatementCache(3);
         CouchbaseCore mockFacade = mock(CouchbaseCore.class);
         N1qlQueryExecutor executor = spy(new N1qlQueryExecutor(mockFacade, "default", "", "", cache, true));
 
@@ -348,7 +405,7 @@ public class N1qlQueryExecutorTest {
             assertTrue(success);
             assertEquals(0, errors.size());
             assertEquals(1, cache.size());
-            assertEquals(payloadFromServer2, cache.values().iterator().next());
+            assertEquals(payloadFromServer2, cache.get(st.toString()));
         } else {
             verify(executor, never()).retryPrepareAndExecuteOnce(any(Throwable.class), any(N1qlQuery.class), eq(ENV), any(Integer.class), any(TimeUnit.class));
             assertFalse(success);
@@ -356,7 +413,7 @@ public class N1qlQueryExecutorTest {
             assertEquals(new Integer(code), errors.get(0).getInt("code"));
             assertEquals(msg, errors.get(0).getString("msg"));
             assertEquals(1, cache.size());
-            assertEquals(payloadFromServer1, cache.values().iterator().next());
+            assertEquals(payloadFromServer1, cache.get(st.toString()));
         }
     }
 
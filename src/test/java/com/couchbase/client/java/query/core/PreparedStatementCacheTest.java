@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.query.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.couchbase.client.java.query.PreparedPayload;
+import com.couchbase.client.java.query.PreparedStatementCacheStats;
+import com.couchbase.client.java.query.Select;
+import org.junit.Test;
+import rx.Observable;
+import rx.functions.Action0;
+import rx.observers.TestSubscriber;
+import rx.subjects.PublishSubject;
+
+public class PreparedStatementCacheTest {
+
+    private static PreparedPayload payload(String name) {
+        return new PreparedPayload(Select.select(name), name, null);
+    }
+
+    @Test
+    public void shouldCountHitsAndMisses() {
+        PreparedStatementCache cache = new PreparedStatementCache(10);
+        assertNull(cache.get("a"));
+        cache.put("a", payload("a"));
+        assertEquals("a", cache.get("a").payload());
+        assertEquals("a", cache.get("a").payload());
+
+        PreparedStatementCacheStats stats = cache.stats();
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.size());
+        assertEquals(10, stats.maxSize());
+    }
+
+    @Test
+    public void shouldEvictUnusedBeforeFrequentlyUsedEntries() {
+        PreparedStatementCache cache = new PreparedStatementCache(3);
+        cache.put("hot", payload("hot"));
+        for (int i = 0; i < 5; i++) {
+            cache.get("hot");
+        }
+        for (int i = 0; i < 10; i++) {
+            cache.put("cold" + i, payload("cold" + i));
+        }
+
+        assertEquals(3, cache.size());
+        assertNotNull(cache.get("hot"));
+        assertNotNull(cache.get("cold9"));
+        assertEquals(8, cache.stats().evictions());
+    }
+
+    @Test
+    public void shouldReplaceExistingEntry() {
+        PreparedStatementCache cache = new PreparedStatementCache(3);
+        cache.put("a", payload("first"));
+        cache.put("a", payload("second"));
+        assertEquals(1, cache.size());
+        assertEquals("second", cache.get("a").payload());
+    }
+
+    @Test
+    public void shouldCountReprepares() {
+        PreparedStatementCache cache = new PreparedStatementCache(3);
+        cache.put("a", payload("a"));
+        cache.invalidate("a");
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.stats().reprepares());
+    }
+
+    @Test
+    public void shouldStayBoundedWithRepeatedRemoves() {
+        PreparedStatementCache cache = new PreparedStatementCache(2);
+        for (int i = 0; i < 100; i++) {
+            cache.put("a", payload("a"));
+            cache.remove("a");
+        }
+        cache.put("a", payload("a"));
+        cache.put("b", payload("b"));
+        cache.put("c", payload("c"));
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.clear());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void shouldShareInFlightPrepare() {
+        PreparedStatementCache cache = new PreparedStatementCache(3);
+        final AtomicInteger subscriptions = new AtomicInteger();
+        PublishSubject<PreparedPayload> server = PublishSubject.create();
+        Observable<PreparedPayload> prepare = server.doOnSubscribe(new Action0() {
+            @Override
+            public void call() {
+                subscriptions.incrementAndGet();
+            }
+        });
+
+        Observable<PreparedPayload> first = cache.prepareOnce("a", prepare);
+        Observable<PreparedPayload> second = cache.prepareOnce("a", prepare);
+        assertSame(first, second);
+
+        TestSubscriber<PreparedPayload> firstSubscriber = TestSubscriber.create();
+        TestSubscriber<PreparedPayload> secondSubscriber = TestSubscriber.create();
+        first.subscribe(firstSubscriber);
+        second.subscribe(secondSubscriber);
+
+        PreparedPayload payload = payload("a");
+        server.onNext(payload);
+        server.onCompleted();
+
+        firstSubscriber.assertValue(payload);
+        secondSubscriber.assertValue(payload);
+        assertEquals(1, subscriptions.get());
+        assertSame(payload, cache.get("a"));
+        assertEquals(1, cache.stats().sharedPrepares());
+
+        assertTrue(cache.prepareOnce("a", prepare) != first);
+    }
+
+    @Test
+    public void shouldNotShareFailedPrepare() {
+        PreparedStatementCache cache = new PreparedStatementCache(3);
+        Observable<PreparedPayload> failing = cache.prepareOnce("a",
+            Observable.<PreparedPayload>error(new IllegalStateException()));
+        TestSubscriber<PreparedPayload> subscriber = TestSubscriber.create();
+        failing.subscribe(subscriber);
+        subscriber.assertError(IllegalStateException.class);
+
+        PreparedPayload payload = payload("a");
+        TestSubscriber<PreparedPayload> retry = TestSubscriber.create();
+        cache.prepareOnce("a", Observable.just(payload)).subscribe(retry);
+        retry.assertValue(payload);
+        assertEquals(0, cache.stats().sharedPrepares());
+    }
+}
@@ -133,7 +133,7 @@ public class InsertAndUpsertDslTest {
       );
 
     assertEquals(
-      "INSERT INTO `beer-sample` (KEY code, VALUE {\"n\":\"name\",\"c\":\"city\"}) SELECT " +
+      "INSERT INTO `beer-sample` (KEY code, VALUE {\"c\":\"city\",\"n\":\"name\"}) SELECT " +
         "`beer-sample`.* FROM `beer-sample` LIMIT 1",
       statement.toString()
     );
@@ -175,7 +175,7 @@ public class InsertAndUpsertDslTest {
       );
 
     assertEquals(
-      "UPSERT INTO `beer-sample` (KEY code, VALUE {\"n\":\"name\",\"c\":\"city\"}) SELECT " +
+      "UPSERT INTO `beer-sample` (KEY code, VALUE {\"c\":\"city\",\"n\":\"name\"}) SELECT " +
         "`beer-sample`.* FROM `beer-sample` LIMIT 1",
       statement.toString()
     );
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.transcoder;
+
+import java.util.Iterator;
+
+import com.couchbase.client.deps.com.fasterxml.jackson.core.Version;
+import com.couchbase.client.deps.com.fasterxml.jackson.databind.ObjectMapper;
+import com.couchbase.client.deps.com.fasterxml.jackson.databind.module.SimpleModule;
+import com.couchbase.client.java.document.json.JsonArray;
+import com.couchbase.client.java.document.json.JsonObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies decoding into compact {@link JsonObject}s with the {@link JacksonTransformers} deserializers.
+ */
+public class CompactJsonObjectDeserializerTest {
+
+    private static final ObjectMapper COMPACT = new ObjectMapper();
+
+    static {
+        SimpleModule module = new SimpleModule("CompactJsonValueModule", new Version(1, 0, 0, null, null, null));
+        module.addSerializer(JsonObject.class, new JacksonTransformers.JsonObjectSerializer());
+        module.addSerializer(JsonArray.class, new JacksonTransformers.JsonArraySerializer());
+        module.addDeserializer(JsonObject.class, new JacksonTransformers.JsonObjectDeserializer(true));
+        module.addDeserializer(JsonArray.class, new JacksonTransformers.JsonArrayDeserializer(true));
+        COMPACT.registerModule(module);
+    }
+
+    private static final String ROWS = "[{\"name\":\"United\",\"id\":1,\"active\":true,\"rating\":4.5,"
+        + "\"codes\":[\"UA\",\"UAL\"],\"hub\":{\"city\":\"Chicago\",\"gates\":191},\"alias\":null},"
+        + "{\"name\":\"Delta\",\"id\":2,\"active\":false,\"rating\":4.0,"
+        + "\"codes\":[\"DL\",\"DAL\"],\"hub\":{\"city\":\"Atlanta\",\"gates\":192},\"alias\":\"Delta Air\"}]";
+
+    @Test
+    public void shouldDecodeLikeRegularObjects() throws Exception {
+        JsonArray compact = COMPACT.readValue(ROWS, JsonArray.class);
+        JsonArray regular = JacksonTransformers.MAPPER.readValue(ROWS, JsonArray.class);
+
+        assertEquals(regular, compact);
+        assertEquals(regular.toString().length(), compact.toString().length());
+        for (Object row : compact) {
+            assertTrue(((JsonObject) row).isCompact());
+            assertTrue(((JsonObject) row).getObject("hub").isCompact());
+        }
+    }
+
+    @Test
+    public void shouldShareFieldNamesAcrossObjects() throws Exception {
+        JsonObject first = COMPACT.readValue("{\"name\":\"United\",\"id\":1}", JsonObject.class);
+        JsonObject second = COMPACT.readValue(new String("{\"name\":\"Delta\",\"id\":2}"), JsonObject.class);
+
+        Iterator<String> firstNames = first.getNames().iterator();
+        Iterator<String> secondNames = second.getNames().iterator();
+        assertSame(firstNames.next(), secondNames.next());
+        assertSame(firstNames.next(), secondNames.next());
+    }
+
+    @Test
+    public void shouldFallBackOnDuplicateFields() throws Exception {
+        JsonObject decoded = COMPACT.readValue("{\"a\":1,\"b\":2,\"a\":3,\"c\":{\"d\":4}}", JsonObject.class);
+
+        assertFalse(decoded.isCompact());
+        assertEquals(JsonObject.create().put("a", 3).put("b", 2).put("c", JsonObject.create().put("d", 4)), decoded);
+    }
+
+    @Test
+    public void shouldPromoteDecodedObjectsOnStructuralChange() throws Exception {
+        JsonObject decoded = COMPACT.readValue("{\"name\":\"United\",\"id\":1}", JsonObject.class);
+        decoded.put("id", 2);
+        assertTrue(decoded.isCompact());
+
+        decoded.put("callsign", "UNITED");
+        assertFalse(decoded.isCompact());
+        assertEquals(JsonObject.create().put("name", "United").put("id", 2).put("callsign", "UNITED"), decoded);
+    }
+
+    @Test
+    public void shouldDecodeEmptyObjects() throws Exception {
+        JsonObject decoded = COMPACT.readValue("{\"empty\":{}}", JsonObject.class);
+
+        assertTrue(decoded.getObject("empty").isEmpty());
+        assertEquals(JsonObject.create().put("empty", JsonObject.empty()), decoded);
+    }
+
+    @Test
+    public void shouldStopCreatingShapesWithinOneDecode() throws Exception {
+        StringBuilder json = new StringBuilder("{\"nested\":{\"name\":\"United\"},\"ids\":{");
+        JsonObject expectedIds = JsonObject.create();
+        for (int i = 0; i < JacksonTransformers.MAX_NEW_SHAPES_PER_DECODE * 2; i++) {
+            String key = "shouldStopCreatingShapes" + i;
+            json.append(i == 0 ? "" : ",").append('"').append(key).append("\":").append(i);
+            expectedIds.put(key, i);
+        }
+        json.append("}}");
+
+        JsonObject decoded = COMPACT.readValue(json.toString(), JsonObject.class);
+
+        assertTrue(decoded.isCompact());
+        assertTrue(decoded.getObject("nested").isCompact());
+        assertFalse(decoded.getObject("ids").isCompact());
+        assertEquals(JsonObject.create().put("nested", JsonObject.create().put("name", "United"))
+            .put("ids", expectedIds), decoded);
+    }
+}
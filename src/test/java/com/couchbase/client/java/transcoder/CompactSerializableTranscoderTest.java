@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.transcoder;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.couchbase.client.core.lang.Tuple2;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.PooledByteBufAllocator;
+import com.couchbase.client.java.document.SerializableDocument;
+import com.couchbase.client.java.error.TranscodingException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CompactSerializableTranscoderTest {
+
+    enum Status {
+        ACTIVE, RETIRED
+    }
+
+    static class Base implements Serializable {
+        private static final long serialVersionUID = 1L;
+        long version;
+    }
+
+    static class Airline extends Base {
+        private static final long serialVersionUID = 1L;
+        String name;
+        int id;
+        boolean active;
+        double rating;
+        char code;
+        short fleet;
+        byte hubs;
+        float share;
+        Integer founded;
+        Status status;
+        List<String> callsigns;
+        TreeSet<String> countries;
+        Map<String, Object> extra;
+        Airline parent;
+        int[] routes;
+        byte[] logo;
+        Date updated;
+        BigDecimal revenue;
+        transient String cached;
+
+        private Airline() {
+        }
+    }
+
+    static class Schedule implements Serializable {
+        private static final long serialVersionUID = 1L;
+        SortedSet<String> days;
+        NavigableMap<Integer, String> flights;
+        Deque<String> stops;
+        List<String> legs;
+        List<String> sameLegs;
+        Schedule next;
+    }
+
+    static class ChangedSchedule implements Serializable {
+        private static final long serialVersionUID = 1L;
+        SortedSet<String> days;
+        NavigableMap<Integer, String> flights;
+        Deque<String> stops;
+        List<String> legs;
+        List<String> sameLegs;
+        String next;
+    }
+
+    static class Resolved implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Object readResolve() {
+            return this;
+        }
+    }
+
+    static class WithEnumSet implements Serializable {
+        private static final long serialVersionUID = 1L;
+        EnumSet<Status> statuses;
+    }
+
+    static class Unregistered implements Serializable {
+        private static final long serialVersionUID = 1L;
+        String value = "plain";
+    }
+
+    private CompactSerializableTranscoder transcoder;
+
+    @Before
+    public void setup() {
+        CompactClassRegistry registry = CompactClassRegistry.create()
+            .register(1, Airline.class)
+            .register(2, Status.class);
+        transcoder = new CompactSerializableTranscoder(registry);
+    }
+
+    private static Airline airline() {
+        Airline airline = new Airline();
+        airline.version = 7;
+        airline.name = "United Airlines";
+        airline.id = -5209;
+        airline.active = true;
+        airline.rating = 4.5;
+        airline.code = 'U';
+        airline.fleet = 850;
+        airline.hubs = 8;
+        airline.share = 0.17f;
+        airline.founded = 1926;
+        airline.status = Status.ACTIVE;
+        airline.callsigns = Arrays.asList("UNITED", "UAL");
+        airline.countries = new TreeSet<String>(Arrays.asList("United States", "Canada"));
+        airline.extra = new HashMap<String, Object>();
+        airline.extra.put("alliance", "Star");
+        airline.extra.put("hubs", Arrays.asList(1L, 2L, Long.MAX_VALUE));
+        airline.extra.put("revenueGrowth", new BigInteger("123456789012345678901234567890"));
+        airline.routes = new int[] { 1, -1, Integer.MAX_VALUE, Integer.MIN_VALUE };
+        airline.logo = new byte[] { 1, 2, 3 };
+        airline.updated = new Date(1600000000000L);
+        airline.revenue = new BigDecimal("43259.123");
+        airline.cached = "not written";
+        Airline parent = new Airline();
+        parent.name = "United Continental";
+        airline.parent = parent;
+        return airline;
+    }
+
+    private SerializableDocument roundTrip(Serializable content, int expectedFlags) {
+        Tuple2<ByteBuf, Integer> encoded = transcoder.encode(SerializableDocument.create("id", content));
+        assertEquals(expectedFlags, (int) encoded.value2());
+        return transcoder.decode("id", encoded.value1(), 1, 0, encoded.value2(), ResponseStatus.SUCCESS);
+    }
+
+    @Test
+    public void shouldRoundTripRegisteredClasses() {
+        Airline decoded = (Airline) roundTrip(airline(), CompactSerializableTranscoder.COMPACT_SERIALIZED_FLAGS)
+            .content();
+        Airline expected = airline();
+
+        assertEquals(expected.version, decoded.version);
+        assertEquals(expected.name, decoded.name);
+        assertEquals(expected.id, decoded.id);
+        assertEquals(expected.active, decoded.active);
+        assertEquals(expected.rating, decoded.rating, 0);
+        assertEquals(expected.code, decoded.code);
+        assertEquals(expected.fleet, decoded.fleet);
+        assertEquals(expected.hubs, decoded.hubs);
+        assertEquals(expected.share, decoded.share, 0);
+        assertEquals(expected.founded, decoded.founded);
+        assertEquals(Status.ACTIVE, decoded.status);
+        assertEquals(expected.callsigns, decoded.callsigns);
+        assertEquals(expected.countries, decoded.countries);
+        assertEquals(expected.extra, decoded.extra);
+        assertArrayEquals(expected.routes, decoded.routes);
+        assertArrayEquals(expected.logo, decoded.logo);
+        assertEquals(expected.updated, decoded.updated);
+        assertEquals(expected.revenue, decoded.revenue);
+        assertNull(decoded.cached);
+        assertEquals("United Continental", decoded.parent.name);
+        assertNull(decoded.parent.parent);
+    }
+
+    @Test
+    public void shouldRoundTripBuiltInTypes() {
+        ArrayList<Object> content = new ArrayList<Object>(Arrays.<Object>asList("a", 1, 2L, 3.0, null, Status.RETIRED));
+        assertEquals(content, roundTrip(content, CompactSerializableTranscoder.COMPACT_SERIALIZED_FLAGS).content());
+        assertEquals("ü€", roundTrip("ü€", CompactSerializableTranscoder.COMPACT_SERIALIZED_FLAGS).content());
+    }
+
+    @Test
+    public void shouldBeSmallerThanJavaSerialization() throws Exception {
+        Tuple2<ByteBuf, Integer> compact = transcoder.encode(SerializableDocument.create("id", airline()));
+        ByteBuf serialized = TranscoderUtils.serialize(airline());
+
+        assertTrue(compact.value1().readableBytes() * 3 < serialized.readableBytes());
+        compact.value1().release();
+        serialized.release();
+    }
+
+    @Test
+    public void shouldReadJavaSerializedDocuments() throws Exception {
+        ByteBuf serialized = TranscoderUtils.serialize(airline());
+        SerializableDocument decoded = transcoder.decode("id", serialized, 1, 0,
+            TranscoderUtils.SERIALIZED_COMPAT_FLAGS, ResponseStatus.SUCCESS);
+
+        assertEquals("United Airlines", ((Airline) decoded.content()).name);
+        assertEquals(0, serialized.refCnt());
+    }
+
+    @Test
+    public void shouldFallBackToJavaSerialization() {
+        SerializableDocument decoded = roundTrip(new Unregistered(), TranscoderUtils.SERIALIZED_COMPAT_FLAGS);
+        assertEquals("plain", ((Unregistered) decoded.content()).value);
+
+        ArrayList<Object> nested = new ArrayList<Object>(Arrays.<Object>asList("a", new Unregistered()));
+        decoded = roundTrip(nested, TranscoderUtils.SERIALIZED_COMPAT_FLAGS);
+        assertEquals("plain", ((Unregistered) ((List<?>) decoded.content()).get(1)).value);
+    }
+
+    @Test
+    public void shouldEncodeIntoAllocatorBuffers() {
+        CompactSerializableTranscoder pooled = new CompactSerializableTranscoder(
+            CompactClassRegistry.create().register(1, Airline.class).register(2, Status.class),
+            PooledByteBufAllocator.DEFAULT);
+        Tuple2<ByteBuf, Integer> encoded = pooled.encode(SerializableDocument.create("id", airline()));
+
+        SerializableDocument decoded = pooled.decode("id", encoded.value1(), 1, 0, encoded.value2(),
+            ResponseStatus.SUCCESS);
+        assertEquals("United Airlines", ((Airline) decoded.content()).name);
+        assertEquals(0, encoded.value1().refCnt());
+    }
+
+    @Test(expected = TranscodingException.class)
+    public void shouldFailOnUnknownClassId() {
+        Tuple2<ByteBuf, Integer> encoded = transcoder.encode(SerializableDocument.create("id", airline()));
+        new CompactSerializableTranscoder(CompactClassRegistry.create()).decode("id", encoded.value1(), 1, 0,
+            encoded.value2(), ResponseStatus.SUCCESS);
+    }
+
+    @Test(expected = TranscodingException.class)
+    public void shouldFailOnTruncatedContent() {
+        Tuple2<ByteBuf, Integer> encoded = transcoder.encode(SerializableDocument.create("id", airline()));
+        ByteBuf truncated = encoded.value1().slice(0, encoded.value1().readableBytes() - 5);
+        transcoder.decode("id", truncated, 1, 0, encoded.value2(), ResponseStatus.SUCCESS);
+    }
+
+    @Test
+    public void shouldReadCollectionsIntoDeclaredTypes() {
+        transcoder = new CompactSerializableTranscoder(CompactClassRegistry.create().register(3, Schedule.class));
+        Schedule schedule = new Schedule();
+        schedule.days = new TreeSet<String>(Arrays.asList("tue", "mon"));
+        schedule.flights = new TreeMap<Integer, String>();
+        schedule.flights.put(2, "UA2");
+        schedule.flights.put(1, "UA1");
+        schedule.stops = new LinkedList<String>(Arrays.asList("SFO", "ORD"));
+
+        Schedule decoded = (Schedule) roundTrip(schedule, CompactSerializableTranscoder.COMPACT_SERIALIZED_FLAGS)
+            .content();
+        assertTrue(decoded.days instanceof TreeSet);
+        assertEquals(Arrays.asList("mon", "tue"), new ArrayList<String>(decoded.days));
+        assertEquals(Integer.valueOf(1), decoded.flights.firstKey());
+        assertEquals("SFO", decoded.stops.peekFirst());
+    }
+
+    @Test
+    public void shouldKeepSharedAndCyclicReferences() {
+        transcoder = new CompactSerializableTranscoder(CompactClassRegistry.create().register(3, Schedule.class));
+        Schedule schedule = new Schedule();
+        schedule.legs = new ArrayList<String>(Arrays.asList("SFO-ORD"));
+        schedule.sameLegs = schedule.legs;
+        schedule.next = schedule;
+
+        Schedule decoded = (Schedule) roundTrip(schedule, CompactSerializableTranscoder.COMPACT_SERIALIZED_FLAGS)
+            .content();
+        assertSame(decoded.legs, decoded.sameLegs);
+        assertSame(decoded, decoded.next);
+        assertEquals(Arrays.asList("SFO-ORD"), decoded.legs);
+    }
+
+    @Test
+    public void shouldFallBackForComparators() {
+        TreeSet<String> reversed = new TreeSet<String>(Collections.reverseOrder());
+        reversed.addAll(Arrays.asList("a", "b"));
+        SerializableDocument decoded = roundTrip(reversed, TranscoderUtils.SERIALIZED_COMPAT_FLAGS);
+        assertEquals("b", ((TreeSet<?>) decoded.content()).first());
+    }
+
+    @Test(expected = TranscodingException.class)
+    public void shouldRejectChangedLayout() {
+        transcoder = new CompactSerializableTranscoder(CompactClassRegistry.create().register(3, Schedule.class));
+        Tuple2<ByteBuf, Integer> encoded = transcoder.encode(SerializableDocument.create("id", new Schedule()));
+        new CompactSerializableTranscoder(CompactClassRegistry.create().register(3, ChangedSchedule.class))
+            .decode("id", encoded.value1(), 1, 0, encoded.value2(), ResponseStatus.SUCCESS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectClassesCustomizingSerialization() {
+        CompactClassRegistry.create().register(1, Resolved.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectFieldsWhichCanNotBeDecoded() {
+        CompactClassRegistry.create().register(1, WithEnumSet.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectCollections() {
+        CompactClassRegistry.create().register(1, ArrayList.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectDuplicateIds() {
+        CompactClassRegistry.create().register(1, Airline.class).register(1, Unregistered.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectClassesWithoutDefaultConstructor() {
+        CompactClassRegistry.create().register(1, Integer.class);
+    }
+}
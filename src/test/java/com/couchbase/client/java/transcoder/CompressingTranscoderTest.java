@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.transcoder;
+
+import java.util.Random;
+
+import com.couchbase.client.core.lang.Tuple2;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.deps.io.netty.util.CharsetUtil;
+import com.couchbase.client.java.document.BinaryDocument;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.document.RawJsonDocument;
+import com.couchbase.client.java.document.json.JsonArray;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.error.TranscodingException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompressingTranscoderTest {
+
+    private static JsonObject largeObject(int entries) {
+        JsonArray items = JsonArray.create();
+        for (int i = 0; i < entries; i++) {
+            items.add(JsonObject.create().put("name", "airline-" + i).put("country", "United States")
+                .put("active", i % 2 == 0));
+        }
+        return JsonObject.create().put("type", "route").put("items", items);
+    }
+
+    @Test
+    public void shouldCompressAndDecompressJson() {
+        CompressingTranscoder<JsonDocument, JsonObject> transcoder = CompressingTranscoder.json();
+        JsonObject content = largeObject(100);
+
+        Tuple2<ByteBuf, Integer> encoded = transcoder.encode(JsonDocument.create("id", content));
+        int rawLength = content.toString().length();
+
+        assertEquals(TranscoderUtils.JSON_COMPAT_FLAGS | TranscoderUtils.SNAPPY_COMPRESSION_FLAGS,
+            (int) encoded.value2());
+        assertTrue(TranscoderUtils.hasCompressionFlags(encoded.value2()));
+        assertTrue(encoded.value1().readableBytes() < rawLength / 3);
+
+        ByteBuf stored = encoded.value1();
+        JsonDocument decoded = transcoder.decode("id", stored, 1, 0, encoded.value2(), ResponseStatus.SUCCESS);
+        assertEquals(content, decoded.content());
+        assertEquals(0, stored.refCnt());
+    }
+
+    @Test
+    public void shouldCompressAndDecompressRawJson() {
+        CompressingTranscoder<RawJsonDocument, String> transcoder = CompressingTranscoder.rawJson();
+        String content = largeObject(50).toString();
+
+        Tuple2<ByteBuf, Integer> encoded = transcoder.encode(RawJsonDocument.create("id", content));
+        assertTrue(TranscoderUtils.hasCompressionFlags(encoded.value2()));
+
+        RawJsonDocument decoded = transcoder.decode("id", encoded.value1(), 1, 0, encoded.value2(),
+            ResponseStatus.SUCCESS);
+        assertEquals(content, decoded.content());
+    }
+
+    @Test
+    public void shouldCompressAndDecompressBinary() {
+        CompressingTranscoder<BinaryDocument, ByteBuf> transcoder = CompressingTranscoder.binary();
+        byte[] bytes = new byte[4096];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i % 16);
+        }
+        ByteBuf content = Unpooled.copiedBuffer(bytes);
+
+        Tuple2<ByteBuf, Integer> encoded = transcoder.encode(BinaryDocument.create("id", content));
+        assertTrue(TranscoderUtils.hasCompressionFlags(encoded.value2()));
+        assertEquals(0, content.refCnt());
+
+        BinaryDocument decoded = transcoder.decode("id", encoded.value1(), 1, 0, encoded.value2(),
+            ResponseStatus.SUCCESS);
+        assertEquals(Unpooled.wrappedBuffer(bytes), decoded.content());
+        assertEquals(1, decoded.content().refCnt());
+        decoded.content().release();
+    }
+
+    @Test
+    public void shouldRoundTripLargeDocuments() {
+        CompressingTranscoder<RawJsonDocument, String> transcoder = CompressingTranscoder.rawJson();
+        String content = largeObject(5000).toString();
+        assertTrue(content.length() > 200 * 1024);
+
+        Tuple2<ByteBuf, Integer> encoded = transcoder.encode(RawJsonDocument.create("id", content));
+        assertTrue(TranscoderUtils.hasCompressionFlags(encoded.value2()));
+
+        RawJsonDocument decoded = transcoder.decode("id", encoded.value1(), 1, 0, encoded.value2(),
+            ResponseStatus.SUCCESS);
+        assertEquals(content, decoded.content());
+    }
+
+    @Test
+    public void shouldNotCompressBelowThreshold() {
+        CompressingTranscoder<RawJsonDocument, String> transcoder = CompressingTranscoder.rawJson();
+        Tuple2<ByteBuf, Integer> encoded = transcoder.encode(RawJsonDocument.create("id", "{\"small\":true}"));
+
+        assertEquals(TranscoderUtils.JSON_COMPAT_FLAGS, (int) encoded.value2());
+        assertEquals("{\"small\":true}", encoded.value1().toString(CharsetUtil.UTF_8));
+    }
+
+    @Test
+    public void shouldStoreIncompressibleContentAsIs() {
+        CompressingTranscoder<BinaryDocument, ByteBuf> transcoder = CompressingTranscoder.binary();
+        byte[] bytes = new byte[8192];
+        new Random(42).nextBytes(bytes);
+        ByteBuf content = Unpooled.copiedBuffer(bytes);
+
+        Tuple2<ByteBuf, Integer> encoded = transcoder.encode(BinaryDocument.create("id", content));
+
+        assertEquals(TranscoderUtils.BINARY_COMPAT_FLAGS, (int) encoded.value2());
+        assertTrue(encoded.value1() == content);
+        assertEquals(1, content.refCnt());
+        assertEquals(0, transcoder.stats().compressed());
+        content.release();
+    }
+
+    @Test
+    public void shouldDecodeUncompressedDocuments() {
+        CompressingTranscoder<RawJsonDocument, String> transcoder = CompressingTranscoder.rawJson();
+        ByteBuf content = Unpooled.copiedBuffer("{\"test\":true}", CharsetUtil.UTF_8);
+
+        RawJsonDocument decoded = transcoder.decode("id", content, 1, 0, TranscoderUtils.JSON_COMPAT_FLAGS,
+            ResponseStatus.SUCCESS);
+
+        assertEquals("{\"test\":true}", decoded.content());
+        assertEquals(0, transcoder.stats().decompressed());
+    }
+
+    @Test(expected = TranscodingException.class)
+    public void shouldFailOnCorruptContent() {
+        CompressingTranscoder<RawJsonDocument, String> transcoder = CompressingTranscoder.rawJson();
+        Tuple2<ByteBuf, Integer> encoded = transcoder.encode(RawJsonDocument.create("id", largeObject(50).toString()));
+        ByteBuf truncated = encoded.value1().copy(0, encoded.value1().readableBytes() / 2);
+        encoded.value1().release();
+        try {
+            transcoder.decode("id", truncated, 1, 0, encoded.value2(), ResponseStatus.SUCCESS);
+        } finally {
+            assertEquals(0, truncated.refCnt());
+        }
+    }
+
+    @Test(expected = TranscodingException.class)
+    public void shouldFailOnUnknownCompression() {
+        CompressingTranscoder<RawJsonDocument, String> transcoder = CompressingTranscoder.rawJson();
+        ByteBuf content = Unpooled.copiedBuffer("{\"test\":true}", CharsetUtil.UTF_8);
+        transcoder.decode("id", content, 1, 0, TranscoderUtils.JSON_COMPAT_FLAGS | (1 << 30),
+            ResponseStatus.SUCCESS);
+    }
+
+    @Test
+    public void shouldReportStats() {
+        CompressingTranscoder<RawJsonDocument, String> transcoder = CompressingTranscoder.rawJson();
+        String content = largeObject(100).toString();
+
+        Tuple2<ByteBuf, Integer> encoded = transcoder.encode(RawJsonDocument.create("id", content));
+        transcoder.encode(RawJsonDocument.create("id", "{}")).value1().release();
+        transcoder.decode("id", encoded.value1(), 1, 0, encoded.value2(), ResponseStatus.SUCCESS);
+
+        CompressionStats stats = transcoder.stats();
+        assertEquals(2, stats.encoded());
+        assertEquals(1, stats.compressed());
+        assertEquals(content.length() + 2, stats.rawBytes());
+        assertTrue(stats.storedBytes() < stats.rawBytes());
+        assertTrue(stats.compressionRatio() > 3);
+        assertTrue(stats.compressNanos() > 0);
+        assertEquals(1, stats.decompressed());
+        assertTrue(stats.decompressNanos() > 0);
+        assertFalse(stats.toString().isEmpty());
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.transcoder;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the functionality of the {@link EncodeSizeHint}.
+ */
+public class EncodeSizeHintTest {
+
+    @Test
+    public void shouldGrowImmediatelyAndDecaySlowly() {
+        EncodeSizeHint hint = new EncodeSizeHint(256);
+        hint.record(4096);
+        assertEquals(4096, hint.next());
+
+        hint.record(96);
+        int decayed = hint.next();
+        assertTrue(decayed < 4096 && decayed > 2048);
+
+        for (int i = 0; i < 200; i++) {
+            hint.record(96);
+        }
+        assertTrue(hint.next() < 128);
+    }
+
+    @Test
+    public void shouldStayWithinBounds() {
+        EncodeSizeHint hint = new EncodeSizeHint(0);
+        assertEquals(EncodeSizeHint.MIN_SIZE, hint.next());
+
+        hint.record(Integer.MAX_VALUE);
+        assertEquals(EncodeSizeHint.MAX_SIZE, hint.next());
+    }
+}
@@ -20,6 +20,7 @@ import com.couchbase.client.core.message.ResponseStatus;
 import com.couchbase.client.deps.com.fasterxml.jackson.core.JsonParseException;
 import com.couchbase.client.deps.com.fasterxml.jackson.databind.ObjectMapper;
 import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.PooledByteBufAllocator;
 import com.couchbase.client.deps.io.netty.buffer.Unpooled;
 import com.couchbase.client.deps.io.netty.util.CharsetUtil;
 import com.couchbase.client.deps.io.netty.util.ReferenceCountUtil;
@@ -254,4 +255,61 @@ public class JsonTranscoderTest {
         assertEquals(2, decoded.content().size());
         assertEquals(sub1, decoded.content().get("a"));
     }
+
+    @Test
+    public void shouldEncodeAllValueTypesLikeTheCopiedMap() throws Exception {
+        JsonArray array = JsonArray.create()
+            .add("s").add(1).add(2L).add(1.5d).add(true).add((String) null)
+            .add(JsonObject.create().put("nested", JsonArray.empty()))
+            .add(JsonArray.from(1, 2, 3));
+        JsonObject object = JsonObject.create()
+            .put("string", "foo\"bar")
+            .put("int", Integer.MAX_VALUE)
+            .put("long", Long.MAX_VALUE)
+            .put("double", 12.34d)
+            .put("bool", false)
+            .put("bigint", new java.math.BigInteger("123456789012345678901234567890"))
+            .put("bigdec", new java.math.BigDecimal("1.00000000000000000001"))
+            .putNull("null")
+            .put("obj", JsonObject.create().put("inner", JsonObject.empty()))
+            .put("arr", array);
+
+        Tuple2<ByteBuf, Integer> encoded = converter.encode(JsonDocument.create("id", object));
+        Map<String, Object> streamed = readJsonIntoMap(encoded.value1());
+        Map<String, Object> copied = CONTROL_MAPPER.readValue(
+            CONTROL_MAPPER.writeValueAsString(object.toMap()),
+            CONTROL_MAPPER.getTypeFactory().constructMapType(HashMap.class, String.class, Object.class)
+        );
+        assertEquals(copied, streamed);
+    }
+
+    @Test
+    public void shouldEncodeJsonArrayInPlace() throws Exception {
+        JsonArray array = JsonArray.from("a", 1, JsonObject.create().put("b", JsonArray.from(true)));
+        assertEquals(CONTROL_MAPPER.writeValueAsString(array.toList()),
+            JacksonTransformers.MAPPER.writeValueAsString(array));
+    }
+
+    @Test
+    public void shouldEncodeIntoPooledBufferAndLearnSize() throws Exception {
+        JsonTranscoder pooled = new JsonTranscoder(PooledByteBufAllocator.DEFAULT);
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            large.append("0123456789");
+        }
+        JsonDocument doc = JsonDocument.create("id", JsonObject.create().put("large", large.toString()));
+
+        Tuple2<ByteBuf, Integer> first = pooled.encode(doc);
+        Tuple2<ByteBuf, Integer> second = pooled.encode(doc);
+        try {
+            assertTrue(first.value1().alloc() instanceof PooledByteBufAllocator);
+            assertEquals(converter.encode(doc).value1(), first.value1());
+            assertEquals(TranscoderUtils.JSON_COMPAT_FLAGS, (long) first.value2());
+            // the second encode starts out with the learned size and does not need to grow
+            assertEquals(second.value1().readableBytes(), second.value1().capacity());
+        } finally {
+            first.value1().release();
+            second.value1().release();
+        }
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.transcoder;
+
+import com.couchbase.client.core.lang.Tuple2;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.deps.io.netty.util.CharsetUtil;
+import com.couchbase.client.java.document.LazyJsonDocument;
+import com.couchbase.client.java.document.json.JsonArray;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.error.TranscodingException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the functionality of the {@link LazyJsonTranscoder}.
+ */
+public class LazyJsonTranscoderTest {
+
+    private static final String RAW = "{\"big\":{\"nested\":[1,2,{\"deep\":true}]},  \"name\":\"foo\",\"age\":42}";
+
+    private LazyJsonTranscoder converter;
+
+    @Before
+    public void setup() {
+        converter = new LazyJsonTranscoder();
+    }
+
+    @Test
+    public void shouldDecodeLazilyAndReleaseBuffer() {
+        ByteBuf content = Unpooled.copiedBuffer(RAW, CharsetUtil.UTF_8);
+        LazyJsonDocument decoded = converter.decode("id", content, 1234, 0, TranscoderUtils.JSON_COMPAT_FLAGS,
+            ResponseStatus.SUCCESS);
+
+        assertEquals(0, content.refCnt());
+        assertEquals(1234, decoded.cas());
+        assertEquals("foo", decoded.content().getString("name"));
+        assertEquals(42, (int) decoded.content().getInt("age"));
+        assertFalse(decoded.content().isMaterialized());
+    }
+
+    @Test
+    public void shouldPassThroughUnmodifiedContent() {
+        LazyJsonDocument decoded = converter.decode("id", Unpooled.copiedBuffer(RAW, CharsetUtil.UTF_8), 0, 0,
+            TranscoderUtils.JSON_COMPAT_FLAGS, ResponseStatus.SUCCESS);
+        decoded.content().getString("name");
+
+        Tuple2<ByteBuf, Integer> encoded = converter.encode(decoded);
+        assertEquals(RAW, encoded.value1().toString(CharsetUtil.UTF_8));
+        assertEquals(TranscoderUtils.JSON_COMPAT_FLAGS, (long) encoded.value2());
+    }
+
+    @Test
+    public void shouldReencodeContentModifiedThroughNestedValues() {
+        LazyJsonDocument decoded = converter.decode("id", Unpooled.copiedBuffer(RAW, CharsetUtil.UTF_8), 0, 0,
+            TranscoderUtils.JSON_COMPAT_FLAGS, ResponseStatus.SUCCESS);
+        decoded.content().getObject("big").put("zip", "94040");
+        decoded.content().getObject("big").getArray("nested").add(3);
+
+        Tuple2<ByteBuf, Integer> encoded = converter.encode(decoded);
+        assertEquals(JsonObject.fromJson(RAW).put("big", JsonObject.create().put("zip", "94040")
+                .put("nested", JsonArray.from(1, 2, JsonObject.create().put("deep", true), 3))),
+            JsonObject.fromJson(encoded.value1().toString(CharsetUtil.UTF_8)));
+    }
+
+    @Test
+    public void shouldReencodeModifiedContent() {
+        LazyJsonDocument decoded = converter.decode("id", Unpooled.copiedBuffer(RAW, CharsetUtil.UTF_8), 0, 0,
+            TranscoderUtils.JSON_COMPAT_FLAGS, ResponseStatus.SUCCESS);
+        decoded.content().toJsonObject().put("name", "bar").removeKey("big");
+        assertTrue(decoded.content().isMaterialized());
+
+        Tuple2<ByteBuf, Integer> encoded = converter.encode(decoded);
+        assertEquals(JsonObject.create().put("name", "bar").put("age", 42),
+            JsonObject.fromJson(encoded.value1().toString(CharsetUtil.UTF_8)));
+    }
+
+    @Test
+    public void shouldEncodeCreatedDocument() {
+        LazyJsonDocument doc = LazyJsonDocument.create("id", JsonObject.create().put("a", 1));
+        Tuple2<ByteBuf, Integer> encoded = converter.encode(doc);
+        assertEquals("{\"a\":1}", encoded.value1().toString(CharsetUtil.UTF_8));
+    }
+
+    @Test
+    public void shouldPassThroughReadOnlyMaterializedContent() {
+        LazyJsonDocument decoded = converter.decode("id", Unpooled.copiedBuffer(RAW, CharsetUtil.UTF_8), 0, 0,
+            TranscoderUtils.JSON_COMPAT_FLAGS, ResponseStatus.SUCCESS);
+        assertEquals("foo", decoded.content().toJsonObject().getString("name"));
+
+        Tuple2<ByteBuf, Integer> encoded = converter.encode(decoded);
+        assertEquals(RAW, encoded.value1().toString(CharsetUtil.UTF_8));
+    }
+
+    @Test(expected = TranscodingException.class)
+    public void shouldFailToEncodeNullContent() {
+        converter.encode(LazyJsonDocument.create("id"));
+    }
+
+    @Test(expected = TranscodingException.class)
+    public void shouldFailToDecodeNonJsonFlags() {
+        converter.decode("id", Unpooled.copiedBuffer(RAW, CharsetUtil.UTF_8), 0, 0,
+            TranscoderUtils.BINARY_COMPAT_FLAGS, ResponseStatus.SUCCESS);
+    }
+}
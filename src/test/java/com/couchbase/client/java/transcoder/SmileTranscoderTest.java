@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.transcoder;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import com.couchbase.client.core.lang.Tuple2;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.ByteBufUtil;
+import com.couchbase.client.deps.io.netty.buffer.PooledByteBufAllocator;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.deps.io.netty.util.CharsetUtil;
+import com.couchbase.client.java.document.SmileDocument;
+import com.couchbase.client.java.document.json.JsonArray;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.error.TranscodingException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SmileTranscoderTest {
+
+    /*
+     * Smile content as Jackson's SmileGenerator writes it with its default features: a header announcing shared
+     * property names, no shared string values, binary data in 7 bit bytes and no end marker. The bytes are derived
+     * from the Smile specification, with the fields of every object in JsonObject iteration order.
+     */
+
+    private static final String SHARED_NAMES = "3a290a01"
+        + "fa876169726c696e6573f8fa836e616d6545556e69746564816964c2fbfa414444656c746142c4fbf9fb";
+
+    private static final String LONG_SHARED_NAMES = "3a290a01"
+        + "fa846669727374fa802b21802d21802e2180302180312180322180332180342180352180362180372180382180392180"
+        + "4121804221804321804421804521804621804721804821804921804a21804b21804c21804d21804e21804f2180502180"
+        + "5121805221805321805421805521805621805721805821805921805a21805f2180612180622180632180642180652180"
+        + "6621806721806821806921806a21806b21806c21806d21806e21806f2180702180712180722180732180742180752180"
+        + "7621807721807821807921807a21fb857365636f6e64fa30412230422341c0fbfb";
+
+    private static final String LONG_NAMES = "3a290a01"
+        + "fa346e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e"
+        + "6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6efcc6346e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e"
+        + "6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6efcc4b76e6e6e6e6e6e6e6e6e6e6e6e6e6e"
+        + "6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6e6ec234c3bcc3bc"
+        + "c3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bc"
+        + "c3bcc3bcc3bcfcca856e6573746564fa40c641c442c243caf6c3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3"
+        + "bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc3bcc8fb45c8fb";
+
+    private static final String NUMBERS = "3a290a01"
+        + "fa846c6f6e6773f8250100000000008025037f7f7f7f7f7f7f7fbf25037f7f7f7f7f7f7f7fbef983696e7473f8c0c1de"
+        + "df24a024a1241f9024183580241f7f7f7fbe241f7f7f7fbff986646f75626c6573f829003f7c00000000000000290140"
+        + "010000000000000029004004483f3522105a1829007f777f7f7f7f7f7f7ff98a626967446563696d616c73f82a948d7f"
+        + "1c226f0024790c0f443e3f592b2b2a0190810001f98a626967496e746567657273f8268d00635d107f5b0673703b4963"
+        + "782b1226897d292b2b161c3559404502f9fb";
+
+    private static final String STRINGS = "3a290a01"
+        + "fa8576616c756573f82040617f6262626262626262626262626262626262626262626262626262626262626262626262"
+        + "6262626262626262626262626262626262626262626262626262626262e0636363636363636363636363636363636363"
+        + "6363636363636363636363636363636363636363636363636363636363636363636363636363636363636363636363fc"
+        + "bec3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3"
+        + "a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9e4c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9"
+        + "c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a9c3a964fc81e282ac212322f9fb";
+
+    private final SmileTranscoder converter = new SmileTranscoder();
+
+    private static String repeat(String value, int times) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+
+    private JsonObject roundTrip(JsonObject content) {
+        Tuple2<ByteBuf, Integer> encoded = converter.encode(SmileDocument.create("id", content));
+        assertEquals(TranscoderUtils.SMILE_COMPAT_FLAGS, (int) encoded.value2());
+        SmileDocument decoded = converter.decode("id", encoded.value1(), 0, 0, encoded.value2(),
+            ResponseStatus.SUCCESS);
+        assertEquals(0, encoded.value1().refCnt());
+        return decoded.content();
+    }
+
+    @Test
+    public void shouldEncodeWithSmileHeaderAndSharedNames() {
+        ByteBuf encoded = SmileCodec.encode(JsonObject.create().put("a", 1), Unpooled.buffer());
+        assertEquals("3a290a01fa8061c2fb", ByteBufUtil.hexDump(encoded));
+    }
+
+    private static void assertJacksonCompatible(String smile, JsonObject content) {
+        assertEquals(content, SmileCodec.decode(Unpooled.wrappedBuffer(ByteBufUtil.decodeHexDump(smile))));
+        assertEquals(smile, ByteBufUtil.hexDump(SmileCodec.encode(content, Unpooled.buffer())));
+    }
+
+    @Test
+    public void shouldMatchJacksonForSharedNames() {
+        assertJacksonCompatible(SHARED_NAMES, JsonObject.create().put("airlines", JsonArray.from(
+            JsonObject.create().put("name", "United").put("id", 1),
+            JsonObject.create().put("name", "Delta").put("id", 2))));
+    }
+
+    @Test
+    public void shouldMatchJacksonForLongSharedNameReferences() {
+        JsonObject first = JsonObject.create();
+        for (char c : "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ_-.+".toCharArray()) {
+            first.putNull(String.valueOf(c));
+        }
+
+        assertJacksonCompatible(LONG_SHARED_NAMES, JsonObject.create()
+            .put("first", first)
+            .put("second", JsonObject.create().put("z", true).put("y", false).put("+", 0)));
+    }
+
+    private static JsonObject longNames() {
+        return JsonObject.create()
+            .put(repeat("n", 56), 1)
+            .put(repeat("n", 57), 2)
+            .put(repeat("n", 65), 3)
+            .put(repeat("ü", 28), 4)
+            .put(repeat("ü", 29), 5);
+    }
+
+    @Test
+    public void shouldMatchJacksonForLongNames() {
+        assertJacksonCompatible(LONG_NAMES, longNames().put("nested", longNames()));
+    }
+
+    @Test
+    public void shouldMatchJacksonForNumbers() {
+        assertJacksonCompatible(NUMBERS, JsonObject.create()
+            .put("ints", JsonArray.from(0, -1, 15, -16, 16, -17, 1000, 100000, Integer.MAX_VALUE, Integer.MIN_VALUE))
+            .put("longs", JsonArray.from(1L << 40, Long.MIN_VALUE, Long.MAX_VALUE))
+            .put("bigIntegers", JsonArray.from(new BigInteger("123456789012345678901234567890"),
+                new BigInteger("-98765432109876543210")))
+            .put("bigDecimals", JsonArray.from(new BigDecimal("-12345678901234567890.0123456789"),
+                new BigDecimal("1E-40")))
+            .put("doubles", JsonArray.from(1.5, -2.25, Math.PI, Double.MAX_VALUE)));
+    }
+
+    @Test
+    public void shouldMatchJacksonForStrings() {
+        assertJacksonCompatible(STRINGS, JsonObject.create().put("values", JsonArray.from("", "a", repeat("b", 64),
+            repeat("c", 65), repeat("é", 32), repeat("é", 32) + "d", "€", null, true, false)));
+    }
+
+    @Test
+    public void shouldRoundTripAllValueTypes() {
+        JsonObject content = JsonObject.create()
+            .put("", "empty name")
+            .put("empty", "")
+            .put("tiny", "a")
+            .put("short", repeat("b", 40))
+            .put("long", repeat("c", 100))
+            .put("tinyUnicode", "été")
+            .put("shortUnicode", repeat("é", 25))
+            .put("longUnicode", repeat("€", 100))
+            .put("smallInts", JsonArray.from(-16, -1, 0, 15))
+            .put("ints", JsonArray.from(-17, 16, Integer.MIN_VALUE, Integer.MAX_VALUE))
+            .put("longs", JsonArray.from(Long.MIN_VALUE, Long.MAX_VALUE, 1L << 40))
+            .put("doubles", JsonArray.from(0.0, -1.5, Math.PI, Double.MAX_VALUE, Double.MIN_VALUE))
+            .put("booleans", JsonArray.from(true, false))
+            .put("bigInteger", new BigInteger("123456789012345678901234567890"))
+            .put("negativeBigInteger", new BigInteger("-98765432109876543210"))
+            .put("bigDecimal", new BigDecimal("-12345678901234567890.0123456789"))
+            .put("smallBigDecimal", new BigDecimal("1E-40"))
+            .putNull("null")
+            .put("nested", JsonObject.create()
+                .put("tiny", JsonArray.from(JsonObject.create().put("tiny", "again"), JsonArray.empty()))
+                .put("object", JsonObject.empty()));
+
+        assertEquals(content, roundTrip(content));
+    }
+
+    @Test
+    public void shouldRoundTripLongAndUnicodeNames() {
+        JsonObject content = JsonObject.create()
+            .put(repeat("n", 64), 1)
+            .put(repeat("n", 65), 2)
+            .put(repeat("ü", 28), 3)
+            .put(repeat("ü", 29), 4)
+            .put("nested", JsonObject.create()
+                .put(repeat("n", 64), 5)
+                .put(repeat("n", 65), 6)
+                .put(repeat("ü", 28), 7)
+                .put(repeat("ü", 29), 8));
+
+        assertEquals(content, roundTrip(content));
+    }
+
+    @Test
+    public void shouldWriteRepeatedNamesAsBackReferences() {
+        JsonArray airlines = JsonArray.empty();
+        for (int i = 0; i < 100; i++) {
+            airlines.add(JsonObject.create()
+                .put("callsign", "CS" + i)
+                .put("country", "United States")
+                .put("iata", "Q" + i)
+                .put("id", 10000 + i));
+        }
+        JsonObject content = JsonObject.create().put("airlines", airlines);
+
+        int smileSize = SmileCodec.encode(content, Unpooled.buffer()).readableBytes();
+        int jsonSize = content.toString().getBytes(CharsetUtil.UTF_8).length;
+        assertTrue(smileSize + " >= " + jsonSize, smileSize * 3 < jsonSize * 2);
+        assertEquals(content, roundTrip(content));
+    }
+
+    @Test
+    public void shouldResetSharedNamesAfterLimit() {
+        JsonArray objects = JsonArray.empty();
+        for (int o = 0; o < 3; o++) {
+            JsonObject object = JsonObject.create();
+            for (int i = 0; i < 1500; i++) {
+                object.put("key" + (i * (o + 1)), i);
+            }
+            objects.add(object);
+        }
+        JsonObject content = JsonObject.create().put("objects", objects);
+
+        assertEquals(content, roundTrip(content));
+    }
+
+    @Test
+    public void shouldEncodeIntoPooledBuffers() {
+        SmileTranscoder pooled = new SmileTranscoder(PooledByteBufAllocator.DEFAULT);
+        JsonObject content = JsonObject.create().put("name", "Couchbase").put("stars", 5);
+
+        Tuple2<ByteBuf, Integer> encoded = pooled.encode(SmileDocument.create("id", content));
+        assertEquals(content, pooled.decode("id", encoded.value1(), 0, 0, encoded.value2(),
+            ResponseStatus.SUCCESS).content());
+    }
+
+    @Test
+    public void shouldDecodeJsonDocuments() {
+        ByteBuf content = Unpooled.copiedBuffer("{\"name\":\"Couchbase\",\"stars\":5}", CharsetUtil.UTF_8);
+
+        SmileDocument decoded = converter.decode("id", content, 123, 10, TranscoderUtils.JSON_COMPAT_FLAGS,
+            ResponseStatus.SUCCESS);
+        assertEquals(JsonObject.create().put("name", "Couchbase").put("stars", 5), decoded.content());
+        assertEquals(123, decoded.cas());
+        assertEquals(10, decoded.expiry());
+        assertEquals(0, content.refCnt());
+    }
+
+    @Test(expected = TranscodingException.class)
+    public void shouldFailOnBinaryFlags() {
+        converter.decode("id", Unpooled.buffer().writeBytes(new byte[] { 1, 2, 3 }), 0, 0,
+            TranscoderUtils.BINARY_COMPAT_FLAGS, ResponseStatus.SUCCESS);
+    }
+
+    @Test(expected = TranscodingException.class)
+    public void shouldFailOnSharedStringValues() {
+        converter.decode("id", Unpooled.buffer().writeBytes(new byte[] { ':', ')', '\n', 0x03, (byte) 0xFA,
+            (byte) 0xFB }), 0, 0, TranscoderUtils.SMILE_COMPAT_FLAGS, ResponseStatus.SUCCESS);
+    }
+
+    @Test(expected = TranscodingException.class)
+    public void shouldFailOnTruncatedContent() {
+        ByteBuf encoded = SmileCodec.encode(JsonObject.create().put("name", "Couchbase"), Unpooled.buffer());
+        converter.decode("id", encoded.writerIndex(encoded.writerIndex() - 3), 0, 0,
+            TranscoderUtils.SMILE_COMPAT_FLAGS, ResponseStatus.SUCCESS);
+    }
+}
@@ -18,6 +18,7 @@ package com.couchbase.client.java.transcoder;
 import com.couchbase.client.core.lang.Tuple2;
 import com.couchbase.client.core.message.ResponseStatus;
 import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.PooledByteBufAllocator;
 import com.couchbase.client.deps.io.netty.buffer.Unpooled;
 import com.couchbase.client.deps.io.netty.util.CharsetUtil;
 import com.couchbase.client.java.document.StringDocument;
@@ -27,6 +28,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class StringTranscoderTest {
 
@@ -83,4 +85,20 @@ public class StringTranscoderTest {
             assertEquals(0, content.refCnt());
         }
     }
+
+    @Test
+    public void shouldEncodeStringIntoPooledBuffer() {
+        StringTranscoder pooled = new StringTranscoder(PooledByteBufAllocator.DEFAULT);
+        StringDocument document = StringDocument.create("id", "v\u00e4lue \u20ac");
+        Tuple2<ByteBuf, Integer> encoded = pooled.encode(document);
+
+        try {
+            assertTrue(encoded.value1().alloc() instanceof PooledByteBufAllocator);
+            assertEquals(converter.encode(document).value1(), encoded.value1());
+            assertEquals(encoded.value1().readableBytes(), encoded.value1().capacity());
+            assertEquals(TranscoderUtils.STRING_COMPAT_FLAGS, (long) encoded.value2());
+        } finally {
+            encoded.value1().release();
+        }
+    }
 }
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.transcoder;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.couchbase.client.core.lang.Tuple2;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.kv.MutationToken;
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.PooledByteBufAllocator;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.deps.io.netty.util.CharsetUtil;
+import com.couchbase.client.java.document.TypedJsonDocument;
+import com.couchbase.client.java.document.json.JsonObject;
+import com.couchbase.client.java.error.TranscodingException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TypedJsonTranscoderTest {
+
+    public static class Airline {
+        private String name;
+        private int id;
+        private List<String> callsigns;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        public List<String> getCallsigns() {
+            return callsigns;
+        }
+
+        public void setCallsigns(List<String> callsigns) {
+            this.callsigns = callsigns;
+        }
+    }
+
+    public static class AirlineDocument extends TypedJsonDocument<Airline> {
+        AirlineDocument(String id, int expiry, Airline content, long cas, MutationToken mutationToken) {
+            super(id, expiry, content, cas, mutationToken);
+        }
+    }
+
+    private static Airline airline() {
+        Airline airline = new Airline();
+        airline.setName("United");
+        airline.setId(5209);
+        airline.setCallsigns(Arrays.asList("UNITED", "UAL"));
+        return airline;
+    }
+
+    @Test
+    public void shouldEncodeContent() throws Exception {
+        TypedJsonTranscoder<Airline> transcoder = new TypedJsonTranscoder<Airline>(Airline.class);
+        Tuple2<ByteBuf, Integer> encoded = transcoder.encode(TypedJsonDocument.create("id", airline()));
+
+        assertEquals(TranscoderUtils.JSON_COMPAT_FLAGS, (int) encoded.value2());
+        JsonObject json = JsonObject.fromJson(encoded.value1().toString(CharsetUtil.UTF_8));
+        assertEquals("United", json.getString("name"));
+        assertEquals(5209, (int) json.getInt("id"));
+        assertEquals("UAL", json.getArray("callsigns").getString(1));
+    }
+
+    @Test
+    public void shouldDecodeContent() {
+        TypedJsonTranscoder<Airline> transcoder = new TypedJsonTranscoder<Airline>(Airline.class);
+        ByteBuf content = Unpooled.copiedBuffer("{\"name\":\"United\",\"id\":5209,\"callsigns\":[\"UNITED\"]}",
+            CharsetUtil.UTF_8);
+
+        TypedJsonDocument<Airline> decoded = transcoder.decode("id", content, 1234, 0,
+            TranscoderUtils.JSON_COMPAT_FLAGS, ResponseStatus.SUCCESS);
+
+        assertEquals("id", decoded.id());
+        assertEquals(1234, decoded.cas());
+        assertEquals("United", decoded.content().getName());
+        assertEquals(5209, decoded.content().getId());
+        assertEquals(Arrays.asList("UNITED"), decoded.content().getCallsigns());
+        assertEquals(0, content.refCnt());
+    }
+
+    @Test
+    public void shouldRoundTripWithPooledEncoding() {
+        TypedJsonTranscoder<Airline> transcoder = new TypedJsonTranscoder<Airline>(Airline.class,
+            PooledByteBufAllocator.DEFAULT);
+        Tuple2<ByteBuf, Integer> encoded = transcoder.encode(TypedJsonDocument.create("id", airline()));
+
+        TypedJsonDocument<Airline> decoded = transcoder.decode("id", encoded.value1(), 1, 0, encoded.value2(),
+            ResponseStatus.SUCCESS);
+
+        assertEquals("United", decoded.content().getName());
+        assertEquals(Arrays.asList("UNITED", "UAL"), decoded.content().getCallsigns());
+        assertEquals(0, encoded.value1().refCnt());
+    }
+
+    @Test
+    public void shouldCreateDocumentSubclasses() {
+        TypedJsonTranscoder<Airline> transcoder = new TypedJsonTranscoder<Airline>(AirlineDocument.class,
+            Airline.class) {
+            @Override
+            public TypedJsonDocument<Airline> newDocument(String id, int expiry, Airline content, long cas,
+                MutationToken mutationToken) {
+                return new AirlineDocument(id, expiry, content, cas, mutationToken);
+            }
+        };
+        ByteBuf content = Unpooled.copiedBuffer("{\"name\":\"United\"}", CharsetUtil.UTF_8);
+
+        TypedJsonDocument<Airline> decoded = transcoder.decode("id", content, 1, 0,
+            TranscoderUtils.JSON_COMPAT_FLAGS, ResponseStatus.SUCCESS);
+
+        assertSame(AirlineDocument.class, transcoder.documentType());
+        assertTrue(decoded instanceof AirlineDocument);
+        assertEquals("United", decoded.content().getName());
+    }
+
+    @Test
+    public void shouldEncodeWithoutContentType() {
+        TypedJsonTranscoder<Object> transcoder = new TypedJsonTranscoder<Object>();
+        Tuple2<ByteBuf, Integer> encoded = transcoder.encode(TypedJsonDocument.<Object>create("id", airline()));
+
+        JsonObject json = JsonObject.fromJson(encoded.value1().toString(CharsetUtil.UTF_8));
+        assertEquals("United", json.getString("name"));
+        assertNull(transcoder.contentType());
+    }
+
+    @Test(expected = TranscodingException.class)
+    public void shouldFailToDecodeWithoutContentType() {
+        TypedJsonTranscoder<Object> transcoder = new TypedJsonTranscoder<Object>();
+        ByteBuf content = Unpooled.copiedBuffer("{\"name\":\"United\"}", CharsetUtil.UTF_8);
+        try {
+            transcoder.decode("id", content, 1, 0, TranscoderUtils.JSON_COMPAT_FLAGS, ResponseStatus.SUCCESS);
+        } finally {
+            assertEquals(0, content.refCnt());
+        }
+    }
+
+    @Test(expected = TranscodingException.class)
+    public void shouldFailOnNonJsonFlags() {
+        TypedJsonTranscoder<Airline> transcoder = new TypedJsonTranscoder<Airline>(Airline.class);
+        ByteBuf content = Unpooled.copiedBuffer("{\"name\":\"United\"}", CharsetUtil.UTF_8);
+        transcoder.decode("id", content, 1, 0, TranscoderUtils.BINARY_COMPAT_FLAGS, ResponseStatus.SUCCESS);
+    }
+
+    @Test
+    public void shouldCacheWriters() {
+        assertSame(JacksonTransformers.writerFor(Airline.class), JacksonTransformers.writerFor(Airline.class));
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.config.CouchbaseBucketConfig;
+import com.couchbase.client.core.config.NodeInfo;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.java.AsyncBucket;
+import com.couchbase.client.java.CouchbaseBucket;
+import com.couchbase.client.java.bucket.api.PartitionGrouping;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.env.CouchbaseEnvironment;
+import com.couchbase.client.java.error.DocumentDoesNotExistException;
+import com.couchbase.client.java.util.AdaptiveTimeouts.Operation;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+
+public class AdaptiveTimeoutsTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static AdaptiveTimeoutOptions options() {
+        return AdaptiveTimeoutOptions.adaptiveTimeoutOptions()
+            .minSamples(100)
+            .multiplier(4)
+            .floor(1, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void shouldUseCeilingUntilEnoughSamples() {
+        AdaptiveTimeouts timeouts = new AdaptiveTimeouts(options(), 2500);
+        assertEquals(2500, timeouts.timeoutMillis(Operation.GET, "a"));
+
+        for (int i = 0; i < 99; i++) {
+            timeouts.record(Operation.GET, "a", 10 * MILLI);
+        }
+        assertEquals(2500, timeouts.timeoutMillis(Operation.GET, "a"));
+
+        timeouts.record(Operation.GET, "a", 10 * MILLI);
+        long adapted = timeouts.timeoutMillis(Operation.GET, "a");
+        assertTrue("timeout was " + adapted, adapted >= 40 && adapted <= 45);
+        assertEquals(2500, timeouts.timeoutMillis(Operation.UPSERT, "a"));
+        assertEquals(Long.valueOf(adapted), timeouts.stats().timeoutMillis().get("get"));
+    }
+
+    @Test
+    public void shouldClampBetweenFloorAndCeiling() {
+        AdaptiveTimeouts timeouts = new AdaptiveTimeouts(options().floor(50, TimeUnit.MILLISECONDS), 2500);
+        for (int i = 0; i < 100; i++) {
+            timeouts.record(Operation.GET, "a", 10000);
+            timeouts.record(Operation.UPSERT, "a", 2000 * MILLI);
+        }
+        assertEquals(50, timeouts.timeoutMillis(Operation.GET, "a"));
+        assertEquals(2500, timeouts.timeoutMillis(Operation.UPSERT, "a"));
+    }
+
+    @Test
+    public void shouldKeepTimeoutsPerNode() {
+        AdaptiveTimeouts timeouts = new AdaptiveTimeouts(options(), 2500);
+        timeouts.onConfig(config("fast", "slow"));
+        String fast = idOnNode(0);
+        String slow = idOnNode(1);
+
+        for (int i = 0; i < 100; i++) {
+            timeouts.record(Operation.GET, fast, MILLI);
+        }
+        for (int i = 0; i < 99; i++) {
+            timeouts.record(Operation.GET, slow, 100 * MILLI);
+        }
+
+        long fastTimeout = timeouts.timeoutMillis(Operation.GET, fast);
+        assertTrue("timeout was " + fastTimeout, fastTimeout >= 4 && fastTimeout <= 5);
+        // the slow node has not seen enough samples on its own, so it uses the timeout across all nodes
+        long allTimeout = timeouts.timeoutMillis(Operation.GET, slow);
+        assertTrue("timeout was " + allTimeout, allTimeout >= 400 && allTimeout <= 450);
+
+        timeouts.record(Operation.GET, slow, 100 * MILLI);
+        long slowTimeout = timeouts.timeoutMillis(Operation.GET, slow);
+        assertTrue("timeout was " + slowTimeout, slowTimeout >= 400 && slowTimeout <= 450);
+        assertEquals(Long.valueOf(fastTimeout), timeouts.stats().nodeTimeoutMillis().get("fast").get("get"));
+
+        timeouts.onConfig(config("fast"));
+        assertNull(timeouts.stats().nodeTimeoutMillis().get("slow"));
+    }
+
+    @Test
+    public void shouldCountTimeoutsSeparately() {
+        AdaptiveTimeouts timeouts = new AdaptiveTimeouts(options(), 2500);
+
+        TestSubscriber<Object> subscriber = TestSubscriber.create();
+        timeouts.watch(Operation.GET, "a", Observable.error(new TimeoutException())).subscribe(subscriber);
+        subscriber.assertError(TimeoutException.class);
+        timeouts.watch(Operation.GET, "a", Observable.error(new DocumentDoesNotExistException()))
+            .subscribe(TestSubscriber.create());
+        timeouts.watch(Operation.GET, "a", Observable.just("doc")).subscribe(TestSubscriber.create());
+
+        AdaptiveTimeoutStats stats = timeouts.stats();
+        assertEquals(2, stats.recorded());
+        assertEquals(1, stats.timeouts());
+        assertEquals(1.0 / 3, stats.timeoutRatio(), 0.0001);
+    }
+
+    @Test
+    public void shouldRaiseTimeoutWhenOperationsTimeOut() {
+        AdaptiveTimeouts timeouts = new AdaptiveTimeouts(options(), 2500);
+        for (int i = 0; i < 100; i++) {
+            timeouts.record(Operation.GET, "a", 10 * MILLI);
+        }
+        long adapted = timeouts.timeoutMillis(Operation.GET, "a");
+        assertTrue("timeout was " + adapted, adapted >= 40 && adapted <= 45);
+
+        // a single timeout stays below the percentile
+        timeouts.recordTimeout(Operation.GET, "a");
+        for (int i = 0; i < 63; i++) {
+            timeouts.record(Operation.GET, "a", 10 * MILLI);
+        }
+        assertEquals(adapted, timeouts.timeoutMillis(Operation.GET, "a"));
+
+        // once the latency stays above the timeout, it recovers up to the ceiling
+        for (int i = 0; i < 1000; i++) {
+            timeouts.recordTimeout(Operation.GET, "a");
+        }
+        assertEquals(2500, timeouts.timeoutMillis(Operation.GET, "a"));
+        assertEquals(1001, timeouts.stats().timeouts());
+    }
+
+    @Test
+    public void shouldApplyAdaptiveTimeoutsInBucket() {
+        CouchbaseEnvironment environment = mock(CouchbaseEnvironment.class);
+        when(environment.kvTimeout()).thenReturn(2500L);
+        ClusterFacade core = mock(ClusterFacade.class);
+        when(core.send(any(CouchbaseRequest.class)))
+            .thenReturn(Observable.<CouchbaseResponse>error(new IllegalStateException()));
+        AsyncBucket asyncBucket = mock(AsyncBucket.class);
+        when(asyncBucket.get(eq("a"), anyLong(), eq(TimeUnit.MILLISECONDS)))
+            .thenReturn(Observable.<JsonDocument>empty());
+        CouchbaseBucket bucket = new CouchbaseBucket(asyncBucket, environment, core, "default", "", "");
+
+        bucket.get("a");
+        bucket.enableAdaptiveTimeouts(AdaptiveTimeoutOptions.adaptiveTimeoutOptions()
+            .minSamples(1)
+            .floor(500, TimeUnit.MILLISECONDS));
+        bucket.get("a");
+        bucket.get("a");
+        bucket.disableAdaptiveTimeouts();
+        bucket.get("a");
+
+        ArgumentCaptor<Long> timeouts = ArgumentCaptor.forClass(Long.class);
+        verify(asyncBucket, times(4)).get(eq("a"), timeouts.capture(), eq(TimeUnit.MILLISECONDS));
+        assertEquals(Arrays.asList(2500L, 2500L, 500L, 2500L), timeouts.getAllValues());
+        assertNull(bucket.adaptiveTimeoutStats());
+    }
+
+    /**
+     * Finds an ID whose partition maps to the given node in {@link #config(String...)}.
+     */
+    private static String idOnNode(int node) {
+        for (int i = 0; ; i++) {
+            String id = "id" + i;
+            if (PartitionGrouping.partitionForId(id, 1024) % 2 == node) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * A config with 1024 partitions, even ones on the first node and odd ones on the second.
+     */
+    private static CouchbaseBucketConfig config(String... hostnames) {
+        CouchbaseBucketConfig config = mock(CouchbaseBucketConfig.class);
+        NodeInfo[] nodes = new NodeInfo[hostnames.length];
+        for (int i = 0; i < hostnames.length; i++) {
+            nodes[i] = mock(NodeInfo.class);
+            when(nodes[i].hostname()).thenReturn(hostnames[i]);
+            when(config.nodeAtIndex(i)).thenReturn(nodes[i]);
+        }
+        when(config.nodes()).thenReturn(Arrays.asList(nodes));
+        when(config.numberOfPartitions()).thenReturn(1024);
+        when(config.nodeIndexForMaster(anyInt(), eq(false))).thenAnswer(new Answer<Short>() {
+            @Override
+            public Short answer(InvocationOnMock invocation) {
+                return (short) ((Integer) invocation.getArguments()[0] % 2);
+            }
+        });
+        return config;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void shouldMapValuesToBucketsContainingThem() {
+        for (long value : new long[] { 0, 1, 7, 8, 9, 15, 16, 100, 1000, 123456, Long.MAX_VALUE >> 1 }) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(value <= LatencyHistogram.upperBoundOf(bucket));
+            if (bucket > 0) {
+                assertTrue(value > LatencyHistogram.upperBoundOf(bucket - 1));
+            }
+        }
+    }
+
+    @Test
+    public void shouldReturnPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram(Long.MAX_VALUE);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(1000, histogram.count());
+        long p50 = histogram.percentile(0.5);
+        long p99 = histogram.percentile(0.99);
+        assertTrue("p50 was " + p50, p50 >= 500 && p50 <= 500 * 1.125);
+        assertTrue("p99 was " + p99, p99 >= 990 && p99 <= 990 * 1.125);
+        assertEquals(0, new LatencyHistogram(10).percentile(0.5));
+    }
+
+    @Test
+    public void shouldFollowRecentSamples() {
+        LatencyHistogram histogram = new LatencyHistogram(100);
+        for (int i = 0; i < 1000; i++) {
+            histogram.record(10);
+        }
+        for (int i = 0; i < 1000; i++) {
+            histogram.record(10000);
+        }
+
+        assertTrue(histogram.count() < 200);
+        assertTrue(histogram.percentile(0.5) >= 10000);
+    }
+}
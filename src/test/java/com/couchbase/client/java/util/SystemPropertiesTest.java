@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.util;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SystemPropertiesTest {
+
+    private static final String NAME = "com.couchbase.test.systemPropertiesTest";
+
+    @After
+    public void clear() {
+        System.clearProperty(NAME);
+    }
+
+    @Test
+    public void shouldUseDefaultIfNotSet() {
+        assertEquals(42, SystemProperties.intProperty(NAME, 42, 1));
+    }
+
+    @Test
+    public void shouldParseValidValue() {
+        System.setProperty(NAME, " 7 ");
+        assertEquals(7, SystemProperties.intProperty(NAME, 42, 1));
+    }
+
+    @Test
+    public void shouldFallBackOnMalformedValue() {
+        System.setProperty(NAME, "lots");
+        assertEquals(42, SystemProperties.intProperty(NAME, 42, 1));
+    }
+
+    @Test
+    public void shouldFallBackOnValueBelowMinimum() {
+        System.setProperty(NAME, "0");
+        assertEquals(42, SystemProperties.intProperty(NAME, 42, 1));
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2020 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.java.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.AdditionalMatchers.geq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.couchbase.client.java.AsyncBucket;
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.ReplicaMode;
+import com.couchbase.client.java.document.JsonDocument;
+import com.couchbase.client.java.env.CouchbaseEnvironment;
+import com.couchbase.client.java.document.json.JsonObject;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Observable;
+import rx.functions.Action0;
+import rx.schedulers.Schedulers;
+
+public class TransparentReplicaGetHelperTest {
+
+    private static final JsonDocument PRIMARY = JsonDocument.create("id", JsonObject.create().put("from", "primary"));
+    private static final JsonDocument REPLICA = JsonDocument.create("id", JsonObject.create().put("from", "replica"));
+
+    private Bucket bucket;
+    private AsyncBucket asyncBucket;
+
+    @Before
+    public void setup() {
+        bucket = mock(Bucket.class);
+        asyncBucket = mock(AsyncBucket.class);
+        when(bucket.async()).thenReturn(asyncBucket);
+        CouchbaseEnvironment environment = mock(CouchbaseEnvironment.class);
+        when(environment.scheduler()).thenReturn(Schedulers.computation());
+        when(bucket.environment()).thenReturn(environment);
+        when(asyncBucket.getFromReplica("id", ReplicaMode.FIRST, JsonDocument.class))
+            .thenReturn(Observable.just(REPLICA));
+        when(asyncBucket.getFromReplica("id", ReplicaMode.ALL, JsonDocument.class))
+            .thenReturn(Observable.just(REPLICA));
+    }
+
+    private void primaryAnswersAfter(long millis, final AtomicBoolean cancelled) {
+        when(asyncBucket.get("id", JsonDocument.class)).thenReturn(Observable.just(PRIMARY)
+            .delay(millis, TimeUnit.MILLISECONDS)
+            .doOnUnsubscribe(new Action0() {
+                @Override
+                public void call() {
+                    cancelled.set(true);
+                }
+            }));
+    }
+
+    @Test
+    public void shouldNotHedgeFastPrimary() {
+        primaryAnswersAfter(0, new AtomicBoolean());
+        HedgingPolicy policy = HedgingPolicy.hedgingPolicy().initialDelay(1, TimeUnit.SECONDS);
+
+        JsonDocument doc = TransparentReplicaGetHelper.getFirstPrimaryOrReplica("id", JsonDocument.class, bucket,
+            5000, 5000, policy).toBlocking().value();
+
+        assertSame(PRIMARY, doc);
+        assertEquals(1, policy.reads());
+        assertEquals(0, policy.hedges());
+    }
+
+    @Test
+    public void shouldReturnReplicaAndCancelSlowPrimary() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        primaryAnswersAfter(2000, cancelled);
+        HedgingPolicy policy = HedgingPolicy.hedgingPolicy().initialDelay(10, TimeUnit.MILLISECONDS);
+
+        JsonDocument doc = TransparentReplicaGetHelper.getFirstPrimaryOrReplica("id", JsonDocument.class, bucket,
+            5000, 5000, policy).toBlocking().value();
+
+        assertSame(REPLICA, doc);
+        assertTrue(cancelled.get());
+        assertEquals(1, policy.hedges());
+        assertEquals(1, policy.hedgeWins());
+        assertEquals(1.0, policy.hedgeRate(), 0.0);
+        verify(asyncBucket, never()).getFromReplica("id", ReplicaMode.ALL, JsonDocument.class);
+    }
+
+    @Test
+    public void shouldRecordLatencyOfCancelledPrimaryAsLowerBound() {
+        primaryAnswersAfter(2000, new AtomicBoolean());
+        HedgingPolicy policy = spy(HedgingPolicy.hedgingPolicy().initialDelay(10, TimeUnit.MILLISECONDS));
+
+        JsonDocument doc = TransparentReplicaGetHelper.getFirstPrimaryOrReplica("id", JsonDocument.class, bucket,
+            5000, 5000, policy).toBlocking().value();
+
+        assertSame(REPLICA, doc);
+        verify(policy, times(1)).onPrimaryLatency(geq(10000L));
+    }
+
+    @Test
+    public void shouldWaitForPrimaryWhenHedgeFails() {
+        primaryAnswersAfter(100, new AtomicBoolean());
+        when(asyncBucket.getFromReplica("id", ReplicaMode.FIRST, JsonDocument.class))
+            .thenReturn(Observable.<JsonDocument>error(new IllegalStateException()));
+        HedgingPolicy policy = HedgingPolicy.hedgingPolicy().initialDelay(1, TimeUnit.MILLISECONDS);
+
+        JsonDocument doc = TransparentReplicaGetHelper.getFirstPrimaryOrReplica("id", JsonDocument.class, bucket,
+            5000, 5000, policy).toBlocking().value();
+
+        assertSame(PRIMARY, doc);
+        assertEquals(1, policy.hedges());
+        assertEquals(0, policy.hedgeWins());
+    }
+
+    @Test
+    public void shouldReadReplicasOnceWhenHedgedPrimaryFails() {
+        final AtomicInteger replicaReads = new AtomicInteger();
+        when(asyncBucket.getFromReplica("id", ReplicaMode.FIRST, JsonDocument.class))
+            .thenReturn(Observable.just(REPLICA).delay(100, TimeUnit.MILLISECONDS).doOnSubscribe(new Action0() {
+                @Override
+                public void call() {
+                    replicaReads.incrementAndGet();
+                }
+            }));
+        when(asyncBucket.get("id", JsonDocument.class)).thenReturn(Observable.just(PRIMARY)
+            .delay(20, TimeUnit.MILLISECONDS)
+            .concatWith(Observable.<JsonDocument>error(new IllegalStateException())).skip(1));
+        HedgingPolicy policy = HedgingPolicy.hedgingPolicy().initialDelay(1, TimeUnit.MILLISECONDS);
+
+        JsonDocument doc = TransparentReplicaGetHelper.getFirstPrimaryOrReplica("id", JsonDocument.class, bucket,
+            5000, 5000, policy).toBlocking().value();
+
+        assertSame(REPLICA, doc);
+        assertEquals(1, policy.hedges());
+        assertEquals(1, replicaReads.get());
+        verify(asyncBucket, never()).getFromReplica("id", ReplicaMode.ALL, JsonDocument.class);
+    }
+
+    @Test
+    public void shouldRespectHedgeBudget() {
+        HedgingPolicy policy = HedgingPolicy.hedgingPolicy().budgetPercent(10);
+        int hedged = 0;
+        for (int i = 0; i < 1000; i++) {
+            policy.onRead();
+            if (policy.tryHedge()) {
+                hedged++;
+            }
+        }
+
+        // one hedge of initial budget plus one per ten reads
+        assertTrue("hedged " + hedged, hedged >= 100 && hedged <= 101);
+        assertEquals(1000 - hedged, policy.budgetRejections());
+    }
+
+    @Test
+    public void shouldAdaptDelayToPrimaryLatency() {
+        HedgingPolicy policy = HedgingPolicy.hedgingPolicy().percentile(0.9)
+            .initialDelay(50, TimeUnit.MILLISECONDS);
+        assertEquals(50000, policy.hedgeDelayMicros());
+        for (int i = 1; i <= 1024; i++) {
+            policy.onRead();
+            policy.onPrimaryLatency(i % 10 == 0 ? 5000 : 200);
+        }
+
+        long delay = policy.hedgeDelayMicros();
+        assertTrue("delay was " + delay, delay >= 200 && delay < 250);
+        policy.minDelay(1, TimeUnit.MILLISECONDS);
+        assertEquals(1000, policy.hedgeDelayMicros());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidPercentile() {
+        HedgingPolicy.hedgingPolicy().percentile(1);
+    }
+}